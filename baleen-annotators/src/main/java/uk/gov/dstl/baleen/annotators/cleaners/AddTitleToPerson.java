@@ -15,6 +15,7 @@ import uk.gov.dstl.baleen.annotators.grammatical.NPTitleEntity;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.Person;
 import uk.gov.dstl.baleen.uima.BaleenAnnotator;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Add title (mr, president, etc) information to previously found people.
@@ -89,6 +90,10 @@ public class AddTitleToPerson extends BaleenAnnotator {
 			}
 		}
 		
+		if(replacementMade){
+			DerivedIndexCache.invalidate(p);
+		}
+		
 		return replacementMade;
 	}
 	
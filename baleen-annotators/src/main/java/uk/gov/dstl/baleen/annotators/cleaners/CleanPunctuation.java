@@ -15,6 +15,7 @@ import com.google.common.collect.ImmutableSet;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.uima.BaleenAnnotator;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Clean up the punctuation in entities
@@ -96,8 +97,11 @@ public class CleanPunctuation extends BaleenAnnotator {
 			}
 		}
 		
-		e.setBegin(begin);
-		e.setEnd(end);
+		if(begin != e.getBegin() || end != e.getEnd()){
+			e.setBegin(begin);
+			e.setEnd(end);
+			DerivedIndexCache.invalidate(e);
+		}
 	}
 
 	private String removeStartPunctuation(String s){
@@ -12,6 +12,7 @@ import com.google.common.collect.ImmutableSet;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.semantic.Location;
 import uk.gov.dstl.baleen.uima.BaleenAnnotator;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Tries to find instances where a single location may have been split into
@@ -71,6 +72,7 @@ public class CollapseLocations extends BaleenAnnotator{
 			String betweenText = jCas.getDocumentText().substring(l1.getEnd(), l2.getBegin());
 			if("of".equals(betweenText.trim())){
 				l2.setBegin(l1.getBegin());
+				DerivedIndexCache.invalidate(l2);
 				l2.setValue(l2.getCoveredText());
 				mergeWithExisting(l2, l1);
 			}
@@ -18,6 +18,7 @@ import uk.gov.dstl.baleen.types.common.Quantity;
 import uk.gov.dstl.baleen.types.semantic.Location;
 import uk.gov.dstl.baleen.uima.BaleenTextAwareAnnotator;
 import uk.gov.dstl.baleen.uima.data.TextBlock;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Where a Location is preceded by text such as "20km east of", or "100m north west of",
@@ -59,6 +60,7 @@ public class ExpandLocationToDescription extends BaleenTextAwareAnnotator{
 			if(ma.matches()){
 				l.setBegin(ma.start(1));
 				l.setGeoJson(null);
+				DerivedIndexCache.invalidate(l);
 				
 				continue;
 			}
@@ -71,6 +73,8 @@ public class ExpandLocationToDescription extends BaleenTextAwareAnnotator{
 				Quantity q = findQuantity(quantities, l);
 				if(q != null)
 					quantitiesToRemove.add(q);
+				
+				DerivedIndexCache.invalidate(l);
 			}
 		}
 		
@@ -15,6 +15,7 @@ import uk.gov.dstl.baleen.types.common.Nationality;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.uima.BaleenTextAwareAnnotator;
 import uk.gov.dstl.baleen.uima.data.TextBlock;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Merge Nationality entities into an adjacent following entity of any time.
@@ -43,6 +44,7 @@ public class MergeNationalityIntoEntity extends BaleenTextAwareAnnotator {
 			String between = block.getDocumentText().substring(n.getEnd(), e.getBegin());
 			if(between.trim().isEmpty()){
 				e.setBegin(n.getBegin());	
+				DerivedIndexCache.invalidate(e);
 				e.setValue(e.getCoveredText());
 				mergeWithExisting(e, n);
 				
@@ -15,6 +15,7 @@ import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.types.semantic.ReferenceTarget;
 import uk.gov.dstl.baleen.uima.BaleenAnnotator;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Identify entities that include brackets, and split them into separate coreferenced entities
@@ -58,6 +59,7 @@ public class SplitBrackets extends BaleenAnnotator {
 			
 			if(text.length() != e.getCoveredText().length()){
 				e.setEnd(e.getBegin() + text.length());
+				DerivedIndexCache.invalidate(e);
 				e.setValue(e.getCoveredText());
 			}
 		}
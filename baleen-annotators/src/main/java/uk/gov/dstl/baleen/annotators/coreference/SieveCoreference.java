@@ -207,8 +207,8 @@ public class SieveCoreference extends BaleenAnnotator {
 	@Override
 	protected void doProcess(JCas jCas) throws AnalysisEngineProcessException {
 
-		DependencyGraph dependencyGraph = DependencyGraph.build(jCas);
-		ParseTree parseTree = ParseTree.build(jCas);
+		DependencyGraph dependencyGraph = DependencyGraph.getInstance(jCas);
+		ParseTree parseTree = ParseTree.getInstance(jCas);
 
 		// Detect mentions
 		List<Mention> mentions = new MentionDetector(jCas, dependencyGraph).detect();
@@ -23,6 +23,7 @@ import uk.gov.dstl.baleen.types.language.PhraseChunk;
 import uk.gov.dstl.baleen.types.language.WordToken;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.uima.grammar.DependencyGraph;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Extract mentions from the jCas.
@@ -140,12 +141,12 @@ public class MentionDetector {
 				.collect(Collectors.toList());
 
 		// Remove any noun phrases which cover entities
-		JCasUtil.indexCovering(jCas, Entity.class, PhraseChunk.class).values()
+		DerivedIndexCache.indexCovering(jCas, Entity.class, PhraseChunk.class).values()
 				.stream()
 				.flatMap(e -> e.stream())
 				.forEach(phrases::remove);
 
-		final Map<PhraseChunk, Collection<WordToken>> phraseToWord = JCasUtil.indexCovered(jCas, PhraseChunk.class,
+		final Map<PhraseChunk, Collection<WordToken>> phraseToWord = DerivedIndexCache.indexCovered(jCas, PhraseChunk.class,
 				WordToken.class);
 
 		// Create an index for head words
@@ -185,7 +186,7 @@ public class MentionDetector {
 				});
 
 		// Remove all phrases based on their single content
-		JCasUtil.indexCovering(jCas, PhraseChunk.class,
+		DerivedIndexCache.indexCovering(jCas, PhraseChunk.class,
 				WordToken.class)
 				.entrySet()
 				.stream()
@@ -20,6 +20,7 @@ import uk.gov.dstl.baleen.types.language.PhraseChunk;
 import uk.gov.dstl.baleen.types.language.Sentence;
 import uk.gov.dstl.baleen.types.language.WordToken;
 import uk.gov.dstl.baleen.types.semantic.Entity;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Adds the sentence and its index (count from the start) to each mention.
@@ -54,15 +55,15 @@ public class SentenceEnhancer {
 				.map(p -> (PhraseChunk) p.getAnnotation())
 				.collect(Collectors.toSet());
 
-		final Map<WordToken, Collection<Sentence>> wordToSentence = JCasUtil.indexCovering(jCas, WordToken.class,
+		final Map<WordToken, Collection<Sentence>> wordToSentence = DerivedIndexCache.indexCovering(jCas, WordToken.class,
 				Sentence.class).entrySet().stream()
 				.filter(e -> pronounAnnotation.contains(e.getKey()))
 				.collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-		final Map<Entity, Collection<Sentence>> entityToSentence = JCasUtil.indexCovering(jCas, Entity.class,
+		final Map<Entity, Collection<Sentence>> entityToSentence = DerivedIndexCache.indexCovering(jCas, Entity.class,
 				Sentence.class).entrySet().stream()
 				.filter(e -> entityAnnotation.contains(e.getKey()))
 				.collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-		final Map<PhraseChunk, Collection<Sentence>> npToSentence = JCasUtil.indexCovering(jCas, PhraseChunk.class,
+		final Map<PhraseChunk, Collection<Sentence>> npToSentence = DerivedIndexCache.indexCovering(jCas, PhraseChunk.class,
 				Sentence.class).entrySet().stream()
 				.filter(e -> npAnnotation.contains(e.getKey()))
 				.collect(Collectors.toMap(Entry::getKey, Entry::getValue));
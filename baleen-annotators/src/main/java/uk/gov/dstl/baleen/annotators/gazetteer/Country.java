@@ -45,7 +45,7 @@ public class Country extends AbstractAhoCorasickAnnotator {
 	@Override
 	public IGazetteer configureGazetteer() throws BaleenException {
 		IGazetteer gaz = new CountryGazetteer();
-		gaz.init(countryResource, GazetteerUtils.configureCountry(caseSensitive));
+		gaz.init(countryResource, configureStore(GazetteerUtils.configureCountry(caseSensitive)));
 		
 		return gaz;
 	}
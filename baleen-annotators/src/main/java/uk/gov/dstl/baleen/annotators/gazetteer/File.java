@@ -65,6 +65,7 @@ public class File extends AbstractAhoCorasickAnnotator {
 		config.put(FileGazetteer.CONFIG_CASE_SENSITIVE, caseSensitive);
 		config.put(FileGazetteer.CONFIG_FILE, fileName);
 		config.put(FileGazetteer.CONFIG_TERM_SEPARATOR, termSeparator);
+		configureStore(config);
 		
 		IGazetteer gaz = new FileGazetteer();
 		gaz.init(fileResource, config);
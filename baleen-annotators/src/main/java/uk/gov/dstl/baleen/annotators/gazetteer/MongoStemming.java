@@ -49,6 +49,26 @@ public class MongoStemming extends AbstractStemmingAhoCorasickAnnotator {
 	@ConfigurationParameter(name = PARAM_VALUE_FIELD, defaultValue = "value")
 	private String valueField;
 	
+	/**
+	 * How the additional data of gazetteer entries is retrieved: PRELOAD to read it all when the gazetteer
+	 * is loaded, CACHE to read it when first needed and keep it in a bounded cache, or QUERY to read it
+	 * every time it is needed.
+	 * 
+	 * @baleen.config CACHE
+	 */
+	public static final String PARAM_ADDITIONAL_DATA_STRATEGY = "additionalDataStrategy";
+	@ConfigurationParameter(name = PARAM_ADDITIONAL_DATA_STRATEGY, defaultValue = "CACHE")
+	private String additionalDataStrategy;
+	
+	/**
+	 * The approximate number of characters of additional data to cache, if additionalDataStrategy is CACHE
+	 * 
+	 * @baleen.config 10000000
+	 */
+	public static final String PARAM_ADDITIONAL_DATA_CACHE_SIZE = "additionalDataCacheSize";
+	@ConfigurationParameter(name = PARAM_ADDITIONAL_DATA_CACHE_SIZE, defaultValue = "10000000")
+	private Integer additionalDataCacheSize;
+	
 	/**
 	 * Constructor
 	 */
@@ -59,7 +79,8 @@ public class MongoStemming extends AbstractStemmingAhoCorasickAnnotator {
 	@Override
 	public IGazetteer configureGazetteer() throws BaleenException {
 		IGazetteer gaz = new MongoGazetteer();
-		gaz.init(mongo, GazetteerUtils.configureMongo(caseSensitive, collection, valueField));
+		gaz.init(mongo, configureStore(GazetteerUtils.configureMongo(caseSensitive, collection, valueField,
+				additionalDataStrategy, additionalDataCacheSize)));
 		
 		return gaz;
 	}
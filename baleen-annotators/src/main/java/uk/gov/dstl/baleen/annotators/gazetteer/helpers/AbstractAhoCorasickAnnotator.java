@@ -1,7 +1,6 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.annotators.gazetteer.helpers;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -9,11 +8,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import org.ahocorasick.trie.Emit;
 import org.ahocorasick.trie.Trie;
-import org.ahocorasick.trie.Trie.TrieBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.uima.UIMAException;
 import org.apache.uima.UimaContext;
@@ -25,18 +27,22 @@ import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.cas.StringArray;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
-import org.atteo.evo.inflector.English;
 import org.bson.Document;
 
+import com.codahale.metrics.Timer;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import uk.gov.dstl.baleen.exceptions.BaleenException;
+import uk.gov.dstl.baleen.resources.gazetteer.AbstractMultiMapGazetteer;
 import uk.gov.dstl.baleen.resources.gazetteer.IGazetteer;
 import uk.gov.dstl.baleen.types.BaleenAnnotation;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.types.semantic.ReferenceTarget;
 import uk.gov.dstl.baleen.uima.BaleenTextAwareAnnotator;
 import uk.gov.dstl.baleen.uima.data.TextBlock;
+import uk.gov.dstl.baleen.uima.utils.AccessorRegistry;
+import uk.gov.dstl.baleen.uima.utils.PropertySetter;
 import uk.gov.dstl.baleen.uima.utils.TypeSystemSingleton;
 import uk.gov.dstl.baleen.uima.utils.TypeUtils;
 
@@ -115,10 +121,37 @@ public abstract class AbstractAhoCorasickAnnotator extends BaleenTextAwareAnnota
 	protected boolean plurals;
 	
 
+	/**
+	 * How the gazetteer should store its terms, if it is backed by an AbstractMultiMapGazetteer: MULTIMAP,
+	 * or COMPACT, COMPACT_DIRECT or COMPACT_MAPPED to use a compact store held on the heap, off the heap or in
+	 * a memory mapped file, which uses much less memory for large gazetteers.
+	 *
+	 * @baleen.config MULTIMAP
+	 */
+	public static final String PARAM_STORE = "gazetteerStore";
+	@ConfigurationParameter(name = PARAM_STORE, defaultValue = "MULTIMAP")
+	protected String gazetteerStore;
+
+	/**
+	 * How often, in seconds, to check whether the gazetteer has changed. If it has, it is reloaded and
+	 * a new trie built in the background, which is then used from the next document onwards. Set to 0
+	 * to disable reloading.
+	 *
+	 * @baleen.config 0
+	 */
+	public static final String PARAM_RELOAD_INTERVAL = "reloadInterval";
+	@ConfigurationParameter(name = PARAM_RELOAD_INTERVAL, defaultValue = "0")
+	protected Integer reloadInterval;
+
 	protected IGazetteer gazetteer;
 	protected Class<? extends Annotation> entityType;
+	private Map<String, PropertySetter> entitySetters;
 	protected Trie trie;
 
+	private final AtomicReference<LoadedGazetteer> pending = new AtomicReference<>();
+	private volatile IGazetteer latest;
+	private ScheduledExecutorService reloader;
+
 	private static final String ERROR_CANT_ASSIGN_ENTITY_PROPERTY = "Unable to assign property on entity - property will be skipped";
 
 	/**
@@ -141,52 +174,144 @@ public abstract class AbstractAhoCorasickAnnotator extends BaleenTextAwareAnnota
 	@SuppressWarnings("unchecked")
 	@Override
 	public void doInitialize(UimaContext aContext) throws ResourceInitializationException {
-		try {
-			gazetteer = configureGazetteer();
-		} catch (BaleenException be) {
-			throw new ResourceInitializationException(be);
-		}
-
-		buildTrie();
-
 		try {
 			entityType = (Class<? extends Annotation>) TypeUtils.getType(type, JCasFactory.createJCas(TypeSystemSingleton.getTypeSystemDescriptionInstance()));
 			if (entityType == null) {
 				getMonitor().warn("Type {} not found, Entity will be used instead", type);
 				entityType = Entity.class;
 			}
+			entitySetters = AccessorRegistry.getSetters(entityType);
 		} catch (UIMAException e) {
 			throw new ResourceInitializationException(e);
 		}
 	}
 
 	/**
-	 * Build the Trie and set the <em>trie</em> variable. This method can be overridden if you want
-	 * to modify the gazetteer before parsing it.
+	 * Add the configured store to the configuration of a gazetteer that extends AbstractMultiMapGazetteer
+	 *
+	 * @param config
+	 *            The configuration, which must be modifiable
+	 * @return the configuration
 	 */
-	protected void buildTrie() {
-		TrieBuilder builder = Trie.builder().onlyWholeWords();
+	protected Map<String, Object> configureStore(Map<String, Object> config) {
+		config.put(AbstractMultiMapGazetteer.CONFIG_STORE, gazetteerStore);
+		return config;
+	}
 
-		if (!caseSensitive) {
-			builder = builder.ignoreCase();
+	/**
+	 * Load the gazetteer and build the trie, which may be deferred until the first document
+	 * if the pipeline is lazy.
+	 *
+	 * If a reload interval has been configured, the gazetteer is then checked for changes in the
+	 * background.
+	 */
+	@Override
+	protected void doDeferredInitialize() throws ResourceInitializationException {
+		LoadedGazetteer loaded;
+		try {
+			loaded = loadGazetteer();
+		} catch (BaleenException be) {
+			throw new ResourceInitializationException(be);
 		}
 
-		for (String s : gazetteer.getValues()) {
-			builder = builder.addKeyword(s);
-			if(plurals){
-				builder = builder.addKeyword(pluraliseWord(s));
+		install(loaded);
+		latest = loaded.getGazetteer();
+
+		if (reloadInterval > 0) {
+			reloader = Executors.newSingleThreadScheduledExecutor(
+					new ThreadFactoryBuilder().setNameFormat("gazetteer-reload-%d").setDaemon(true).build());
+			reloader.scheduleWithFixedDelay(this::reloadIfChanged, reloadInterval, reloadInterval, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Configure the gazetteer and build a trie from it. This method can be overridden if you want to
+	 * modify the gazetteer before parsing it, in which case {@link #install(LoadedGazetteer)} should
+	 * be overridden too.
+	 *
+	 * As this may be called from a background thread when the gazetteer is reloaded, it must not
+	 * modify the state of the annotator.
+	 *
+	 * The trie is taken from the {@link TrieCache}, so that other annotators using the same gazetteer
+	 * can share it, and is released when the gazetteer is replaced or in {@link #doDestroy()}.
+	 */
+	protected LoadedGazetteer loadGazetteer() throws BaleenException {
+		IGazetteer gaz = configureGazetteer();
+		return new LoadedGazetteer(gaz,
+				TrieCache.getInstance().acquire(Arrays.asList(gaz.getValues()), caseSensitive, plurals));
+	}
+
+	/**
+	 * Start using a loaded gazetteer, by setting the <em>gazetteer</em> and <em>trie</em> variables.
+	 * This is only called between documents.
+	 */
+	protected void install(LoadedGazetteer loaded) {
+		gazetteer = loaded.getGazetteer();
+		trie = loaded.getTrie();
+	}
+
+	private void reloadIfChanged() {
+		// Any exception would cancel future reloads, so catch everything
+		try {
+			if (!latest.hasChanged()) {
+				return;
+			}
+
+			getMonitor().info("Gazetteer has changed, reloading");
+			long detected = System.nanoTime();
+
+			LoadedGazetteer loaded;
+			try (Timer.Context ignored = getMonitor().timer("reloadDuration").time()) {
+				loaded = loadGazetteer();
 			}
+			loaded.detected = detected;
+			latest = loaded.getGazetteer();
+
+			LoadedGazetteer superseded = pending.getAndSet(loaded);
+			if (superseded != null) {
+				dispose(superseded.getGazetteer(), superseded.getTrie());
+			}
+		} catch (Exception e) {
+			getMonitor().warn("Unable to reload gazetteer, the current gazetteer will continue to be used", e);
 		}
+	}
 
-		trie = builder.build();
+	private static void dispose(IGazetteer gaz, Trie t) {
+		if (gaz != null) {
+			gaz.destroy();
+		}
+		if (t != null) {
+			TrieCache.getInstance().release(t);
+		}
 	}
 
 	@Override
 	protected final void doProcess(JCas jCas) throws AnalysisEngineProcessException {
 		// Final so as to prevent other implementations being non text aware
+		swapReloadedGazetteer();
 		super.doProcess(jCas);
 	}
 
+	/**
+	 * If a reloaded gazetteer is waiting, start using it in place of the current one. As this is done
+	 * before a document is processed, each document sees a single gazetteer.
+	 */
+	private void swapReloadedGazetteer() {
+		LoadedGazetteer reloaded = pending.getAndSet(null);
+		if (reloaded == null) {
+			return;
+		}
+
+		IGazetteer previousGazetteer = gazetteer;
+		Trie previousTrie = trie;
+
+		install(reloaded);
+		dispose(previousGazetteer, previousTrie);
+
+		getMonitor().timer("reloadStaleness").update(System.nanoTime() - reloaded.detected, TimeUnit.NANOSECONDS);
+		getMonitor().info("Reloaded gazetteer is now in use");
+	}
+
 	@Override
 	public void doProcessTextBlock(TextBlock block) throws AnalysisEngineProcessException {
 		Map<String, List<BaleenAnnotation>> entities = exactWhitespace ? processExactWhitespace(block)
@@ -201,6 +326,7 @@ public abstract class AbstractAhoCorasickAnnotator extends BaleenTextAwareAnnota
 
 		String text = block.getCoveredText();
 		Collection<Emit> emits = trie.parseText(text);
+		prefetchAdditionalData(emits.stream().map(Emit::getKeyword).collect(Collectors.toSet()));
 
 		for (Emit emit : emits) {
 			try {
@@ -221,11 +347,12 @@ public abstract class AbstractAhoCorasickAnnotator extends BaleenTextAwareAnnota
 
 		TransformedString norm = normaliseString(block.getCoveredText());
 		Collection<Emit> emits = trie.parseText(norm.getTransformedString());
+		prefetchAdditionalData(emits.stream().map(Emit::getKeyword).collect(Collectors.toSet()));
 
 		for (Emit emit : emits) {
 			try {
-				Integer start = norm.getMapping().get(emit.getStart());
-				Integer end = norm.getMapping().get(emit.getEnd() + 1);
+				int start = norm.getOriginalOffset(emit.getStart());
+				int end = norm.getOriginalOffset(emit.getEnd() + 1);
 				String match = norm.getOriginalString().substring(start, end);
 
 				createEntityAndAliases(block, start, end, match, match, entities);
@@ -253,6 +380,19 @@ public abstract class AbstractAhoCorasickAnnotator extends BaleenTextAwareAnnota
 		entities.put(key, groupEntities);
 	}
 
+	/**
+	 * If additional data is being used, let the gazetteer retrieve the additional data for all the
+	 * matches in a text block in one go, rather than one at a time as entities are created
+	 *
+	 * @param keys
+	 *            The gazetteer keys that have been matched
+	 */
+	protected void prefetchAdditionalData(Collection<String> keys) {
+		if (useAdditionalData && !keys.isEmpty()) {
+			gazetteer.prefetchAdditionalData(keys);
+		}
+	}
+
 	/**
 	 * Generate a key for an alias set by ordering and joining them
 	 *
@@ -309,8 +449,8 @@ public abstract class AbstractAhoCorasickAnnotator extends BaleenTextAwareAnnota
 			Map<String, Object> additionalData = gazetteer.getAdditionalData(gazetteerKey);
 	
 			if (additionalData != null && !additionalData.isEmpty()) {
-				for (Method m : entityType.getMethods()) {
-					setProperty(ent, m, additionalData);
+				for (Map.Entry<String, Object> e : additionalData.entrySet()) {
+					setProperty(ent, entitySetters.get(e.getKey()), e.getValue());
 				}
 			}
 		}
@@ -351,103 +491,100 @@ public abstract class AbstractAhoCorasickAnnotator extends BaleenTextAwareAnnota
 	}
 
 	@SuppressWarnings("unchecked")
-	private void setProperty(BaleenAnnotation entity, Method method, Map<String, Object> additionalData) {
-		if (method.getName().startsWith("set") && method.getName().substring(3, 4).matches("[A-Z]")
-				&& method.getParameterCount() == 1) {
-			String property = method.getName().substring(3);
-			property = property.substring(0, 1).toLowerCase() + property.substring(1);
-			Object obj = additionalData.get(property);
-
-			if (obj == null) {
-				return;
-			}
-
-			if (method.getParameterTypes()[0].isAssignableFrom(obj.getClass())) {
-				setPropertyObject(entity, method, obj);
-			} else if (method.getParameterTypes()[0].isAssignableFrom(String.class)) {
-				getMonitor().debug("Converting gazetteer object of type {} to String", obj.getClass().getName());
-				
-				if(obj instanceof Document){
-					//Special case for Mongo Document objects, where the toString function
-					//doesn't convert to JSON as expected (e.g. for GeoJSON)
-					setPropertyString(entity, method, ((Document)obj).toJson());
-				}else{
-					setPropertyString(entity, method, obj.toString());
-				}
-			} else if (List.class.isAssignableFrom(obj.getClass())
-					&& CommonArrayFS.class.isAssignableFrom(method.getParameterTypes()[0])) {
-				setPropertyArray(entity, method, (List<Object>) obj);
-			}
+	private void setProperty(BaleenAnnotation entity, PropertySetter setter, Object obj) {
+		if (setter == null || obj == null) {
+			return;
 		}
-	}
 
-	private void setPropertyObject(BaleenAnnotation entity, Method method, Object obj) {
-		try {
-			method.invoke(entity, obj);
-		} catch (Exception e) {
-			getMonitor().error(ERROR_CANT_ASSIGN_ENTITY_PROPERTY, e);
+		if (setter.getParameterType().isAssignableFrom(obj.getClass())) {
+			setPropertyObject(entity, setter, obj);
+		} else if (setter.getParameterType().isAssignableFrom(String.class)) {
+			getMonitor().debug("Converting gazetteer object of type {} to String", obj.getClass().getName());
+
+			if(obj instanceof Document){
+				//Special case for Mongo Document objects, where the toString function
+				//doesn't convert to JSON as expected (e.g. for GeoJSON)
+				setPropertyObject(entity, setter, ((Document)obj).toJson());
+			}else{
+				setPropertyObject(entity, setter, obj.toString());
+			}
+		} else if (List.class.isAssignableFrom(obj.getClass())
+				&& CommonArrayFS.class.isAssignableFrom(setter.getParameterType())) {
+			setPropertyArray(entity, setter, (List<Object>) obj);
 		}
 	}
 
-	private void setPropertyString(BaleenAnnotation entity, Method method, String string) {
+	private void setPropertyObject(BaleenAnnotation entity, PropertySetter setter, Object obj) {
 		try {
-			method.invoke(entity, string);
+			setter.set(entity, obj);
 		} catch (Exception e) {
 			getMonitor().error(ERROR_CANT_ASSIGN_ENTITY_PROPERTY, e);
 		}
 	}
 
-	private void setPropertyArray(BaleenAnnotation entity, Method method, List<Object> obj) {
-		if (StringArray.class.isAssignableFrom(method.getParameterTypes()[0])) {
+	private void setPropertyArray(BaleenAnnotation entity, PropertySetter setter, List<Object> obj) {
+		if (StringArray.class.isAssignableFrom(setter.getParameterType())) {
 			try {
 				StringArray sa = listToStringArray(entity.getCAS().getJCas(), obj);
-				method.invoke(entity, sa);
+				setter.set(entity, sa);
 			} catch (Exception e) {
 				getMonitor().error(ERROR_CANT_ASSIGN_ENTITY_PROPERTY, e);
 			}
 		} else {
 			getMonitor().error("Unsupported array type {} - property will be skipped",
-					method.getParameterTypes()[0].getName());
+					setter.getParameterType().getName());
 		}
 	}
 
 	/**
 	 * Replace repeated horizontal whitespace characters with a single space character, and return a
-	 * TransformedString that maps between the original and normalised string
+	 * TransformedString that maps between the original and normalised string.
+	 *
+	 * This is done in a single pass over the string, so takes time linear in its length.
 	 *
 	 * @param s
 	 *            The string to normalise
 	 * @return A TransformedString mapping between the original and normalised text
 	 */
 	public static TransformedString normaliseString(String s) {
-		String remaining = s;
-		StringBuilder builder = new StringBuilder();
-
-		String previousChar = "";
-		Map<Integer, Integer> indexMap = new HashMap<>();
-
-		Integer index = 0;
-
-		while (!remaining.isEmpty()) {
-			indexMap.put(builder.length(), index);
-			index++;
-
-			String character = remaining.substring(0, 1);
-			remaining = remaining.substring(1);
-
-			if (!(character.matches("\\h") && previousChar.matches("\\h"))) {
-				if (character.matches("\\h")) {
-					character = " ";
-				}
-
-				builder.append(character);
+		int length = s.length();
+		TransformedStringBuilder builder = TransformedStringBuilder.get(length);
+
+		boolean previousWhitespace = false;
+		for (int i = 0; i < length; i++) {
+			char c = s.charAt(i);
+			boolean whitespace = isHorizontalWhitespace(c);
+
+			if (!whitespace) {
+				builder.append(c, i);
+			} else if (!previousWhitespace) {
+				builder.append(' ', i);
 			}
 
-			previousChar = character;
+			previousWhitespace = whitespace;
 		}
-		indexMap.put(builder.length(), index);
 
-		return new TransformedString(s, builder.toString(), indexMap);
+		return builder.build(s, length);
+	}
+
+	/**
+	 * Is the character a horizontal whitespace character, as matched by the regular expression
+	 * <code>\h</code>
+	 */
+	private static boolean isHorizontalWhitespace(char c) {
+		switch (c) {
+		case ' ':
+		case '\t':
+		case '\u00A0':
+		case '\u1680':
+		case '\u180E':
+		case '\u202F':
+		case '\u205F':
+		case '\u3000':
+			return true;
+		default:
+			return c >= '\u2000' && c <= '\u200A';
+		}
 	}
 
 	private StringArray listToStringArray(JCas jCas, List<Object> l) {
@@ -464,14 +601,70 @@ public abstract class AbstractAhoCorasickAnnotator extends BaleenTextAwareAnnota
 
 	@Override
 	public void doDestroy() {
-		gazetteer.destroy();
-		gazetteer = null;
+		if (reloader != null) {
+			reloader.shutdownNow();
+			try {
+				reloader.awaitTermination(reloadInterval, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			reloader = null;
+		}
+
+		LoadedGazetteer reloaded = pending.getAndSet(null);
+		if (reloaded != null) {
+			dispose(reloaded.getGazetteer(), reloaded.getTrie());
+		}
+		latest = null;
+
+		if (gazetteer != null) {
+			gazetteer.destroy();
+			gazetteer = null;
+		}
 
 		entityType = null;
-		trie = null;
+		entitySetters = null;
+		
+		if (trie != null) {
+			TrieCache.getInstance().release(trie);
+			trie = null;
+		}
 	}
-	
-	private String pluraliseWord(String s){
-		return English.plural(s);
+
+	/**
+	 * A gazetteer and the trie built from it, which are put into use together. Subclasses that build
+	 * other state from the gazetteer can extend this to hold it.
+	 */
+	protected static class LoadedGazetteer {
+		private final IGazetteer gazetteer;
+		private final Trie trie;
+		private long detected;
+
+		/**
+		 * Constructor
+		 *
+		 * @param gazetteer
+		 *            The initialised gazetteer
+		 * @param trie
+		 *            The trie built from the gazetteer, acquired from the {@link TrieCache}
+		 */
+		public LoadedGazetteer(IGazetteer gazetteer, Trie trie) {
+			this.gazetteer = gazetteer;
+			this.trie = trie;
+		}
+
+		/**
+		 * Get the gazetteer
+		 */
+		public IGazetteer getGazetteer() {
+			return gazetteer;
+		}
+
+		/**
+		 * Get the trie
+		 */
+		public Trie getTrie() {
+			return trie;
+		}
 	}
 }
@@ -1,16 +1,17 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.annotators.gazetteer.helpers;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import org.ahocorasick.trie.Emit;
 import org.ahocorasick.trie.Trie;
-import org.ahocorasick.trie.Trie.TrieBuilder;
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
@@ -49,39 +50,49 @@ public abstract class AbstractStemmingAhoCorasickAnnotator extends AbstractAhoCo
 
 	protected Stemmer stemmer;
 
-	private static Pattern WORD_PATTERN = Pattern.compile("[a-z']+");
-	private final Map<String, String> stemmedToKey = new HashMap<>();
+	private volatile Map<String, String> stemmedToKey = Collections.emptyMap();
 
 	@Override
 	public abstract IGazetteer configureGazetteer() throws BaleenException;
 
 	@Override
 	public void doInitialize(UimaContext aContext) throws ResourceInitializationException {
+		stemmer = createStemmer();
+
+		super.doInitialize(aContext);
+	}
+
+	private Stemmer createStemmer() {
 		ALGORITHM algo = ALGORITHM.valueOf(algorithm);
 		if (algo == null) {
 			algo = ALGORITHM.ENGLISH;
 		}
-		stemmer = new SnowballStemmer(algo);
-
-		super.doInitialize(aContext);
+		return new SnowballStemmer(algo);
 	}
 
 	@Override
-	protected void buildTrie() {
-		TrieBuilder builder = Trie.builder().onlyWholeWords();
+	protected LoadedGazetteer loadGazetteer() throws BaleenException {
+		IGazetteer gaz = configureGazetteer();
 
-		if (!caseSensitive) {
-			builder = builder.ignoreCase();
-		}
+		// The stemmer isn't thread safe, and this may be called whilst documents are being processed
+		Stemmer loadStemmer = createStemmer();
+		List<String> keywords = new ArrayList<>();
+		Map<String, String> keys = new HashMap<>();
 
-		for (String s : gazetteer.getValues()) {
-			TransformedString stemmed = stem(s.trim());
+		for (String s : gaz.getValues()) {
+			TransformedString stemmed = stem(loadStemmer, s.trim());
 
-			builder = builder.addKeyword(stemmed.getTransformedString());
-			stemmedToKey.put(stemmed.getTransformedString(), stemmed.getOriginalString());
+			keywords.add(stemmed.getTransformedString());
+			keys.put(stemmed.getTransformedString(), stemmed.getOriginalString());
 		}
 
-		trie = builder.build();
+		return new LoadedStemmedGazetteer(gaz, TrieCache.getInstance().acquire(keywords, caseSensitive, false), keys);
+	}
+
+	@Override
+	protected void install(LoadedGazetteer loaded) {
+		super.install(loaded);
+		stemmedToKey = ((LoadedStemmedGazetteer) loaded).stemmedToKey;
 	}
 
 	@Override
@@ -90,11 +101,13 @@ public abstract class AbstractStemmingAhoCorasickAnnotator extends AbstractAhoCo
 
 		TransformedString stemmed = stem(block.getCoveredText());
 		Collection<Emit> emits = trie.parseText(stemmed.getTransformedString());
+		prefetchAdditionalData(emits.stream().map(e -> stemmedToKey.get(e.getKeyword())).filter(Objects::nonNull)
+				.collect(Collectors.toSet()));
 
 		for (Emit emit : emits) {
 			try {
-				Integer start = stemmed.getMapping().get(emit.getStart());
-				Integer end = stemmed.getMapping().get(emit.getEnd() + 1);
+				int start = stemmed.getOriginalOffset(emit.getStart());
+				int end = stemmed.getOriginalOffset(emit.getEnd() + 1);
 
 				validateSubstring(start, end, stemmed.getOriginalString());
 
@@ -117,45 +130,62 @@ public abstract class AbstractStemmingAhoCorasickAnnotator extends AbstractAhoCo
 	 * the original and transformed strings
 	 */
 	protected TransformedString stem(String words) {
-		StringBuilder builder = new StringBuilder();
-		Map<Integer, Integer> indexMap = new HashMap<>();
+		return stem(stemmer, words);
+	}
 
-		Integer index = 0;
+	/**
+	 * Convert a word, or words, into their stemmed form using the given stemmer and return it along
+	 * with a mapping between the original and transformed strings.
+	 *
+	 * Words are runs of the characters <code>[a-z']</code> in the lower cased string, starting with a
+	 * letter; all other characters are copied unchanged. This is done in a single pass over the
+	 * string, so takes time linear in its length.
+	 */
+	public static TransformedString stem(Stemmer stemmer, String words) {
 		String content = words.toLowerCase();
-		while (!content.isEmpty()) {
-			indexMap.put(builder.length(), index);
-			if (Character.isAlphabetic(content.charAt(0))) {
-				Matcher m = WORD_PATTERN.matcher(content);
+		int length = content.length();
+		TransformedStringBuilder builder = TransformedStringBuilder.get(length);
 
-				m.find();
-				String match = m.group();
-				CharSequence stemmedMatch = stemmer.stem(match);
+		int index = 0;
+		while (index < length) {
+			int end = endOfWord(content, index);
 
-				builder.append(stemmedMatch);
-
-				index += match.length();
-
-				content = content.substring(match.length());
+			if (end > index) {
+				builder.append(stemmer.stem(content.substring(index, end)), index);
+				index = end;
 			} else {
-				builder.append(content.substring(0, 1));
-				content = content.substring(1);
-
+				builder.append(content.charAt(index), index);
 				index++;
 			}
 		}
 
-		indexMap.put(builder.length(), index);
+		return builder.build(words, length);
+	}
+
+	private static int endOfWord(String content, int start) {
+		if (!isWordLetter(content.charAt(start))) {
+			return start;
+		}
+
+		int end = start + 1;
+		while (end < content.length() && (isWordLetter(content.charAt(end)) || content.charAt(end) == '\'')) {
+			end++;
+		}
+
+		return end;
+	}
 
-		return new TransformedString(words, builder.toString(), indexMap);
+	private static boolean isWordLetter(char c) {
+		return c >= 'a' && c <= 'z';
 	}
 
-	private void validateSubstring(Integer start, Integer end, String string) throws BaleenException {
-		if (start == null) {
-			throw new BaleenException("Variable start cannot be null");
+	private void validateSubstring(int start, int end, String string) throws BaleenException {
+		if (start == TransformedString.UNMAPPED) {
+			throw new BaleenException("Variable start is not mapped to the original string");
 		}
 
-		if (end == null) {
-			throw new BaleenException("Variable end cannot be null");
+		if (end == TransformedString.UNMAPPED) {
+			throw new BaleenException("Variable end is not mapped to the original string");
 		}
 
 		if (start < 0) {
@@ -166,4 +196,13 @@ public abstract class AbstractStemmingAhoCorasickAnnotator extends AbstractAhoCo
 			throw new BaleenException("Variable end cannot be greater than the string length");
 		}
 	}
+
+	private static class LoadedStemmedGazetteer extends LoadedGazetteer {
+		private final Map<String, String> stemmedToKey;
+
+		LoadedStemmedGazetteer(IGazetteer gazetteer, Trie trie, Map<String, String> stemmedToKey) {
+			super(gazetteer, trie);
+			this.stemmedToKey = stemmedToKey;
+		}
+	}
 }
@@ -46,6 +46,34 @@ public class GazetteerUtils {
 		return config;
 	}
 	
+	/**
+	 * Create a configuration object for Mongo Gazetteers, including how additional data is retrieved.
+	 * 
+	 * @param caseSensitive
+	 * 		Should the gazetteer be case sensitive?
+	 * @param collection
+	 * 		The name of the collection that the gazetteer is stored in.
+	 * @param valueField
+	 * 		The name of the field in the gazetteer that contains the value.
+	 * @param additionalData
+	 * 		How additional data is retrieved, as the name of a {@link uk.gov.dstl.baleen.resources.gazetteer.MongoGazetteer.AdditionalData}.
+	 * 		If null, then the default value specified in {@link uk.gov.dstl.baleen.resources.gazetteer.MongoGazetteer#DEFAULT_ADDITIONAL_DATA} is assumed.
+	 * @param cacheSize
+	 * 		The approximate number of characters of additional data to cache.
+	 * 		If null, then the default value specified in {@link uk.gov.dstl.baleen.resources.gazetteer.MongoGazetteer#DEFAULT_ADDITIONAL_DATA_CACHE_SIZE} is assumed.
+	 * 
+	 * @return A map containing the passed (or default) configuration parameters
+	 * @see #configureMongo(Boolean, String, String)
+	 */
+	public static Map<String, Object> configureMongo(Boolean caseSensitive, String collection, String valueField, String additionalData, Integer cacheSize){
+		Map<String, Object> config = configureMongo(caseSensitive, collection, valueField);
+		
+		config.put(MongoGazetteer.CONFIG_ADDITIONAL_DATA, Strings.isNullOrEmpty(additionalData) ? MongoGazetteer.DEFAULT_ADDITIONAL_DATA.name() : additionalData);
+		config.put(MongoGazetteer.CONFIG_ADDITIONAL_DATA_CACHE_SIZE, cacheSize == null ? MongoGazetteer.DEFAULT_ADDITIONAL_DATA_CACHE_SIZE : cacheSize);
+		
+		return config;
+	}
+	
 	/**
 	 * Create a configuration object for Country Gazetteers
 	 * 
@@ -1,44 +1,110 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.annotators.gazetteer.helpers;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
  * A simple class to hold two strings and the mapping between them.
  * Used for when a string has been transformed by some function.
+ *
+ * The mapping is held as an array of offsets into the original string, indexed by offset into
+ * the transformed string, with -1 for offsets that have no equivalent in the original string.
  */
 public class TransformedString {
+	/** The value used in the offset mapping for offsets that aren't mapped */
+	public static final int UNMAPPED = -1;
+
 	private final String original;
 	private final String transformed;
-	private final Map<Integer, Integer> map;
-	
+	private final int[] offsets;
+	private Map<Integer, Integer> map;
+
 	/**
 	 * Create a new TransformedString
+	 *
+	 * @param originalString
+	 *            The original string
+	 * @param transformedString
+	 *            The transformed string
+	 * @param offsets
+	 *            The offset in the original string of each offset in the transformed string, up to and
+	 *            including its length, or {@link #UNMAPPED}. The array is not copied.
 	 */
-	public TransformedString(String originalString, String transformedString, Map<Integer, Integer> mapping){
+	public TransformedString(String originalString, String transformedString, int[] offsets){
 		original = originalString;
 		transformed = transformedString;
-		map = mapping;
+		this.offsets = offsets;
 	}
-	
+
+	/**
+	 * Create a new TransformedString
+	 */
+	public TransformedString(String originalString, String transformedString, Map<Integer, Integer> mapping){
+		this(originalString, transformedString, toOffsets(transformedString, mapping));
+	}
+
 	/**
 	 * Get the original string
 	 */
 	public String getOriginalString() {
 		return original;
 	}
-	
+
 	/**
 	 * Get the transformed string
 	 */
 	public String getTransformedString() {
 		return transformed;
 	}
-	
+
+	/**
+	 * Get the offset in the original string of an offset in the transformed string
+	 *
+	 * @param transformedOffset
+	 *            The offset in the transformed string
+	 * @return the offset in the original string, or {@link #UNMAPPED} if there is no equivalent
+	 */
+	public int getOriginalOffset(int transformedOffset) {
+		if (transformedOffset < 0 || transformedOffset > transformed.length() || transformedOffset >= offsets.length) {
+			return UNMAPPED;
+		}
+
+		return offsets[transformedOffset];
+	}
+
 	/**
 	 * Get the mapping from the transformed string back to the original string
+	 *
+	 * @deprecated Boxes every offset; use {@link #getOriginalOffset(int)} instead
 	 */
+	@Deprecated
 	public Map<Integer, Integer> getMapping() {
+		if (map == null) {
+			Map<Integer, Integer> m = new HashMap<>();
+			for (int i = 0; i <= transformed.length() && i < offsets.length; i++) {
+				if (offsets[i] != UNMAPPED) {
+					m.put(i, offsets[i]);
+				}
+			}
+			map = Collections.unmodifiableMap(m);
+		}
+
 		return map;
 	}
+
+	private static int[] toOffsets(String transformedString, Map<Integer, Integer> mapping) {
+		int[] offsets = new int[transformedString.length() + 1];
+		Arrays.fill(offsets, UNMAPPED);
+
+		for (Map.Entry<Integer, Integer> e : mapping.entrySet()) {
+			if (e.getKey() >= 0 && e.getKey() < offsets.length && e.getValue() != null) {
+				offsets[e.getKey()] = e.getValue();
+			}
+		}
+
+		return offsets;
+	}
 }
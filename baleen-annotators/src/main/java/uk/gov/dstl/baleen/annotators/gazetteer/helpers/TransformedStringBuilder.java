@@ -0,0 +1,97 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.annotators.gazetteer.helpers;
+
+import java.util.Arrays;
+
+/**
+ * Builds a {@link TransformedString} in a single pass over the original string, writing the
+ * transformed characters and their offsets in the original string into primitive arrays.
+ *
+ * The arrays are reused between strings, so that normalising a large document doesn't repeatedly
+ * grow a buffer. Builders are not thread safe; use {@link #get(int)} to obtain the builder for the
+ * current thread.
+ */
+class TransformedStringBuilder {
+	private static final ThreadLocal<TransformedStringBuilder> BUILDER = ThreadLocal
+			.withInitial(TransformedStringBuilder::new);
+
+	private char[] chars = new char[1024];
+	private int[] offsets = new int[1025];
+	private int length;
+
+	private TransformedStringBuilder() {
+		// Use get()
+	}
+
+	/**
+	 * Get the builder for the current thread, cleared and with room for at least the given number of
+	 * characters
+	 */
+	static TransformedStringBuilder get(int capacity) {
+		TransformedStringBuilder builder = BUILDER.get();
+		builder.length = 0;
+		builder.ensureCapacity(capacity);
+		return builder;
+	}
+
+	/**
+	 * The number of characters in the transformed string so far
+	 */
+	int length() {
+		return length;
+	}
+
+	/**
+	 * The last character in the transformed string so far, or 0 if it is empty
+	 */
+	char last() {
+		return length == 0 ? 0 : chars[length - 1];
+	}
+
+	/**
+	 * Append a character, which came from the given offset in the original string
+	 */
+	void append(char c, int originalOffset) {
+		ensureCapacity(length + 1);
+		offsets[length] = originalOffset;
+		chars[length++] = c;
+	}
+
+	/**
+	 * Append a sequence of characters, which replace the original string from the given offset. Only
+	 * the first character is mapped back to the original string.
+	 */
+	void append(CharSequence s, int originalOffset) {
+		int n = s.length();
+		ensureCapacity(length + n);
+
+		offsets[length] = originalOffset;
+		for (int i = 0; i < n; i++) {
+			if (i > 0) {
+				offsets[length] = TransformedString.UNMAPPED;
+			}
+			chars[length++] = s.charAt(i);
+		}
+	}
+
+	/**
+	 * Build the transformed string
+	 *
+	 * @param original
+	 *            The original string
+	 * @param end
+	 *            The offset in the original string that the end of the transformed string maps to
+	 */
+	TransformedString build(String original, int end) {
+		offsets[length] = end;
+		return new TransformedString(original, new String(chars, 0, length), Arrays.copyOf(offsets, length + 1));
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > chars.length) {
+			int size = Math.max(capacity, chars.length * 2);
+			chars = Arrays.copyOf(chars, size);
+			offsets = Arrays.copyOf(offsets, size + 1);
+		}
+	}
+}
@@ -0,0 +1,164 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.annotators.gazetteer.helpers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.ahocorasick.trie.Trie;
+import org.ahocorasick.trie.Trie.TrieBuilder;
+import org.atteo.evo.inflector.English;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.dstl.baleen.core.utils.IdentityUtils;
+
+/**
+ * A process wide cache of Aho-Corasick tries, so that annotators (whether in the same pipeline or
+ * different pipelines) using the same gazetteer with the same options share a single trie rather
+ * than each building their own.
+ * <p>
+ * Tries are keyed on a hash of the keywords and the options used to build them, so any change to
+ * the gazetteer results in a new trie. Tries are reference counted; each call to
+ * {@link #acquire(Collection, boolean, boolean)} should be matched by a call to {@link #release(Trie)}
+ * once the trie is no longer needed, and the trie is removed from the cache when nothing is using it.
+ * <p>
+ * Once built, a trie is only ever read from, and so can be safely used by multiple threads.
+ */
+public final class TrieCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(TrieCache.class);
+	private static final TrieCache INSTANCE = new TrieCache();
+
+	private final Map<String, CachedTrie> tries = new HashMap<>();
+	private final Map<Trie, CachedTrie> byTrie = new IdentityHashMap<>();
+
+	private TrieCache() {
+		// Singleton
+	}
+
+	/**
+	 * Get the singleton instance of the cache
+	 */
+	public static TrieCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Get a trie that matches whole words from the given keywords, building it if there isn't already
+	 * a matching trie in the cache
+	 *
+	 * @param keywords
+	 *            The keywords to match
+	 * @param caseSensitive
+	 *            Should matching be case sensitive
+	 * @param plurals
+	 *            Should the (regular) plural of each keyword also be matched
+	 * @return A shared trie, which should not be modified
+	 */
+	public Trie acquire(Collection<String> keywords, boolean caseSensitive, boolean plurals) {
+		String key = createKey(keywords, caseSensitive, plurals);
+
+		CachedTrie cached;
+		synchronized (this) {
+			cached = tries.computeIfAbsent(key, CachedTrie::new);
+			cached.references++;
+		}
+
+		// Build outside of the cache lock, so that other tries can be acquired in the meantime
+		Trie trie;
+		synchronized (cached) {
+			if (cached.trie == null) {
+				LOGGER.debug("Building trie for {} keywords", keywords.size());
+				cached.trie = build(keywords, caseSensitive, plurals);
+			} else {
+				LOGGER.debug("Reusing existing trie for {} keywords", keywords.size());
+			}
+			trie = cached.trie;
+		}
+
+		synchronized (this) {
+			byTrie.put(trie, cached);
+		}
+
+		return trie;
+	}
+
+	/**
+	 * Release a trie previously returned by {@link #acquire(Collection, boolean, boolean)}
+	 *
+	 * @param trie
+	 *            The trie to release
+	 */
+	public synchronized void release(Trie trie) {
+		if (trie == null) {
+			return;
+		}
+
+		CachedTrie cached = byTrie.get(trie);
+		if (cached == null) {
+			return;
+		}
+
+		cached.references--;
+		if (cached.references <= 0) {
+			byTrie.remove(trie);
+			tries.remove(cached.key);
+		}
+	}
+
+	/**
+	 * The number of tries currently held in the cache
+	 */
+	public synchronized int size() {
+		return tries.size();
+	}
+
+	private static Trie build(Collection<String> keywords, boolean caseSensitive, boolean plurals) {
+		TrieBuilder builder = Trie.builder().onlyWholeWords();
+
+		if (!caseSensitive) {
+			builder = builder.ignoreCase();
+		}
+
+		for (String s : keywords) {
+			builder = builder.addKeyword(s);
+			if (plurals) {
+				builder = builder.addKeyword(English.plural(s));
+			}
+		}
+
+		return builder.build();
+	}
+
+	private static String createKey(Collection<String> keywords, boolean caseSensitive, boolean plurals) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Fall back to a key that will never be shared
+			LOGGER.warn("Unable to create hash of keywords - trie will not be shared", e);
+			return "unshared:" + IdentityUtils.getInstance().getNewId();
+		}
+
+		for (String s : keywords) {
+			md.update(s.getBytes(StandardCharsets.UTF_8));
+			md.update((byte) 0);
+		}
+
+		return (caseSensitive ? "c" : "i") + (plurals ? "p" : "s") + ":" + IdentityUtils.toHex(md.digest());
+	}
+
+	private static class CachedTrie {
+		private final String key;
+		private Trie trie;
+		private int references = 0;
+
+		CachedTrie(String key) {
+			this.key = key;
+		}
+	}
+}
@@ -32,6 +32,7 @@ import uk.gov.dstl.baleen.types.language.Interaction;
 import uk.gov.dstl.baleen.types.language.WordToken;
 import uk.gov.dstl.baleen.uima.BaleenAnnotator;
 import uk.gov.dstl.baleen.uima.utils.ComparableEntitySpanUtils;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Assign relation type and subtype to interaction.
@@ -196,7 +197,7 @@ public class AssignTypeToInteraction extends BaleenAnnotator {
 
 	@Override
 	protected void doProcess(JCas jCas) throws AnalysisEngineProcessException {
-		Map<Interaction, Collection<WordToken>> interactionToWords = JCasUtil.indexCovered(jCas, Interaction.class,
+		Map<Interaction, Collection<WordToken>> interactionToWords = DerivedIndexCache.indexCovered(jCas, Interaction.class,
 				WordToken.class);
 
 		Collection<Interaction> allInteractions = new ArrayList<>(JCasUtil.select(jCas, Interaction.class));
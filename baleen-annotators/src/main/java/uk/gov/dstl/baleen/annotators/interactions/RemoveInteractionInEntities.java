@@ -6,7 +6,6 @@ import java.util.Collections;
 import java.util.Map;
 
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
-import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 
 import com.google.common.collect.ImmutableSet;
@@ -15,6 +14,7 @@ import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.language.Interaction;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.uima.BaleenAnnotator;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Removes all interactions pertaining to entities
@@ -23,7 +23,7 @@ public class RemoveInteractionInEntities extends BaleenAnnotator {
 
 	@Override
 	protected void doProcess(JCas jCas) throws AnalysisEngineProcessException {
-		Map<Interaction, Collection<Entity>> covering = JCasUtil.indexCovering(jCas, Interaction.class, Entity.class);
+		Map<Interaction, Collection<Entity>> covering = DerivedIndexCache.indexCovering(jCas, Interaction.class, Entity.class);
 
 		removeFromJCasIndex(covering.keySet());
 	}
@@ -104,6 +104,11 @@ public class MaltParser extends BaleenAnnotator {
 	public void doInitialize(final UimaContext aContext) throws ResourceInitializationException {
 		super.doInitialize(aContext);
 
+		udTags = udTags == null ? true : udTags;
+	}
+
+	@Override
+	protected void doDeferredInitialize() throws ResourceInitializationException {
 		File modelFile = null;
 		if(!Strings.isNullOrEmpty(modelFilename))	
 			modelFile = new File(modelFilename);
@@ -132,8 +137,6 @@ public class MaltParser extends BaleenAnnotator {
 		} catch (final MaltChainedException | MalformedURLException e) {
 			throw new ResourceInitializationException(e);
 		}
-
-		udTags = udTags == null ? true : udTags;
 	}
 
 	@Override
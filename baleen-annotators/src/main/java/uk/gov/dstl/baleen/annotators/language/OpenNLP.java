@@ -9,7 +9,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.fit.util.FSCollectionFactory;
@@ -99,7 +98,7 @@ public class OpenNLP extends BaleenTextAwareAnnotator {
 					"within", "without"));
 
 	@Override
-	public void doInitialize(UimaContext aContext) throws ResourceInitializationException {
+	protected void doDeferredInitialize() throws ResourceInitializationException {
 		try {
 			tokensModel.loadModel(TokenizerModel.class, getClass().getResourceAsStream("en_token.bin"));
 			sentencesModel.loadModel(SentenceModel.class, getClass().getResourceAsStream("en_sent.bin"));
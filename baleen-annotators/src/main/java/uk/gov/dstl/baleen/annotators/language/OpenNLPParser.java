@@ -29,6 +29,7 @@ import uk.gov.dstl.baleen.types.language.PhraseChunk;
 import uk.gov.dstl.baleen.types.language.Sentence;
 import uk.gov.dstl.baleen.types.language.WordToken;
 import uk.gov.dstl.baleen.uima.BaleenAnnotator;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Perform grammatical parsing with OpenNLP parser.
@@ -82,7 +83,7 @@ public class OpenNLPParser extends BaleenAnnotator {
 		// For each sentence (in the JCas)e, we recreate the spans from our
 		// WordTokens.
 
-		final Map<Sentence, Collection<WordToken>> sentences = JCasUtil.indexCovered(jCas, Sentence.class,
+		final Map<Sentence, Collection<WordToken>> sentences = DerivedIndexCache.indexCovered(jCas, Sentence.class,
 				WordToken.class);
 
 		sentences.entrySet().stream().filter(e -> !e.getValue().isEmpty()).forEach(e -> {
@@ -16,6 +16,7 @@ import uk.gov.dstl.baleen.types.common.Person;
 import uk.gov.dstl.baleen.types.semantic.Relation;
 import uk.gov.dstl.baleen.uima.BaleenTextAwareAnnotator;
 import uk.gov.dstl.baleen.uima.data.TextBlock;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Identify organisations with an adjacent (or nested) person and create
@@ -77,6 +78,7 @@ public class OrganisationPersonRole extends BaleenTextAwareAnnotator {
 				org.setEnd(p.getBegin());
 				while(org.getCoveredText().endsWith(" ") || org.getCoveredText().endsWith("'s") || org.getCoveredText().endsWith("'"))
 					org.setEnd(org.getEnd() - 1);
+				DerivedIndexCache.invalidate(org);
 				
 				Relation r = new Relation(block.getJCas(), org.getBegin(), p.getEnd());
 				r.setRelationshipType("ROLE");
@@ -140,6 +142,7 @@ public class OrganisationPersonRole extends BaleenTextAwareAnnotator {
 			org.setEnd(org.getEnd() - longestMatch.length());
 			while(org.getCoveredText().endsWith(" ") || org.getCoveredText().endsWith("'s") || org.getCoveredText().endsWith("'"))
 				org.setEnd(org.getEnd() - 1);
+			DerivedIndexCache.invalidate(org);
 			
 			Relation r = new Relation(block.getJCas(), org.getBegin(), pers.getEnd());
 			r.setSource(org);
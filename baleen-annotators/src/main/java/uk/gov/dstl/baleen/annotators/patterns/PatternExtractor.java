@@ -29,6 +29,7 @@ import uk.gov.dstl.baleen.types.language.Sentence;
 import uk.gov.dstl.baleen.types.language.WordToken;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.uima.BaleenAnnotator;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Finds patterns in document text.
@@ -113,7 +114,7 @@ public class PatternExtractor extends BaleenAnnotator {
 	@Override
 	protected void doProcess(final JCas jCas) throws AnalysisEngineProcessException {
 
-		final Set<WordToken> wordsCoveredByEntites = JCasUtil.indexCovered(jCas, Entity.class, WordToken.class).values()
+		final Set<WordToken> wordsCoveredByEntites = DerivedIndexCache.indexCovered(jCas, Entity.class, WordToken.class).values()
 				.stream().flatMap(l -> l.stream()).collect(Collectors.toSet());
 
 		for (final Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
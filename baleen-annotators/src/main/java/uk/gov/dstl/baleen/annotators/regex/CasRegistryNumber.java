@@ -10,6 +10,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.Chemical;
 
@@ -18,6 +19,7 @@ import uk.gov.dstl.baleen.types.common.Chemical;
  */
 public class CasRegistryNumber extends AbstractRegexAnnotator<Chemical> {
 	private static final String CAS_REGEX = "\\b(\\d{2,7})-(\\d{2})-(\\d{1})\\b";
+	private static final RegexAnchor ANCHOR = RegexAnchor.of(RegexAnchor.chars("-"), RegexAnchor.DIGIT).withMaxLength(12);
 	
 	/**
 	 * New instance.
@@ -55,6 +57,21 @@ public class CasRegistryNumber extends AbstractRegexAnnotator<Chemical> {
 		return c;
 	}
 
+	@Override
+	protected boolean mayMatch(String text) {
+		return text.indexOf('-') >= 0 && containsDigit(text);
+	}
+
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(Chemical.class));
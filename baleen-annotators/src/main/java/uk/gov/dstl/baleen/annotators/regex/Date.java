@@ -12,8 +12,10 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.resource.ResourceInitializationException;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -22,6 +24,7 @@ import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.semantic.Temporal;
 import uk.gov.dstl.baleen.uima.BaleenTextAwareAnnotator;
 import uk.gov.dstl.baleen.uima.data.TextBlock;
+import uk.gov.dstl.baleen.uima.utils.PatternRegistry;
 
 /**
  * Annotate dates and date ranges as Temporal entities. The following examples show the types of dates and ranges that are detected.
@@ -73,6 +76,39 @@ public class Date extends BaleenTextAwareAnnotator{
 
 	private List<Temporal> extracted;
 
+	private Pattern longYearShortYear;
+	private Pattern longYearLongYear;
+	private Pattern monthRangeSameYear;
+	private Pattern monthRangeDiffYear;
+	private Pattern dayRangeSameMonth;
+	private Pattern dayRangeSameYear;
+	private Pattern dayRangeFullDates;
+	private Pattern fullDateDayMonth;
+	private Pattern fullDateMonthDay;
+	private Pattern shortDateYearFirst;
+	private Pattern shortDate;
+	private Pattern monthYear;
+	private Pattern year;
+
+	@Override
+	public void doInitialize(UimaContext aContext) throws ResourceInitializationException {
+		super.doInitialize(aContext);
+
+		longYearShortYear = PatternRegistry.compile("\\b(\\d{2})(\\d{2})-(\\d{2})\\b", Pattern.CASE_INSENSITIVE);
+		longYearLongYear = PatternRegistry.compile("\\b(\\d{4})\\s*(-|to|and)\\s*(\\d{4})\\b", Pattern.CASE_INSENSITIVE);
+		monthRangeSameYear = PatternRegistry.compile("\\b"+MONTHS+"\\s*(-|to|and)\\s*"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
+		monthRangeDiffYear = PatternRegistry.compile("\\b"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\s*(-|to|and)\\s*"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
+		dayRangeSameMonth = PatternRegistry.compile("\\b"+DAYS+"([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?\\s*(-|to|and|\\\\|/)\\s*"+DAYS+"([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
+		dayRangeSameYear = PatternRegistry.compile("\\b"+DAYS+DATES+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s*(-|to|and)\\s*"+DAYS+DATES+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
+		dayRangeFullDates = PatternRegistry.compile("\\b"+DAYS+"([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\s*(-|to|and)\\s*"+DAYS+"([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
+		fullDateDayMonth = PatternRegistry.compile("\\b"+DAYS+DATES+DATE_SUFFIXES+"?\\s+"+MONTHS+",?\\s+(\\d{4}|'?\\d{2}\\b)", Pattern.CASE_INSENSITIVE);
+		fullDateMonthDay = PatternRegistry.compile("\\b"+MONTHS+"\\s+([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?,?\\s+(\\d{4}|'?\\d{2}\\b)", Pattern.CASE_INSENSITIVE);
+		shortDateYearFirst = PatternRegistry.compile("\\b(\\d{4})[-\\\\/\\.](0?[1-9]|1[0-2])[-\\\\/\\.]([0-2]?[0-9]|3[01])\\b", Pattern.CASE_INSENSITIVE);
+		shortDate = PatternRegistry.compile("\\b([0-2]?[0-9]|3[01])[-\\\\/\\.]([0-2]?[0-9]|3[01])[-\\\\/\\.](\\d{4}|\\d{2})\\b", Pattern.CASE_INSENSITIVE);
+		monthYear = PatternRegistry.compile("\\b((beginning of|start of|early|mid|late|end of)[- ])?"+MONTHS+"\\s+(\\d{4}|'?\\d{2}\\b)", Pattern.CASE_INSENSITIVE);
+		year = PatternRegistry.compile("\\b(19[789][0-9]|20[0-9][0-9])\\b", Pattern.CASE_INSENSITIVE);
+	}
+
 	@Override
 	protected void doProcessTextBlock(TextBlock block) throws AnalysisEngineProcessException {
 		extracted = new ArrayList<>();
@@ -91,7 +127,6 @@ public class Date extends BaleenTextAwareAnnotator{
 	}
 
 	private void identifyYearRanges(TextBlock block){
-		Pattern longYearShortYear = Pattern.compile("\\b(\\d{2})(\\d{2})-(\\d{2})\\b", Pattern.CASE_INSENSITIVE);
 		String text = block.getCoveredText();
 		Matcher m = longYearShortYear.matcher(text);
 
@@ -106,7 +141,6 @@ public class Date extends BaleenTextAwareAnnotator{
 			createYearTimeRange(block, m.start(), m.end(), y1, y2);
 		}
 
-		Pattern longYearLongYear = Pattern.compile("\\b(\\d{4})\\s*(-|to|and)\\s*(\\d{4})\\b", Pattern.CASE_INSENSITIVE);
 		m = longYearLongYear.matcher(text);
 
 		while(m.find()){
@@ -135,9 +169,8 @@ public class Date extends BaleenTextAwareAnnotator{
 	}
 
 	private void identifyMonthYearRanges(TextBlock block){
-		Pattern sameYear = Pattern.compile("\\b"+MONTHS+"\\s*(-|to|and)\\s*"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
 		String text = block.getCoveredText();
-		Matcher m = sameYear.matcher(text);
+		Matcher m = monthRangeSameYear.matcher(text);
 
 		while(m.find()){
 			if("and".equalsIgnoreCase(m.group(14)) && !betweenPrefix(text, m.start())){
@@ -160,8 +193,7 @@ public class Date extends BaleenTextAwareAnnotator{
 			createMonthYearTimeRange(block, m.start(), m.end(), ym1, ym2);
 		}
 
-		Pattern diffYear = Pattern.compile("\\b"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\s*(-|to|and)\\s*"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
-		m = diffYear.matcher(text);
+		m = monthRangeDiffYear.matcher(text);
 
 		while(m.find()){
 			if("and".equalsIgnoreCase(m.group(15)) && !betweenPrefix(text, m.start())){
@@ -200,9 +232,8 @@ public class Date extends BaleenTextAwareAnnotator{
 	}
 
 	private void identifyDayMonthYearRanges(TextBlock block){
-		Pattern sameMonth = Pattern.compile("\\b"+DAYS+"([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?\\s*(-|to|and|\\\\|/)\\s*"+DAYS+"([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
 		String text = block.getCoveredText();
-		Matcher m = sameMonth.matcher(text);
+		Matcher m = dayRangeSameMonth.matcher(text);
 
 		while(m.find()){
 			if(!DateTimeUtils.suffixCorrect(Integer.parseInt(m.group(1)), m.group(2)) || !DateTimeUtils.suffixCorrect(Integer.parseInt(m.group(4)), m.group(5))){
@@ -245,8 +276,7 @@ public class Date extends BaleenTextAwareAnnotator{
 			}			
 		}
 
-		Pattern sameYear = Pattern.compile("\\b"+DAYS+DATES+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s*(-|to|and)\\s*"+DAYS+DATES+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
-		m = sameYear.matcher(text);
+		m = dayRangeSameYear.matcher(text);
 
 		while(m.find()){
 			Boolean suffixesCorrect = DateTimeUtils.suffixCorrect(Integer.parseInt(m.group(1)), m.group(2)) && DateTimeUtils.suffixCorrect(Integer.parseInt(m.group(17)), m.group(18));
@@ -278,8 +308,7 @@ public class Date extends BaleenTextAwareAnnotator{
 			}
 		}
 
-		Pattern fullDates = Pattern.compile("\\b"+DAYS+"([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\s*(-|to|and)\\s*"+DAYS+"([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?\\s+"+MONTHS+"\\s+(\\d{4}|'?\\d{2})\\b", Pattern.CASE_INSENSITIVE);
-		m = fullDates.matcher(text);
+		m = dayRangeFullDates.matcher(text);
 
 		while(m.find()){
 			Boolean suffixesCorrect = DateTimeUtils.suffixCorrect(Integer.parseInt(m.group(1)), m.group(2)) && DateTimeUtils.suffixCorrect(Integer.parseInt(m.group(18)), m.group(19));
@@ -324,7 +353,6 @@ public class Date extends BaleenTextAwareAnnotator{
 	}
 
 	private void identifyDates(TextBlock block){
-		Pattern fullDateDayMonth = Pattern.compile("\\b"+DAYS+DATES+DATE_SUFFIXES+"?\\s+"+MONTHS+",?\\s+(\\d{4}|'?\\d{2}\\b)", Pattern.CASE_INSENSITIVE);
 		String text = block.getCoveredText();
 		Matcher m = fullDateDayMonth.matcher(text);
 
@@ -332,21 +360,18 @@ public class Date extends BaleenTextAwareAnnotator{
 			createDateFromMatcher(block, m, 16, 3, 1);
 		}
 
-		Pattern fullDateMonthDay = Pattern.compile("\\b"+MONTHS+"\\s+([0-2]?[0-9]|3[01])\\s*"+DATE_SUFFIXES+"?,?\\s+(\\d{4}|'?\\d{2}\\b)", Pattern.CASE_INSENSITIVE);
 		m = fullDateMonthDay.matcher(text);
 
 		while(m.find()){
 			createDateFromMatcher(block, m, 16, 1, 14);
 		}
 
-		Pattern shortDateYearFirst = Pattern.compile("\\b(\\d{4})[-\\\\/\\.](0?[1-9]|1[0-2])[-\\\\/\\.]([0-2]?[0-9]|3[01])\\b", Pattern.CASE_INSENSITIVE);
 		m = shortDateYearFirst.matcher(text);
 
 		while(m.find()){
 			createDateFromMatcher(block, m, 1, 2, 3);
 		}
 
-		Pattern shortDate = Pattern.compile("\\b([0-2]?[0-9]|3[01])[-\\\\/\\.]([0-2]?[0-9]|3[01])[-\\\\/\\.](\\d{4}|\\d{2})\\b", Pattern.CASE_INSENSITIVE);
 		m = shortDate.matcher(text);
 
 		while(m.find()){
@@ -434,7 +459,6 @@ public class Date extends BaleenTextAwareAnnotator{
 	}
 
 	private void identifyMonths(TextBlock block){
-		Pattern monthYear = Pattern.compile("\\b((beginning of|start of|early|mid|late|end of)[- ])?"+MONTHS+"\\s+(\\d{4}|'?\\d{2}\\b)", Pattern.CASE_INSENSITIVE);
 		String text = block.getCoveredText();
 		Matcher m = monthYear.matcher(text);
 
@@ -502,9 +526,8 @@ public class Date extends BaleenTextAwareAnnotator{
 	}
 
 	private void identifyYears(TextBlock block){
-		Pattern monthYear = Pattern.compile("\\b(19[789][0-9]|20[0-9][0-9])\\b", Pattern.CASE_INSENSITIVE);
 		String text = block.getCoveredText();
-		Matcher m = monthYear.matcher(text);
+		Matcher m = year.matcher(text);
 
 		while(m.find()){
 			Year y = DateTimeUtils.asYear(m.group(1));
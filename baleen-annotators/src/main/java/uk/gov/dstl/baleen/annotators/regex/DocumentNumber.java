@@ -9,6 +9,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.DocumentReference;
 
@@ -21,6 +22,7 @@ public class DocumentNumber extends AbstractRegexAnnotator<DocumentReference> {
 	
 	//TODO: Allow users to specify document number pattern (and prefixes)
 	private static final String DOCUMENT_REGEX = "(document|letter|resolution|executive order)( \\d+|s \\d+(, \\d+)*( )?(and \\d+)?)";
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.NONE).withWords("document", "letter", "resolution", "executive order");
 	
 	/** New instance.
 	 * 
@@ -29,6 +31,16 @@ public class DocumentNumber extends AbstractRegexAnnotator<DocumentReference> {
 		super(DOCUMENT_REGEX, false, 1.0);
 	}
 	
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(DocumentReference.class));
@@ -15,6 +15,7 @@ import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.helpers.DateTimeUtils;
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.semantic.Temporal;
 
@@ -30,6 +31,7 @@ import uk.gov.dstl.baleen.types.semantic.Temporal;
 public class Dtg extends AbstractRegexAnnotator<Temporal> {
 	private static final Map<String, ZoneOffset> zoneMap = createTimeCodeMap();
 	private static final String DATETIME_REGEX = "([0-9]{2})\\s*([0-9]{2})([0-9]{2})([A-IK-Z]|D\\*)\\s*(JAN|FEB|MAR|APR|MAY|JUN|JUL|AUG|SEP|OCT|NOV|DEC)\\s*([0-9]{2})";
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.DIGIT);
 
 	/** New instance.
 	 * 
@@ -104,6 +106,21 @@ public class Dtg extends AbstractRegexAnnotator<Temporal> {
 		return zoneMap.getOrDefault(timeCode.toUpperCase(), ZoneOffset.UTC);
 	}
 	
+	@Override
+	protected boolean mayMatch(String text) {
+		return containsDigit(text);
+	}
+
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(Temporal.class));
@@ -9,6 +9,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.CommsIdentifier;
 
@@ -24,6 +25,7 @@ import uk.gov.dstl.baleen.types.common.CommsIdentifier;
  */
 public class Email extends AbstractRegexAnnotator<CommsIdentifier> {
 	private static final String EMAIL_REGEX = "[A-Z0-9._%+-]+@([A-Z0-9.-]+[.][A-Z]{2,6})";
+	private static final RegexAnchor ANCHOR = RegexAnchor.of(RegexAnchor.chars("@"), RegexAnchor.LETTER.or(RegexAnchor.DIGIT).or(RegexAnchor.chars("._%+-")));
 
 	/** New instance.
 	 * 
@@ -39,6 +41,21 @@ public class Email extends AbstractRegexAnnotator<CommsIdentifier> {
 		return ci;
 	}
 	
+	@Override
+	protected boolean mayMatch(String text) {
+		return text.indexOf('@') >= 0;
+	}
+
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(CommsIdentifier.class));
@@ -0,0 +1,167 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.annotators.regex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.factory.UimaContextFactory;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceInitializationException;
+
+import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.FusedRegexEngine;
+import uk.gov.dstl.baleen.core.pipelines.PipelineBuilder;
+import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
+import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineActionStore;
+import uk.gov.dstl.baleen.core.utils.BuilderUtils;
+import uk.gov.dstl.baleen.exceptions.InvalidParameterException;
+import uk.gov.dstl.baleen.uima.BaleenTextAwareAnnotator;
+import uk.gov.dstl.baleen.uima.data.TextBlock;
+
+/**
+ * Run a number of regular expression annotators together, in a single pass over each text block
+ *
+ * <p>Each of the regular expression annotators (those extending {@link AbstractRegexAnnotator}, such as Email, IpV4 and Dtg)
+ * would normally be run as a separate annotator, each retrieving the text of every block and searching all of it. This
+ * annotator instead retrieves the text once and scans it in a single pass for the characters (and words) that each
+ * annotator's matches must contain, such as the @ of an e-mail address or the digits of a time. Each annotator's regular
+ * expression is then only run over the short windows of text around those anchors, so most of the text is never searched
+ * by most of the expressions. Annotators which don't describe their anchors are run over the whole block.</p>
+ *
+ * <p>The annotations produced are identical to those produced by running each of the annotators individually, in the
+ * order they are listed. Each of the regular expression annotators is initialised with its own context, holding the
+ * configuration parameters given to this annotator (for example, <i>requireAlpha</i> for Time). A parameter can be
+ * given to a single annotator by prefixing it with the annotator name as listed in <i>annotators</i>, for example
+ * <i>Time.requireAlpha</i>, in which case it overrides any unprefixed parameter of the same name for that annotator
+ * and is not seen by the others.</p>
+ *
+ * @baleen.javadoc
+ */
+public class FusedRegex extends BaleenTextAwareAnnotator {
+
+	/**
+	 * The regular expression annotators to run, either as a class name within uk.gov.dstl.baleen.annotators.regex or
+	 * as a fully qualified class name. Annotators must extend AbstractRegexAnnotator.
+	 *
+	 * @baleen.config CasRegistryNumber, DocumentNumber, Dtg, Email, FlightNumber, Frequency, IpV4, Money, Osgb, SocialMediaUsername, TaskForce, Telephone, Time, UnqualifiedDate, Url, USTelephone
+	 */
+	public static final String PARAM_ANNOTATORS = "annotators";
+	@ConfigurationParameter(name = PARAM_ANNOTATORS, defaultValue = {
+			"CasRegistryNumber", "DocumentNumber", "Dtg", "Email", "FlightNumber", "Frequency", "IpV4", "Money", "Osgb",
+			"SocialMediaUsername", "TaskForce", "Telephone", "Time", "UnqualifiedDate", "Url", "USTelephone" })
+	private String[] annotatorNames;
+
+	private FusedRegexEngine engine;
+
+	@Override
+	public void doInitialize(UimaContext aContext) throws ResourceInitializationException {
+		List<AbstractRegexAnnotator<?>> annotators = new ArrayList<>(annotatorNames.length);
+
+		Set<String> names = new HashSet<>();
+		for(String name : annotatorNames) {
+			names.add(name.trim());
+		}
+
+		for(String name : annotatorNames) {
+			String trimmed = name.trim();
+			AbstractRegexAnnotator<?> annotator = createAnnotator(trimmed);
+			annotator.initialize(createContext(aContext, trimmed, names));
+			AnalysisEngineActionStore.getInstance().remove(getDelegateUuid(aContext, trimmed));
+			annotators.add(annotator);
+		}
+
+		engine = new FusedRegexEngine(annotators);
+		getMonitor().info("Running {} regular expression annotators together", annotators.size());
+	}
+
+	/**
+	 * Create the context for one of the regular expression annotators, holding the parameters given to this
+	 * annotator, except those prefixed for other annotators, with any parameters prefixed for this annotator
+	 * taking precedence.
+	 *
+	 * The annotator is given its own UUID, and its action is removed from the store once it has been initialised,
+	 * so that it doesn't replace the action of this annotator.
+	 */
+	private UimaContext createContext(UimaContext aContext, String name, Set<String> names) throws ResourceInitializationException {
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		Map<String, Object> prefixed = new LinkedHashMap<>();
+		String prefix = name + ".";
+
+		for(String parameter : aContext.getConfigParameterNames()) {
+			Object value = aContext.getConfigParameterValue(parameter);
+			int dot = parameter.lastIndexOf('.');
+
+			if(value == null || PARAM_ANNOTATORS.equals(parameter)) {
+				continue;
+			} else if(parameter.startsWith(prefix)) {
+				prefixed.put(parameter.substring(prefix.length()), value);
+			} else if(dot < 0 || !names.contains(parameter.substring(0, dot))) {
+				parameters.put(parameter, value);
+			}
+		}
+		parameters.putAll(prefixed);
+		parameters.put(PipelineBuilder.ANNOTATOR_UUID, getDelegateUuid(aContext, name));
+
+		Object[] configurationData = new Object[parameters.size() * 2];
+		int i = 0;
+		for(Map.Entry<String, Object> e : parameters.entrySet()) {
+			configurationData[i++] = e.getKey();
+			configurationData[i++] = e.getValue();
+		}
+
+		return UimaContextFactory.createUimaContext(configurationData);
+	}
+
+	private static String getDelegateUuid(UimaContext aContext, String name) {
+		return aContext.getConfigParameterValue(PipelineBuilder.ANNOTATOR_UUID) + "/" + name;
+	}
+
+	private AbstractRegexAnnotator<?> createAnnotator(String name) throws ResourceInitializationException {
+		try {
+			Class<?> clazz = BuilderUtils.getClassFromString(name, FusedRegex.class.getPackage().getName());
+			if(!AbstractRegexAnnotator.class.isAssignableFrom(clazz)) {
+				throw new ResourceInitializationException(new InvalidParameterException(name + " is not a regular expression annotator"));
+			}
+
+			return (AbstractRegexAnnotator<?>) clazz.newInstance();
+		} catch (InvalidParameterException | InstantiationException | IllegalAccessException e) {
+			throw new ResourceInitializationException(e);
+		}
+	}
+
+	@Override
+	protected void doProcessTextBlock(TextBlock block) throws AnalysisEngineProcessException {
+		engine.process(block, this::addToJCasIndex);
+	}
+
+	@Override
+	protected void doDestroy() {
+		if(engine != null) {
+			engine.getAnnotators().forEach(AbstractRegexAnnotator::destroy);
+			engine = null;
+		}
+	}
+
+	@Override
+	public AnalysisEngineAction getAction() {
+		Set<Class<? extends Annotation>> inputs = new HashSet<>();
+		Set<Class<? extends Annotation>> outputs = new HashSet<>();
+
+		if(engine != null) {
+			for(AbstractRegexAnnotator<?> annotator : engine.getAnnotators()) {
+				AnalysisEngineAction action = annotator.getAction();
+				inputs.addAll(action.getInputs());
+				outputs.addAll(action.getOutputs());
+			}
+		}
+
+		return new AnalysisEngineAction(inputs, outputs);
+	}
+}
@@ -9,6 +9,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.CommsIdentifier;
 
@@ -24,6 +25,7 @@ import uk.gov.dstl.baleen.types.common.CommsIdentifier;
 public class IpV4 extends AbstractRegexAnnotator<CommsIdentifier> {
 	
 	private static final String IPV4_REGEX = "\\b(?:(?:25[0-5]|2[0-4][0-9]|1[0-9][0-9]|[1-9]?[0-9])\\.){3}(?:25[0-5]|2[0-4][0-9]|1[0-9][0-9]|[1-9]?[0-9])\\b";
+	private static final RegexAnchor ANCHOR = RegexAnchor.of(RegexAnchor.chars("."), RegexAnchor.DIGIT).withMaxLength(15);
 	
 	/**
 	 * New instance.
@@ -39,6 +41,21 @@ public class IpV4 extends AbstractRegexAnnotator<CommsIdentifier> {
 		return ipaddress;
 	}
 
+	@Override
+	protected boolean mayMatch(String text) {
+		return text.indexOf('.') >= 0;
+	}
+
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(CommsIdentifier.class));
@@ -9,6 +9,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.geo.Coordinate;
 import uk.gov.dstl.common.geo.osgb.Constants;
@@ -24,6 +25,7 @@ import uk.gov.dstl.common.geo.osgb.OSGB36;
  */
 public class Osgb extends AbstractRegexAnnotator<Coordinate>{
 	private static final String OSGB_REGEX = "\\b([HJNOST][A-HJ-Z])( )?([0-9]{6}|[0-9]{3} [0-9]{3}|[0-9]{8}|[0-9]{4} [0-9]{4}|[0-9]{10}|[0-9]{5} [0-9]{5})\\b";
+	private static final RegexAnchor ANCHOR = RegexAnchor.of(RegexAnchor.DIGIT, RegexAnchor.LETTER.or(RegexAnchor.chars(" "))).withMaxLength(14);
 
 	/** New instance.
 	 * 
@@ -50,6 +52,21 @@ public class Osgb extends AbstractRegexAnnotator<Coordinate>{
 		
 	}
 	
+	@Override
+	protected boolean mayMatch(String text) {
+		return containsDigit(text);
+	}
+
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(Coordinate.class));
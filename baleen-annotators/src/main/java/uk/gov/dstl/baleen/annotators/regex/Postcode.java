@@ -106,6 +106,11 @@ public class Postcode extends AbstractRegexAnnotator<Coordinate> {
 		postcodes = null;
 	}
 	
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(Coordinate.class));
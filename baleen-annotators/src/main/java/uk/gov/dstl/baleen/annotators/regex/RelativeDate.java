@@ -14,9 +14,11 @@ import java.util.Collections;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.resource.ResourceInitializationException;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -26,6 +28,7 @@ import uk.gov.dstl.baleen.types.metadata.Metadata;
 import uk.gov.dstl.baleen.types.semantic.Temporal;
 import uk.gov.dstl.baleen.uima.BaleenTextAwareAnnotator;
 import uk.gov.dstl.baleen.uima.data.TextBlock;
+import uk.gov.dstl.baleen.uima.utils.PatternRegistry;
 
 /**
  * Extract expressions that refer to a relative date, e.g. yesterday.
@@ -94,17 +97,44 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	
 	LocalDate relativeTo = null;
 	
+	private DateTimeFormatter dtf;
+	
+	private Pattern yesterdayPattern;
+	private Pattern todayPattern;
+	private Pattern tomorrowPattern;
+	private Pattern thisXPattern;
+	private Pattern nextLastDayPattern;
+	private Pattern nextLastWeekPattern;
+	private Pattern nextLastMonthPattern;
+	private Pattern nextLastYearPattern;
+	private Pattern inTheNextLastXPattern;
+	
 	@Override
-	protected void doProcessTextBlock(TextBlock block) throws AnalysisEngineProcessException {
-		relativeTo = null;
+	public void doInitialize(UimaContext aContext) throws ResourceInitializationException {
+		super.doInitialize(aContext);
 		
-		DateTimeFormatter dtf = null;
 		try{
 			dtf = DateTimeFormatter.ofPattern(dateFormat);
 		}catch(IllegalArgumentException iae){
 			getMonitor().error("Invalid date format, no relative date will be set", iae);
+			dtf = null;
 		}
 		
+		yesterdayPattern = PatternRegistry.compile("\\b(day before )?yesterday\\b", Pattern.CASE_INSENSITIVE);
+		todayPattern = PatternRegistry.compile("\\btoday\\b", Pattern.CASE_INSENSITIVE);
+		tomorrowPattern = PatternRegistry.compile("\\b(day after )?tomorrow\\b", Pattern.CASE_INSENSITIVE);
+		thisXPattern = PatternRegistry.compile("\\bthis (week|month|year)\\b", Pattern.CASE_INSENSITIVE);
+		nextLastDayPattern = PatternRegistry.compile("\\b(next|last) "+DAYS+"\\b", Pattern.CASE_INSENSITIVE);
+		nextLastWeekPattern = PatternRegistry.compile("\\b((in the|within the|"+DAYS+") )?(next|last) week\\b", Pattern.CASE_INSENSITIVE);
+		nextLastMonthPattern = PatternRegistry.compile("\\b((in the|within the) )?(next|last) month\\b", Pattern.CASE_INSENSITIVE);
+		nextLastYearPattern = PatternRegistry.compile("\\b((in the|within the|"+MONTHS+") )?(next|last) year\\b", Pattern.CASE_INSENSITIVE);
+		inTheNextLastXPattern = PatternRegistry.compile("\\b(in|within) the (next|last) (\\d+) (day|week|month|year)s\\b", Pattern.CASE_INSENSITIVE);
+	}
+	
+	@Override
+	protected void doProcessTextBlock(TextBlock block) throws AnalysisEngineProcessException {
+		relativeTo = null;
+		
 		if(dtf != null){
 			Collection<Metadata> md = JCasUtil.select(block.getJCas(), Metadata.class);
 			for(String field : metadataFields){
@@ -141,8 +171,7 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	}
 	
 	private void yesterday(TextBlock block){
-		Pattern p = Pattern.compile("\\b(day before )?yesterday\\b", Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(block.getCoveredText());
+		Matcher m = yesterdayPattern.matcher(block.getCoveredText());
 		
 		while(m.find()){
 			if(m.group(1) != null){
@@ -154,8 +183,7 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	}
 	
 	private void today(TextBlock block){
-		Pattern p = Pattern.compile("\\btoday\\b", Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(block.getCoveredText());
+		Matcher m = todayPattern.matcher(block.getCoveredText());
 		
 		while(m.find()){
 			createRelativeDay(block, m.start(), m.end(), 0);
@@ -163,8 +191,7 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	}
 	
 	private void tomorrow(TextBlock block){
-		Pattern p = Pattern.compile("\\b(day after )?tomorrow\\b", Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(block.getCoveredText());
+		Matcher m = tomorrowPattern.matcher(block.getCoveredText());
 		
 		while(m.find()){
 			if(m.group(1) != null){
@@ -176,8 +203,7 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	}
 	
 	private void thisX(TextBlock block){
-		Pattern p = Pattern.compile("\\bthis (week|month|year)\\b", Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(block.getCoveredText());
+		Matcher m = thisXPattern.matcher(block.getCoveredText());
 		
 		while(m.find()){
 			if("week".equalsIgnoreCase(m.group(1))){
@@ -191,8 +217,7 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	}
 	
 	private void nextLastDay(TextBlock block){
-		Pattern p = Pattern.compile("\\b(next|last) "+DAYS+"\\b", Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(block.getCoveredText());
+		Matcher m = nextLastDayPattern.matcher(block.getCoveredText());
 		
 		while(m.find()){
 			Integer offset = null;
@@ -220,8 +245,7 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	}
 	
 	private void nextLastWeek(TextBlock block){
-		Pattern p = Pattern.compile("\\b((in the|within the|"+DAYS+") )?(next|last) week\\b", Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(block.getCoveredText());
+		Matcher m = nextLastWeekPattern.matcher(block.getCoveredText());
 		
 		while(m.find()){
 			if(m.group(3) != null){
@@ -247,8 +271,7 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	}
 	
 	private void nextLastMonth(TextBlock block){
-		Pattern p = Pattern.compile("\\b((in the|within the) )?(next|last) month\\b", Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(block.getCoveredText());
+		Matcher m = nextLastMonthPattern.matcher(block.getCoveredText());
 		
 		while(m.find()){
 			if(m.group(2) != null){
@@ -268,8 +291,7 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	}
 	
 	private void nextLastYear(TextBlock block){
-		Pattern p = Pattern.compile("\\b((in the|within the|"+MONTHS+") )?(next|last) year\\b", Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(block.getCoveredText());
+		Matcher m = nextLastYearPattern.matcher(block.getCoveredText());
 		
 		while(m.find()){
 			if(m.group(3) != null){
@@ -295,8 +317,7 @@ public class RelativeDate extends BaleenTextAwareAnnotator {
 	}
 	
 	private void inTheNextLastX(TextBlock block){
-		Pattern p = Pattern.compile("\\b(in|within) the (next|last) (\\d+) (day|week|month|year)s\\b", Pattern.CASE_INSENSITIVE);
-		Matcher m = p.matcher(block.getCoveredText());
+		Matcher m = inTheNextLastXPattern.matcher(block.getCoveredText());
 		
 		while(m.find()){
 			Integer offset = Integer.parseInt(m.group(3));
@@ -9,6 +9,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.CommsIdentifier;
 
@@ -20,6 +21,7 @@ import uk.gov.dstl.baleen.types.common.CommsIdentifier;
 public class SocialMediaUsername extends AbstractRegexAnnotator<CommsIdentifier> {
 	// We need the \b in so we don't have emails
 	private static final String PATTERN = "\\B@[A-Za-z0-9-_]+\\b";
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.chars("@"));
 	
 	/** New instance.
 	 * 
@@ -36,6 +38,16 @@ public class SocialMediaUsername extends AbstractRegexAnnotator<CommsIdentifier>
 		return ci;
 	}
 	
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(CommsIdentifier.class));
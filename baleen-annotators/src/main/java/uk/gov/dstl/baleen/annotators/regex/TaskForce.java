@@ -9,6 +9,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.Organisation;
 
@@ -22,6 +23,7 @@ import uk.gov.dstl.baleen.types.common.Organisation;
  */
 public class TaskForce extends AbstractRegexAnnotator<Organisation> {
 	private static final String TF_REGEX = "\\b(tf|task force)[\\h]*[\\-0-9]+\\b";
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.NONE).withWords("tf", "task force");
 	
 	/**
 	 * New instance.
@@ -35,6 +37,16 @@ public class TaskForce extends AbstractRegexAnnotator<Organisation> {
 		return new Organisation(jCas);
 	}
 
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(Organisation.class));
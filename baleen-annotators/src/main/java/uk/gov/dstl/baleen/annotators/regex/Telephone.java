@@ -9,6 +9,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.CommsIdentifier;
 
@@ -23,6 +24,7 @@ import uk.gov.dstl.baleen.types.common.CommsIdentifier;
  */
 public class Telephone extends AbstractRegexAnnotator<CommsIdentifier> {
 	private static final String TELEPHONE_REGEX = "\\b(tel|tele|telephone|phone|selector|comm)( (number|num|no))?[:. ]+([-+\\(\\) 0-9]+[0-9])\\b";
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.NONE).withWords("tel", "phone", "selector", "comm");
 
 	/** 
 	 * New instance.
@@ -38,6 +40,16 @@ public class Telephone extends AbstractRegexAnnotator<CommsIdentifier> {
 		return tel;
 	}
 	
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(CommsIdentifier.class));
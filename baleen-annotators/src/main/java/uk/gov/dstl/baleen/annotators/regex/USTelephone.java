@@ -10,6 +10,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.CommsIdentifier;
 
@@ -18,6 +19,7 @@ import uk.gov.dstl.baleen.types.common.CommsIdentifier;
  */
 public class USTelephone extends AbstractRegexAnnotator<CommsIdentifier> {
 	private static final String PHONE_REGEX = "\\b((\\(?\\+?1\\)?[-. ])?\\(?([2-9]|two|three|four|five|six|seven|eight|nine)([0-9]|zero|one|two|three|four|five|six|seven|eight|nine){2}\\)?[-. ]([2-9]|two|three|four|five|six|seven|eight|nine)([0-9]|zero|one|two|three|four|five|six|seven|eight|nine){2}[-. ]([0-9]|zero|one|two|three|four|five|six|seven|eight|nine){4}|1-800-[A-Z]{7})\\b";
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.DIGIT.or(RegexAnchor.chars("(+"))).withWords("two", "three", "four", "five", "six", "seven", "eight", "nine");
 
 	/**
 	 * New instance
@@ -33,6 +35,16 @@ public class USTelephone extends AbstractRegexAnnotator<CommsIdentifier> {
 		return ci;
 	}
 	
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(CommsIdentifier.class));
@@ -10,6 +10,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.semantic.Temporal;
 
@@ -25,6 +26,7 @@ public class UnqualifiedDate extends AbstractRegexAnnotator<Temporal> {
 	private static final String MONTHS = "(Jan(uary)?+|Feb(ruary)?+|Mar(ch)?+|Apr(il)?+|May|Jun(e)?+|Jul(y)?+|Aug(ust)?+|Sep(t(ember)?+)?+|Oct(ober)?+|Nov(ember)?+|Dec(ember)?+)";
 
 	private static final String PATTERN = "\\b(("+DAYS+" )?((([1-9]|[12][0-9]|3[01])"+SUFFIXES+"?+ (?:of )?"+MONTHS+"|"+MONTHS+" ([1-9]|[12][0-9]|3[01])"+SUFFIXES+"?+|"+MONTHS+"|([1-9]|[12][0-9]|3[01])"+SUFFIXES+")+)|"+DAYS+" ?)\\b(\\s*(\\d{4}|'?\\d{2}))?";
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.DIGIT).withWords("mon", "tue", "wed", "thu", "fri", "sat", "sun", "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec");
 	
 	/**
 	 * Allow lower case letters for months and days? 
@@ -75,6 +77,16 @@ public class UnqualifiedDate extends AbstractRegexAnnotator<Temporal> {
 		return letter.toUpperCase().equals(letter);
 	}
 	
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(Temporal.class));
@@ -1,6 +1,7 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.annotators.regex.helpers;
 
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -17,6 +18,12 @@ import uk.gov.dstl.baleen.uima.data.TextBlock;
  *
  * Implement create and pass in the regex definition to the contractor.
  *
+ * Regex annotators only look at the text of each block, so an implementation whose create method is thread
+ * safe can allow large documents to be processed in shards by overriding {@link #isShardable()}.
+ *
+ * When run as part of {@link uk.gov.dstl.baleen.annotators.regex.FusedRegex}, an implementation which describes
+ * where its matches can occur (see {@link #getAnchor()}) only has its pattern run over those parts of the text.
+ *
  * 
  *
  * @param <T> the type of entity produced.
@@ -77,25 +84,104 @@ public abstract class AbstractRegexAnnotator<T extends Annotation> extends Balee
 	 */
 	protected abstract T create(JCas jCas, Matcher matcher);
 
+	/** Quick check of whether the pattern could possibly match the text, used to avoid running the
+	 * (potentially expensive) regular expression over text which can't contain a match.
+	 *
+	 * This must never return false if the pattern could match. The default implementation always returns true.
+	 *
+	 * @param text the text to be searched
+	 * @return false if the pattern can not match the text
+	 */
+	protected boolean mayMatch(String text) {
+		return true;
+	}
+
+	/** Describe where in the text matches of the pattern can occur, so that {@link FusedRegexEngine} only needs
+	 * to run the pattern over those parts of the text.
+	 *
+	 * Every possible match of the pattern must satisfy the returned anchor. The default implementation returns null,
+	 * which means the pattern is run over the whole text.
+	 *
+	 * @return the anchor, or null if the pattern should be run over the whole text
+	 */
+	protected RegexAnchor getAnchor() {
+		return null;
+	}
+
+	/** Get the pattern used to find entities
+	 * @return the pattern
+	 */
+	Pattern getPattern() {
+		return pattern;
+	}
+
 	@Override
 	public void doProcessTextBlock(TextBlock block) throws AnalysisEngineProcessException {
 		String text = block.getCoveredText();
+		if(mayMatch(text)) {
+			findAnnotations(block, text, this::addToJCasIndex);
+		}
+	}
+
+	/** Find the annotations in the text of a block, passing each to the consumer in the order they are found.
+	 *
+	 * The annotations will have their offsets, confidence and value set, but will not have been added to the jCas.
+	 *
+	 * @param block the text block being processed
+	 * @param text the covered text of the block
+	 * @param consumer receives each annotation
+	 */
+	void findAnnotations(TextBlock block, String text, Consumer<Annotation> consumer) {
+		findAnnotations(block, pattern.matcher(text), consumer);
+	}
 
-		Matcher matcher = pattern.matcher(text);
+	/** Find the annotations for each further match of a matcher over the text of a block, passing each to the consumer
+	 * in the order they are found.
+	 *
+	 * @param block the text block being processed
+	 * @param matcher a matcher for the pattern over the covered text of the block (possibly limited to a region)
+	 * @param consumer receives each annotation
+	 */
+	void findAnnotations(TextBlock block, Matcher matcher, Consumer<Annotation> consumer) {
 		while(matcher.find()){
-			Annotation a = create(block.getJCas(), matcher);
-
-			if(a != null) {
-				block.setBeginAndEnd(a, matcher.start(matcherGroup), matcher.end(matcherGroup));
-				if(a instanceof Base) {
-					((Base)a).setConfidence(confidence);
-				}
-				if(a instanceof Entity) {
-					((Entity)a).setValue(matcher.group(matcherGroup));
-				}
-
-				addToJCasIndex(a);
+			addAnnotation(block, matcher, consumer);
+		}
+	}
+
+	/** Create the annotation for the current match of a matcher, and pass it to the consumer if it is valid.
+	 *
+	 * @param block the text block being processed
+	 * @param matcher a matcher for the pattern over the covered text of the block, which has just matched
+	 * @param consumer receives the annotation
+	 */
+	void addAnnotation(TextBlock block, Matcher matcher, Consumer<Annotation> consumer) {
+		Annotation a = create(block.getJCas(), matcher);
+
+		if(a != null) {
+			block.setBeginAndEnd(a, matcher.start(matcherGroup), matcher.end(matcherGroup));
+			if(a instanceof Base) {
+				((Base)a).setConfidence(confidence);
+			}
+			if(a instanceof Entity) {
+				((Entity)a).setValue(matcher.group(matcherGroup));
+			}
+
+			consumer.accept(a);
+		}
+	}
+
+	/** Does the text contain at least one digit
+	 *
+	 * @param text the text to check
+	 * @return true if a digit was found
+	 */
+	protected static boolean containsDigit(String text) {
+		for(int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if(c >= '0' && c <= '9') {
+				return true;
 			}
 		}
+		return false;
 	}
 }
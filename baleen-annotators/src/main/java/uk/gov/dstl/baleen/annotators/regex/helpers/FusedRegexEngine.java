@@ -0,0 +1,212 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.annotators.regex.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+
+import org.apache.uima.jcas.tcas.Annotation;
+
+import uk.gov.dstl.baleen.uima.data.TextBlock;
+
+/** Runs a number of {@link AbstractRegexAnnotator}s over a text block together.
+ *
+ * The covered text of the block is scanned once, looking up each character in a table to find the anchors
+ * (see {@link RegexAnchor}) of every annotator which declares them. Where every match of an annotator's pattern
+ * starts with an anchor, the pattern is only tried at those anchors (with {@link Matcher#lookingAt()}), skipping
+ * any which fall within the previous match. Otherwise each anchor gives a window of text in which a match could
+ * occur, and the pattern is only searched for within those windows. Either way the pattern is run over a region of
+ * the full text with transparent and non-anchoring bounds, so word boundaries and lookarounds behave exactly as they
+ * would over the whole block, and it finds the same matches as it would if it were run over the whole block.
+ *
+ * Annotators without anchors are run over the whole block, unless their pattern can't match the text
+ * (see {@link AbstractRegexAnnotator#mayMatch(String)}).
+ * Each annotator produces exactly the same annotations as it would if it were run on its own.
+ */
+public class FusedRegexEngine {
+	private static final int ASCII = 128;
+
+	private final List<AbstractRegexAnnotator<?>> annotators;
+	private final RegexAnchor[] anchors;
+	private final int[] anchored;
+	private final int[][] asciiCandidates;
+
+	/** New instance.
+	 * @param annotators the (initialised) annotators to run, in the order they should be run
+	 */
+	public FusedRegexEngine(List<AbstractRegexAnnotator<?>> annotators) {
+		this.annotators = Collections.unmodifiableList(new ArrayList<>(annotators));
+
+		anchors = new RegexAnchor[annotators.size()];
+		List<Integer> withAnchors = new ArrayList<>();
+		for(int i = 0; i < anchors.length; i++) {
+			anchors[i] = annotators.get(i).getAnchor();
+			if(anchors[i] != null) {
+				withAnchors.add(i);
+			}
+		}
+		anchored = withAnchors.stream().mapToInt(Integer::intValue).toArray();
+
+		asciiCandidates = new int[ASCII][];
+		for(char c = 0; c < ASCII; c++) {
+			final char ch = c;
+			asciiCandidates[c] = Arrays.stream(anchored)
+					.filter(i -> anchors[i].isAnchor(ch) || startsWord(anchors[i], ch))
+					.toArray();
+		}
+	}
+
+	private static boolean startsWord(RegexAnchor anchor, char c) {
+		String s = String.valueOf(c);
+		return anchor.getWords().stream().anyMatch(w -> s.regionMatches(true, 0, w, 0, 1));
+	}
+
+	/** Get the annotators run by this engine
+	 * @return unmodifiable list of annotators
+	 */
+	public List<AbstractRegexAnnotator<?>> getAnnotators() {
+		return annotators;
+	}
+
+	/** Find the annotations from every annotator within the block.
+	 *
+	 * Annotations are passed to the consumer grouped by annotator, in the order the annotators were provided.
+	 *
+	 * @param block the text block to process
+	 * @param consumer receives each annotation, which should then be added to the jCas
+	 */
+	public void process(TextBlock block, Consumer<Annotation> consumer) {
+		String text = block.getCoveredText();
+		Windows[] windows = findWindows(text);
+
+		for(int i = 0; i < anchors.length; i++) {
+			AbstractRegexAnnotator<?> annotator = annotators.get(i);
+
+			if(anchors[i] == null) {
+				if(annotator.mayMatch(text)) {
+					annotator.findAnnotations(block, text, consumer);
+				}
+			} else if(windows[i].size > 0) {
+				Matcher matcher = annotator.getPattern().matcher(text)
+						.useTransparentBounds(true)
+						.useAnchoringBounds(false);
+
+				if(anchors[i].isAtStart()) {
+					tryAnchors(block, text.length(), annotator, matcher, windows[i], consumer);
+				} else {
+					for(int w = 0; w < windows[i].size; w++) {
+						matcher.region(windows[i].starts[w], windows[i].ends[w]);
+						annotator.findAnnotations(block, matcher, consumer);
+					}
+				}
+			}
+		}
+	}
+
+	/** Try to match the pattern at each possible start (from the anchors) after the end of the last match */
+	private static void tryAnchors(TextBlock block, int length, AbstractRegexAnnotator<?> annotator, Matcher matcher, Windows windows, Consumer<Annotation> consumer) {
+		int next = 0;
+		for(int w = 0; w < windows.size; w++) {
+			int start = Math.max(windows.starts[w], next);
+			while(start < windows.ends[w]) {
+				matcher.region(start, length);
+				if(matcher.lookingAt()) {
+					annotator.addAnnotation(block, matcher, consumer);
+					next = matcher.end();
+					start = next;
+				} else {
+					start++;
+				}
+			}
+		}
+	}
+
+	/** Scan the text once, collecting the windows around the anchors of each annotator */
+	private Windows[] findWindows(String text) {
+		Windows[] windows = new Windows[anchors.length];
+		for(int i : anchored) {
+			windows[i] = new Windows();
+		}
+
+		for(int offset = 0; offset < text.length(); offset++) {
+			char c = text.charAt(offset);
+			int[] candidates = c < ASCII ? asciiCandidates[c] : anchored;
+
+			for(int i : candidates) {
+				RegexAnchor anchor = anchors[i];
+				if(!windows[i].covers(anchor, offset) && (anchor.isAnchor(c) || anchor.isWordAt(text, offset))) {
+					windows[i].add(anchor, text, offset);
+				}
+			}
+		}
+
+		return windows;
+	}
+
+	/** The (ordered, disjoint) windows in which one annotator's pattern could match, or for an anchor at the start of
+	 * every match, the (ordered, disjoint) ranges in which a match could start */
+	private static final class Windows {
+		private int[] starts = new int[4];
+		private int[] ends = new int[4];
+		private int size = 0;
+
+		/** Is the anchor at offset already known to be within the run of span characters of the last window,
+		 * and therefore to add nothing to it */
+		boolean covers(RegexAnchor anchor, int offset) {
+			return !anchor.isAtStart() && anchor.getMaxLength() == 0 && size > 0 && offset < ends[size - 1];
+		}
+
+		/** Add the window surrounding the anchor at offset (or for an anchor at the start of every match, the range in
+		 * which a match could start), merging it with the last window if they touch */
+		void add(RegexAnchor anchor, String text, int offset) {
+			int last = size > 0 ? ends[size - 1] : 0;
+
+			if(anchor.isAtStart()) {
+				int start = offset;
+				if(anchor.getLead() > 0) {
+					while(start > last && RegexAnchor.WHITESPACE.test(text.charAt(start - 1))) {
+						start--;
+					}
+					start = Math.max(0, start - anchor.getLead());
+				}
+				merge(start, offset + 1);
+				return;
+			}
+
+			int limit = anchor.getMaxLength();
+
+			int lower = Math.max(last, limit > 0 ? offset - limit + 1 : 0);
+			int start = offset;
+			while(start > lower && anchor.isSpan(text.charAt(start - 1))) {
+				start--;
+			}
+
+			int upper = limit > 0 ? Math.min(text.length(), offset + limit) : text.length();
+			int end = Math.max(offset + 1, last);
+			while(end < upper && anchor.isSpan(text.charAt(end))) {
+				end++;
+			}
+
+			merge(start, end);
+		}
+
+		/** Add the window, merging it with the last window if they touch */
+		private void merge(int start, int end) {
+			if(size > 0 && start <= ends[size - 1]) {
+				ends[size - 1] = Math.max(end, ends[size - 1]);
+				return;
+			}
+
+			if(size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			size++;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.annotators.regex.helpers;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/** Describes where in a text the matches of a regular expression can occur, so that {@link FusedRegexEngine} only
+ * has to run the expression over those parts of the text.
+ *
+ * An anchor is either an anchor character or an occurrence of one of the anchor words (compared ignoring case).
+ * There are two kinds of anchor:
+ * <ul>
+ * <li>Created with {@link #atStart(IntPredicate)}, every match of the expression starts with an anchor (or if a lead
+ * is given, shortly before one), so the expression need only be tried at each anchor.</li>
+ * <li>Created with {@link #of(IntPredicate, IntPredicate)}, every match of the expression contains at least one
+ * anchor and every character of a match must be a span character. A match can therefore only occur within the run
+ * of span characters surrounding an anchor, and if a maximum length is given, no further than that from the
+ * anchor.</li>
+ * </ul>
+ *
+ * The predicates may accept more characters than the expression can match, which only makes the search less
+ * selective, but if they accept fewer then matches will be missed.
+ */
+public final class RegexAnchor {
+	/** The digits matched by [0-9] and \d */
+	public static final IntPredicate DIGIT = c -> c >= '0' && c <= '9';
+
+	/** The letters matched by [A-Za-z], which with case insensitive matching is also all that [A-Z] can match */
+	public static final IntPredicate LETTER = c -> (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+
+	/** All whitespace characters, including those matched by \s and \h */
+	public static final IntPredicate WHITESPACE = c -> Character.isWhitespace(c) || Character.isSpaceChar(c) || c == '\u180e';
+
+	/** No characters, for anchors which only use words */
+	public static final IntPredicate NONE = c -> false;
+
+	private final IntPredicate anchors;
+	private final IntPredicate spans;
+	private final List<String> words;
+	private final int maxLength;
+	private final boolean atStart;
+	private final int lead;
+
+	private RegexAnchor(IntPredicate anchors, IntPredicate spans, List<String> words, int maxLength, boolean atStart, int lead) {
+		this.anchors = anchors;
+		this.spans = spans;
+		this.words = words;
+		this.maxLength = maxLength;
+		this.atStart = atStart;
+		this.lead = lead;
+	}
+
+	/** New instance, for an expression whose matches always start with an anchor.
+	 * @param anchors the characters with which every match starts (unless it starts with an anchor word)
+	 * @return the anchor
+	 */
+	public static RegexAnchor atStart(IntPredicate anchors) {
+		return new RegexAnchor(anchors, anchors, Collections.emptyList(), 0, true, 0);
+	}
+
+	/** New instance.
+	 * @param anchors the characters of which every match contains at least one
+	 * @param spans the characters which a match can contain (anchor characters are always included)
+	 * @return the anchor
+	 */
+	public static RegexAnchor of(IntPredicate anchors, IntPredicate spans) {
+		return new RegexAnchor(anchors, spans.or(anchors), Collections.emptyList(), 0, false, 0);
+	}
+
+	/** Create a predicate matching the characters of a string
+	 * @param chars the characters to match
+	 * @return the predicate
+	 */
+	public static IntPredicate chars(String chars) {
+		return c -> chars.indexOf(c) >= 0;
+	}
+
+	/** Copy of this anchor which also treats occurrences of the given words as anchors.
+	 * @param words words which a match may start with, or (made up of span characters) contain, instead of an anchor character
+	 * @return the new anchor
+	 */
+	public RegexAnchor withWords(String... words) {
+		return new RegexAnchor(anchors, spans, Collections.unmodifiableList(Arrays.asList(words)), maxLength, atStart, lead);
+	}
+
+	/** Copy of this anchor with a limit on the length of a match
+	 * @param maxLength the longest possible match, in characters
+	 * @return the new anchor
+	 */
+	public RegexAnchor withMaxLength(int maxLength) {
+		return new RegexAnchor(anchors, spans, words, maxLength, atStart, lead);
+	}
+
+	/** Is the character an anchor
+	 * @param c the character
+	 * @return true if the character is an anchor character
+	 */
+	public boolean isAnchor(char c) {
+		return anchors.test(c);
+	}
+
+	/** Could the character be part of a match
+	 * @param c the character
+	 * @return true if the character is a span character
+	 */
+	public boolean isSpan(char c) {
+		return spans.test(c);
+	}
+
+	/** Get the anchor words
+	 * @return unmodifiable list of the words (possibly empty)
+	 */
+	public List<String> getWords() {
+		return words;
+	}
+
+	/** Does an anchor word start at the given position in the text
+	 * @param text the text
+	 * @param offset the position in the text
+	 * @return true if an anchor word starts at offset
+	 */
+	public boolean isWordAt(String text, int offset) {
+		for(String word : words) {
+			if(text.regionMatches(true, offset, word, 0, word.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Copy of this anchor for an expression whose matches start with an anchor, or no more than the given number of
+	 * characters before it, not counting any whitespace immediately before the anchor.
+	 * @param lead the most characters, other than whitespace, which can precede the first anchor in a match
+	 * @return the new anchor
+	 */
+	public RegexAnchor withLead(int lead) {
+		return new RegexAnchor(anchors, spans, words, maxLength, atStart, lead);
+	}
+
+	/** Does every match start with an anchor
+	 * @return true if the expression need only be tried at each anchor
+	 */
+	public boolean isAtStart() {
+		return atStart;
+	}
+
+	/** Get the lead
+	 * @return the most characters, other than whitespace, which can precede the first anchor in a match
+	 */
+	public int getLead() {
+		return lead;
+	}
+
+	/** Get the maximum length of a match
+	 * @return the length, or 0 if it is unlimited
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+}
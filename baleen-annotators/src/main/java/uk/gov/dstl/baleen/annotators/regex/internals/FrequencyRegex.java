@@ -9,6 +9,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.Frequency;
 
@@ -22,6 +23,7 @@ import uk.gov.dstl.baleen.types.common.Frequency;
  */
 public class FrequencyRegex extends AbstractRegexAnnotator<Frequency> {
 	private static final String FREQ_REGEX = "\\b([0-9]+([.][0-9]+){0,1})[\\h]*([kMG]{0,1})Hz\\b";
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.DIGIT);
 	
 	/** New instance.
 	 * 
@@ -35,6 +37,21 @@ public class FrequencyRegex extends AbstractRegexAnnotator<Frequency> {
 		return new Frequency(jCas);
 	}
 
+	@Override
+	protected boolean mayMatch(String text) {
+		return containsDigit(text);
+	}
+
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(Frequency.class));
@@ -12,6 +12,7 @@ import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.helpers.QuantityUtils;
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.exceptions.BaleenException;
 import uk.gov.dstl.baleen.types.common.Money;
@@ -58,6 +59,7 @@ public class MoneyRegex extends AbstractRegexAnnotator<Money> {
 	private static final String END = "(?=$|\\)|\\?|\\!|\\s|[\\.,](\\s|$))";
 	
 	private static final String MONEY_REGEX = START+"("+CURRENCY_CODES+"|"+CURRENCY_SYMBOLS+")?("+WHITESPACE+"([0-9]+([,\\. ][0-9]{3})*([,.][0-9]+)?))("+WHITESPACE+"("+MULTIPLIERS+"))?("+WHITESPACE+"("+CURRENCY_CODES+"|"+CURRENCY_SYMBOLS+"|"+CURRENCY_SYMBOLS_FRACTIONS+"))?("+WHITESPACE+"("+MULTIPLIERS+"))?"+END;
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.DIGIT).withLead(3);
 	
 	/** 
 	 * New instance.
@@ -254,6 +256,21 @@ public class MoneyRegex extends AbstractRegexAnnotator<Money> {
 		return m;
 	}
 	
+	@Override
+	protected boolean mayMatch(String text) {
+		return containsDigit(text);
+	}
+
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(Money.class));
@@ -9,6 +9,7 @@ import org.apache.uima.jcas.JCas;
 import com.google.common.collect.ImmutableSet;
 
 import uk.gov.dstl.baleen.annotators.regex.helpers.AbstractRegexAnnotator;
+import uk.gov.dstl.baleen.annotators.regex.helpers.RegexAnchor;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.types.common.Url;
 
@@ -23,6 +24,7 @@ import uk.gov.dstl.baleen.types.common.Url;
  */
 public class UrlRegex extends AbstractRegexAnnotator<Url> {
 	private static final String URL_PATTERN = "\\b((https?|ftp)://|www.)(([-a-z0-9]+)\\.)?([-a-z0-9\\.]+\\.[a-z0-9]+)(:([1-9][0-9]{1,5}))?(/([-a-z0-9+&@#/%=~_|$!:,.]*\\?[-a-z0-9+&@#/%=~_|$!:,.]*)|/([-a-z0-9+&@#/%=~_|$!:,.]*[-a-z0-9+&@#/%=~_|$!:,])|/)?";
+	private static final RegexAnchor ANCHOR = RegexAnchor.atStart(RegexAnchor.NONE).withWords("http", "ftp", "www");
 	
 	/** New instance.
 	 * 
@@ -36,6 +38,16 @@ public class UrlRegex extends AbstractRegexAnnotator<Url> {
 		return new Url(jCas);
 	}
 	
+	@Override
+	protected RegexAnchor getAnchor() {
+		return ANCHOR;
+	}
+
+	@Override
+	protected boolean isShardable() {
+		return true;
+	}
+
 	@Override
 	public AnalysisEngineAction getAction() {
 		return new AnalysisEngineAction(Collections.emptySet(), ImmutableSet.of(Url.class));
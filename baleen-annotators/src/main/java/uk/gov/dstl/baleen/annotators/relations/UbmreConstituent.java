@@ -26,6 +26,7 @@ import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.types.semantic.Relation;
 import uk.gov.dstl.baleen.uima.grammar.ParseTree;
 import uk.gov.dstl.baleen.uima.grammar.ParseTreeNode;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Unsupervised (originally Biomedical) Relationship Extractor.
@@ -90,9 +91,9 @@ public class UbmreConstituent extends AbstractInteractionBasedSentenceRelationsh
 	protected void preExtract(JCas jCas) {
 		super.preExtract(jCas);
 
-		parseTree = ParseTree.build(jCas);
+		parseTree = ParseTree.getInstance(jCas);
 
-		interactionCoveringTokens = JCasUtil.indexCovering(jCas, Interaction.class,
+		interactionCoveringTokens = DerivedIndexCache.indexCovering(jCas, Interaction.class,
 				WordToken.class);
 
 	}
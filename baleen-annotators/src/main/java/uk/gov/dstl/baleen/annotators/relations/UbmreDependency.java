@@ -27,6 +27,7 @@ import uk.gov.dstl.baleen.types.semantic.Relation;
 import uk.gov.dstl.baleen.uima.grammar.DependencyGraph;
 import uk.gov.dstl.baleen.uima.grammar.DependencyGraph.TraversePredicate;
 import uk.gov.dstl.baleen.uima.utils.AnnotationUtils;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Unsupervised (originally Biomedical) Relationship Extractor.
@@ -80,7 +81,7 @@ public class UbmreDependency extends AbstractInteractionBasedRelationshipAnnotat
 	protected void preExtract(JCas jCas) {
 		super.preExtract(jCas);
 
-		dependencyGraph = DependencyGraph.build(jCas);
+		dependencyGraph = DependencyGraph.getInstance(jCas);
 	}
 	
 	@Override
@@ -93,11 +94,11 @@ public class UbmreDependency extends AbstractInteractionBasedRelationshipAnnotat
 	@Override
 	protected void extract(JCas jCas) {
 
-		final Map<WordToken, Collection<Interaction>> tokenToInteraction = JCasUtil.indexCovered(jCas, WordToken.class,
+		final Map<WordToken, Collection<Interaction>> tokenToInteraction = DerivedIndexCache.indexCovered(jCas, WordToken.class,
 				Interaction.class);
-		final Map<Entity, Collection<Dependency>> entityToDependency = JCasUtil.indexCovered(jCas, Entity.class,
+		final Map<Entity, Collection<Dependency>> entityToDependency = DerivedIndexCache.indexCovered(jCas, Entity.class,
 				Dependency.class);
-		final Map<Interaction, Collection<WordToken>> interactionToDependencies = JCasUtil.indexCovered(jCas,
+		final Map<Interaction, Collection<WordToken>> interactionToDependencies = DerivedIndexCache.indexCovered(jCas,
 				Interaction.class,
 				WordToken.class);
 
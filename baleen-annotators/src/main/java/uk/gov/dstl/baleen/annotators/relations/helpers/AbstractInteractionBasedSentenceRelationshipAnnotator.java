@@ -12,6 +12,7 @@ import uk.gov.dstl.baleen.types.language.Interaction;
 import uk.gov.dstl.baleen.types.language.Sentence;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.types.semantic.Relation;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * A base class for building relationship extractors which work at a sentence level.
@@ -29,9 +30,9 @@ public abstract class AbstractInteractionBasedSentenceRelationshipAnnotator
 	@Override
 	protected final void extract(JCas jCas) {
 
-		final Map<Sentence, Collection<Interaction>> sentenceToInteraction = JCasUtil.indexCovered(jCas, Sentence.class,
+		final Map<Sentence, Collection<Interaction>> sentenceToInteraction = DerivedIndexCache.indexCovered(jCas, Sentence.class,
 				Interaction.class);
-		final Map<Sentence, Collection<Entity>> sentenceToEntities = JCasUtil.indexCovered(jCas, Sentence.class,
+		final Map<Sentence, Collection<Entity>> sentenceToEntities = DerivedIndexCache.indexCovered(jCas, Sentence.class,
 				Entity.class);
 
 		for (final Sentence sentence : JCasUtil.select(jCas, Sentence.class)) {
@@ -116,7 +116,7 @@ public class StructuralEntity extends BaleenAnnotator {
 	@Override
 	protected void doProcess(JCas jCas) throws AnalysisEngineProcessException {
 
-		Nodes<Structure> select = StructureHierarchy.build(jCas, structuralClasses).select(query);
+		Nodes<Structure> select = StructureHierarchy.getInstance(jCas, structuralClasses).select(query);
 
 		select.forEach(node -> {
 			if (node.hasText()) {
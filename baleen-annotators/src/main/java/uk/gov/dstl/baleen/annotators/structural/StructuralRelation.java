@@ -131,7 +131,7 @@ public class StructuralRelation extends AbstractRelationshipAnnotator {
 	@Override
 	protected void extract(JCas jCas) throws AnalysisEngineProcessException {
 
-		Nodes<Annotation> select = AnnotationHierarchyBuilder.build(jCas, annotationClasses).select(query);
+		Nodes<Annotation> select = AnnotationHierarchyBuilder.getInstance(jCas, annotationClasses).select(query);
 
 		addRelationsToIndex(select.stream().flatMap(match -> {
 
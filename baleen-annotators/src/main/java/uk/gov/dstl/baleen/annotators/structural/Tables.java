@@ -41,7 +41,7 @@ public class Tables {
 	 */
 	public Tables(JCas jCas) throws AnalysisEngineProcessException {
 		try {
-			ItemHierarchy<Structure> hierarchy = StructureHierarchy.build(jCas, StructureUtil.getStructureClasses());
+			ItemHierarchy<Structure> hierarchy = StructureHierarchy.getInstance(jCas, StructureUtil.getStructureClasses());
 			nodes = hierarchy.getRoot().select("Table");
 		} catch (ResourceInitializationException e) {
 			throw new AnalysisEngineProcessException("Can not create structure helper", null, e);
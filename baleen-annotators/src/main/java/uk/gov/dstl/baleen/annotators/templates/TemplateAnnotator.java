@@ -4,13 +4,16 @@ package uk.gov.dstl.baleen.annotators.templates;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -26,6 +29,7 @@ import uk.gov.dstl.baleen.exceptions.InvalidParameterException;
 import uk.gov.dstl.baleen.types.structure.Structure;
 import uk.gov.dstl.baleen.types.templates.TemplateField;
 import uk.gov.dstl.baleen.types.templates.TemplateRecord;
+import uk.gov.dstl.baleen.uima.utils.PatternRegistry;
 import uk.gov.dstl.baleen.uima.utils.SelectorPath;
 import uk.gov.dstl.baleen.uima.utils.StructureHierarchy;
 import uk.gov.dstl.baleen.uima.utils.StructureUtil;
@@ -129,10 +133,29 @@ public class TemplateAnnotator extends AbstractTemplateAnnotator {
 	/** The structural classes. */
 	private Set<Class<? extends Structure>> structuralClasses;
 
+	/** The compiled field regular expressions, keyed by expression. */
+	private final Map<String, Pattern> fieldPatterns = new HashMap<>();
+
 	@Override
 	public void doInitialize(UimaContext aContext) throws ResourceInitializationException {
 		super.doInitialize(aContext);
 		structuralClasses = StructureUtil.getStructureClasses(typeNames);
+
+		for (TemplateRecordConfiguration recordDefinition : recordDefinitions.values()) {
+			if (recordDefinition.getFields() == null) {
+				continue;
+			}
+			for (TemplateFieldConfiguration field : recordDefinition.getFields()) {
+				String regex = field.getRegex();
+				if (regex != null) {
+					try {
+						fieldPatterns.put(regex, PatternRegistry.compile(regex));
+					} catch (PatternSyntaxException e) {
+						throw new ResourceInitializationException(e);
+					}
+				}
+			}
+		}
 	}
 
 	@Override
@@ -157,7 +180,7 @@ public class TemplateAnnotator extends AbstractTemplateAnnotator {
 	 */
 	protected void doProcessRecordDefinitions(final JCas jCas, String source,
 			List<TemplateRecordConfiguration> recordDefinitions) {
-		RecordStructureManager manager = new RecordStructureManager(StructureHierarchy.build(jCas, structuralClasses));
+		RecordStructureManager manager = new RecordStructureManager(StructureHierarchy.getInstance(jCas, structuralClasses));
 
 		Collections.sort(recordDefinitions, Comparator.comparing(TemplateRecordConfiguration::getOrder));
 
@@ -387,7 +410,7 @@ public class TemplateAnnotator extends AbstractTemplateAnnotator {
 			createFieldAnnotation(jCas, source, field.getName(), structure.getBegin(), structure.getEnd(),
 					structure.getCoveredText());
 		} else {
-			Pattern pattern = Pattern.compile(regex);
+			Pattern pattern = fieldPatterns.get(regex);
 			String coveredText = structure.getCoveredText();
 			Matcher matcher = pattern.matcher(coveredText);
 			if (matcher.find()) {
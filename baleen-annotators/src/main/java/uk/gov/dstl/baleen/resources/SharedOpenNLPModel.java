@@ -24,7 +24,7 @@ public class SharedOpenNLPModel extends BaleenResource {
 	 * @param model The model to load
 	 * @throws BaleenException
 	 */
-	public void loadModel(Class<? extends BaseModel> modelClazz, InputStream model) throws BaleenException{
+	public synchronized void loadModel(Class<? extends BaseModel> modelClazz, InputStream model) throws BaleenException{
 		if(this.model != null){
 			return;
 		}
@@ -44,7 +44,7 @@ public class SharedOpenNLPModel extends BaleenResource {
 	/**
 	 * Get the OpenNLP model held by this resource
 	 */
-	public BaseModel getModel(){
+	public synchronized BaseModel getModel(){
 		return model;
 	}
 }
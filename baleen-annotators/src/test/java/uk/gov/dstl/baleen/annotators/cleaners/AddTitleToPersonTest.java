@@ -2,6 +2,7 @@
 package uk.gov.dstl.baleen.annotators.cleaners;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Collection;
 
@@ -12,6 +13,8 @@ import org.junit.Test;
 
 import uk.gov.dstl.baleen.annotators.testing.AbstractAnnotatorTest;
 import uk.gov.dstl.baleen.types.common.Person;
+import uk.gov.dstl.baleen.types.language.Sentence;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 public class AddTitleToPersonTest extends AbstractAnnotatorTest {
 
@@ -39,6 +42,25 @@ public class AddTitleToPersonTest extends AbstractAnnotatorTest {
 		assertEquals(jCas.getDocumentText().indexOf("Sir"), out.getBegin());
 	}
 
+	@Test
+	public void testCachedIndexUpdated() throws AnalysisEngineProcessException, ResourceInitializationException {
+		jCas.setDocumentText("They refered to him as Sir John Smith");
+
+		Person p = new Person(jCas);
+		p.setBegin(jCas.getDocumentText().indexOf("John Smith"));
+		p.setEnd(p.getBegin() + "John Smith".length());
+		p.addToIndexes();
+
+		Sentence s = new Sentence(jCas, p.getBegin(), p.getEnd());
+		s.addToIndexes();
+
+		assertEquals(1, DerivedIndexCache.indexCovered(jCas, Sentence.class, Person.class).get(s).size());
+
+		processJCas();
+
+		assertTrue(DerivedIndexCache.indexCovered(jCas, Sentence.class, Person.class).get(s).isEmpty());
+	}
+
 	@Test
 	public void testTwo() throws AnalysisEngineProcessException, ResourceInitializationException {
 		jCas.setDocumentText("They refered to him as Senator Col John Smith");
@@ -4,13 +4,18 @@ package uk.gov.dstl.baleen.annotators.gazetteer;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.file.Files;
+import java.util.Arrays;
+
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
 import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.resource.ExternalResourceDescription;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import uk.gov.dstl.baleen.annotators.gazetteer.File;
 import uk.gov.dstl.baleen.annotators.testing.AnnotatorTestBase;
@@ -29,6 +34,9 @@ public class FileTest extends AnnotatorTestBase{
 	private static String FILE_NAME = "fileName";
 	private static String FILE_GAZETTEER = "fileGazetteer";
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 
 	@Test
 	public void test() throws Exception{
@@ -209,8 +217,37 @@ public class FileTest extends AnnotatorTestBase{
 		assertTrue(l.getBegin() > 10);
 
 		ae.destroy();
-	}   
+	}
+
+	@Test
+	public void testReload() throws Exception{
+		java.io.File file = folder.newFile("reload.txt");
+		Files.write(file.toPath(), Arrays.asList(WORLD));
+
+		ExternalResourceDescription erd = ExternalResourceFactory.createExternalResourceDescription(FILE_GAZETTEER, SharedFileResource.class);
+		AnalysisEngineDescription aed = AnalysisEngineFactory.createEngineDescription(File.class, FILE_GAZETTEER, erd, FILE_NAME, file.getPath(), TYPE, LOCATION, "reloadInterval", 1);
+
+		AnalysisEngine ae = AnalysisEngineFactory.createEngine(aed);
+
+		jCas.setDocumentText("Hello world, this is a test");
+		ae.process(jCas);
+		assertEquals(1, JCasUtil.select(jCas, Location.class).size());
+
+		Files.write(file.toPath(), Arrays.asList(WORLD, "test"));
 
+		// The new gazetteer is only used once it has been reloaded in the background
+		long deadline = System.currentTimeMillis() + 10000;
+		int found;
+		do {
+			Thread.sleep(100);
+			jCas.reset();
+			jCas.setDocumentText("Hello world, this is a test");
+			ae.process(jCas);
+			found = JCasUtil.select(jCas, Location.class).size();
+		} while (found < 2 && System.currentTimeMillis() < deadline);
 
+		assertEquals(2, found);
 
+		ae.destroy();
+	}
 }
@@ -0,0 +1,72 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.annotators.gazetteer.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ahocorasick.trie.Trie;
+import org.junit.Test;
+
+public class TrieCacheTest {
+	private static final List<String> KEYWORDS = Arrays.asList("cat", "dog", "fish");
+
+	@Test
+	public void testShared(){
+		TrieCache cache = TrieCache.getInstance();
+		int size = cache.size();
+
+		Trie t1 = cache.acquire(KEYWORDS, false, false);
+		Trie t2 = cache.acquire(Arrays.asList("cat", "dog", "fish"), false, false);
+
+		assertSame(t1, t2);
+		assertEquals(size + 1, cache.size());
+
+		cache.release(t1);
+		assertEquals(size + 1, cache.size());
+		cache.release(t2);
+		assertEquals(size, cache.size());
+
+		Trie t3 = cache.acquire(KEYWORDS, false, false);
+		assertNotSame(t1, t3);
+		cache.release(t3);
+	}
+
+	@Test
+	public void testOptions(){
+		TrieCache cache = TrieCache.getInstance();
+
+		Trie insensitive = cache.acquire(KEYWORDS, false, false);
+		Trie sensitive = cache.acquire(KEYWORDS, true, false);
+		Trie plurals = cache.acquire(KEYWORDS, false, true);
+		Trie other = cache.acquire(Arrays.asList("cat", "dogfish"), false, false);
+
+		assertNotSame(insensitive, sensitive);
+		assertNotSame(insensitive, plurals);
+		assertNotSame(insensitive, other);
+
+		assertEquals(2, insensitive.parseText("A Cat and a dog").size());
+		assertEquals(1, sensitive.parseText("A Cat and a dog").size());
+		assertEquals(1, insensitive.parseText("Some cats and a dog").size());
+		assertEquals(2, plurals.parseText("Some cats and a dog").size());
+
+		cache.release(insensitive);
+		cache.release(sensitive);
+		cache.release(plurals);
+		cache.release(other);
+	}
+
+	@Test
+	public void testReleaseUnknown(){
+		TrieCache cache = TrieCache.getInstance();
+		int size = cache.size();
+
+		cache.release(null);
+		cache.release(Trie.builder().addKeyword("test").build());
+
+		assertEquals(size, cache.size());
+	}
+}
@@ -75,4 +75,37 @@ public class AbstractAhoCorasickAnnotatorTest {
 		assertEquals(new Integer(32), transformed.getMapping().get(28));
 		assertNull(transformed.getMapping().get(31));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testNormaliseOffsets(){
+		String original = "Hello\u00A0\u2003world!\t";
+		String normal = "Hello world! ";
+
+		TransformedString transformed = AbstractAhoCorasickAnnotator.normaliseString(original);
+
+		assertEquals(normal, transformed.getTransformedString());
+
+		assertEquals(0, transformed.getOriginalOffset(0));
+		assertEquals(5, transformed.getOriginalOffset(5));
+		assertEquals(7, transformed.getOriginalOffset(6));
+		assertEquals(13, transformed.getOriginalOffset(12));
+		assertEquals(14, transformed.getOriginalOffset(13));
+		assertEquals(TransformedString.UNMAPPED, transformed.getOriginalOffset(14));
+		assertEquals(TransformedString.UNMAPPED, transformed.getOriginalOffset(-1));
+	}
+
+	@Test
+	public void testNormaliseLarge(){
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < 100000; i++){
+			sb.append("word  \t");
+		}
+		String original = sb.toString();
+
+		TransformedString transformed = AbstractAhoCorasickAnnotator.normaliseString(original);
+
+		assertEquals(500000, transformed.getTransformedString().length());
+		assertEquals(original.length(), transformed.getOriginalOffset(500000));
+		assertEquals(7 * 99999 + 4, transformed.getOriginalOffset(5 * 99999 + 4));
+	}
+}
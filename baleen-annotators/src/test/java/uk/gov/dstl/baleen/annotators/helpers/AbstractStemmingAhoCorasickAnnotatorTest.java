@@ -0,0 +1,46 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.annotators.helpers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import opennlp.tools.stemmer.Stemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import uk.gov.dstl.baleen.annotators.gazetteer.helpers.AbstractStemmingAhoCorasickAnnotator;
+import uk.gov.dstl.baleen.annotators.gazetteer.helpers.TransformedString;
+
+public class AbstractStemmingAhoCorasickAnnotatorTest {
+	private final Stemmer stemmer = new SnowballStemmer(ALGORITHM.ENGLISH);
+
+	@Test
+	public void testStem(){
+		String original = "Knights conspired, didn't they?";
+
+		TransformedString transformed = AbstractStemmingAhoCorasickAnnotator.stem(stemmer, original);
+
+		assertEquals(original, transformed.getOriginalString());
+		assertEquals("knight conspir, didn't they?", transformed.getTransformedString());
+
+		assertEquals(0, transformed.getOriginalOffset(0));
+		assertEquals(TransformedString.UNMAPPED, transformed.getOriginalOffset(1));
+		assertEquals(7, transformed.getOriginalOffset(6));
+		assertEquals(8, transformed.getOriginalOffset(7));
+		assertEquals(17, transformed.getOriginalOffset(14));
+		assertEquals(18, transformed.getOriginalOffset(15));
+		assertEquals(original.length(), transformed.getOriginalOffset(transformed.getTransformedString().length()));
+	}
+
+	@Test
+	public void testStemNonWords(){
+		String original = "'42 - é";
+
+		TransformedString transformed = AbstractStemmingAhoCorasickAnnotator.stem(stemmer, original);
+
+		assertEquals(original, transformed.getTransformedString());
+		for(int i = 0; i <= original.length(); i++){
+			assertEquals(i, transformed.getOriginalOffset(i));
+		}
+	}
+}
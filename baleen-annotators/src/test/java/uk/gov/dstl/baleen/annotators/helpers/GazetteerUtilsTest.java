@@ -25,4 +25,17 @@ public class GazetteerUtilsTest {
 		assertEquals(MongoGazetteer.DEFAULT_COLLECTION, configNull.get(MongoGazetteer.CONFIG_COLLECTION));
 		assertEquals(MongoGazetteer.DEFAULT_VALUE_FIELD, configNull.get(MongoGazetteer.CONFIG_VALUE_FIELD));
 	}
+	
+	@Test
+	public void testMongoAdditionalDataConfig(){
+		Map<String, Object> config = GazetteerUtils.configureMongo(true, "test", "value_test", "PRELOAD", 100);
+		assertEquals(5, config.size());
+		assertEquals("PRELOAD", config.get(MongoGazetteer.CONFIG_ADDITIONAL_DATA));
+		assertEquals(100, config.get(MongoGazetteer.CONFIG_ADDITIONAL_DATA_CACHE_SIZE));
+		
+		Map<String, Object> configNull = GazetteerUtils.configureMongo(null, null, null, null, null);
+		assertEquals(5, configNull.size());
+		assertEquals(MongoGazetteer.DEFAULT_ADDITIONAL_DATA.name(), configNull.get(MongoGazetteer.CONFIG_ADDITIONAL_DATA));
+		assertEquals(MongoGazetteer.DEFAULT_ADDITIONAL_DATA_CACHE_SIZE, configNull.get(MongoGazetteer.CONFIG_ADDITIONAL_DATA_CACHE_SIZE));
+	}
 }
@@ -0,0 +1,145 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.annotators.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.annotators.testing.AbstractAnnotatorTest;
+import uk.gov.dstl.baleen.types.Base;
+import uk.gov.dstl.baleen.types.common.CommsIdentifier;
+import uk.gov.dstl.baleen.types.semantic.Entity;
+import uk.gov.dstl.baleen.types.semantic.Temporal;
+import uk.gov.dstl.baleen.uima.BaleenAnnotator;
+import uk.gov.dstl.baleen.uima.utils.TypeSystemSingleton;
+
+public class FusedRegexTest extends AbstractAnnotatorTest {
+
+	private static final String TEXT = "Contact jsmith@example.com or visit http://www.example.com from 192.168.0.1 at 10:30pm. "
+			+ "The DTG was 301745Z JAN 17 and the grid reference was SU 12345 67890. Tel: 01234 567890. "
+			+ "The fee was $300 million, paid on Monday 3rd March, for the 2.4 GHz kit with CAS number 7732-18-5.";
+
+	private static final String[] ANNOTATORS = new String[]{"Email", "Url", "IpV4", "Time", "Dtg", "Osgb", "Telephone", "Money", "UnqualifiedDate", "Frequency", "CasRegistryNumber"};
+
+	public FusedRegexTest() {
+		super(FusedRegex.class);
+	}
+
+	private static final String[] DEFAULT_ANNOTATORS = new String[]{
+			"CasRegistryNumber", "DocumentNumber", "Dtg", "Email", "FlightNumber", "Frequency", "IpV4", "Money", "Osgb",
+			"SocialMediaUsername", "TaskForce", "Telephone", "Time", "UnqualifiedDate", "Url", "USTelephone" };
+
+	private static final String ANCHOR_TEXT = "Meet at midnight, or at noon or 12 noon on Tuesday. Flight No: BA123 leaves at 0930 hrs GMT+1. "
+			+ "See documents 12, 13 and 14 and letter 7. TF-58 and task force 7 sailed; tf - went too. Ping @jsmith and "
+			+ "@bob-smith_2 or e-mail a.b@c.co.uk, x@y. Call tel: +44 (0)1234 567890 or (555) 555-1234 or 1-800-FLOWERS. "
+			+ "Numbers 1234567890123-45-6 and 12-34-5 and 1.2.3.4.5.6.7.8 and 10.0.0.256 and 255.255.255.255. "
+			+ "Grid NT123456 and SU1234567890 and SU 12345 67890123. It costs £5.50, GBP 1,000,000 or 3m USD (or 40p). "
+			+ "Tune to 121.5 MHz or 2.4GHz. DTG 301745Z JAN 17 and 01 0203D*FEB17. Browse www.example.org/a?b=c or ftp://ftp.example.com, "
+			+ "dial twoonetwo-fivefivefive-onetwothreefour, on Sat 3rd of March or Thurs 21st June, 2017.\nLast line at 23:59 EST + 5 pm";
+
+	@Test
+	public void testSameAsIndividual() throws Exception {
+		assertSameAsIndividual(TEXT, ANNOTATORS);
+	}
+
+	@Test
+	public void testSameAsIndividualWithAnchors() throws Exception {
+		assertSameAsIndividual(ANCHOR_TEXT, DEFAULT_ANNOTATORS);
+		assertSameAsIndividual(TEXT + " " + ANCHOR_TEXT, DEFAULT_ANNOTATORS);
+	}
+
+	private void assertSameAsIndividual(String text, String[] annotators) throws Exception {
+		jCas.reset();
+		jCas.setDocumentText(text);
+		for(String name : annotators) {
+			AnalysisEngine ae = AnalysisEngineFactory.createEngine(Class.forName("uk.gov.dstl.baleen.annotators.regex." + name).asSubclass(BaleenAnnotator.class), TypeSystemSingleton.getTypeSystemDescriptionInstance());
+			ae.process(jCas);
+			ae.destroy();
+		}
+		List<String> expected = getAnnotations();
+
+		jCas.reset();
+		jCas.setDocumentText(text);
+		processJCas(FusedRegex.PARAM_ANNOTATORS, annotators);
+		List<String> actual = getAnnotations();
+
+		assertTrue(expected.size() > annotators.length);
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testDefault() throws Exception {
+		jCas.setDocumentText(TEXT);
+		processJCas();
+
+		assertFalse(JCasUtil.select(jCas, CommsIdentifier.class).isEmpty());
+	}
+
+	@Test
+	public void testSkipped() throws Exception {
+		jCas.setDocumentText("There are no e-mail addresses or IP addresses here");
+		processJCas(FusedRegex.PARAM_ANNOTATORS, new String[]{"Email", "IpV4"});
+
+		assertTrue(JCasUtil.select(jCas, CommsIdentifier.class).isEmpty());
+	}
+
+	@Test
+	public void testSharedParameter() throws Exception {
+		jCas.setDocumentText("The meeting is at 1930, on the 3rd of march");
+		processJCas(FusedRegex.PARAM_ANNOTATORS, new String[]{"Time", "UnqualifiedDate"}, Time.PARAM_REQUIRE_ALPHA, false);
+
+		assertEquals(1, JCasUtil.select(jCas, Temporal.class).stream().filter(t -> "1930".equals(t.getCoveredText())).count());
+	}
+
+	@Test
+	public void testDelegateParameters() throws Exception {
+		jCas.setDocumentText("The meeting is at 1930, on the 3rd of march");
+		processJCas(FusedRegex.PARAM_ANNOTATORS, new String[]{"Time", "UnqualifiedDate"},
+				"Time." + Time.PARAM_REQUIRE_ALPHA, false,
+				"UnqualifiedDate." + UnqualifiedDate.PARAM_ALLOW_LOWERCASE, true);
+
+		List<String> temporals = new ArrayList<>();
+		JCasUtil.select(jCas, Temporal.class).forEach(t -> temporals.add(t.getCoveredText()));
+		assertTrue(temporals.contains("1930"));
+		assertTrue(temporals.contains("3rd of march"));
+	}
+
+	@Test
+	public void testDelegateParametersNotShared() throws Exception {
+		jCas.setDocumentText("The meeting is at 1930, on the 3rd of march");
+		processJCas(FusedRegex.PARAM_ANNOTATORS, new String[]{"Time", "UnqualifiedDate"},
+				"UnqualifiedDate." + Time.PARAM_REQUIRE_ALPHA, false,
+				"Time." + UnqualifiedDate.PARAM_ALLOW_LOWERCASE, true);
+
+		assertTrue(JCasUtil.select(jCas, Temporal.class).isEmpty());
+	}
+
+	@Test(expected = Exception.class)
+	public void testNotRegex() throws Exception {
+		jCas.setDocumentText(TEXT);
+		processJCas(FusedRegex.PARAM_ANNOTATORS, new String[]{"Custom"});
+	}
+
+	private List<String> getAnnotations() {
+		List<String> annotations = new ArrayList<>();
+		for(Base b : JCasUtil.select(jCas, Base.class)) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(b.getType().getName()).append(':').append(b.getBegin()).append(':').append(b.getEnd()).append(':').append(b.getConfidence());
+			if(b instanceof Entity) {
+				sb.append(':').append(((Entity) b).getValue());
+			}
+			annotations.add(sb.toString());
+		}
+		Collections.sort(annotations);
+		return annotations;
+	}
+}
@@ -154,6 +154,18 @@ public class TemplateAnnotatorTest extends AbstractRecordAnnotatorTest {
 		}
 	}
 
+	@Test(expected = ResourceInitializationException.class)
+	public void testCanNotInitializeWithInvalidRegex()
+			throws AnalysisEngineProcessException, ResourceInitializationException, IOException {
+
+		Path definitionFile = createRecordDefinitionWithInvalidRegex();
+		try {
+			processJCas(TemplateAnnotator.PARAM_RECORD_DEFINITIONS_DIRECTORY, tempDirectory.toString());
+		} finally {
+			Files.delete(definitionFile);
+		}
+	}
+
 	@Test
 	public void testCreateFieldAnnotationsFromSelectorFileWithRegexRequired()
 			throws AnalysisEngineProcessException, ResourceInitializationException, IOException {
@@ -337,6 +349,13 @@ public class TemplateAnnotatorTest extends AbstractRecordAnnotatorTest {
 		return createRecord("test", fieldDefinitionConfiguration);
 	}
 
+	private Path createRecordDefinitionWithInvalidRegex() throws IOException {
+		TemplateFieldConfiguration fieldDefinitionConfiguration = new TemplateFieldConfiguration("field",
+				"Paragraph:nth-of-type(2)");
+		fieldDefinitionConfiguration.setRegex("(?<=brown )(.*");
+		return createRecord("test", fieldDefinitionConfiguration);
+	}
+
 	private Path createGoodRecordDefinitionWithRegexRequired() throws IOException {
 		TemplateFieldConfiguration fieldDefinitionConfiguration = new TemplateFieldConfiguration("field",
 				"Paragraph:nth-of-type(3)");
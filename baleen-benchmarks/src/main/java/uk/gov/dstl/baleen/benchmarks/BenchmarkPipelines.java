@@ -0,0 +1,112 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The pipeline configurations that can be run by {@link PipelineBenchmark}, each of which reads its
+ * documents with {@link SyntheticDocumentReader}.
+ * <p>
+ * The reader never runs out of documents, so that a benchmark can read as many as it needs.
+ * Any configuration that needs a file (such as a gazetteer or an output directory) is given one within
+ * a working directory, which the caller is responsible for deleting.
+ */
+public final class BenchmarkPipelines {
+	/** The regular expression annotators, as would typically be configured in a pipeline */
+	public static final List<String> REGEX_ANNOTATORS = Arrays.asList(
+			"regex.CasRegistryNumber", "regex.DocumentNumber", "regex.Dtg", "regex.Email", "regex.FlightNumber",
+			"regex.Frequency", "regex.IpV4", "regex.Money", "regex.Osgb", "regex.SocialMediaUsername", "regex.TaskForce",
+			"regex.Telephone", "regex.Time", "regex.UnqualifiedDate", "regex.Url", "regex.USTelephone");
+
+	/** The names of the predefined configurations */
+	public static final List<String> NAMES = Arrays.asList(
+			"regex", "fusedregex", "gazetteer", "opennlp", "maltparser", "coreference", "consumers");
+
+	private BenchmarkPipelines() {
+		// Singleton
+	}
+
+	/**
+	 * Create the YAML for a pipeline
+	 *
+	 * @param name
+	 *            One of {@link #NAMES}, or the path to a YAML file ending in .yaml. If a file is given,
+	 *            any collection reader it configures is replaced.
+	 * @param workingDir
+	 *            Directory in which to create any files needed by the pipeline
+	 * @param documentSize
+	 *            The approximate size of each document, in characters
+	 * @param entityDensity
+	 *            The probability of each sentence containing an entity mention
+	 * @param structured
+	 *            Whether documents should contain structural annotations
+	 * @return the pipeline YAML
+	 * @throws IOException
+	 *             if a file can not be read or created
+	 */
+	public static String createYaml(String name, Path workingDir, int documentSize, double entityDensity, boolean structured) throws IOException {
+		StringBuilder yaml = new StringBuilder();
+		yaml.append("collectionreader:\n")
+			.append("  class: ").append(SyntheticDocumentReader.class.getName()).append('\n')
+			.append("  documents: ").append(Integer.MAX_VALUE).append('\n')
+			.append("  size: ").append(documentSize).append('\n')
+			.append("  entityDensity: ").append(entityDensity).append('\n')
+			.append("  structured: ").append(structured).append('\n');
+
+		if(name.endsWith(".yaml")) {
+			String file = new String(Files.readAllBytes(new File(name).toPath()), StandardCharsets.UTF_8);
+			yaml.append(file.replaceAll("(?ms)^collectionreader:.*?(?=^\\S|\\z)", ""));
+			return yaml.toString();
+		}
+
+		switch(name) {
+		case "regex":
+			annotators(yaml, REGEX_ANNOTATORS.toArray(new String[0]));
+			break;
+		case "fusedregex":
+			annotators(yaml, "regex.FusedRegex");
+			break;
+		case "gazetteer":
+			Path gazetteer = workingDir.resolve("gazetteer.txt");
+			Files.write(gazetteer, SyntheticDocumentGenerator.getGazetteerTerms(), StandardCharsets.UTF_8);
+			yaml.append("annotators:\n")
+				.append("- class: gazetteer.File\n")
+				.append("  fileName: ").append(gazetteer.toAbsolutePath()).append('\n');
+			break;
+		case "opennlp":
+			annotators(yaml, "language.OpenNLP");
+			break;
+		case "maltparser":
+			annotators(yaml, "language.OpenNLP", "language.MaltParser");
+			break;
+		case "coreference":
+			annotators(yaml, "language.OpenNLP", "language.MaltParser", "coreference.SieveCoreference");
+			break;
+		case "consumers":
+			annotators(yaml, REGEX_ANNOTATORS.toArray(new String[0]));
+			yaml.append("consumers:\n")
+				.append("- class: json.AllAnnotationsJsonConsumer\n")
+				.append("  outputDirectory: ").append(workingDir.resolve("json").toAbsolutePath()).append('\n')
+				.append("- class: EntityCount\n")
+				.append("  outputFile: ").append(workingDir.resolve("entityCount.tsv").toAbsolutePath()).append('\n');
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown pipeline configuration " + name + " - expected one of " + NAMES + " or a .yaml file");
+		}
+
+		return yaml.toString();
+	}
+
+	private static void annotators(StringBuilder yaml, String... annotators) {
+		yaml.append("annotators:\n");
+		for(String annotator : annotators) {
+			yaml.append("- ").append(annotator).append('\n');
+		}
+	}
+}
@@ -0,0 +1,50 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.benchmarks;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the benchmarks jar, which accepts the same arguments as the standard JMH runner.
+ * <p>
+ * Unless a result format is given on the command line (with <code>-rf</code>), results are written as JSON
+ * to a timestamped file (<code>baleen-benchmarks-yyyyMMdd-HHmmss.json</code>, or the file given with
+ * <code>-rff</code>) so that they can be collected and compared between builds.
+ */
+public class BenchmarkRunner {
+	private BenchmarkRunner() {
+		// Singleton
+	}
+
+	/**
+	 * Run the benchmarks
+	 *
+	 * @param args
+	 *            JMH command line arguments
+	 * @throws Exception
+	 *             if the arguments are invalid or the benchmarks fail to run
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		if(cmd.shouldHelp() || cmd.shouldList()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+		if(!cmd.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+			if(!cmd.getResult().hasValue()) {
+				options.result("baleen-benchmarks-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+			}
+		}
+
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,103 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dstl.baleen.annotators.regex.Date;
+import uk.gov.dstl.baleen.annotators.regex.RelativeDate;
+import uk.gov.dstl.baleen.uima.utils.TypeSystemSingleton;
+
+/**
+ * Measure the Date and RelativeDate annotators on date-dense documents, where every sentence contains an
+ * absolute or relative date. Small documents show the fixed per-document cost of the annotators, which
+ * used to be dominated by compiling their regular expressions.
+ *
+ * Run with <code>java -jar baleen-benchmarks/target/baleen-benchmarks.jar DateAnnotatorBenchmark</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DateAnnotatorBenchmark {
+	private static final String[] DATES = {
+		"on 3rd March 2016", "on March 3, 2016", "on 2016-03-03", "on 03/03/2016", "between 10-15 Jan 2015",
+		"from 27th September - 4th October 2016", "from 23 December 2016 - 2nd January 2017", "yesterday",
+		"the day after tomorrow", "last Monday", "next week", "within the next month", "in the last 3 days",
+		"this year"
+	};
+
+	/** The approximate size of the document, in characters */
+	@Param({"1000", "100000"})
+	private int documentSize;
+
+	private JCas jCas;
+	private String text;
+	private AnalysisEngine date;
+	private AnalysisEngine relativeDate;
+
+	@Setup(Level.Trial)
+	public void setup() throws UIMAException {
+		TypeSystemDescription tsd = TypeSystemSingleton.getTypeSystemDescriptionInstance();
+		jCas = JCasFactory.createJCas(tsd);
+
+		String base = new SyntheticDocumentGenerator(0, 0.5, 5, false).generateText(0, documentSize);
+
+		// Add a date to the end of every sentence
+		Random random = new Random(0);
+		StringBuilder sb = new StringBuilder(base.length() * 2);
+		for (String sentence : base.split("\\. ")) {
+			sb.append(sentence).append(' ').append(DATES[random.nextInt(DATES.length)]).append(". ");
+		}
+		text = sb.toString();
+
+		date = AnalysisEngineFactory.createEngine(Date.class, tsd);
+		relativeDate = AnalysisEngineFactory.createEngine(RelativeDate.class, tsd);
+	}
+
+	@Setup(Level.Invocation)
+	public void resetJCas() {
+		jCas.reset();
+		jCas.setDocumentText(text);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		date.destroy();
+		relativeDate.destroy();
+	}
+
+	@Benchmark
+	public JCas date() throws UIMAException {
+		date.process(jCas);
+		return jCas;
+	}
+
+	@Benchmark
+	public JCas relativeDate() throws UIMAException {
+		relativeDate.process(jCas);
+		return jCas;
+	}
+}
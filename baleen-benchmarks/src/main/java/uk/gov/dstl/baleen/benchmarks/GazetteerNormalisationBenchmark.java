@@ -0,0 +1,63 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import opennlp.tools.stemmer.Stemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer;
+import opennlp.tools.stemmer.snowball.SnowballStemmer.ALGORITHM;
+import uk.gov.dstl.baleen.annotators.gazetteer.helpers.AbstractAhoCorasickAnnotator;
+import uk.gov.dstl.baleen.annotators.gazetteer.helpers.AbstractStemmingAhoCorasickAnnotator;
+import uk.gov.dstl.baleen.annotators.gazetteer.helpers.TransformedString;
+
+/**
+ * Measure the whitespace normalisation and stemming that the Aho-Corasick gazetteer annotators apply to
+ * each text block before matching, on documents of up to 1 MB.
+ *
+ * Run with <code>java -jar baleen-benchmarks/target/baleen-benchmarks.jar GazetteerNormalisationBenchmark</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GazetteerNormalisationBenchmark {
+	/** The approximate size of the document, in characters */
+	@Param({"10000", "1000000"})
+	private int documentSize;
+
+	private String text;
+	private Stemmer stemmer;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		// Add runs of horizontal whitespace, so that normalisation has something to collapse
+		text = new SyntheticDocumentGenerator(0, 0.5, 5, false).generateText(0, documentSize)
+				.replace(". ", ".  \t");
+		stemmer = new SnowballStemmer(ALGORITHM.ENGLISH);
+	}
+
+	@Benchmark
+	public TransformedString normalise() {
+		return AbstractAhoCorasickAnnotator.normaliseString(text);
+	}
+
+	@Benchmark
+	public TransformedString stem() {
+		return AbstractStemmingAhoCorasickAnnotator.stem(stemmer, text);
+	}
+}
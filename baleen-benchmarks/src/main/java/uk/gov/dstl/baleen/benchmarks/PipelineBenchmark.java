@@ -0,0 +1,111 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dstl.baleen.core.pipelines.BaleenPipeline;
+import uk.gov.dstl.baleen.core.pipelines.PipelineBuilder;
+import uk.gov.dstl.baleen.exceptions.BaleenException;
+import uk.gov.dstl.baleen.uima.utils.TypeSystemSingleton;
+
+/**
+ * Measure the time taken for a complete pipeline (annotators and consumers) to process a single document.
+ * <p>
+ * Pipelines are built from YAML by {@link PipelineBuilder}, exactly as they would be in a running Baleen
+ * instance, and documents are created by {@link SyntheticDocumentReader}. The pipeline is chosen with the
+ * <i>config</i> parameter, which is either one of {@link BenchmarkPipelines#NAMES} or the path to a pipeline
+ * YAML file. Reading the document isn't included in the measurement.
+ *
+ * For example, to compare the regular expression annotators against FusedRegex on large documents (with the
+ * results saved as JSON by {@link BenchmarkRunner}):
+ *
+ * <pre>
+ * java -jar baleen-benchmarks/target/baleen-benchmarks.jar PipelineBenchmark -p config=regex,fusedregex -p documentSize=100000
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PipelineBenchmark {
+	/** The pipeline configuration to benchmark */
+	@Param({"regex", "fusedregex", "gazetteer", "opennlp", "maltparser", "coreference", "consumers"})
+	private String config;
+
+	/** The approximate size of the document, in characters */
+	@Param({"1000", "10000", "100000"})
+	private int documentSize;
+
+	/** The probability of each sentence containing an entity mention */
+	@Param({"0.5"})
+	private double entityDensity;
+
+	/** Whether documents contain structural annotations */
+	@Param({"false"})
+	private boolean structured;
+
+	private Path workingDir;
+	private BaleenPipeline pipeline;
+	private JCas jCas;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, UIMAException, BaleenException {
+		workingDir = Files.createTempDirectory("baleen-benchmark");
+
+		String yaml = BenchmarkPipelines.createYaml(config, workingDir, documentSize, entityDensity, structured);
+		pipeline = new PipelineBuilder("benchmark-" + config, yaml).createNewPipeline();
+
+		jCas = JCasFactory.createJCas(TypeSystemSingleton.getTypeSystemDescriptionInstance());
+	}
+
+	@Setup(Level.Invocation)
+	public void readDocument() throws UIMAException, IOException {
+		jCas.reset();
+		pipeline.collectionReader().getNext(jCas.getCas());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		pipeline.annotators().forEach(AnalysisEngine::destroy);
+		pipeline.consumers().forEach(AnalysisEngine::destroy);
+		pipeline.collectionReader().close();
+		pipeline.collectionReader().destroy();
+
+		FileUtils.deleteQuietly(workingDir.toFile());
+	}
+
+	@Benchmark
+	public JCas process() throws UIMAException {
+		for(AnalysisEngine ae : pipeline.annotators()) {
+			ae.process(jCas);
+		}
+		for(AnalysisEngine ae : pipeline.consumers()) {
+			ae.process(jCas);
+		}
+		return jCas;
+	}
+}
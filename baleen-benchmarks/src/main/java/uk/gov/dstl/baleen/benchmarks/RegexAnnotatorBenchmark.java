@@ -0,0 +1,103 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dstl.baleen.annotators.regex.FusedRegex;
+import uk.gov.dstl.baleen.uima.BaleenAnnotator;
+import uk.gov.dstl.baleen.uima.utils.TypeSystemSingleton;
+
+/**
+ * Compare running the regular expression annotators one after another (as they would be configured in a pipeline)
+ * against running the same annotators together with {@link FusedRegex}.
+ *
+ * Run with <code>java -jar baleen-benchmarks/target/baleen-benchmarks.jar RegexAnnotatorBenchmark</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RegexAnnotatorBenchmark {
+	private static final String[] ANNOTATORS = new String[]{
+			"CasRegistryNumber", "DocumentNumber", "Dtg", "Email", "FlightNumber", "Frequency", "IpV4", "Money", "Osgb",
+			"SocialMediaUsername", "TaskForce", "Telephone", "Time", "UnqualifiedDate", "Url", "USTelephone" };
+
+	/** The approximate size of the document, in characters */
+	@Param({"1000", "100000"})
+	private int documentSize;
+
+	/** The probability of each sentence containing an entity mention */
+	@Param({"0.1", "0.5"})
+	private double entityDensity;
+
+	private JCas jCas;
+	private String text;
+	private List<AnalysisEngine> sequential;
+	private AnalysisEngine fused;
+
+	@Setup(Level.Trial)
+	public void setup() throws UIMAException, ClassNotFoundException {
+		TypeSystemDescription tsd = TypeSystemSingleton.getTypeSystemDescriptionInstance();
+		jCas = JCasFactory.createJCas(tsd);
+
+		text = new SyntheticDocumentGenerator(0, entityDensity, 5, false).generateText(0, documentSize);
+
+		sequential = new ArrayList<>(ANNOTATORS.length);
+		for(String name : ANNOTATORS) {
+			Class<? extends BaleenAnnotator> clazz = Class.forName(FusedRegex.class.getPackage().getName() + "." + name).asSubclass(BaleenAnnotator.class);
+			sequential.add(AnalysisEngineFactory.createEngine(clazz, tsd));
+		}
+
+		fused = AnalysisEngineFactory.createEngine(FusedRegex.class, tsd, FusedRegex.PARAM_ANNOTATORS, ANNOTATORS);
+	}
+
+	@Setup(Level.Invocation)
+	public void resetJCas() {
+		jCas.reset();
+		jCas.setDocumentText(text);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		sequential.forEach(AnalysisEngine::destroy);
+		fused.destroy();
+	}
+
+	@Benchmark
+	public JCas sequential() throws UIMAException {
+		for(AnalysisEngine ae : sequential) {
+			ae.process(jCas);
+		}
+		return jCas;
+	}
+
+	@Benchmark
+	public JCas fused() throws UIMAException {
+		fused.process(jCas);
+		return jCas;
+	}
+}
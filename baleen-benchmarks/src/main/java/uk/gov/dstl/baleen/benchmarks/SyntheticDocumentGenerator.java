@@ -0,0 +1,220 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.apache.uima.jcas.JCas;
+
+import uk.gov.dstl.baleen.types.language.Text;
+import uk.gov.dstl.baleen.types.structure.Heading;
+import uk.gov.dstl.baleen.types.structure.Paragraph;
+
+/**
+ * Generates synthetic English-like documents for benchmarking, with control over their size, the density
+ * of entity mentions and their structure.
+ * <p>
+ * Generation is deterministic; the same seed, options and document index always produce the same document,
+ * so results are comparable between runs and between versions of Baleen.
+ */
+public class SyntheticDocumentGenerator {
+	private static final String[] WORDS = {
+		"the", "of", "and", "a", "to", "in", "is", "was", "that", "for", "it", "with", "as", "on", "be", "at", "by",
+		"this", "had", "not", "are", "but", "from", "or", "have", "an", "they", "which", "one", "were", "all", "we",
+		"report", "meeting", "vehicle", "group", "area", "time", "people", "building", "information", "team", "border",
+		"road", "office", "shipment", "network", "company", "agreement", "operation", "river", "market", "travelled",
+		"arrived", "reported", "discussed", "moved", "observed", "confirmed", "left", "contacted", "visited", "signed"
+	};
+
+	private static final String[] PEOPLE = {
+		"John Smith", "Jane Doe", "Ahmed Khan", "Maria Garcia", "Wei Zhang", "Olga Ivanova", "James Brown",
+		"Fatima Ali", "Pierre Dubois", "Anna Schmidt", "Carlos Silva", "Yuki Tanaka"
+	};
+
+	private static final String[] ORGANISATIONS = {
+		"Acme Holdings", "Northern Shipping Company", "Global Logistics", "Eastern Trading Group",
+		"Riverside Engineering", "Blue Harbour Imports"
+	};
+
+	private static final String[] LOCATIONS = {
+		"London", "Paris", "Berlin", "Madrid", "Cairo", "Nairobi", "Karachi", "Istanbul", "Lagos", "Moscow",
+		"Tokyo", "Lima"
+	};
+
+	private static final String[] MONTHS = {
+		"January", "February", "March", "April", "May", "June", "July", "August", "September", "October",
+		"November", "December"
+	};
+
+	private static final String[] MILITARY_MONTHS = {
+		"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"
+	};
+
+	private static final List<Function<Random, String>> ENTITIES = Arrays.asList(
+		r -> pick(r, PEOPLE),
+		r -> pick(r, ORGANISATIONS),
+		r -> pick(r, LOCATIONS),
+		r -> pick(r, PEOPLE).toLowerCase().replace(' ', '.') + "@example.com",
+		r -> "http://www." + pick(r, LOCATIONS).toLowerCase() + ".example.com/page" + r.nextInt(100),
+		r -> "192.168." + r.nextInt(256) + "." + r.nextInt(256),
+		r -> (1 + r.nextInt(28)) + " " + pick(r, MONTHS) + " " + (1990 + r.nextInt(30)),
+		r -> String.format("%02d%02d%02dZ %s %02d", 1 + r.nextInt(28), r.nextInt(24), r.nextInt(60), pick(r, MILITARY_MONTHS), r.nextInt(30)),
+		r -> "$" + (1 + r.nextInt(999)) + " million",
+		r -> "tel: 0" + (1000 + r.nextInt(9000)) + " " + (100000 + r.nextInt(900000)),
+		r -> String.format("%d:%02d", r.nextInt(24), r.nextInt(60)),
+		r -> "SU " + (10000 + r.nextInt(90000)) + " " + (10000 + r.nextInt(90000))
+	);
+
+	private final long seed;
+	private final double entityDensity;
+	private final int sentencesPerParagraph;
+	private final boolean structured;
+
+	/**
+	 * Constructor
+	 *
+	 * @param seed
+	 *            The seed for generating documents
+	 * @param entityDensity
+	 *            The probability, between 0 and 1, of each sentence containing an entity mention
+	 * @param sentencesPerParagraph
+	 *            The number of sentences in each paragraph
+	 * @param structured
+	 *            Whether documents should have headings, and Paragraph, Heading and Text annotations added
+	 */
+	public SyntheticDocumentGenerator(long seed, double entityDensity, int sentencesPerParagraph, boolean structured) {
+		this.seed = seed;
+		this.entityDensity = Math.max(0.0, Math.min(1.0, entityDensity));
+		this.sentencesPerParagraph = Math.max(1, sentencesPerParagraph);
+		this.structured = structured;
+	}
+
+	/**
+	 * Generate the text of a document
+	 *
+	 * @param index
+	 *            The index of the document, so that different documents can be generated from the same seed
+	 * @param size
+	 *            The approximate length of the document in characters. Documents always end with a complete
+	 *            sentence, so may be slightly longer.
+	 * @return the document text
+	 */
+	public String generateText(int index, int size) {
+		return generateBlocks(index, size).text;
+	}
+
+	/**
+	 * Generate a document and set it as the content of the JCas, along with any structural annotations.
+	 * The JCas should already have been reset.
+	 *
+	 * @param jCas
+	 *            The JCas to populate
+	 * @param index
+	 *            The index of the document
+	 * @param size
+	 *            The approximate length of the document in characters
+	 */
+	public void generate(JCas jCas, int index, int size) {
+		Blocks blocks = generateBlocks(index, size);
+
+		jCas.setDocumentText(blocks.text);
+		jCas.setDocumentLanguage("en");
+
+		if(!structured) {
+			return;
+		}
+
+		for(int[] block : blocks.spans) {
+			if(block[2] == 1) {
+				Heading h = new Heading(jCas, block[0], block[1]);
+				h.setLevel(1);
+				h.addToIndexes();
+			} else {
+				new Paragraph(jCas, block[0], block[1]).addToIndexes();
+			}
+
+			new Text(jCas, block[0], block[1]).addToIndexes();
+		}
+	}
+
+	/**
+	 * The names of people, organisations and locations that may be mentioned in generated documents,
+	 * suitable for use as a gazetteer
+	 */
+	public static List<String> getGazetteerTerms() {
+		List<String> terms = new ArrayList<>();
+		Collections.addAll(terms, PEOPLE);
+		Collections.addAll(terms, ORGANISATIONS);
+		Collections.addAll(terms, LOCATIONS);
+		return terms;
+	}
+
+	private Blocks generateBlocks(int index, int size) {
+		Random random = new Random(seed * 31 + index);
+		StringBuilder sb = new StringBuilder(size + 200);
+		List<int[]> spans = new ArrayList<>();
+
+		int paragraph = 0;
+		while(sb.length() < size) {
+			if(sb.length() > 0) {
+				sb.append("\n\n");
+			}
+
+			if(structured && paragraph % 5 == 0) {
+				int start = sb.length();
+				sb.append("Section ").append(paragraph / 5 + 1);
+				spans.add(new int[]{start, sb.length(), 1});
+				sb.append("\n\n");
+			}
+
+			int start = sb.length();
+			for(int i = 0; i < sentencesPerParagraph; i++) {
+				if(i > 0) {
+					sb.append(' ');
+				}
+				appendSentence(random, sb);
+			}
+			spans.add(new int[]{start, sb.length(), 0});
+			paragraph++;
+		}
+
+		return new Blocks(sb.toString(), spans);
+	}
+
+	private void appendSentence(Random random, StringBuilder sb) {
+		int length = 8 + random.nextInt(12);
+		int entityPosition = random.nextDouble() < entityDensity ? random.nextInt(length) : -1;
+
+		for(int i = 0; i < length; i++) {
+			if(i > 0) {
+				sb.append(' ');
+			}
+
+			String word = i == entityPosition ? ENTITIES.get(random.nextInt(ENTITIES.size())).apply(random) : pick(random, WORDS);
+			if(i == 0) {
+				sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+			} else {
+				sb.append(word);
+			}
+		}
+		sb.append('.');
+	}
+
+	private static String pick(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	private static class Blocks {
+		private final String text;
+		private final List<int[]> spans;
+
+		Blocks(String text, List<int[]> spans) {
+			this.text = text;
+			this.spans = spans;
+		}
+	}
+}
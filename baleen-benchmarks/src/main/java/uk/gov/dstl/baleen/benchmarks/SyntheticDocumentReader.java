@@ -0,0 +1,99 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.benchmarks;
+
+import java.io.IOException;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+
+import uk.gov.dstl.baleen.uima.BaleenCollectionReader;
+
+/**
+ * Reads a fixed number of synthetic documents created by {@link SyntheticDocumentGenerator}, for use when
+ * benchmarking pipelines.
+ *
+ * @baleen.javadoc
+ */
+public class SyntheticDocumentReader extends BaleenCollectionReader {
+	/**
+	 * The number of documents to generate
+	 *
+	 * @baleen.config 100
+	 */
+	public static final String PARAM_DOCUMENTS = "documents";
+	@ConfigurationParameter(name = PARAM_DOCUMENTS, defaultValue = "100")
+	private int documents;
+
+	/**
+	 * The approximate size of each document, in characters
+	 *
+	 * @baleen.config 10000
+	 */
+	public static final String PARAM_SIZE = "size";
+	@ConfigurationParameter(name = PARAM_SIZE, defaultValue = "10000")
+	private int size;
+
+	/**
+	 * The seed used to generate documents
+	 *
+	 * @baleen.config 0
+	 */
+	public static final String PARAM_SEED = "seed";
+	@ConfigurationParameter(name = PARAM_SEED, defaultValue = "0")
+	private int seed;
+
+	/**
+	 * The probability, between 0 and 1, of each sentence containing an entity mention
+	 *
+	 * @baleen.config 0.5
+	 */
+	public static final String PARAM_ENTITY_DENSITY = "entityDensity";
+	@ConfigurationParameter(name = PARAM_ENTITY_DENSITY, defaultValue = "0.5")
+	private float entityDensity;
+
+	/**
+	 * The number of sentences in each paragraph
+	 *
+	 * @baleen.config 5
+	 */
+	public static final String PARAM_SENTENCES_PER_PARAGRAPH = "sentencesPerParagraph";
+	@ConfigurationParameter(name = PARAM_SENTENCES_PER_PARAGRAPH, defaultValue = "5")
+	private int sentencesPerParagraph;
+
+	/**
+	 * Should documents include headings, and structural annotations?
+	 *
+	 * @baleen.config false
+	 */
+	public static final String PARAM_STRUCTURED = "structured";
+	@ConfigurationParameter(name = PARAM_STRUCTURED, defaultValue = "false")
+	private boolean structured;
+
+	private SyntheticDocumentGenerator generator;
+	private int index = 0;
+
+	@Override
+	protected void doInitialize(UimaContext context) throws ResourceInitializationException {
+		generator = new SyntheticDocumentGenerator(seed, entityDensity, sentencesPerParagraph, structured);
+	}
+
+	@Override
+	protected void doGetNext(JCas jCas) throws IOException, CollectionException {
+		generator.generate(jCas, index, size);
+		getSupport().getDocumentAnnotation(jCas).setSourceUri("synthetic:" + seed + "/" + index);
+		index++;
+	}
+
+	@Override
+	public boolean doHasNext() throws IOException, CollectionException {
+		return index < documents;
+	}
+
+	@Override
+	protected void doClose() throws IOException {
+		generator = null;
+	}
+}
@@ -0,0 +1,69 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.types.language.Text;
+import uk.gov.dstl.baleen.types.structure.Heading;
+import uk.gov.dstl.baleen.types.structure.Paragraph;
+
+public class SyntheticDocumentGeneratorTest {
+	@Test
+	public void testDeterministic() {
+		SyntheticDocumentGenerator a = new SyntheticDocumentGenerator(1, 0.5, 5, false);
+		SyntheticDocumentGenerator b = new SyntheticDocumentGenerator(1, 0.5, 5, false);
+
+		assertEquals(a.generateText(0, 5000), b.generateText(0, 5000));
+		assertEquals(a.generateText(3, 5000), b.generateText(3, 5000));
+		assertFalse(a.generateText(0, 5000).equals(a.generateText(1, 5000)));
+		assertFalse(a.generateText(0, 5000).equals(new SyntheticDocumentGenerator(2, 0.5, 5, false).generateText(0, 5000)));
+	}
+
+	@Test
+	public void testSize() {
+		SyntheticDocumentGenerator generator = new SyntheticDocumentGenerator(0, 0.5, 5, false);
+		for(int size : new int[]{100, 1000, 100000}) {
+			int length = generator.generateText(0, size).length();
+			assertTrue(length >= size);
+			assertTrue(length < size + 2000);
+		}
+	}
+
+	@Test
+	public void testEntityDensity() {
+		String none = new SyntheticDocumentGenerator(0, 0.0, 5, false).generateText(0, 10000);
+		assertFalse(none.contains("@"));
+		assertFalse(none.matches("(?s).*[0-9].*"));
+		for(String term : SyntheticDocumentGenerator.getGazetteerTerms()) {
+			assertFalse(none.contains(term));
+		}
+
+		String all = new SyntheticDocumentGenerator(0, 1.0, 5, false).generateText(0, 10000);
+		assertTrue(all.contains("@example.com"));
+		assertTrue(all.matches("(?s).*[0-9].*"));
+	}
+
+	@Test
+	public void testStructured() throws Exception {
+		JCas jCas = JCasFactory.createJCas();
+		new SyntheticDocumentGenerator(0, 0.5, 5, true).generate(jCas, 0, 10000);
+
+		assertEquals("en", jCas.getDocumentLanguage());
+		assertFalse(JCasUtil.select(jCas, Heading.class).isEmpty());
+		assertFalse(JCasUtil.select(jCas, Paragraph.class).isEmpty());
+		assertEquals(JCasUtil.select(jCas, Heading.class).size() + JCasUtil.select(jCas, Paragraph.class).size(),
+				JCasUtil.select(jCas, Text.class).size());
+
+		jCas.reset();
+		new SyntheticDocumentGenerator(0, 0.5, 5, false).generate(jCas, 0, 10000);
+		assertTrue(JCasUtil.select(jCas, Paragraph.class).isEmpty());
+		assertTrue(JCasUtil.select(jCas, Text.class).isEmpty());
+	}
+}
@@ -7,6 +7,7 @@ import java.io.InputStream;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
+import javax.jms.QueueBrowser;
 import javax.jms.TextMessage;
 
 import org.apache.tika.io.IOUtils;
@@ -76,6 +77,8 @@ public class ActiveMQReader extends BaleenCollectionReader {
 
 	private MessageConsumer consumer;
 
+	private Message pending;
+
 	@Override
 	protected void doInitialize(final UimaContext context) throws ResourceInitializationException {
 		try {
@@ -97,7 +100,9 @@ public class ActiveMQReader extends BaleenCollectionReader {
 		final String source = String.join(".", activeMQ.getResourceName(), endpoint);
 
 		try {
-			final Message msg = this.consumer.receive();
+			final Message msg = pending != null ? pending : this.consumer.receive();
+			pending = null;
+
 			if (msg instanceof TextMessage) {
 				final String text = ((TextMessage) msg).getText();
 				final InputStream is = IOUtils.toInputStream(text);
@@ -115,6 +120,8 @@ public class ActiveMQReader extends BaleenCollectionReader {
 
 	@Override
 	protected void doClose() throws IOException {
+		returnPending();
+
 		try {
 			this.consumer.close();
 		} catch (final JMSException e) {
@@ -124,11 +131,69 @@ public class ActiveMQReader extends BaleenCollectionReader {
 
 	@Override
 	public boolean doHasNext() throws IOException, CollectionException {
+		if (pending != null) {
+			return true;
+		}
+
+		QueueBrowser browser = null;
 		try {
-			return activeMQ.createQueueBrowser(endpoint, messageSelector).getEnumeration().hasMoreElements();
+			browser = activeMQ.createQueueBrowser(endpoint, messageSelector);
+			return browser.getEnumeration().hasMoreElements();
 		} catch (final JMSException e) {
 			throw new CollectionException(e);
+		} finally {
+			closeQuietly(browser);
+		}
+	}
+
+	/**
+	 * Block on the consumer until a message is received (or the timeout elapses),
+	 * rather than repeatedly browsing the queue. The message is held until the next
+	 * call to getNext, or returned to the queue if the reader is closed first.
+	 */
+	@Override
+	protected boolean doAwaitNext(long timeout) throws IOException, CollectionException, InterruptedException {
+		if (pending == null) {
+			try {
+				pending = this.consumer.receive(Math.max(1, timeout));
+			} catch (final JMSException e) {
+				throw new CollectionException(e);
+			}
+		}
+
+		return pending != null;
+	}
+
+	/**
+	 * The session acknowledges messages as soon as they are received, so a message held by
+	 * {@link #doAwaitNext(long)} that hasn't been passed on by getNext would otherwise be lost when
+	 * the reader is closed. Instead, it is sent back to the endpoint (at the back of the queue).
+	 */
+	private void returnPending() {
+		if (pending == null) {
+			return;
+		}
+
+		try {
+			activeMQ.getProducer().send(activeMQ.getSession().createQueue(endpoint), pending);
+			getMonitor().debug("Returned unprocessed message to {}", endpoint);
+		} catch (final JMSException e) {
+			getMonitor().error("Unable to return unprocessed message to {} - the message has been lost", endpoint, e);
+		}
+
+		pending = null;
+	}
+
+	private void closeQuietly(QueueBrowser browser) {
+		if (browser == null) {
+			return;
+		}
+
+		try {
+			browser.close();
+		} catch (final JMSException e) {
+			getMonitor().debug("Unable to close queue browser", e);
 		}
 	}
 
-}
\ No newline at end of file
+}
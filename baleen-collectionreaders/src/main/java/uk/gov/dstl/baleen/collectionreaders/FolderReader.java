@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -234,17 +235,39 @@ public class FolderReader extends BaleenCollectionReader {
 	public boolean doHasNext() throws IOException, CollectionException {
 		WatchKey key;
 		while((key = watcher.poll()) != null){
-			for(WatchEvent<?> event : key.pollEvents()){
-				processEvent(key, event);
-				getMonitor().meter("events").mark();				
-			}
-
-			key.reset();
+			processKey(key);
 		}
 
 		return !queue.isEmpty();
 	}
 
+	/**
+	 * If there are no files on the queue, then block on the WatchService until an event is received
+	 * (or the timeout elapses), rather than polling it.
+	 */
+	@Override
+	protected boolean doAwaitNext(long timeout) throws IOException, CollectionException, InterruptedException {
+		if(!queue.isEmpty()){
+			return true;
+		}
+
+		WatchKey key = watcher.poll(timeout, TimeUnit.MILLISECONDS);
+		if(key != null){
+			processKey(key);
+		}
+
+		return doHasNext();
+	}
+
+	private void processKey(WatchKey key) {
+		for(WatchEvent<?> event : key.pollEvents()){
+			processEvent(key, event);
+			getMonitor().meter("events").mark();
+		}
+
+		key.reset();
+	}
+
 	private void processEvent(WatchKey key, WatchEvent<?> event) {
 		@SuppressWarnings("unchecked")
 		WatchEvent<Path> pathEvent = (WatchEvent<Path>) event;
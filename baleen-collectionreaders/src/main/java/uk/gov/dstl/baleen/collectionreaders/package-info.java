@@ -3,7 +3,9 @@
  * 
  * <p>Collection Readers are used to read in a data set and pass 'documents' from it into the Baleen pipeline.
  * In Baleen, we have modified the UIMA concept of a Collection Reader so that it is permanently looking for new content;
- * that is, the doHasNext() method on BaleenCollectionReader will be continuously polled for new documents.</p>
+ * that is, when the pipeline is persistent, the reader will be asked to wait for new documents through the awaitNext() method
+ * on BaleenCollectionReader. Readers that can block until a document arrives override doAwaitNext(), whilst the remainder
+ * have doHasNext() polled with an exponential back-off.</p>
  */
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.collectionreaders;
\ No newline at end of file
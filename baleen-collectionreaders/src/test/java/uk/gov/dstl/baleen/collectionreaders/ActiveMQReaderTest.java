@@ -5,9 +5,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.TextMessage;
 
 import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.fit.util.JCasUtil;
@@ -22,6 +26,7 @@ import uk.gov.dstl.baleen.uima.BaleenCollectionReader;
 public class ActiveMQReaderTest extends AbstractReaderTest {
 	private static final String ACTIVEMQ = "activemq";
 	private static final String ENDPOINT = "documents";
+	private static final String PENDING_ENDPOINT = "pending";
 
 	private static String HOST_VALUE = "localhost";
 	private static String PROTOCOL_VALUE = "vm";
@@ -59,6 +64,29 @@ public class ActiveMQReaderTest extends AbstractReaderTest {
 		bcr.close();
 	}
 
+	@Test
+	public void testPendingReturnedOnClose() throws Exception {
+		BaleenCollectionReader bcr = getCollectionReader(ACTIVEMQ, erd, ActiveMQReader.PARAM_ENDPOINT, PENDING_ENDPOINT, ActiveMQReader.PARAM_CONTENT_EXTRACTOR, CONTENT_EXTRACTOR_VALUE);
+		final SharedActiveMQResource samr = (SharedActiveMQResource) bcr.getUimaContext().getResourceObject(ACTIVEMQ);
+
+		final Destination dest = samr.getSession().createQueue(PENDING_ENDPOINT);
+		samr.getProducer().send(dest, samr.getSession().createTextMessage("Hello, Pending"));
+
+		// The message is received from the queue, but not passed on before the reader is closed
+		assertTrue(bcr.awaitNext(1, TimeUnit.SECONDS));
+		assertFalse(samr.createQueueBrowser(PENDING_ENDPOINT, "").getEnumeration().hasMoreElements());
+
+		bcr.close();
+
+		final Enumeration<?> messages = samr.createQueueBrowser(PENDING_ENDPOINT, "").getEnumeration();
+		assertTrue(messages.hasMoreElements());
+		assertEquals("Hello, Pending", ((TextMessage) messages.nextElement()).getText());
+		assertFalse(messages.hasMoreElements());
+
+		// Leave the queue empty for other tests
+		samr.createConsumer(PENDING_ENDPOINT, "").receive(1000);
+	}
+
 	private void createContent(final SharedActiveMQResource samr) throws JMSException {
 		// get producer and send to the queue we're monitoring
 		// make dest using samr's session
@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.DocumentAnnotation;
@@ -99,6 +100,24 @@ public class FolderReaderTest extends AbstractReaderTest{
 		bcr.close();
 	}
 
+	@Test
+	public void testAwaitNext() throws Exception{
+		BaleenCollectionReader bcr = getCollectionReader(FolderReader.PARAM_FOLDERS, new String[]{inputDir.getPath()});
+
+		assertFalse(bcr.awaitNext(100, TimeUnit.MILLISECONDS));
+
+		File f = new File(inputDir, TEXT1_FILE);
+		f.createNewFile();
+
+		//Should return once the change is detected, rather than waiting for the timeout
+		assertTrue(bcr.awaitNext(TIMEOUT * 5, TimeUnit.MILLISECONDS));
+
+		bcr.getNext(jCas.getCas());
+		assertFilesEquals(f.getPath(), getSource(jCas));
+
+		bcr.close();
+	}
+	
 	@Test
 	public void testMultipleDirectories() throws Exception{
 		File inputDir2 = Files.createTempDirectory(DIR).toFile();
@@ -43,7 +43,7 @@ public abstract class AbstractStructureConsumer extends BaleenConsumer {
 
 	@Override
 	protected void doProcess(JCas jCas) throws AnalysisEngineProcessException {
-		doProcess(StructureHierarchy.build(jCas, structuralClasses));
+		doProcess(StructureHierarchy.getInstance(jCas, structuralClasses));
 	}
 
 	/**
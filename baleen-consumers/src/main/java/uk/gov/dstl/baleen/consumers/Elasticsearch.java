@@ -2,13 +2,21 @@
 package uk.gov.dstl.baleen.consumers;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.uima.fit.descriptor.ExternalResource;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import uk.gov.dstl.baleen.consumers.utils.AbstractElasticsearchConsumer;
+import uk.gov.dstl.baleen.consumers.utils.ElasticsearchBulkOptions;
 import uk.gov.dstl.baleen.resources.SharedElasticsearchResource;
 
 /**
@@ -26,6 +34,7 @@ public class Elasticsearch extends AbstractElasticsearchConsumer {
 	@ExternalResource(key = KEY_ELASTICSEARCH)
 	private SharedElasticsearchResource esResource;
 
+	private BulkProcessor bulkProcessor;
 
 	@Override
 	public boolean createIndex() {
@@ -51,10 +60,62 @@ public class Elasticsearch extends AbstractElasticsearchConsumer {
 
 	@Override
 	public void addDocument(String id, Map<String, Object> json) {
+		if(bulkProcessor != null){
+			bulkProcessor.add(Requests.indexRequest(index).type(type).id(id).source(json));
+			return;
+		}
+
 		try{
 			esResource.getClient().prepareIndex(index, type, id).setSource(json).execute().actionGet();
 		}catch(ElasticsearchException ee){
 			getMonitor().error("Couldn't persist document to Elasticsearch", ee);
 		}
 	}
+
+	@Override
+	protected void startBulk(ElasticsearchBulkOptions options) {
+		bulkProcessor = BulkProcessor.builder(esResource.getClient(), new BulkListener())
+			.setBulkActions(options.getActions())
+			.setBulkSize(new ByteSizeValue(options.getBytes()))
+			.setFlushInterval(options.getFlushInterval() > 0 ? TimeValue.timeValueMillis(options.getFlushInterval()) : null)
+			.setConcurrentRequests(options.getConcurrentRequests())
+			.setBackoffPolicy(BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(options.getRetryDelay()), options.getMaxRetries()))
+			.build();
+	}
+
+	@Override
+	protected void stopBulk() {
+		if(bulkProcessor == null){
+			return;
+		}
+
+		try{
+			if(!bulkProcessor.awaitClose(1, TimeUnit.MINUTES)){
+				getMonitor().warn("Timed out waiting for documents to be sent to Elasticsearch");
+			}
+		}catch(InterruptedException ie){
+			getMonitor().warn("Interrupted whilst waiting for documents to be sent to Elasticsearch", ie);
+			Thread.currentThread().interrupt();
+		}
+		bulkProcessor = null;
+	}
+
+	private class BulkListener implements BulkProcessor.Listener {
+		@Override
+		public void beforeBulk(long executionId, BulkRequest request) {
+			getMonitor().debug("Sending {} documents to Elasticsearch", request.numberOfActions());
+		}
+
+		@Override
+		public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+			if(response.hasFailures()){
+				getMonitor().error("Couldn't persist some documents to Elasticsearch: {}", response.buildFailureMessage());
+			}
+		}
+
+		@Override
+		public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+			getMonitor().error("Couldn't persist {} documents to Elasticsearch", request.numberOfActions(), failure);
+		}
+	}
 }
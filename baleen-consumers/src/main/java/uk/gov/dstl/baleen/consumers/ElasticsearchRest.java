@@ -3,6 +3,7 @@ package uk.gov.dstl.baleen.consumers;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.uima.fit.descriptor.ExternalResource;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -14,6 +15,8 @@ import io.searchbox.indices.CreateIndex;
 import io.searchbox.indices.IndicesExists;
 import io.searchbox.indices.mapping.PutMapping;
 import uk.gov.dstl.baleen.consumers.utils.AbstractElasticsearchConsumer;
+import uk.gov.dstl.baleen.consumers.utils.ElasticsearchBulkOptions;
+import uk.gov.dstl.baleen.consumers.utils.JestBulkIndexer;
 import uk.gov.dstl.baleen.resources.SharedElasticsearchRestResource;
 
 /**
@@ -32,6 +35,8 @@ public class ElasticsearchRest extends AbstractElasticsearchConsumer {
 	public static final String KEY_ELASTICSEARCH_REST = "elasticsearchRest";
 	@ExternalResource(key = KEY_ELASTICSEARCH_REST)
 	private SharedElasticsearchRestResource esrResource;
+
+	private JestBulkIndexer bulkIndexer;
 	
 	@Override
 	public boolean createIndex() {
@@ -63,12 +68,43 @@ public class ElasticsearchRest extends AbstractElasticsearchConsumer {
 
 	@Override
 	public void addDocument(String id, Map<String, Object> json) {
+		Index doc = new Index.Builder(json).id(id).index(index).type(type).build();
+
+		if(bulkIndexer != null){
+			bulkIndexer.add(doc, JestBulkIndexer.estimateSize(json));
+			return;
+		}
+
 		try{
-			Index doc = new Index.Builder(json).id(id).index(index).type(type).build();
 			esrResource.getClient().execute(doc);
 		}catch(IOException ioe){
 			getMonitor().error("Couldn't persist document to Elasticsearch", ioe);
 		}
 	}
 
-}
\ No newline at end of file
+	@Override
+	protected void startBulk(ElasticsearchBulkOptions options) {
+		bulkIndexer = new JestBulkIndexer(esrResource.getClient(), options);
+	}
+
+	@Override
+	protected void stopBulk() {
+		if(bulkIndexer == null){
+			return;
+		}
+
+		try{
+			if(!bulkIndexer.close(1, TimeUnit.MINUTES)){
+				getMonitor().warn("Timed out waiting for documents to be sent to Elasticsearch");
+			}
+		}catch(InterruptedException ie){
+			getMonitor().warn("Interrupted whilst waiting for documents to be sent to Elasticsearch", ie);
+			Thread.currentThread().interrupt();
+		}
+
+		if(bulkIndexer.getFailedCount() > 0){
+			getMonitor().error("{} documents could not be persisted to Elasticsearch", bulkIndexer.getFailedCount());
+		}
+		bulkIndexer = null;
+	}
+}
@@ -6,15 +6,23 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
@@ -40,6 +48,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.MapLikeType;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Consumer to persist Baleen outputs into Postgres.
@@ -57,6 +66,15 @@ import com.google.common.base.Strings;
  * </ul>
  * 
  * Requires PostGIS 2 or later.
+ * 
+ * By default, each document is inserted (and committed) individually, with keys generated by the database.
+ * For higher throughput, batch mode can be enabled. In batch mode, keys are reserved from the table sequences
+ * in blocks ahead of time, rows from many documents are sent together using JDBC batches, and the transaction
+ * is committed once a given number of documents have been added or a given time has passed (and when the
+ * pipeline is stopped). The rows of each document are held until the batch is sent, so a document that can't be
+ * added to the batch is skipped on its own. If the database rejects the batch, then it is rolled back and each of
+ * its documents is inserted again individually, within its own savepoint, so that only the documents that fail
+ * are discarded; the number discarded is logged as an error.
  *  
  * 
  * @baleen.javadoc
@@ -99,11 +117,58 @@ public class Postgres extends BaleenConsumer {
 	@ConfigurationParameter(name = PARAM_CONTENT_HASH_AS_ID, defaultValue = "true")
 	private boolean contentHashAsId = true;
 	
+	/**
+	 * Should rows be inserted in batches, and committed periodically rather than after every document?
+	 * 
+	 * @baleen.config false
+	 */
+	public static final String PARAM_BATCH = "batch";
+	@ConfigurationParameter(name = PARAM_BATCH, defaultValue = "false")
+	private boolean batch = false;
+	
+	/**
+	 * In batch mode, the number of documents after which the batch is sent and committed
+	 * 
+	 * @baleen.config 100
+	 */
+	public static final String PARAM_COMMIT_DOCUMENTS = "commitDocuments";
+	@ConfigurationParameter(name = PARAM_COMMIT_DOCUMENTS, defaultValue = "100")
+	private int commitDocuments = 100;
+	
+	/**
+	 * In batch mode, the time in milliseconds after which the batch is sent and committed.
+	 * This is checked as each document is processed, and periodically in the background, so that
+	 * documents are committed even when no more are being processed.
+	 * 
+	 * @baleen.config 5000
+	 */
+	public static final String PARAM_COMMIT_INTERVAL = "commitInterval";
+	@ConfigurationParameter(name = PARAM_COMMIT_INTERVAL, defaultValue = "5000")
+	private int commitInterval = 5000;
+	
+	/**
+	 * In batch mode, the number of keys to reserve from each table's sequence at a time
+	 * 
+	 * @baleen.config 1000
+	 */
+	public static final String PARAM_KEY_BLOCK_SIZE = "keyBlockSize";
+	@ConfigurationParameter(name = PARAM_KEY_BLOCK_SIZE, defaultValue = "1000")
+	private int keyBlockSize = 1000;
+	
 	private PreparedStatement insertDocStatement;
 	private PreparedStatement insertDocMetadataStatement;
 	private PreparedStatement insertEntityStatement;
 	private PreparedStatement insertEntityGeoStatement;
 	
+	private KeyBlock docKeys;
+	private KeyBlock entityKeys;
+	private final List<List<Row>> batchedDocuments = new ArrayList<>();
+	private List<Row> documentRows;
+	private long lastCommit;
+	//Guards the batch and the connection, which are shared with the scheduled commit
+	private final Object batchLock = new Object();
+	private ScheduledExecutorService committer;
+	
 	private static final ObjectMapper MAPPER = new ObjectMapper();
 	private static final MapLikeType MAP_LIKE_TYPE = TypeFactory
 			.defaultInstance()
@@ -124,10 +189,25 @@ public class Postgres extends BaleenConsumer {
 		createTables();
 		
 		try{
-			insertDocStatement = postgresResource.getConnection().prepareStatement(INSERT_INTO_PREFIX + getTableName(DOC_ROOT) + " (externalId, type, source, content, language, processed, classification, caveats, releasability) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
-			insertDocMetadataStatement = postgresResource.getConnection().prepareStatement(INSERT_INTO_PREFIX + getTableName(DOC_METADATA_ROOT) + " (doc_key, name, value) VALUES (?, ?, ?)");
-			insertEntityStatement = postgresResource.getConnection().prepareStatement(INSERT_INTO_PREFIX + getTableName(ENTITY_ROOT) + " (doc_key, externalId, type, value) VALUES (?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
-			insertEntityGeoStatement = postgresResource.getConnection().prepareStatement(INSERT_INTO_PREFIX + getTableName(ENTITY_GEO_ROOT) + " (entity_key, geo) VALUES (?, ST_GeomFromGeoJSON(?))");
+			Connection conn = postgresResource.getConnection();
+			if(batch){
+				insertDocStatement = conn.prepareStatement(INSERT_INTO_PREFIX + getTableName(DOC_ROOT) + " (externalId, type, source, content, language, processed, classification, caveats, releasability, key) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+				insertEntityStatement = conn.prepareStatement(INSERT_INTO_PREFIX + getTableName(ENTITY_ROOT) + " (doc_key, externalId, type, value, key) VALUES (?, ?, ?, ?, ?)");
+				docKeys = new KeyBlock(conn, getTableName(DOC_ROOT), keyBlockSize);
+				entityKeys = new KeyBlock(conn, getTableName(ENTITY_ROOT), keyBlockSize);
+				lastCommit = System.currentTimeMillis();
+				
+				if(commitInterval > 0){
+					committer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("postgres-commit-%d").setDaemon(true).build());
+					long period = Math.max(1, commitInterval / 10);
+					committer.scheduleWithFixedDelay(this::scheduledCommit, period, period, TimeUnit.MILLISECONDS);
+				}
+			}else{
+				insertDocStatement = conn.prepareStatement(INSERT_INTO_PREFIX + getTableName(DOC_ROOT) + " (externalId, type, source, content, language, processed, classification, caveats, releasability) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+				insertEntityStatement = conn.prepareStatement(INSERT_INTO_PREFIX + getTableName(ENTITY_ROOT) + " (doc_key, externalId, type, value) VALUES (?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+			}
+			insertDocMetadataStatement = conn.prepareStatement(INSERT_INTO_PREFIX + getTableName(DOC_METADATA_ROOT) + " (doc_key, name, value) VALUES (?, ?, ?)");
+			insertEntityGeoStatement = conn.prepareStatement(INSERT_INTO_PREFIX + getTableName(ENTITY_GEO_ROOT) + " (entity_key, geo) VALUES (?, ST_GeomFromGeoJSON(?))");
 		}catch(SQLException e){
 			throw new ResourceInitializationException(e);
 		}
@@ -180,6 +260,13 @@ public class Postgres extends BaleenConsumer {
 	
 	@Override
 	protected void doProcess(JCas jCas) throws AnalysisEngineProcessException {
+		if(batch){
+			synchronized(batchLock){
+				processBatched(jCas);
+			}
+			return;
+		}
+		
 		Connection conn = postgresResource.getConnection();
 		
 		try{
@@ -204,20 +291,206 @@ public class Postgres extends BaleenConsumer {
 		}
 	}
 
+	private void processBatched(JCas jCas){
+		List<Row> rows = new ArrayList<>();
+		documentRows = rows;
+		try{
+			Integer docKey = executeDocInsert(jCas);
+			for(Metadata md : JCasUtil.select(jCas, Metadata.class)){
+				executeDocMetadataInsert(docKey, md);
+			}
+			
+			processEntities(jCas, docKey);
+		}catch(SQLException | BaleenException e){
+			//Nothing has been sent to the database, so only this document is lost
+			getMonitor().error("Unable to add document to batch - the document will not be inserted", e);
+			return;
+		}finally{
+			documentRows = null;
+		}
+		
+		batchedDocuments.add(rows);
+		if(batchedDocuments.size() >= commitDocuments || System.currentTimeMillis() - lastCommit >= commitInterval){
+			commitBatch();
+		}
+	}
+	
+	/**
+	 * Commit the batch if the commit interval has passed since the last commit, even though no more documents
+	 * have been processed
+	 */
+	private void scheduledCommit(){
+		try{
+			synchronized(batchLock){
+				if(System.currentTimeMillis() - lastCommit >= commitInterval){
+					commitBatch();
+				}
+			}
+		}catch(RuntimeException e){
+			getMonitor().error("Unexpected error whilst committing batch", e);
+		}
+	}
+	
+	/**
+	 * Send all batched rows to the database and commit them. If the batch is rejected, it is rolled back
+	 * and the documents are inserted individually instead.
+	 */
+	private void commitBatch(){
+		if(!batchedDocuments.isEmpty()){
+			Connection conn = postgresResource.getConnection();
+			try{
+				executeBatch(batchedDocuments);
+				conn.commit();
+				getMonitor().debug("Committed batch of {} documents", batchedDocuments.size());
+			}catch(SQLException e){
+				getMonitor().warn("Unable to insert batch of {} documents into Postgres database - inserting documents individually",
+						batchedDocuments.size(), e.getNextException() == null ? e : e.getNextException());
+				if(rollback(conn, null)){
+					commitIndividually(conn);
+				}else{
+					getMonitor().error("Discarded batch of {} documents", batchedDocuments.size());
+				}
+			}
+		}
+		
+		batchedDocuments.clear();
+		lastCommit = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Insert each batched document within its own savepoint, discarding any that fail, and commit those that succeed
+	 */
+	private void commitIndividually(Connection conn){
+		int discarded = 0;
+		for(List<Row> rows : batchedDocuments){
+			Savepoint savepoint = null;
+			try{
+				savepoint = conn.setSavepoint();
+				executeBatch(Collections.singletonList(rows));
+				conn.releaseSavepoint(savepoint);
+			}catch(SQLException e){
+				getMonitor().warn("Unable to insert document into Postgres database", e.getNextException() == null ? e : e.getNextException());
+				discarded++;
+				if(savepoint == null || !rollback(conn, savepoint)){
+					rollback(conn, null);
+					getMonitor().error("Discarded batch of {} documents", batchedDocuments.size());
+					return;
+				}
+			}
+		}
+		
+		try{
+			conn.commit();
+		}catch(SQLException e){
+			getMonitor().error("Unable to commit documents - discarded batch of {} documents", batchedDocuments.size(), e);
+			rollback(conn, null);
+			return;
+		}
+		
+		if(discarded > 0){
+			getMonitor().error("Discarded {} of {} documents in batch that could not be inserted", discarded, batchedDocuments.size());
+		}
+	}
+	
+	/**
+	 * Add the rows of the given documents to the JDBC batches and send them, in an order that respects the foreign keys
+	 */
+	private void executeBatch(List<List<Row>> documents) throws SQLException{
+		try{
+			for(List<Row> rows : documents){
+				for(Row row : rows){
+					bind(row.statement, row.values);
+					row.statement.addBatch();
+				}
+			}
+			
+			insertDocStatement.executeBatch();
+			insertDocMetadataStatement.executeBatch();
+			insertEntityStatement.executeBatch();
+			insertEntityGeoStatement.executeBatch();
+		}finally{
+			insertDocStatement.clearBatch();
+			insertDocMetadataStatement.clearBatch();
+			insertEntityStatement.clearBatch();
+			insertEntityGeoStatement.clearBatch();
+		}
+	}
+	
+	private boolean rollback(Connection conn, Savepoint savepoint){
+		try{
+			if(savepoint == null){
+				conn.rollback();
+			}else{
+				conn.rollback(savepoint);
+			}
+			return true;
+		}catch(SQLException e){
+			getMonitor().error("Unable to rollback insertion - state of the database may have been left inconsistent", e);
+			return false;
+		}
+	}
+	
+	@Override
+	protected void doDestroy() {
+		if(committer != null){
+			committer.shutdown();
+			committer = null;
+		}
+		
+		if(batch && insertDocStatement != null){
+			synchronized(batchLock){
+				commitBatch();
+			}
+		}
+		
+		closeStatement(insertDocStatement);
+		closeStatement(insertDocMetadataStatement);
+		closeStatement(insertEntityStatement);
+		closeStatement(insertEntityGeoStatement);
+		
+		insertDocStatement = null;
+		insertDocMetadataStatement = null;
+		insertEntityStatement = null;
+		insertEntityGeoStatement = null;
+		docKeys = null;
+		entityKeys = null;
+	}
+	
+	private void closeStatement(Statement s){
+		if(s == null){
+			return;
+		}
+		
+		try{
+			s.close();
+		}catch(SQLException e){
+			getMonitor().debug("Unable to close statement", e);
+		}
+	}
+
 	private Integer executeDocInsert(JCas jCas) throws SQLException, BaleenException{
 		DocumentAnnotation da = getDocumentAnnotation(jCas);
 		String documentId = ConsumerUtils.getExternalId(da, contentHashAsId);
 		
-		insertDocStatement.clearParameters();
-		insertDocStatement.setString(1, documentId);
-		insertDocStatement.setString(2, da.getDocType());
-		insertDocStatement.setString(3, da.getSourceUri());
-		insertDocStatement.setString(4, jCas.getDocumentText());
-		insertDocStatement.setString(5, jCas.getDocumentLanguage());
-		insertDocStatement.setTimestamp(6, new Timestamp(da.getTimestamp()));
-		insertDocStatement.setString(7, da.getDocumentClassification());
-		insertDocStatement.setArray(8, createVarcharArray(postgresResource.getConnection(), da.getDocumentCaveats()));
-		insertDocStatement.setArray(9, createVarcharArray(postgresResource.getConnection(), da.getDocumentReleasability()));
+		Object[] values = new Object[batch ? 10 : 9];
+		values[0] = documentId;
+		values[1] = da.getDocType();
+		values[2] = da.getSourceUri();
+		values[3] = jCas.getDocumentText();
+		values[4] = jCas.getDocumentLanguage();
+		values[5] = new Timestamp(da.getTimestamp());
+		values[6] = da.getDocumentClassification();
+		values[7] = createVarcharArray(postgresResource.getConnection(), da.getDocumentCaveats());
+		values[8] = createVarcharArray(postgresResource.getConnection(), da.getDocumentReleasability());
+		
+		if(batch){
+			int docKey = docKeys.next();
+			values[9] = docKey;
+			documentRows.add(new Row(insertDocStatement, values));
+			return docKey;
+		}
+		
+		bind(insertDocStatement, values);
 		insertDocStatement.executeUpdate();
 		
 		Integer docKey = getKey(insertDocStatement);
@@ -229,11 +502,14 @@ public class Postgres extends BaleenConsumer {
 	}
 	
 	private void executeDocMetadataInsert(Integer docKey, Metadata md) throws SQLException{
-		insertDocMetadataStatement.clearParameters();
-		insertDocMetadataStatement.setInt(1, docKey);
-		insertDocMetadataStatement.setString(2, md.getKey());
-		insertDocMetadataStatement.setString(3, md.getValue());
-		insertDocMetadataStatement.executeUpdate();
+		Object[] values = new Object[]{docKey, md.getKey(), md.getValue()};
+		
+		if(batch){
+			documentRows.add(new Row(insertDocMetadataStatement, values));
+		}else{
+			bind(insertDocMetadataStatement, values);
+			insertDocMetadataStatement.executeUpdate();
+		}
 	}
 	
 	private void processEntities(JCas jCas, Integer docKey) throws SQLException{
@@ -292,11 +568,20 @@ public class Postgres extends BaleenConsumer {
 	}
 	
 	private Integer executeEntityInsert(Integer docKey, Collection<String> values, Collection<String> externalIds, String type) throws SQLException{
-		insertEntityStatement.clearParameters();
-		insertEntityStatement.setInt(1, docKey);
-		insertEntityStatement.setArray(2, postgresResource.getConnection().createArrayOf(VARCHAR, externalIds.toArray(new String[0])));
-		insertEntityStatement.setString(3, type);
-		insertEntityStatement.setArray(4, postgresResource.getConnection().createArrayOf(VARCHAR, values.toArray(new String[0])));
+		Object[] row = new Object[batch ? 5 : 4];
+		row[0] = docKey;
+		row[1] = postgresResource.getConnection().createArrayOf(VARCHAR, externalIds.toArray(new String[0]));
+		row[2] = type;
+		row[3] = postgresResource.getConnection().createArrayOf(VARCHAR, values.toArray(new String[0]));
+		
+		if(batch){
+			int entityKey = entityKeys.next();
+			row[4] = entityKey;
+			documentRows.add(new Row(insertEntityStatement, row));
+			return entityKey;
+		}
+		
+		bind(insertEntityStatement, row);
 		insertEntityStatement.executeUpdate();
 		
 		Integer entityKey = getKey(insertEntityStatement);
@@ -308,10 +593,14 @@ public class Postgres extends BaleenConsumer {
 	}
 	
 	private void executeEntityGeoInsert(Integer entityKey, String geoJson) throws SQLException{
-		insertEntityGeoStatement.clearParameters();
-		insertEntityGeoStatement.setInt(1, entityKey);
-		insertEntityGeoStatement.setString(2, geoJson);
-		insertEntityGeoStatement.executeUpdate();
+		Object[] values = new Object[]{entityKey, geoJson};
+		
+		if(batch){
+			documentRows.add(new Row(insertEntityGeoStatement, values));
+		}else{
+			bind(insertEntityGeoStatement, values);
+			insertEntityGeoStatement.executeUpdate();
+		}
 	}
 	
 	/**
@@ -388,6 +677,27 @@ public class Postgres extends BaleenConsumer {
 		}
 	}
 	
+	/**
+	 * Set the parameters of a statement, in order, from the given values
+	 */
+	private static void bind(PreparedStatement statement, Object[] values) throws SQLException{
+		statement.clearParameters();
+		for(int i = 0; i < values.length; i++){
+			Object value = values[i];
+			if(value == null){
+				statement.setNull(i + 1, Types.VARCHAR);
+			}else if(value instanceof Integer){
+				statement.setInt(i + 1, (Integer) value);
+			}else if(value instanceof Timestamp){
+				statement.setTimestamp(i + 1, (Timestamp) value);
+			}else if(value instanceof Array){
+				statement.setArray(i + 1, (Array) value);
+			}else{
+				statement.setString(i + 1, value.toString());
+			}
+		}
+	}
+	
 	private Integer getKey(Statement s) throws SQLException{
 		ResultSet generatedKeys = s.getGeneratedKeys();
 		if(generatedKeys.next()){
@@ -396,4 +706,44 @@ public class Postgres extends BaleenConsumer {
 			return null;
 		}
 	}
+	
+	/**
+	 * The values of a row to be inserted by a statement, held until the batch it belongs to is sent
+	 */
+	private static class Row{
+		private final PreparedStatement statement;
+		private final Object[] values;
+		
+		Row(PreparedStatement statement, Object[] values){
+			this.statement = statement;
+			this.values = values;
+		}
+	}
+	
+	/**
+	 * Keys reserved in advance from the sequence of a table's serial key column, so that rows can be
+	 * batched without needing to retrieve generated keys. Unused keys are simply skipped.
+	 */
+	private static class KeyBlock{
+		private final PreparedStatement reserve;
+		private final Deque<Integer> keys = new ArrayDeque<>();
+		
+		KeyBlock(Connection conn, String table, int size) throws SQLException{
+			reserve = conn.prepareStatement("SELECT nextval(pg_get_serial_sequence(?, 'key')) FROM generate_series(1, ?)");
+			reserve.setString(1, table);
+			reserve.setInt(2, Math.max(1, size));
+		}
+		
+		int next() throws SQLException{
+			if(keys.isEmpty()){
+				try(ResultSet rs = reserve.executeQuery()){
+					while(rs.next()){
+						keys.add(rs.getInt(1));
+					}
+				}
+			}
+			
+			return keys.remove();
+		}
+	}
 }
@@ -468,7 +468,7 @@ public class StructuralHtml extends AbstractHtmlConsumer {
 	@Override
 	protected void writeBody(final JCas jCas, final Element body) {
 
-		final Node<Structure> root = StructureHierarchy.build(jCas, structuralClasses).getRoot();
+		final Node<Structure> root = StructureHierarchy.getInstance(jCas, structuralClasses).getRoot();
 
 		walk(body, root);
 
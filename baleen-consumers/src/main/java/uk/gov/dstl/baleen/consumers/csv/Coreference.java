@@ -19,6 +19,7 @@ import uk.gov.dstl.baleen.resources.utils.StopwordUtils;
 import uk.gov.dstl.baleen.types.language.Sentence;
 import uk.gov.dstl.baleen.types.language.WordToken;
 import uk.gov.dstl.baleen.types.semantic.Entity;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Write coreference information to a CSV.
@@ -94,13 +95,13 @@ public class Coreference extends AbstractCsvConsumer {
 		// For each entity we need to find all the other sentences they are contained in
 
 		// This should be all entities and sentences
-		final Map<Entity, Collection<Sentence>> coveringSentence = JCasUtil.indexCovering(jCas, Entity.class,
+		final Map<Entity, Collection<Sentence>> coveringSentence = DerivedIndexCache.indexCovering(jCas, Entity.class,
 				Sentence.class);
-		final Map<Sentence, Collection<Entity>> coveredEntities = JCasUtil.indexCovered(jCas, Sentence.class,
+		final Map<Sentence, Collection<Entity>> coveredEntities = DerivedIndexCache.indexCovered(jCas, Sentence.class,
 				Entity.class);
-		final Map<Sentence, Collection<WordToken>> coveredTokens = JCasUtil.indexCovered(jCas, Sentence.class,
+		final Map<Sentence, Collection<WordToken>> coveredTokens = DerivedIndexCache.indexCovered(jCas, Sentence.class,
 				WordToken.class);
-		final Map<WordToken, Collection<Entity>> coveringEntity = JCasUtil.indexCovering(jCas, WordToken.class,
+		final Map<WordToken, Collection<Entity>> coveringEntity = DerivedIndexCache.indexCovering(jCas, WordToken.class,
 				Entity.class);
 
 		JCasUtil.select(jCas, Entity.class).stream()
@@ -18,6 +18,7 @@ import uk.gov.dstl.baleen.types.language.Sentence;
 import uk.gov.dstl.baleen.types.language.WordToken;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.types.semantic.Event;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 import uk.gov.dstl.baleen.uima.utils.UimaTypesUtils;
 
 /**
@@ -46,7 +47,7 @@ public class CsvEvent extends AbstractCsvConsumer {
 	protected void write(JCas jCas) {
 		final String source = getDocumentAnnotation(jCas).getSourceUri();
 
-		final Map<Event, Collection<Sentence>> coveringSentence = JCasUtil.indexCovering(jCas,
+		final Map<Event, Collection<Sentence>> coveringSentence = DerivedIndexCache.indexCovering(jCas,
 				Event.class,
 				Sentence.class);
 
@@ -12,6 +12,7 @@ import org.apache.uima.resource.ResourceInitializationException;
 import uk.gov.dstl.baleen.consumers.csv.AbstractCsvConsumer;
 import uk.gov.dstl.baleen.types.language.Sentence;
 import uk.gov.dstl.baleen.types.semantic.Relation;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * Write relations to CSV.
@@ -48,7 +49,7 @@ public class CsvRelation extends AbstractCsvConsumer {
 	protected void write(JCas jCas) {
 		final String source = getDocumentAnnotation(jCas).getSourceUri();
 
-		final Map<Relation, Collection<Sentence>> coveringSentence = JCasUtil.indexCovering(jCas, Relation.class,
+		final Map<Relation, Collection<Sentence>> coveringSentence = DerivedIndexCache.indexCovering(jCas, Relation.class,
 				Sentence.class);
 
 		JCasUtil.select(jCas, Relation.class).stream().map(r -> {
@@ -54,6 +54,71 @@ public abstract class AbstractElasticsearchConsumer extends BaleenConsumer {
 	@ConfigurationParameter(name = PARAM_CONTENT_HASH_AS_ID, defaultValue = "true")
 	boolean contentHashAsId = true;
 
+	/**
+	 * Should documents be sent to Elasticsearch in bulk requests, rather than one request per document?
+	 *
+	 * @baleen.config false
+	 */
+	public static final String PARAM_BULK = "bulk";
+	@ConfigurationParameter(name = PARAM_BULK, defaultValue = "false")
+	boolean bulk = false;
+
+	/**
+	 * In bulk mode, the number of documents to send in each request (-1 for no limit)
+	 *
+	 * @baleen.config 1000
+	 */
+	public static final String PARAM_BULK_ACTIONS = "bulkActions";
+	@ConfigurationParameter(name = PARAM_BULK_ACTIONS, defaultValue = "1000")
+	int bulkActions = 1000;
+
+	/**
+	 * In bulk mode, the approximate size of each request in MB (-1 for no limit)
+	 *
+	 * @baleen.config 5
+	 */
+	public static final String PARAM_BULK_SIZE = "bulkSize";
+	@ConfigurationParameter(name = PARAM_BULK_SIZE, defaultValue = "5")
+	int bulkSize = 5;
+
+	/**
+	 * In bulk mode, the maximum time in milliseconds that a document will wait before being sent (-1 to only send full requests)
+	 *
+	 * @baleen.config 5000
+	 */
+	public static final String PARAM_FLUSH_INTERVAL = "flushInterval";
+	@ConfigurationParameter(name = PARAM_FLUSH_INTERVAL, defaultValue = "5000")
+	int flushInterval = 5000;
+
+	/**
+	 * In bulk mode, the number of requests that can be in progress whilst more documents are being processed.
+	 * If 0, then requests are sent synchronously.
+	 *
+	 * @baleen.config 1
+	 */
+	public static final String PARAM_CONCURRENT_REQUESTS = "concurrentRequests";
+	@ConfigurationParameter(name = PARAM_CONCURRENT_REQUESTS, defaultValue = "1")
+	int concurrentRequests = 1;
+
+	/**
+	 * In bulk mode, the number of times to retry documents rejected because Elasticsearch is busy
+	 *
+	 * @baleen.config 3
+	 */
+	public static final String PARAM_MAX_RETRIES = "maxRetries";
+	@ConfigurationParameter(name = PARAM_MAX_RETRIES, defaultValue = "3")
+	int maxRetries = 3;
+
+	/**
+	 * In bulk mode, the time in milliseconds to wait before first retrying rejected documents.
+	 * The delay is doubled for each subsequent retry.
+	 *
+	 * @baleen.config 100
+	 */
+	public static final String PARAM_RETRY_DELAY = "retryDelay";
+	@ConfigurationParameter(name = PARAM_RETRY_DELAY, defaultValue = "100")
+	int retryDelay = 100;
+
 	private static final String ES_PROPERTIES = "properties";
 	private static final String ES_TYPE = "type";
 	private static final String ES_TYPE_STRING = "string";
@@ -77,7 +142,47 @@ public abstract class AbstractElasticsearchConsumer extends BaleenConsumer {
 				getMonitor().error("Unable to create mapping, you may get unexpected results in your Elasticsearch index", ioe);
 			}
 		}
+
+		if(bulk){
+			startBulk(getBulkOptions());
+		}
+	}
+
+	@Override
+	protected void doDestroy() {
+		if(bulk){
+			stopBulk();
+		}
+	}
+
+	/**
+	 * Is bulk mode enabled
+	 */
+	protected boolean isBulk() {
+		return bulk;
+	}
+
+	/**
+	 * Get the bulk options, as configured
+	 */
+	protected ElasticsearchBulkOptions getBulkOptions() {
+		long bytes = bulkSize < 0 ? -1 : bulkSize * 1024L * 1024L;
+		return new ElasticsearchBulkOptions(bulkActions, bytes, flushInterval, concurrentRequests, maxRetries, retryDelay);
 	}
+
+	/**
+	 * Prepare to send documents in bulk. Only called if bulk mode is enabled.
+	 *
+	 * @param options
+	 *            the configured bulk options
+	 */
+	protected abstract void startBulk(ElasticsearchBulkOptions options);
+
+	/**
+	 * Send any documents still waiting to be sent, and wait for all outstanding requests to complete.
+	 * Only called (from doDestroy) if bulk mode is enabled.
+	 */
+	protected abstract void stopBulk();
 	
 	/**
 	 * Create an index in Elasticsearch.
@@ -163,6 +268,7 @@ public abstract class AbstractElasticsearchConsumer extends BaleenConsumer {
 	
 	/**
 	 * Add the document (provided as JSON) to Elasticsearch, using the id provided.
+	 * In bulk mode, the document may not be sent until later.
 	 */
 	public abstract void addDocument(String id, Map <String, Object> json);
 }
\ No newline at end of file
@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 import uk.gov.dstl.baleen.core.utils.IdentityUtils;
 import uk.gov.dstl.baleen.exceptions.BaleenException;
+import uk.gov.dstl.baleen.uima.utils.AccessorRegistry;
 
 /**
  * Helper functions for writing consumers.
@@ -48,6 +49,6 @@ public class ConsumerUtils {
 	 * @return Camel-cased string
 	 */
 	public static String toCamelCase(String s) {
-		return s.substring(0, 1).toLowerCase() + s.substring(1);
+		return AccessorRegistry.toCamelCase(s);
 	}
 }
@@ -0,0 +1,89 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.consumers.utils;
+
+/**
+ * Options controlling how the Elasticsearch consumers send documents in bulk
+ */
+public class ElasticsearchBulkOptions {
+	private final int actions;
+	private final long bytes;
+	private final long flushInterval;
+	private final int concurrentRequests;
+	private final int maxRetries;
+	private final long retryDelay;
+
+	/**
+	 * Constructor
+	 *
+	 * @param actions
+	 *            The number of documents to send in each request, or -1 for no limit
+	 * @param bytes
+	 *            The (approximate) size of each request in bytes, or -1 for no limit
+	 * @param flushInterval
+	 *            The maximum time, in milliseconds, a document can wait before a request is sent, or -1 to only send requests once full
+	 * @param concurrentRequests
+	 *            The number of requests that can be in progress at once whilst more documents are being added.
+	 *            If 0, then requests are sent by the thread adding the document.
+	 * @param maxRetries
+	 *            The number of times to retry documents that are rejected because Elasticsearch is busy
+	 * @param retryDelay
+	 *            The delay, in milliseconds, before the first retry. The delay doubles for each subsequent retry.
+	 */
+	public ElasticsearchBulkOptions(int actions, long bytes, long flushInterval, int concurrentRequests, int maxRetries, long retryDelay) {
+		this.actions = actions;
+		this.bytes = bytes;
+		this.flushInterval = flushInterval;
+		this.concurrentRequests = Math.max(0, concurrentRequests);
+		this.maxRetries = Math.max(0, maxRetries);
+		this.retryDelay = Math.max(0, retryDelay);
+	}
+
+	/**
+	 * The number of documents to send in each request, or -1 for no limit
+	 */
+	public int getActions() {
+		return actions;
+	}
+
+	/**
+	 * The approximate size of each request in bytes, or -1 for no limit
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * The maximum time in milliseconds between requests, or -1 to only send full requests
+	 */
+	public long getFlushInterval() {
+		return flushInterval;
+	}
+
+	/**
+	 * The number of requests that can be in progress at once
+	 */
+	public int getConcurrentRequests() {
+		return concurrentRequests;
+	}
+
+	/**
+	 * The number of times to retry rejected documents
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * The delay in milliseconds before the first retry
+	 */
+	public long getRetryDelay() {
+		return retryDelay;
+	}
+
+	/**
+	 * The delay in milliseconds before the given retry (starting from 0)
+	 */
+	public long getRetryDelay(int retry) {
+		return retryDelay << Math.min(retry, 20);
+	}
+}
@@ -30,6 +30,8 @@ import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.types.semantic.Event;
 import uk.gov.dstl.baleen.types.semantic.Relation;
 import uk.gov.dstl.baleen.uima.UimaMonitor;
+import uk.gov.dstl.baleen.uima.utils.AccessorRegistry;
+import uk.gov.dstl.baleen.uima.utils.FeatureAccessor;
 import uk.gov.dstl.baleen.uima.utils.FeatureUtils;
 
 /**
@@ -142,7 +144,7 @@ public class EntityRelationConverter {
 	}
 
 	private void convertFeatures(Map<String, Object> map, Base base) {
-		for (Feature f : base.getType().getFeatures()) {
+		for (FeatureAccessor f : AccessorRegistry.getFeatures(base.getType())) {
 			if (stopFeatures.contains(f.getName())) {
 				continue;
 			}
@@ -152,7 +154,7 @@ public class EntityRelationConverter {
 			} catch (Exception e) {
 				getMonitor().warn(
 						"Couldn't output {} to map. Type '{}' isn't supported.", f.getName(),
-						f.getRange().getShortName(), e);
+						f.getFeature().getRange().getShortName(), e);
 			}
 		}
 		map.put("type", base.getType().getShortName());
@@ -161,26 +163,26 @@ public class EntityRelationConverter {
 		}
 	}
 
-	private void convertFeature(Map<String, Object> map, Base base, Feature f) {
-		if (f.getRange().isPrimitive()) {
-			if ("geoJson".equals(f.getShortName())) {
+	private void convertFeature(Map<String, Object> map, Base base, FeatureAccessor accessor) {
+		Feature f = accessor.getFeature();
+		if (accessor.isPrimitive()) {
+			if ("geoJson".equals(accessor.getShortName())) {
 				getMonitor().trace("Feature is GeoJSON - parsing to a database object");
 				putGeoJson(map, base.getFeatureValueAsString(f));
 			} else {
 				getMonitor().trace("Converting primitive feature to an object");
-				map.put(ConsumerUtils.toCamelCase(f.getShortName()), FeatureUtils.featureToObject(f, base));
+				map.put(accessor.getCamelCaseName(), FeatureUtils.featureToObject(f, base));
 			}
-		} else if (f.getRange().isArray() && f.getRange().getComponentType() != null
-				&& f.getRange().getComponentType().isPrimitive()) {
+		} else if (accessor.isPrimitiveArray()) {
 			getMonitor().trace("Converting primitive feature to an array");
-			map.put(ConsumerUtils.toCamelCase(f.getShortName()), FeatureUtils.featureToList(f, base));
+			map.put(accessor.getCamelCaseName(), FeatureUtils.featureToList(f, base));
 		} else {
 			getMonitor().trace("Feature is not a primitive type - will try to treat the feature as an entity");
-			if (f.getRange().isArray()) {
+			if (accessor.isArray()) {
 				getMonitor().trace("Feature is an array - attempting converstion to an array of entities");
 				FSArray fArr = (FSArray) base.getFeatureValue(f);
 				if (fArr != null) {
-					map.put(ConsumerUtils.toCamelCase(f.getShortName()), getEntityIds(fArr));
+					map.put(accessor.getCamelCaseName(), getEntityIds(fArr));
 				}
 			} else {
 				getMonitor().trace("Feature is singular - attempting conversion to a single entity");
@@ -188,9 +190,9 @@ public class EntityRelationConverter {
 				if (ent == null) {
 					// Ignore null entities
 				} else if (ent instanceof Entity) {
-					map.put(ConsumerUtils.toCamelCase(f.getShortName()), ((Entity) ent).getExternalId());
+					map.put(accessor.getCamelCaseName(), ((Entity) ent).getExternalId());
 				} else {
-					getMonitor().trace("Unable to persist feature {}", f.getShortName());
+					getMonitor().trace("Unable to persist feature {}", accessor.getShortName());
 				}
 
 			}
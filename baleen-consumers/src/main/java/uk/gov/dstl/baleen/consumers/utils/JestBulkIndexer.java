@@ -0,0 +1,332 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.consumers.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.BulkResult.BulkResultItem;
+import io.searchbox.core.Index;
+
+/**
+ * Sends Index actions to Elasticsearch using Jest Bulk requests, in the same manner as the transport client's
+ * BulkProcessor.
+ * <p>
+ * Actions are buffered until the configured number of actions or bytes is reached, or the flush interval passes,
+ * at which point they are sent as a single Bulk request. Up to the configured number of requests can be in progress
+ * at once; beyond that, adding an action blocks until a request completes. Documents which are rejected because
+ * Elasticsearch is busy (status 429), or which couldn't be sent at all, are retried with an exponential backoff.
+ */
+public class JestBulkIndexer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(JestBulkIndexer.class);
+	private static final int STATUS_TOO_MANY_REQUESTS = 429;
+	private static final int STATUS_SERVICE_UNAVAILABLE = 503;
+
+	private final JestClient client;
+	private final ElasticsearchBulkOptions options;
+
+	private final Semaphore inFlight;
+	private final ExecutorService senders;
+	private final ScheduledExecutorService flusher;
+
+	private List<Index> pending = new ArrayList<>();
+	private long pendingBytes = 0;
+	private long failed = 0;
+	private boolean closed = false;
+
+	/**
+	 * Constructor
+	 *
+	 * @param client
+	 *            The client to send requests with
+	 * @param options
+	 *            The bulk options
+	 */
+	public JestBulkIndexer(JestClient client, ElasticsearchBulkOptions options) {
+		this.client = client;
+		this.options = options;
+
+		int concurrent = options.getConcurrentRequests();
+		this.inFlight = new Semaphore(Math.max(1, concurrent));
+		this.senders = concurrent > 0
+				? Executors.newFixedThreadPool(concurrent, new ThreadFactoryBuilder().setNameFormat("jest-bulk-%d").setDaemon(true).build())
+				: null;
+
+		if(options.getFlushInterval() > 0) {
+			this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("jest-bulk-flush-%d").setDaemon(true).build());
+			this.flusher.scheduleWithFixedDelay(this::scheduledFlush, options.getFlushInterval(), options.getFlushInterval(), TimeUnit.MILLISECONDS);
+		} else {
+			this.flusher = null;
+		}
+	}
+
+	/**
+	 * Add an action, sending the current batch if it is now full
+	 *
+	 * @param action
+	 *            The action to add
+	 * @param size
+	 *            The approximate size of the action in bytes (see {@link #estimateSize(Object)})
+	 */
+	public void add(Index action, long size) {
+		List<Index> batch = null;
+		synchronized (this) {
+			if(closed) {
+				throw new IllegalStateException("Bulk indexer has been closed");
+			}
+
+			pending.add(action);
+			pendingBytes += size;
+
+			if((options.getActions() > 0 && pending.size() >= options.getActions())
+					|| (options.getBytes() > 0 && pendingBytes >= options.getBytes())) {
+				batch = takePending();
+			}
+		}
+
+		if(batch != null) {
+			send(batch);
+		}
+	}
+
+	/**
+	 * Send any buffered actions
+	 */
+	public void flush() {
+		List<Index> batch;
+		synchronized (this) {
+			batch = takePending();
+		}
+
+		if(!batch.isEmpty()) {
+			send(batch);
+		}
+	}
+
+	/**
+	 * Send any buffered actions and wait for all requests to complete. No more actions can be added once closed.
+	 *
+	 * @param timeout
+	 *            The maximum time to wait for outstanding requests
+	 * @param unit
+	 *            The unit of timeout
+	 * @return true if all requests completed
+	 * @throws InterruptedException
+	 *             If interrupted whilst waiting
+	 */
+	public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+		synchronized (this) {
+			if(closed) {
+				return true;
+			}
+			closed = true;
+		}
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		//Let any scheduled flush finish handing over its batch before the senders are shut down
+		boolean flushed = true;
+		if(flusher != null) {
+			flusher.shutdown();
+			flushed = flusher.awaitTermination(timeout, unit);
+		}
+
+		flush();
+
+		if(senders == null) {
+			return flushed;
+		}
+
+		senders.shutdown();
+		return senders.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) && flushed;
+	}
+
+	/**
+	 * The number of actions that could not be indexed
+	 */
+	public synchronized long getFailedCount() {
+		return failed;
+	}
+
+	private void scheduledFlush() {
+		try {
+			flush();
+		} catch (RuntimeException re) {
+			LOGGER.error("Unexpected error whilst sending documents to Elasticsearch", re);
+		}
+	}
+
+	private List<Index> takePending() {
+		List<Index> batch = pending;
+		pending = new ArrayList<>();
+		pendingBytes = 0;
+		return batch;
+	}
+
+	private void send(List<Index> batch) {
+		if(senders == null) {
+			sendWithRetry(batch);
+			return;
+		}
+
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException ie) {
+			LOGGER.warn("Interrupted whilst waiting to send documents to Elasticsearch - sending on the current thread", ie);
+			Thread.currentThread().interrupt();
+			sendWithRetry(batch);
+			return;
+		}
+
+		try {
+			senders.execute(() -> {
+				try {
+					sendWithRetry(batch);
+				} finally {
+					inFlight.release();
+				}
+			});
+		} catch (RejectedExecutionException ree) {
+			inFlight.release();
+			LOGGER.error("Unable to send {} documents to Elasticsearch, as the bulk indexer has been closed", batch.size(), ree);
+			incrementFailed(batch.size());
+		} catch (RuntimeException re) {
+			inFlight.release();
+			throw re;
+		}
+	}
+
+	/**
+	 * Send the batch, retrying any actions that are rejected up to the maximum number of retries
+	 */
+	void sendWithRetry(List<Index> batch) {
+		List<Index> toSend = batch;
+		int attempt = 0;
+
+		while(!toSend.isEmpty()) {
+			List<Index> retry = sendOnce(toSend);
+			if(retry.isEmpty()) {
+				return;
+			}
+
+			if(attempt >= options.getMaxRetries()) {
+				LOGGER.error("Unable to index {} documents in Elasticsearch after {} retries", retry.size(), attempt);
+				incrementFailed(retry.size());
+				return;
+			}
+
+			long delay = options.getRetryDelay(attempt);
+			LOGGER.warn("Unable to index {} documents in Elasticsearch, retrying in {}ms", retry.size(), delay);
+			attempt++;
+
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException ie) {
+				LOGGER.error("Interrupted whilst waiting to retry - {} documents will not be indexed", retry.size(), ie);
+				Thread.currentThread().interrupt();
+				incrementFailed(retry.size());
+				return;
+			}
+
+			toSend = retry;
+		}
+	}
+
+	/**
+	 * Send a single bulk request
+	 *
+	 * @return the actions that should be retried
+	 */
+	private List<Index> sendOnce(List<Index> batch) {
+		BulkResult result;
+		try {
+			result = client.execute(new Bulk.Builder().addAction(batch).build());
+		} catch (IOException ioe) {
+			LOGGER.warn("Unable to send bulk request to Elasticsearch", ioe);
+			return batch;
+		}
+
+		List<BulkResultItem> items = result.getItems();
+		if(items == null || items.size() != batch.size()) {
+			if(result.isSucceeded()) {
+				return new ArrayList<>();
+			}
+
+			if(isRetryable(result.getResponseCode())) {
+				return batch;
+			}
+
+			LOGGER.error("Bulk request to Elasticsearch failed: {}", result.getErrorMessage());
+			incrementFailed(batch.size());
+			return new ArrayList<>();
+		}
+
+		List<Index> retry = new ArrayList<>();
+		int errors = 0;
+		for(int i = 0; i < items.size(); i++) {
+			BulkResultItem item = items.get(i);
+			if(isRetryable(item.status)) {
+				retry.add(batch.get(i));
+			} else if(item.error != null) {
+				LOGGER.error("Couldn't persist document {} to Elasticsearch: {}", item.id, item.error);
+				errors++;
+			}
+		}
+
+		incrementFailed(errors);
+		return retry;
+	}
+
+	private synchronized void incrementFailed(int count) {
+		failed += count;
+	}
+
+	private static boolean isRetryable(int status) {
+		return status == STATUS_TOO_MANY_REQUESTS || status == STATUS_SERVICE_UNAVAILABLE;
+	}
+
+	/**
+	 * Estimate the size in bytes of an object once serialised to JSON, without actually serialising it
+	 *
+	 * @param o
+	 *            A value from a JSON map (a Map, Collection, String, number or boolean)
+	 * @return the approximate size of the JSON
+	 */
+	public static long estimateSize(Object o) {
+		if(o == null) {
+			return 4;
+		} else if(o instanceof CharSequence) {
+			return ((CharSequence) o).length() + 2L;
+		} else if(o instanceof Map) {
+			long size = 2;
+			for(Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()) {
+				size += estimateSize(String.valueOf(e.getKey())) + estimateSize(e.getValue()) + 2;
+			}
+			return size;
+		} else if(o instanceof Collection) {
+			long size = 2;
+			for(Object v : (Collection<?>) o) {
+				size += estimateSize(v) + 1;
+			}
+			return size;
+		} else {
+			return String.valueOf(o).length();
+		}
+	}
+}
@@ -0,0 +1,302 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.consumers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ExternalResourceDescription;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.ResourceSpecifier;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.resources.SharedPostgresResource;
+import uk.gov.dstl.baleen.types.semantic.Location;
+import uk.gov.dstl.baleen.uima.testing.JCasSingleton;
+import uk.gov.dstl.baleen.uima.utils.TypeSystemSingleton;
+
+/**
+ * Tests the batch mode of the Postgres consumer against a fake connection, which keeps the inserted rows
+ * in memory and rejects any geometry of type Unknown when it is sent, as PostGIS would.
+ */
+public class PostgresBatchTest {
+	private static FakeDatabase database;
+
+	private static final String DOCS = "docs";
+	private static final String ENTITIES = "entities";
+	private static final String ENTITY_GEOS = "entity_geos";
+
+	private static final String GOOD_GEOJSON = "{\"type\":\"Point\",\"coordinates\":[-0.1275,51.5072]}";
+	private static final String BAD_GEOJSON = "{\"type\":\"Unknown\",\"coordinates\":[-0.1275,51.5072]}";
+
+	@Before
+	public void setUp() {
+		database = new FakeDatabase();
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		AnalysisEngine ae = createEngine(3);
+
+		process(ae, GOOD_GEOJSON, GOOD_GEOJSON);
+		assertEquals(0, database.count(DOCS));
+
+		process(ae, GOOD_GEOJSON);
+		assertEquals(3, database.count(DOCS));
+		assertEquals(3, database.count(ENTITIES));
+		assertEquals(3, database.count(ENTITY_GEOS));
+		assertEquals(1, database.commits);
+
+		ae.destroy();
+		assertEquals(1, database.commits);
+	}
+
+	@Test
+	public void testBadDocumentInBatch() throws Exception {
+		AnalysisEngine ae = createEngine(3);
+
+		process(ae, GOOD_GEOJSON, BAD_GEOJSON, GOOD_GEOJSON);
+
+		// The documents either side of the bad document are still committed
+		assertEquals(2, database.count(DOCS));
+		assertEquals(2, database.count(ENTITIES));
+		assertEquals(2, database.count(ENTITY_GEOS));
+		assertEquals(0, database.pending.size());
+
+		// Later batches are unaffected
+		process(ae, GOOD_GEOJSON, GOOD_GEOJSON, GOOD_GEOJSON);
+		assertEquals(5, database.count(DOCS));
+
+		ae.destroy();
+	}
+
+	@Test
+	public void testBadDocumentOnDestroy() throws Exception {
+		AnalysisEngine ae = createEngine(10);
+
+		process(ae, BAD_GEOJSON, GOOD_GEOJSON);
+		assertEquals(0, database.count(DOCS));
+
+		ae.destroy();
+		assertEquals(1, database.count(DOCS));
+		assertEquals(1, database.count(ENTITY_GEOS));
+	}
+
+	@Test
+	public void testCommitInterval() throws Exception {
+		AnalysisEngine ae = createEngine(10, 50);
+
+		process(ae, GOOD_GEOJSON, GOOD_GEOJSON);
+
+		// No more documents are processed, but the batch is still committed once the interval has passed
+		long end = System.currentTimeMillis() + 5000;
+		while (database.count(DOCS) == 0 && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, database.count(DOCS));
+		assertEquals(2, database.count(ENTITY_GEOS));
+
+		ae.destroy();
+		assertEquals(2, database.count(DOCS));
+	}
+
+	private static AnalysisEngine createEngine(int commitDocuments) throws ResourceInitializationException {
+		return createEngine(commitDocuments, 600000);
+	}
+
+	private static AnalysisEngine createEngine(int commitDocuments, int commitInterval) throws ResourceInitializationException {
+		ExternalResourceDescription erd = ExternalResourceFactory.createExternalResourceDescription(Postgres.KEY_POSTGRES,
+				FakePostgresResource.class);
+		return AnalysisEngineFactory.createEngine(Postgres.class, TypeSystemSingleton.getTypeSystemDescriptionInstance(),
+				Postgres.KEY_POSTGRES, erd, Postgres.PARAM_PREFIX, "", Postgres.PARAM_BATCH, true,
+				Postgres.PARAM_COMMIT_DOCUMENTS, commitDocuments, Postgres.PARAM_COMMIT_INTERVAL, commitInterval);
+	}
+
+	private static void process(AnalysisEngine ae, String... geoJsons) throws Exception {
+		JCas jCas = JCasSingleton.getJCasInstance();
+		for (String geoJson : geoJsons) {
+			jCas.reset();
+			jCas.setDocumentText("Document mentions London");
+
+			Location l = new Location(jCas, 18, jCas.getDocumentText().length());
+			l.setValue("London");
+			l.setGeoJson(geoJson);
+			l.addToIndexes();
+
+			ae.process(jCas);
+		}
+	}
+
+	/**
+	 * A Postgres resource that uses the fake database rather than connecting to a server
+	 */
+	public static class FakePostgresResource extends SharedPostgresResource {
+		@Override
+		protected boolean doInitialize(ResourceSpecifier aSpecifier, Map<String, Object> aAdditionalParams) {
+			return true;
+		}
+
+		@Override
+		protected void doDestroy() {
+			// Do nothing
+		}
+
+		@Override
+		public Connection getConnection() {
+			return database.connection;
+		}
+	}
+
+	/**
+	 * Records the table of each row inserted, within a single transaction
+	 */
+	private static class FakeDatabase {
+		private final List<String> committed = new ArrayList<>();
+		private final List<String> pending = new ArrayList<>();
+		private final Map<Savepoint, Integer> savepoints = new HashMap<>();
+		private final Connection connection = proxy(Connection.class, this::connection);
+		private int nextKey = 1;
+		private int commits = 0;
+
+		synchronized int count(String table) {
+			return (int) committed.stream().filter(table::equals).count();
+		}
+
+		private synchronized Object connection(String method, Object[] args) throws SQLException {
+			switch (method) {
+			case "createStatement":
+				return proxy(Statement.class, (m, a) -> "executeQuery".equals(m) ? version() : null);
+			case "prepareStatement":
+				return new FakeStatement((String) args[0]).statement;
+			case "createArrayOf":
+				return proxy(Array.class, (m, a) -> null);
+			case "setSavepoint":
+				Savepoint savepoint = proxy(Savepoint.class, (m, a) -> null);
+				savepoints.put(savepoint, pending.size());
+				return savepoint;
+			case "rollback":
+				int size = args == null ? 0 : savepoints.get(args[0]);
+				pending.subList(size, pending.size()).clear();
+				return null;
+			case "commit":
+				committed.addAll(pending);
+				pending.clear();
+				commits++;
+				return null;
+			default:
+				return null;
+			}
+		}
+
+		private ResultSet version() {
+			boolean[] read = new boolean[1];
+			return proxy(ResultSet.class, (m, a) -> {
+				if ("next".equals(m)) {
+					read[0] = !read[0];
+					return read[0];
+				}
+				return "getString".equals(m) ? "2.3.0" : null;
+			});
+		}
+
+		private class FakeStatement {
+			private final String table;
+			private final Map<Integer, Object> parameters = new HashMap<>();
+			private final List<Map<Integer, Object>> batch = new ArrayList<>();
+			private final PreparedStatement statement = proxy(PreparedStatement.class, this::invoke);
+			private int reserve;
+
+			FakeStatement(String sql) {
+				String[] words = sql.split(" ");
+				table = sql.startsWith("INSERT INTO ") ? words[2] : null;
+			}
+
+			private Object invoke(String method, Object[] args) throws SQLException {
+				if (method.startsWith("set")) {
+					parameters.put((Integer) args[0], args[1]);
+					if ("setInt".equals(method) && table == null) {
+						reserve = (Integer) args[1];
+					}
+					return null;
+				}
+
+				switch (method) {
+				case "clearParameters":
+					parameters.clear();
+					return null;
+				case "addBatch":
+					batch.add(new HashMap<>(parameters));
+					return null;
+				case "clearBatch":
+					batch.clear();
+					return null;
+				case "executeBatch":
+					for (Map<Integer, Object> row : batch) {
+						if (row.values().stream().anyMatch(v -> v instanceof String && ((String) v).contains("Unknown"))) {
+							throw new SQLException("Unknown GeoJSON type");
+						}
+						pending.add(table);
+					}
+					return new int[batch.size()];
+				case "executeQuery":
+					return keys(reserve);
+				default:
+					return null;
+				}
+			}
+		}
+
+		private ResultSet keys(int size) {
+			int[] remaining = new int[] { size };
+			return proxy(ResultSet.class, (m, a) -> {
+				if ("next".equals(m)) {
+					return remaining[0]-- > 0;
+				}
+				return "getInt".equals(m) ? nextKey++ : null;
+			});
+		}
+	}
+
+	private interface Handler {
+		Object invoke(String method, Object[] args) throws SQLException;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> clazz, Handler handler) {
+		return (T) Proxy.newProxyInstance(PostgresBatchTest.class.getClassLoader(), new Class<?>[] { clazz },
+				(p, method, args) -> {
+					switch (method.getName()) {
+					case "hashCode":
+						return System.identityHashCode(p);
+					case "equals":
+						return p == args[0];
+					case "toString":
+						return clazz.getSimpleName();
+					default:
+						break;
+					}
+
+					Object ret = handler.invoke(method.getName(), args);
+					if (ret == null && method.getReturnType() == boolean.class) {
+						return false;
+					}
+					return ret;
+				});
+	}
+}
@@ -4,13 +4,37 @@ package uk.gov.dstl.baleen.consumers;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ExternalResourceDescription;
+import org.junit.Assume;
 import org.junit.Test;
 
 import uk.gov.dstl.baleen.exceptions.BaleenException;
+import uk.gov.dstl.baleen.resources.SharedPostgresResource;
 import uk.gov.dstl.baleen.types.geo.Coordinate;
 import uk.gov.dstl.baleen.types.semantic.Location;
+import uk.gov.dstl.baleen.uima.testing.JCasSingleton;
+import uk.gov.dstl.baleen.uima.utils.TypeSystemSingleton;
 
+/**
+ * Tests for the Postgres consumer.
+ * 
+ * Tests that require a database are only run if the system property baleen.test.postgres.host is set,
+ * in which case baleen.test.postgres.db (default baleen), baleen.test.postgres.user and baleen.test.postgres.pass
+ * are also used. The database must have PostGIS installed.
+ */
 public class PostgresTest {
+	private static final String PROPERTY_PREFIX = "baleen.test.postgres.";
+	
 	@Test
 	public void testAddCRS() throws Exception{
 		String orig = "{\"type\":\"Polygon\",\"coordinates\":[[[1.0, 1.0],[2.0, 2.0],[3.0, 1.0],[1.0, 1.0]]]}";
@@ -50,4 +74,65 @@ public class PostgresTest {
 		assertEquals(Location.class, Postgres.getSuperclass(null, Location.class));
 		assertEquals(null, Postgres.getSuperclass(null, null));
 	}
+	
+	@Test
+	public void testBatch() throws Exception{
+		String host = System.getProperty(PROPERTY_PREFIX + "host");
+		Assume.assumeNotNull(host);
+		
+		String db = System.getProperty(PROPERTY_PREFIX + "db", "baleen");
+		String user = System.getProperty(PROPERTY_PREFIX + "user", "");
+		String pass = System.getProperty(PROPERTY_PREFIX + "pass", "");
+		String prefix = "baleen_test_" + System.currentTimeMillis() + "_";
+		
+		ExternalResourceDescription erd = ExternalResourceFactory.createExternalResourceDescription(Postgres.KEY_POSTGRES, SharedPostgresResource.class,
+				SharedPostgresResource.PARAM_HOST, host, SharedPostgresResource.PARAM_DB, db,
+				SharedPostgresResource.PARAM_USER, user, SharedPostgresResource.PARAM_PASS, pass);
+		AnalysisEngine ae = AnalysisEngineFactory.createEngine(Postgres.class, TypeSystemSingleton.getTypeSystemDescriptionInstance(),
+				Postgres.KEY_POSTGRES, erd, Postgres.PARAM_PREFIX, prefix, Postgres.PARAM_BATCH, true,
+				Postgres.PARAM_COMMIT_DOCUMENTS, 2, Postgres.PARAM_COMMIT_INTERVAL, 600000);
+		
+		try(Connection conn = user.isEmpty() ? DriverManager.getConnection("jdbc:postgresql://" + host + "/" + db)
+				: DriverManager.getConnection("jdbc:postgresql://" + host + "/" + db, user, pass)){
+			try{
+				JCas jCas = JCasSingleton.getJCasInstance();
+				for(int i = 0; i < 3; i++){
+					jCas.reset();
+					jCas.setDocumentText("Document " + i + " mentions London");
+					
+					Location l = new Location(jCas, 19, jCas.getDocumentText().length());
+					l.setValue("London");
+					l.setGeoJson("{\"type\":\"Point\",\"coordinates\":[-0.1275,51.5072]}");
+					l.addToIndexes();
+					
+					ae.process(jCas);
+				}
+				
+				//Only the first two documents have been committed
+				assertEquals(2, count(conn, prefix + "docs"));
+				assertEquals(2, count(conn, prefix + "entities"));
+				assertEquals(2, count(conn, prefix + "entity_geos"));
+				
+				ae.destroy();
+				
+				assertEquals(3, count(conn, prefix + "docs"));
+				assertEquals(3, count(conn, prefix + "entities"));
+				assertEquals(3, count(conn, prefix + "entity_geos"));
+			}finally{
+				try(Statement s = conn.createStatement()){
+					s.execute("DROP TABLE IF EXISTS " + prefix + "entity_geos, " + prefix + "entities, " + prefix + "doc_metadata, " + prefix + "docs");
+				}
+			}
+		}
+	}
+	
+	private static int count(Connection conn, String table) throws SQLException{
+		try(
+			Statement s = conn.createStatement();
+			ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM " + table)
+		){
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
 }
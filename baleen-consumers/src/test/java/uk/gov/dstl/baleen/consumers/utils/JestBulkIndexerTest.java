@@ -0,0 +1,245 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.consumers.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import io.searchbox.action.Action;
+import io.searchbox.client.JestClient;
+import io.searchbox.client.JestResult;
+import io.searchbox.client.JestResultHandler;
+import io.searchbox.core.Bulk;
+import io.searchbox.core.BulkResult;
+import io.searchbox.core.Index;
+
+public class JestBulkIndexerTest {
+
+	@Test
+	public void testBatchByActions() throws Exception {
+		FakeJestClient client = new FakeJestClient();
+		JestBulkIndexer indexer = new JestBulkIndexer(client, new ElasticsearchBulkOptions(2, -1, -1, 0, 0, 0));
+
+		indexer.add(index("1"), 10);
+		assertEquals(0, client.batches.size());
+		indexer.add(index("2"), 10);
+		assertEquals(1, client.batches.size());
+		indexer.add(index("3"), 10);
+
+		assertTrue(indexer.close(1, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(2, 1), client.batches);
+		assertEquals(0, indexer.getFailedCount());
+	}
+
+	@Test
+	public void testBatchByBytes() throws Exception {
+		FakeJestClient client = new FakeJestClient();
+		JestBulkIndexer indexer = new JestBulkIndexer(client, new ElasticsearchBulkOptions(-1, 100, -1, 0, 0, 0));
+
+		indexer.add(index("1"), 60);
+		indexer.add(index("2"), 60);
+		indexer.add(index("3"), 60);
+
+		assertEquals(Collections.singletonList(2), client.batches);
+		assertTrue(indexer.close(1, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(2, 1), client.batches);
+	}
+
+	@Test
+	public void testFlushInterval() throws Exception {
+		FakeJestClient client = new FakeJestClient();
+		JestBulkIndexer indexer = new JestBulkIndexer(client, new ElasticsearchBulkOptions(100, -1, 10, 1, 0, 0));
+
+		indexer.add(index("1"), 10);
+
+		long end = System.currentTimeMillis() + 5000;
+		while(client.getBatchCount() == 0 && System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(1, client.getBatchCount());
+		assertTrue(indexer.close(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testCloseWaitsForScheduledFlush() throws Exception {
+		FakeJestClient client = new FakeJestClient();
+		client.release = new CountDownLatch(1);
+		JestBulkIndexer indexer = new JestBulkIndexer(client, new ElasticsearchBulkOptions(100, -1, 10, 1, 0, 0));
+
+		//The first flush holds the only request slot, so the next one waits for it whilst holding document 2
+		indexer.add(index("1"), 10);
+		Thread.sleep(100);
+		indexer.add(index("2"), 10);
+		Thread.sleep(100);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Boolean> closed = executor.submit(() -> indexer.close(5, TimeUnit.SECONDS));
+			Thread.sleep(100);
+			client.release.countDown();
+
+			assertTrue(closed.get());
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(Arrays.asList(1, 1), client.batches);
+		assertEquals(0, indexer.getFailedCount());
+	}
+
+	@Test
+	public void testRetryRejected() throws Exception {
+		FakeJestClient client = new FakeJestClient();
+		client.statuses.add(new int[]{201, 429, 400});
+		client.statuses.add(new int[]{429});
+
+		JestBulkIndexer indexer = new JestBulkIndexer(client, new ElasticsearchBulkOptions(3, -1, -1, 0, 3, 1));
+		indexer.add(index("1"), 10);
+		indexer.add(index("2"), 10);
+		indexer.add(index("3"), 10);
+
+		assertTrue(indexer.close(1, TimeUnit.SECONDS));
+
+		//Initial request, then document 2 twice more
+		assertEquals(Arrays.asList(3, 1, 1), client.batches);
+		assertEquals(1, indexer.getFailedCount());
+	}
+
+	@Test
+	public void testRetryLimit() throws Exception {
+		FakeJestClient client = new FakeJestClient();
+		client.failures = 10;
+
+		JestBulkIndexer indexer = new JestBulkIndexer(client, new ElasticsearchBulkOptions(2, -1, -1, 0, 2, 1));
+		indexer.add(index("1"), 10);
+		indexer.add(index("2"), 10);
+
+		assertTrue(indexer.close(1, TimeUnit.SECONDS));
+		assertEquals(3, client.attempts);
+		assertEquals(2, indexer.getFailedCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testClosed() throws Exception {
+		JestBulkIndexer indexer = new JestBulkIndexer(new FakeJestClient(), new ElasticsearchBulkOptions(2, -1, -1, 0, 0, 0));
+		indexer.close(1, TimeUnit.SECONDS);
+		indexer.add(index("1"), 10);
+	}
+
+	@Test
+	public void testEstimateSize() {
+		Map<String, Object> json = new HashMap<>();
+		json.put("a", "bc");
+		json.put("d", Arrays.asList(1, 23));
+
+		//{"a":"bc","d":[1,23]} is 21 characters
+		long size = JestBulkIndexer.estimateSize(json);
+		assertTrue(size >= 21 && size < 30);
+	}
+
+	private static Index index(String id) {
+		return new Index.Builder(Collections.singletonMap("id", id)).id(id).index("index").type("type").build();
+	}
+
+	private static class FakeJestClient implements JestClient {
+		private final List<Integer> batches = new ArrayList<>();
+		private final Queue<int[]> statuses = new LinkedList<>();
+		private int failures = 0;
+		private int attempts = 0;
+		private CountDownLatch release = null;
+
+		synchronized int getBatchCount() {
+			return batches.size();
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public synchronized <T extends JestResult> T execute(Action<T> action) throws IOException {
+			attempts++;
+			if(release != null) {
+				try {
+					release.await();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new IOException(ie);
+				}
+			}
+			if(failures > 0) {
+				failures--;
+				throw new IOException("Connection refused");
+			}
+
+			String[] lines = ((Bulk) action).getData(new Gson()).split("\n");
+			int count = lines.length / 2;
+			batches.add(count);
+
+			int[] status = statuses.poll();
+			JsonArray items = new JsonArray();
+			boolean errors = false;
+			for(int i = 0; i < count; i++) {
+				int s = status == null ? 201 : status[i];
+				JsonObject item = new JsonObject();
+				item.addProperty("_index", "index");
+				item.addProperty("_type", "type");
+				item.addProperty("_id", Integer.toString(i));
+				item.addProperty("status", s);
+				if(s >= 300) {
+					item.addProperty("error", "Error " + s);
+					errors = true;
+				}
+
+				JsonObject wrapper = new JsonObject();
+				wrapper.add("index", item);
+				items.add(wrapper);
+			}
+
+			JsonObject json = new JsonObject();
+			json.addProperty("errors", errors);
+			json.add("items", items);
+
+			BulkResult result = new BulkResult(new Gson());
+			result.setJsonObject(json);
+			result.setJsonString(json.toString());
+			result.setResponseCode(200);
+			result.setSucceeded(!errors);
+			return (T) result;
+		}
+
+		@Override
+		public <T extends JestResult> void executeAsync(Action<T> action, JestResultHandler<? super T> handler) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void shutdownClient() {
+			// Do nothing
+		}
+
+		@Override
+		public void setServers(Set<String> servers) {
+			// Do nothing
+		}
+	}
+}
@@ -22,7 +22,7 @@ public class BaleenJobManager extends BaleenPipelineManager{
 	
 	@Override
 	protected BaleenPipeline toPipeline(String name, String yaml) throws BaleenException {
-		JobBuilder jb = new JobBuilder(name, yaml);
+		JobBuilder jb = new JobBuilder(name, yaml, getResourceRegistry());
 		return jb.createNewPipeline();
 	}
 	
@@ -14,6 +14,8 @@ import org.yaml.snakeyaml.Yaml;
 
 import uk.gov.dstl.baleen.core.pipelines.BaleenPipeline;
 import uk.gov.dstl.baleen.core.pipelines.PipelineBuilder;
+import uk.gov.dstl.baleen.core.pipelines.PipelineOptions;
+import uk.gov.dstl.baleen.core.pipelines.SharedResourceRegistry;
 import uk.gov.dstl.baleen.core.pipelines.orderers.IPipelineOrderer;
 import uk.gov.dstl.baleen.core.pipelines.orderers.NoOpOrderer;
 import uk.gov.dstl.baleen.core.utils.BaleenDefaults;
@@ -57,6 +59,21 @@ public class JobBuilder extends PipelineBuilder{
 	public JobBuilder(String name, String yaml) {
 		super(name, yaml);
 	}
+	
+	/**
+	 * Construct a JobBuilder from the name and YAML, which will share resources
+	 * with other pipelines through the given registry
+	 * 
+	 * @param name
+	 * 		Pipeline name
+	 * @param yaml
+	 * 		Pipeline YAML
+	 * @param resourceRegistry
+	 * 		Registry of resources shared between pipelines, or null if resources shouldn't be shared
+	 */
+	public JobBuilder(String name, String yaml, SharedResourceRegistry resourceRegistry) {
+		super(name, yaml, resourceRegistry);
+	}
 
 	@SuppressWarnings("unchecked")
 	@Override
@@ -89,8 +106,14 @@ public class JobBuilder extends PipelineBuilder{
 	}
 	
 	@Override
-	protected BaleenPipeline toPipeline(String name, String yaml, IPipelineOrderer orderer, CollectionReader collectionReader, List<AnalysisEngine> annotators, List<AnalysisEngine> consumers) {
-		return new BaleenJob(name, yaml, collectionReader, annotators);
+	protected PipelineOptions createPipelineOptions() {
+		//Jobs are always run on a single thread
+		return new PipelineOptions();
+	}
+	
+	@Override
+	protected BaleenPipeline toPipeline(String name, String yaml, IPipelineOrderer orderer, CollectionReader collectionReader, List<List<AnalysisEngine>> annotatorChains, List<AnalysisEngine> consumers, PipelineOptions options) {
+		return new BaleenJob(name, yaml, collectionReader, annotatorChains.get(0));
 	}
 	
 	@Override
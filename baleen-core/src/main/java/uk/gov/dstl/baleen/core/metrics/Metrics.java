@@ -2,6 +2,7 @@
 package uk.gov.dstl.baleen.core.metrics;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
@@ -80,6 +81,17 @@ public class Metrics {
 		return factory.getMeter(base, name);
 	}
 
+	/**
+	 * Register a gauge, replacing any existing gauge with the same name.
+	 *
+	 * @param name
+	 * @param gauge
+	 * @return
+	 */
+	public <T> Gauge<T> registerGauge(String name, Gauge<T> gauge) {
+		return factory.registerGauge(base, name, gauge);
+	}
+
 	/**
 	 * Get the base name use for metrics created.
 	 *
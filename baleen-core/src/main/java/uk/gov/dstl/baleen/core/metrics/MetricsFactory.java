@@ -1,16 +1,20 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.core.metrics;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Metric;
@@ -91,6 +95,7 @@ public class MetricsFactory implements BaleenComponent {
 	private List<ConfiguredReporter> reporters = new LinkedList<ConfiguredReporter>();
 
 	private Map<String, PipelineMetrics> pipelineMetrics = new HashMap<>();
+	private Map<String, ProcessingMetrics> processingMetrics = new ConcurrentHashMap<>();
 
 	/**
 	 * A reporter that knows how to start and stop itself with a pre-configured
@@ -212,6 +217,33 @@ public class MetricsFactory implements BaleenComponent {
 		return pipelineMetrics.get(pipelineName);
 	}
 
+	/**
+	 * Get the (shared) ProcessingMetrics for a component within a pipeline,
+	 * creating it if necessary.
+	 *
+	 * @param pipelineName
+	 *            the name of the pipeline
+	 * @param clazz
+	 *            the class of the component
+	 * @return the processing metrics
+	 */
+	public ProcessingMetrics getProcessingMetrics(String pipelineName, Class<?> clazz) {
+		return processingMetrics.computeIfAbsent(makeName(pipelineName, clazz.getCanonicalName()),
+				k -> new ProcessingMetrics(pipelineName, clazz.getCanonicalName()));
+	}
+
+	/**
+	 * Get the ProcessingMetrics of every component, ordered by name.
+	 *
+	 * @return the processing metrics
+	 */
+	public Collection<ProcessingMetrics> getAllProcessingMetrics() {
+		List<ProcessingMetrics> all = new ArrayList<>(processingMetrics.values());
+		all.sort((a, b) -> makeName(a.getPipelineName(), a.getComponentName())
+				.compareTo(makeName(b.getPipelineName(), b.getComponentName())));
+		return all;
+	}
+
 	/**
 	 * Configure the instance.
 	 *
@@ -363,6 +395,21 @@ public class MetricsFactory implements BaleenComponent {
 		return metricRegistry.timer(makeName(base, name));
 	}
 
+	/**
+	 * Register a metric gauge, with default naming. Any existing metric with the
+	 * same name is replaced.
+	 *
+	 * @param base
+	 * @param name
+	 * @param gauge
+	 * @return
+	 */
+	public <T> Gauge<T> registerGauge(String base, String name, Gauge<T> gauge) {
+		String fullName = makeName(base, name);
+		metricRegistry.remove(fullName);
+		return metricRegistry.register(fullName, gauge);
+	}
+
 	/**
 	 * Create a name using the default scheme.
 	 *
@@ -405,9 +452,10 @@ public class MetricsFactory implements BaleenComponent {
 	}
 
 	/**
-	 * Remove all metrics from the registry
+	 * Remove all metrics from the registry, and all processing metrics
 	 */
 	public void removeAll() {
+		processingMetrics.clear();
 		getRegistry().removeMatching(new MetricFilter() {
 			@Override
 			public boolean matches(String arg0, Metric arg1) {
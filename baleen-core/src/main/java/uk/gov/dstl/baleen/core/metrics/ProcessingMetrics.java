@@ -0,0 +1,193 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Records how a single component (such as an annotator) performs when processing documents: how long
+ * each document took, how long it took relative to the length of the document, how many bytes were
+ * allocated by the processing thread, and how much the CAS heap grew.
+ * <p>
+ * Values are recorded in HdrHistograms, rather than the decaying reservoirs used by Codahale timers, so that
+ * the extreme percentiles (p99.9 and above) are retained. Recording is thread safe, so a single instance can
+ * be shared by every copy of a component within a pipeline.
+ */
+public class ProcessingMetrics {
+	/** The precision of the histograms, as a number of significant decimal digits */
+	private static final int SIGNIFICANT_DIGITS = 2;
+
+	/** Document lengths are normalised to this many characters */
+	public static final int NORMALISED_LENGTH = 1000;
+
+	private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+	private final String pipelineName;
+	private final String componentName;
+
+	private final Measure latency = new Measure();
+	private final Measure normalisedLatency = new Measure();
+	private final Measure allocatedBytes = new Measure();
+	private final Measure casHeapGrowth = new Measure();
+	private final LongAdder characters = new LongAdder();
+
+	/**
+	 * Constructor
+	 *
+	 * @param pipelineName
+	 *            The name of the pipeline containing the component
+	 * @param componentName
+	 *            The name of the component, typically its class name
+	 */
+	public ProcessingMetrics(String pipelineName, String componentName) {
+		this.pipelineName = pipelineName;
+		this.componentName = componentName;
+	}
+
+	/**
+	 * The name of the pipeline containing the component
+	 */
+	public String getPipelineName() {
+		return pipelineName;
+	}
+
+	/**
+	 * The name of the component
+	 */
+	public String getComponentName() {
+		return componentName;
+	}
+
+	/**
+	 * Record the processing of a single document
+	 *
+	 * @param durationNanos
+	 *            How long the document took to process, in nanoseconds
+	 * @param documentLength
+	 *            The length of the document, in characters
+	 * @param allocated
+	 *            The number of bytes allocated whilst processing, or a negative number if unknown
+	 * @param heapGrowth
+	 *            The number of cells the CAS heap grew by whilst processing, or a negative number if unknown
+	 */
+	public void record(long durationNanos, int documentLength, long allocated, long heapGrowth) {
+		long duration = Math.max(0, durationNanos);
+		latency.record(duration);
+		normalisedLatency.record(duration * NORMALISED_LENGTH / Math.max(1, documentLength));
+		characters.add(Math.max(0, documentLength));
+
+		if (allocated >= 0) {
+			allocatedBytes.record(allocated);
+		}
+		if (heapGrowth >= 0) {
+			casHeapGrowth.record(heapGrowth);
+		}
+	}
+
+	/**
+	 * Time taken to process each document, in nanoseconds
+	 */
+	public Measure getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Time taken to process each document, in nanoseconds per {@link #NORMALISED_LENGTH} characters
+	 */
+	public Measure getNormalisedLatency() {
+		return normalisedLatency;
+	}
+
+	/**
+	 * Bytes allocated by the processing thread for each document
+	 */
+	public Measure getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Growth of the CAS heap for each document, in heap cells
+	 */
+	public Measure getCasHeapGrowth() {
+		return casHeapGrowth;
+	}
+
+	/**
+	 * The total number of characters processed
+	 */
+	public long getCharacters() {
+		return characters.sum();
+	}
+
+	/**
+	 * Get the number of bytes that have been allocated by the current thread, if the JVM supports measuring it
+	 *
+	 * @return the number of bytes, or -1 if unsupported
+	 */
+	public static long currentThreadAllocatedBytes() {
+		if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+			if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+				return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * A histogram of recorded values, along with their exact count and sum
+	 */
+	public static class Measure {
+		private final Histogram histogram = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+		private final LongAdder sum = new LongAdder();
+
+		private void record(long value) {
+			histogram.recordValue(value);
+			sum.add(value);
+		}
+
+		/**
+		 * The number of values recorded
+		 */
+		public long getCount() {
+			return histogram.getTotalCount();
+		}
+
+		/**
+		 * The sum of the values recorded
+		 */
+		public long getSum() {
+			return sum.sum();
+		}
+
+		/**
+		 * Get the value at a percentile
+		 *
+		 * @param percentile
+		 *            The percentile, between 0 and 100
+		 * @return the value, or 0 if nothing has been recorded
+		 */
+		public long getValueAtPercentile(double percentile) {
+			return histogram.getValueAtPercentile(percentile);
+		}
+
+		/**
+		 * The largest value recorded, or 0 if nothing has been recorded
+		 */
+		public long getMax() {
+			return histogram.getMaxValue();
+		}
+
+		/**
+		 * Get a copy of the underlying histogram
+		 */
+		public Histogram getHistogram() {
+			return histogram.copy();
+		}
+	}
+}
@@ -0,0 +1,200 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.pipelines;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.util.CasCopier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+
+import uk.gov.dstl.baleen.core.metrics.Metrics;
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
+import uk.gov.dstl.baleen.core.pipelines.PipelineOptions.ConsumerPolicy;
+import uk.gov.dstl.baleen.core.tracing.Tracer;
+
+/**
+ * Runs the consumers of a {@link BaleenPipeline} on their own thread, so that slow consumers (for instance,
+ * those writing to a remote database) don't hold up the annotators.
+ * <p>
+ * Each annotated document is copied into a JCas taken from a pool owned by the stage, and the copy is added
+ * to a bounded queue. The document the annotators were working on can then be reused straight away.
+ * When the queue is full, the {@link ConsumerPolicy} determines whether the annotators wait for space, or
+ * whether the oldest document in the queue is dropped.
+ * <p>
+ * The following metrics are registered against the pipeline name:
+ * <ul>
+ * <li><i>queueDepth</i> - the number of documents waiting for the consumers</li>
+ * <li><i>lag</i> - the time in milliseconds between a document being queued and the consumers starting on it</li>
+ * <li><i>dropped</i> - the number of documents dropped because the queue was full</li>
+ * </ul>
+ */
+class AsyncConsumerStage {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncConsumerStage.class);
+
+	private final String pipelineName;
+	private final ConsumerPolicy policy;
+	private final Consumer<JCas> consumers;
+	private final Tracer tracer;
+
+	private final BlockingQueue<JCas> free;
+	private final BlockingQueue<QueuedDocument> queue;
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	private final Histogram lag;
+	private final Counter dropped;
+
+	/**
+	 * Constructor, which also starts the consumer thread
+	 *
+	 * @param pipelineName
+	 * 		The name of the pipeline, used for logging, metrics and naming the thread
+	 * @param options
+	 * 		The pipeline options, providing the queue size and policy
+	 * @param consumers
+	 * 		Function that runs the consumers against a JCas
+	 * @throws UIMAException
+	 * 		If the JCas objects can not be created
+	 */
+	AsyncConsumerStage(String pipelineName, PipelineOptions options, Consumer<JCas> consumers) throws UIMAException{
+		this(pipelineName, options, Tracer.disabled(pipelineName), consumers);
+	}
+
+	/**
+	 * Constructor, which also starts the consumer thread
+	 *
+	 * @param pipelineName
+	 * 		The name of the pipeline, used for logging, metrics and naming the thread
+	 * @param options
+	 * 		The pipeline options, providing the queue size and policy
+	 * @param tracer
+	 * 		The tracer of the pipeline, whose traces are moved to the copy of each document
+	 * @param consumers
+	 * 		Function that runs the consumers against a JCas
+	 * @throws UIMAException
+	 * 		If the JCas objects can not be created
+	 */
+	AsyncConsumerStage(String pipelineName, PipelineOptions options, Tracer tracer, Consumer<JCas> consumers) throws UIMAException{
+		this.pipelineName = pipelineName;
+		this.policy = options.getConsumerPolicy();
+		this.consumers = consumers;
+		this.tracer = tracer;
+
+		int queueSize = options.getConsumerQueueSize();
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+
+		//One more JCas than the queue can hold, for the document currently being consumed
+		this.free = new ArrayBlockingQueue<>(queueSize + 1);
+		for(int i = 0; i <= queueSize; i++){
+			free.add(JCasFactory.createJCas());
+		}
+
+		Metrics metrics = MetricsFactory.getMetrics(pipelineName, AsyncConsumerStage.class);
+		metrics.registerGauge("queueDepth", queue::size);
+		lag = metrics.getHistogram("lag");
+		dropped = metrics.getCounter("dropped");
+
+		thread = new Thread(this::consume, pipelineName + "-consumer");
+		thread.start();
+	}
+
+	/**
+	 * Copy a JCas and queue the copy for the consumers. The JCas itself is not modified, and
+	 * can be reset as soon as this method returns.
+	 *
+	 * @throws InterruptedException
+	 * 		If interrupted whilst waiting for space in the queue
+	 */
+	void submit(JCas jCas) throws InterruptedException{
+		JCas copy = free.poll();
+		if(copy == null && policy == ConsumerPolicy.DROP_OLDEST){
+			QueuedDocument oldest = queue.poll();
+			if(oldest != null){
+				LOGGER.warn("Consumer queue on {} is full - oldest document will not be consumed", pipelineName);
+				dropped.inc();
+				copy = oldest.jCas;
+				tracer.discard(copy);
+				copy.reset();
+			}
+		}
+
+		if(copy == null){
+			copy = free.take();
+		}
+
+		try{
+			CasCopier.copyCas(jCas.getCas(), copy.getCas(), true);
+		}catch(RuntimeException re){
+			LOGGER.error("Unable to copy document on {} - it will not be consumed", pipelineName, re);
+			release(copy);
+			return;
+		}
+
+		tracer.transfer(jCas, copy);
+		queue.put(new QueuedDocument(copy));
+	}
+
+	/**
+	 * Wait for all queued documents to be consumed, and then stop the consumer thread
+	 */
+	void shutdown(){
+		running = false;
+		try{
+			thread.join();
+		}catch(InterruptedException ie){
+			LOGGER.warn("Interrupted whilst waiting for consumers on {} to finish", pipelineName, ie);
+			thread.interrupt();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void consume(){
+		while(running || !queue.isEmpty()){
+			QueuedDocument document;
+			try{
+				document = queue.poll(100, TimeUnit.MILLISECONDS);
+			}catch(InterruptedException ie){
+				LOGGER.warn("Consumer thread on {} interrupted - queued documents will not be consumed", pipelineName, ie);
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			if(document == null){
+				continue;
+			}
+
+			lag.update(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - document.queuedAt));
+			try{
+				consumers.accept(document.jCas);
+			}catch(RuntimeException re){
+				LOGGER.error("Unexpected error whilst consuming document on {}", pipelineName, re);
+			}finally{
+				release(document.jCas);
+			}
+		}
+	}
+
+	private void release(JCas jCas){
+		tracer.discard(jCas);
+		jCas.reset();
+		free.offer(jCas);
+	}
+
+	private static class QueuedDocument {
+		private final JCas jCas;
+		private final long queuedAt = System.nanoTime();
+
+		QueuedDocument(JCas jCas){
+			this.jCas = jCas;
+		}
+	}
+}
@@ -1,11 +1,14 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.core.pipelines;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Level;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.uima.UIMAException;
 import org.apache.uima.analysis_engine.AnalysisEngine;
@@ -22,6 +25,10 @@ import org.yaml.snakeyaml.Yaml;
 
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineActionStore;
 import uk.gov.dstl.baleen.core.pipelines.orderers.IPipelineOrderer;
+import uk.gov.dstl.baleen.core.tracing.DocumentTrace;
+import uk.gov.dstl.baleen.core.tracing.Span;
+import uk.gov.dstl.baleen.core.tracing.Tracer;
+import uk.gov.dstl.baleen.core.utils.ExponentialBackOff;
 import uk.gov.dstl.baleen.core.utils.YamlConfiguration;
 
 /**
@@ -29,21 +36,49 @@ import uk.gov.dstl.baleen.core.utils.YamlConfiguration;
  * and order using an {@link IPipelineOrderer} them before running the pipeline. The
  * annotators and consumers will be ordered separately to each other.
  * 
- * The pipeline is persistent, and will continuously look for new documents until the
- * pipeline is destroyed.
+ * By default, the pipeline runs until the collection reader has no more documents or the
+ * pipeline is destroyed. If configured to be persistent (see {@link PipelineOptions}), then
+ * the pipeline will instead continue to wait for new documents until it is destroyed. Whilst
+ * waiting, the pipeline blocks on the collection reader if it is an {@link IBlockingCollectionReader},
+ * or otherwise polls it with an exponential back-off.
  * 
  * The pipeline can be paused and unpaused. Whilst paused, the pipeline will not look for
- * new documents (but will finish processing the current document).
+ * new documents (but will finish processing the current document), and blocks until it is
+ * unpaused or destroyed.
+ * 
+ * If configured with more than one thread (see {@link PipelineOptions}), then the annotators
+ * are run by a pool of worker threads, each with its own copy of the annotators, on JCas objects
+ * taken from a bounded pool. The consumers are shared, and run on one document at a time.
+ * 
+ * If configured to run parallel layers, then the annotators are grouped into layers by the
+ * orderer and the annotators within each layer are run at the same time.
+ * 
+ * If configured with a consumer queue, then the consumers are run on their own thread against
+ * a copy of each annotated document, so that slow consumers don't hold up the annotators.
+ * 
+ * If configured to trace documents, then a span is recorded for the collection reader and for
+ * each annotator and consumer that processes a document, and the traces of sampled or slow
+ * documents are written to a file (see {@link Tracer}).
  */
 public class BaleenPipeline implements Runnable {
 	private static final Logger LOGGER = LoggerFactory.getLogger(BaleenPipeline.class);
+	private static final long IDLE_BACK_OFF_INITIAL = 10;
+	private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
 
 	private final CollectionReader collectionReader;
 	private final List<AnalysisEngine> annotators;
+	private final List<List<AnalysisEngine>> annotatorChains;
 	private final List<AnalysisEngine> consumers;
+	private final PipelineOptions options;
+	private final Map<List<AnalysisEngine>, List<List<AnalysisEngine>>> annotatorLayers = new IdentityHashMap<>();
+	private LayerProcessor layerProcessor;
+	private AsyncConsumerStage consumerStage;
+	private final Tracer tracer;
 		
+	private final Object pauseLock = new Object();
 	private volatile boolean paused = false;
 	private volatile boolean destroy = false;
+	private final ExponentialBackOff idleBackOff;
 	
 	private final String name;
 	private final String originalYaml;
@@ -65,12 +100,64 @@ public class BaleenPipeline implements Runnable {
 	 * 		The consumers to be ordered and used
 	 */
 	public BaleenPipeline(String name, String originalYaml, IPipelineOrderer orderer, CollectionReader collectionReader, List<AnalysisEngine> annotators, List<AnalysisEngine> consumers){
+		this(name, originalYaml, orderer, collectionReader, Collections.singletonList(annotators), consumers, new PipelineOptions());
+	}
+	
+	/**
+	 * Constructor for a pipeline that may run its annotators on multiple threads
+	 * 
+	 * @param name
+	 * 		Pipeline name
+	 * @param originalYaml
+	 * 		The original YAML string that was used to build the pipeline
+	 * @param orderer
+	 * 		The IPipelineOrderer to use to order the pipeline
+	 * @param collectionReader
+	 * 		The collection reader
+	 * @param annotatorChains
+	 * 		The annotators to be ordered and used, with one (identically configured) list of
+	 * 		annotators for each worker thread. The first list is treated as the primary copy.
+	 * @param consumers
+	 * 		The consumers to be ordered and used
+	 * @param options
+	 * 		The execution options for the pipeline
+	 */
+	public BaleenPipeline(String name, String originalYaml, IPipelineOrderer orderer, CollectionReader collectionReader, List<List<AnalysisEngine>> annotatorChains, List<AnalysisEngine> consumers, PipelineOptions options){
 		this.name = name;
 		this.originalYaml = originalYaml;
 		this.collectionReader = collectionReader;
-		this.annotators = orderer.orderPipeline(annotators);
+		this.options = options;
+		this.idleBackOff = new ExponentialBackOff(IDLE_BACK_OFF_INITIAL, options.getIdleTimeout(), 2.0);
+		this.tracer = createTracer(name, options);
+		
+		List<List<AnalysisEngine>> chains = new ArrayList<>(annotatorChains.size());
+		for(List<AnalysisEngine> chain : annotatorChains){
+			if(options.isParallelLayers()){
+				List<List<AnalysisEngine>> layers = orderer.orderPipelineLayers(chain);
+				
+				List<AnalysisEngine> ordered = new ArrayList<>(chain.size());
+				layers.forEach(ordered::addAll);
+				
+				chains.add(ordered);
+				annotatorLayers.put(ordered, layers);
+			}else{
+				chains.add(orderer.orderPipeline(chain));
+			}
+		}
+		this.annotatorChains = Collections.unmodifiableList(chains);
+		this.annotators = chains.get(0);
 		this.consumers = orderer.orderPipeline(consumers);
 	}
+	
+	private static Tracer createTracer(String name, PipelineOptions options){
+		if(!options.isTracing()){
+			return Tracer.disabled(name);
+		}
+		
+		File file = new File(options.getTraceFile() != null ? options.getTraceFile() : name.replaceAll("[^A-Za-z0-9_\\-]", "_") + ".trace.json");
+		return new Tracer(name, options.getTraceSampleRate(), options.getTraceThreshold(), options.isTraceTextBlocks(),
+				file, options.getTraceMaxFileSize() * BYTES_PER_MEGABYTE, options.getTraceMaxFiles());
+	}
 
 	/**
 	 * Get the name of the pipeline
@@ -140,70 +227,202 @@ public class BaleenPipeline implements Runnable {
 	
 	@Override
 	public void run() {
-            //Create a JCas object to be used (and reused)
-            JCas jCas = null;
-            try{
-                jCas = JCasFactory.createJCas();
-            }catch(UIMAException e){
-                LOGGER.error("Unable to create JCas object - {} will not run", getType(), e);
-                return;
-            }
-            //While we're not destroying the pipeline, run a continuous loop
-            LOGGER.info("Starting {} {}", getType(), name);
-            try
-            {
-                while(!destroy && collectionReader.hasNext()) {
-                    try{
-                        //If we're not paused and there are documents to process, then process them
-                        while(!paused && collectionReader.hasNext()){
-                            LOGGER.debug("Beginning processing of document on {} {}", getType(), name);
-                            
-                            //Get next document from Collection Reader
-                            collectionReader.getNext(jCas.getCas());
-                            
-                            //Process JCas with each annotator in turn
-                            for(AnalysisEngine ae : annotators){
-                                processAnalysisEngine(jCas, ae, "annotator");
-                            }
-                            
-                            //Process JCas with each consumer in turn
-                            for(AnalysisEngine ae : consumers){
-                                processAnalysisEngine(jCas, ae, "consumer");
-                            }
-                            
-                            //Prepare the JCas for the next document
-                            jCas.reset();
-                            
-                            //Check that we should continue
-                            if(destroy)
-                                break;
-                            //System.out.println("Runninnig test1");
-                        }
-                    }catch(CollectionException | IOException e){
-                        LOGGER.error("Error from collection reader", e);
-                    }
-                    //System.out.println("Runninnig test2");
-                }
-            } catch (IOException ex)
-            {
-                java.util.logging.Logger.getLogger(BaleenPipeline.class.getName()).log(Level.SEVERE, null, ex);
-            } catch (CollectionException ex)
-            {
-                java.util.logging.Logger.getLogger(BaleenPipeline.class.getName()).log(Level.SEVERE, null, ex);
-            }
-            LOGGER.debug("Finished processing loop for {} {}", getType(), name);
-            //Destroy collection reader and analysis engines
-            LOGGER.debug("Destroying {} {}", getType(), name);
-            collectionReader.destroy();
-            //destroy();
-            for(AnalysisEngine ae : annotators){
-                AnalysisEngineActionStore.getInstance().remove((String)ae.getConfigParameterValue(PipelineBuilder.ANNOTATOR_UUID));
-                ae.destroy();
-            }
-            for(AnalysisEngine ae : consumers){
-                AnalysisEngineActionStore.getInstance().remove((String)ae.getConfigParameterValue(PipelineBuilder.ANNOTATOR_UUID));
-                ae.destroy();
-            }
+		if(options.isParallelLayers()){
+			layerProcessor = new LayerProcessor(name, options.getLayerThreads());
+		}
+		
+		if(options.isAsyncConsumers()){
+			try{
+				consumerStage = new AsyncConsumerStage(name, options, tracer, this::processConsumers);
+			}catch(UIMAException e){
+				LOGGER.error("Unable to create consumer queue - consumers on {} {} will be run inline", getType(), name, e);
+			}
+		}
+		
+		//While we're not destroying the pipeline, run a continuous loop
+		boolean ran;
+		if(options.isMultiThreaded() && annotatorChains.size() > 1){
+			ran = runMultiThreaded();
+		}else{
+			ran = runSingleThreaded();
+		}
+		
+		if(layerProcessor != null){
+			layerProcessor.shutdown();
+		}
+		
+		//Wait for any documents still waiting for the consumers
+		if(consumerStage != null){
+			consumerStage.shutdown();
+		}
+		
+		tracer.close();
+		
+		if(!ran){
+			releaseSharedResources();
+			return;
+		}
+		
+		LOGGER.debug("Finished processing loop for {} {}", getType(), name);
+		
+		//Destroy collection reader and analysis engines
+		LOGGER.debug("Destroying {} {}", getType(), name);
+		collectionReader.destroy();
+		
+		for(List<AnalysisEngine> chain : annotatorChains){
+			destroyAnalysisEngines(chain);
+		}
+		destroyAnalysisEngines(consumers);
+		
+		releaseSharedResources();
+	}
+	
+	/**
+	 * Return any resources shared with other pipelines to the registry, so that they can be
+	 * destroyed once no pipeline is using them
+	 */
+	private void releaseSharedResources(){
+		if(collectionReader != null && collectionReader.getResourceManager() instanceof SharedResourceManager){
+			((SharedResourceManager) collectionReader.getResourceManager()).release();
+		}
+	}
+	
+	private boolean runSingleThreaded(){
+		//Create a JCas object to be used (and reused)
+		JCas jCas = null;
+		try{
+			jCas = JCasFactory.createJCas();
+		}catch(UIMAException e){
+			LOGGER.error("Unable to create JCas object - {} will not run", getType(), e);
+			return false;
+		}
+		
+		LOGGER.info("Starting {} {}", getType(), name);
+		try{
+			while(awaitDocument()){
+				try{
+					LOGGER.debug("Beginning processing of document on {} {}", getType(), name);
+					
+					//Get next document from Collection Reader
+					readNext(jCas);
+					
+					//Process JCas with each annotator, and then each consumer, in turn
+					processAnnotators(jCas, annotators);
+					consume(jCas);
+				}catch(CollectionException | IOException e){
+					LOGGER.error("Error from collection reader", e);
+				}finally{
+					//Prepare the JCas for the next document
+					tracer.discard(jCas);
+					jCas.reset();
+				}
+			}
+		}catch(CollectionException | IOException e){
+			LOGGER.error("Error from collection reader", e);
+		}catch(InterruptedException ie){
+			LOGGER.warn("Interrupted whilst waiting for documents on {} {}", getType(), name, ie);
+			Thread.currentThread().interrupt();
+		}
+		
+		return true;
+	}
+	
+	private boolean runMultiThreaded(){
+		//Create the pool of JCas objects, and the worker threads
+		CasPoolProcessor processor;
+		try{
+			processor = new CasPoolProcessor(this, annotatorChains, options);
+		}catch(UIMAException e){
+			LOGGER.error("Unable to create JCas objects - {} will not run", getType(), e);
+			return false;
+		}
+		
+		LOGGER.info("Starting {} {} with {} threads", getType(), name, annotatorChains.size());
+		try{
+			while(awaitDocument()){
+				JCas jCas = processor.acquire();
+				
+				try{
+					LOGGER.debug("Beginning processing of document on {} {}", getType(), name);
+					readNext(jCas);
+				}catch(CollectionException | IOException e){
+					LOGGER.error("Error from collection reader", e);
+					processor.release(jCas);
+					continue;
+				}
+				
+				processor.submit(jCas);
+			}
+		}catch(CollectionException | IOException e){
+			LOGGER.error("Error from collection reader", e);
+		}catch(InterruptedException ie){
+			LOGGER.warn("Interrupted whilst waiting for documents or a free JCas on {} {}", getType(), name, ie);
+			Thread.currentThread().interrupt();
+		}
+		
+		//Wait for any documents still being processed
+		processor.shutdown();
+		
+		return true;
+	}
+	
+	/**
+	 * Read the next document from the collection reader into the JCas, starting its trace
+	 */
+	private void readNext(JCas jCas) throws IOException, CollectionException{
+		DocumentTrace trace = tracer.begin(jCas);
+		Span span = startSpan(trace, jCas, collectionReader.getMetaData().getName(), "reader");
+		try{
+			collectionReader.getNext(jCas.getCas());
+		}finally{
+			endSpan(trace, span, jCas);
+		}
+		
+		if(trace != null){
+			trace.describe(jCas);
+		}
+	}
+	
+	/**
+	 * Wait until the pipeline isn't paused and the collection reader has a document.
+	 * 
+	 * If the pipeline is persistent, then whilst the reader has no documents this waits on the
+	 * reader (if it is an {@link IBlockingCollectionReader}) or polls it with an exponential back-off,
+	 * checking whether the pipeline has been destroyed at least every idle timeout.
+	 * 
+	 * @return true if there is a document to process, or false if the pipeline should stop
+	 */
+	private boolean awaitDocument() throws IOException, CollectionException, InterruptedException{
+		while(true){
+			awaitUnpaused();
+			if(destroy)
+				return false;
+			
+			if(collectionReader.hasNext()){
+				idleBackOff.reset();
+				return true;
+			}
+			
+			if(!options.isPersistent())
+				return false;
+			
+			if(collectionReader instanceof IBlockingCollectionReader){
+				((IBlockingCollectionReader) collectionReader).awaitNext(options.getIdleTimeout(), TimeUnit.MILLISECONDS);
+			}else{
+				idleBackOff.sleep(options.getIdleTimeout(), TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+	
+	/**
+	 * Block whilst the pipeline is paused (and not destroyed)
+	 */
+	private void awaitUnpaused() throws InterruptedException{
+		synchronized(pauseLock){
+			while(paused && !destroy){
+				pauseLock.wait();
+			}
+		}
 	}
 	
 	/**
@@ -211,7 +430,9 @@ public class BaleenPipeline implements Runnable {
 	 */
 	public void pause(){
 		LOGGER.info("Paused {} {}", getType(), name);
-		paused = true;
+		synchronized(pauseLock){
+			paused = true;
+		}
 	}
 	
 	/**
@@ -219,7 +440,10 @@ public class BaleenPipeline implements Runnable {
 	 */
 	public void unpause(){
 		LOGGER.info("Unpaused {} {}", getType(), name);
-		paused = false;
+		synchronized(pauseLock){
+			paused = false;
+			pauseLock.notifyAll();
+		}
 	}
 	
 	/**
@@ -235,7 +459,10 @@ public class BaleenPipeline implements Runnable {
 	public void destroy(){
 		LOGGER.info("Destroying {} {} after current document", getType(), name);
 
-		destroy = true;
+		synchronized(pauseLock){
+			destroy = true;
+			pauseLock.notifyAll();
+		}
 	}
 	
 	/**
@@ -259,6 +486,28 @@ public class BaleenPipeline implements Runnable {
 		return consumers;
 	}
 	
+	/**
+	 * Return every copy of the annotators used by this pipeline, one per worker thread.
+	 * The first copy is the same as that returned by {@link #annotators()}.
+	 */
+	public List<List<AnalysisEngine>> annotatorChains(){
+		return annotatorChains;
+	}
+	
+	/**
+	 * Return the execution options used by this pipeline
+	 */
+	public PipelineOptions options(){
+		return options;
+	}
+	
+	/**
+	 * Return the tracer used to record document traces for this pipeline
+	 */
+	public Tracer tracer(){
+		return tracer;
+	}
+	
 	/**
 	 * Provide the type of pipeline for use in logging
 	 */
@@ -266,11 +515,83 @@ public class BaleenPipeline implements Runnable {
 		return "pipeline";
 	}
 	
-	private void processAnalysisEngine(JCas jCas, AnalysisEngine ae, String type){
+	/**
+	 * Process a JCas with each of the given annotators in turn
+	 */
+	void processAnnotators(JCas jCas, List<AnalysisEngine> chain){
+		//Annotators in a layer may be run against a fork of the JCas, so look the trace up once
+		DocumentTrace trace = tracer.get(jCas);
+		
+		List<List<AnalysisEngine>> layers = annotatorLayers.get(chain);
+		if(layerProcessor != null && layers != null){
+			layerProcessor.process(jCas, layers, (j, ae) -> processAnalysisEngine(j, ae, "annotator", trace));
+			return;
+		}
+		
+		for(AnalysisEngine ae : chain){
+			processAnalysisEngine(jCas, ae, "annotator", trace);
+		}
+	}
+	
+	/**
+	 * Pass an annotated JCas to the consumers, either by running them directly or by
+	 * queuing a copy of the JCas for the consumer thread. Once this method returns, the
+	 * JCas may be reset.
+	 */
+	void consume(JCas jCas){
+		if(consumerStage == null){
+			processConsumers(jCas);
+			return;
+		}
+		
+		try{
+			consumerStage.submit(jCas);
+		}catch(InterruptedException ie){
+			LOGGER.warn("Interrupted whilst waiting for space in the consumer queue on {} {}", getType(), name, ie);
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Process a JCas with each consumer in turn
+	 */
+	void processConsumers(JCas jCas){
+		DocumentTrace trace = tracer.get(jCas);
+		for(AnalysisEngine ae : consumers){
+			processAnalysisEngine(jCas, ae, "consumer", trace);
+		}
+		
+		tracer.finish(jCas);
+	}
+	
+	private void destroyAnalysisEngines(List<AnalysisEngine> analysisEngines){
+		for(AnalysisEngine ae : analysisEngines){
+			AnalysisEngineActionStore.getInstance().remove((String)ae.getConfigParameterValue(PipelineBuilder.ANNOTATOR_UUID));
+			ae.destroy();
+		}
+	}
+	
+	private void processAnalysisEngine(JCas jCas, AnalysisEngine ae, String type, DocumentTrace trace){
+		Span span = startSpan(trace, jCas, ae.getAnalysisEngineMetaData().getName(), type);
 		try{
 			ae.process(jCas);
 		}catch(AnalysisEngineProcessException e){
 			LOGGER.error("Processing error from {} {}", type, ae.getAnalysisEngineMetaData().getName(), e);
+			if(span != null){
+				span.setArg("error", e.getMessage());
+			}
+		}finally{
+			endSpan(trace, span, jCas);
+		}
+	}
+	
+	private static Span startSpan(DocumentTrace trace, JCas jCas, String name, String type){
+		return trace == null ? null : trace.startSpan(name, type, jCas);
+	}
+	
+	private static void endSpan(DocumentTrace trace, Span span, JCas jCas){
+		if(span != null){
+			trace.endSpan(span, jCas);
 		}
 	}
 }
\ No newline at end of file
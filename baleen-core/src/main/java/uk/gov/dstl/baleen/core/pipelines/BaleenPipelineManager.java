@@ -31,11 +31,16 @@ import uk.gov.dstl.baleen.exceptions.BaleenException;
 
 /**
  * Manages one or more BaleenPipelines
+ * 
+ * Pipelines are built against a {@link SharedResourceRegistry}, so that resources with the same key
+ * and configuration are loaded once and shared between pipelines. By default the JVM-wide registry is
+ * used, so resources are also shared with pipelines (and jobs) belonging to other managers.
  */
 public class BaleenPipelineManager extends AbstractBaleenComponent{
 
 	private final ConcurrentMap<String, BaleenPipeline> pipelines = new ConcurrentHashMap<>();
 	private final ExecutorService es = Executors.newFixedThreadPool(10);
+	private final SharedResourceRegistry resourceRegistry;
 	
 	protected Metrics metrics;
 	protected Logger logger;
@@ -44,6 +49,17 @@ public class BaleenPipelineManager extends AbstractBaleenComponent{
 	 * Constructor
 	 */
 	public BaleenPipelineManager(){
+		this(SharedResourceRegistry.getInstance());
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param resourceRegistry
+	 * 		The registry through which resources are shared between pipelines
+	 */
+	public BaleenPipelineManager(SharedResourceRegistry resourceRegistry){
+		this.resourceRegistry = resourceRegistry;
 		this.metrics = MetricsFactory.getMetrics(BaleenPipelineManager.class);
 		this.logger = LoggerFactory.getLogger(BaleenPipelineManager.class);
 	}
@@ -204,6 +220,13 @@ public class BaleenPipelineManager extends AbstractBaleenComponent{
 		}
 	}
 	
+	/**
+	 * Get the registry through which resources are shared between pipelines
+	 */
+	public SharedResourceRegistry getResourceRegistry(){
+		return resourceRegistry;
+	}
+	
 	/**
 	 * Provide the type of pipeline for use in logging and naming
 	 */
@@ -224,7 +247,7 @@ public class BaleenPipelineManager extends AbstractBaleenComponent{
 	 * Provided so that sub-classes can override this to create, for example, a BaleenJob
 	 */
 	protected BaleenPipeline toPipeline(String name, String yaml) throws BaleenException{
-		PipelineBuilder pb = new PipelineBuilder(name, yaml);
+		PipelineBuilder pb = new PipelineBuilder(name, yaml, resourceRegistry);
 		return pb.createNewPipeline();
 	}
 }
\ No newline at end of file
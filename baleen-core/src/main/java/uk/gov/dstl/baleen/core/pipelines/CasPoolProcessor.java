@@ -0,0 +1,193 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.pipelines;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the annotators of a {@link BaleenPipeline} across a number of worker threads.
+ * <p>
+ * A bounded pool of JCas objects is allocated up front. The collection reader acquires a JCas
+ * from the pool, populates it, and submits it. A worker then runs one of the (independent) copies
+ * of the annotators over the JCas, before the consumers are run. Consumers are only ever run
+ * by one thread at a time, either in the order the documents were submitted or in the order
+ * they finished being annotated. Once consumed, the JCas is reset and returned to the pool.
+ * <p>
+ * As the reader has to wait for a free JCas, the pool also limits how far ahead of the workers
+ * and consumers the reader is able to get.
+ */
+class CasPoolProcessor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CasPoolProcessor.class);
+
+	private final BaleenPipeline pipeline;
+	private final boolean ordered;
+
+	private final BlockingQueue<JCas> casPool;
+	private final BlockingQueue<List<AnalysisEngine>> annotatorChains;
+	private final ExecutorService workers;
+
+	private final Object lock = new Object();
+	private final Map<Long, CompletedDocument> completed = new HashMap<>();
+	private long submittedCount = 0;
+	private long completedCount = 0;
+	private long nextToConsume = 0;
+	private boolean consuming = false;
+
+	/**
+	 * Constructor
+	 *
+	 * @param pipeline
+	 * 		The pipeline that owns this processor, and which will be used to run the analysis engines
+	 * @param annotatorChains
+	 * 		One (ordered) list of annotators per worker thread
+	 * @param options
+	 * 		The pipeline options
+	 * @throws UIMAException
+	 * 		If the JCas objects can not be created
+	 */
+	CasPoolProcessor(BaleenPipeline pipeline, List<List<AnalysisEngine>> annotatorChains, PipelineOptions options) throws UIMAException{
+		this.pipeline = pipeline;
+		this.ordered = options.isOrdered();
+
+		this.casPool = new ArrayBlockingQueue<>(options.getCasPoolSize());
+		for(int i = 0; i < options.getCasPoolSize(); i++){
+			casPool.add(JCasFactory.createJCas());
+		}
+
+		this.annotatorChains = new ArrayBlockingQueue<>(annotatorChains.size());
+		this.annotatorChains.addAll(annotatorChains);
+
+		this.workers = Executors.newFixedThreadPool(annotatorChains.size(),
+				new ThreadFactoryBuilder().setNameFormat(pipeline.getName().replace("%", "%%") + "-worker-%d").build());
+	}
+
+	/**
+	 * Take a JCas from the pool, waiting until one becomes available
+	 */
+	JCas acquire() throws InterruptedException{
+		return casPool.take();
+	}
+
+	/**
+	 * Reset a JCas and return it to the pool
+	 */
+	void release(JCas jCas){
+		pipeline.tracer().discard(jCas);
+		jCas.reset();
+		casPool.offer(jCas);
+	}
+
+	/**
+	 * Submit a JCas, which has been populated by the collection reader, for processing.
+	 * The JCas will be returned to the pool once it has been processed.
+	 */
+	void submit(JCas jCas){
+		final long sequence = submittedCount++;
+		workers.execute(() -> annotate(sequence, jCas));
+	}
+
+	/**
+	 * Stop accepting documents, and wait for those already submitted to finish processing
+	 */
+	void shutdown(){
+		workers.shutdown();
+		try{
+			while(!workers.awaitTermination(1, TimeUnit.MINUTES)){
+				LOGGER.info("Waiting for documents on {} to finish processing", pipeline.getName());
+			}
+		}catch(InterruptedException ie){
+			LOGGER.warn("Interrupted whilst waiting for documents on {} to finish processing", pipeline.getName(), ie);
+			workers.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void annotate(long sequence, JCas jCas){
+		List<AnalysisEngine> annotators = null;
+		boolean annotated = false;
+		try{
+			annotators = annotatorChains.take();
+			pipeline.processAnnotators(jCas, annotators);
+			annotated = true;
+		}catch(InterruptedException ie){
+			LOGGER.warn("Interrupted whilst waiting for annotators on {}", pipeline.getName(), ie);
+			Thread.currentThread().interrupt();
+		}catch(RuntimeException re){
+			LOGGER.error("Unexpected error whilst annotating document on {}", pipeline.getName(), re);
+		}finally{
+			if(annotators != null){
+				annotatorChains.offer(annotators);
+			}
+			complete(sequence, new CompletedDocument(jCas, annotated));
+		}
+	}
+
+	/**
+	 * Queue the completed document for the consumers, and if no other thread is currently
+	 * running the consumers then run them over every document that is ready.
+	 */
+	private void complete(long sequence, CompletedDocument document){
+		synchronized(lock){
+			completed.put(ordered ? sequence : completedCount, document);
+			completedCount++;
+
+			if(consuming){
+				return;
+			}
+			consuming = true;
+		}
+
+		while(true){
+			CompletedDocument next;
+			synchronized(lock){
+				next = completed.remove(nextToConsume);
+				if(next == null){
+					consuming = false;
+					return;
+				}
+				nextToConsume++;
+			}
+
+			consume(next);
+		}
+	}
+
+	private void consume(CompletedDocument document){
+		try{
+			if(document.annotated){
+				pipeline.consume(document.jCas);
+			}else{
+				LOGGER.warn("Document on {} was not fully annotated, and will not be passed to the consumers", pipeline.getName());
+			}
+		}catch(RuntimeException re){
+			LOGGER.error("Unexpected error whilst consuming document on {}", pipeline.getName(), re);
+		}finally{
+			release(document.jCas);
+		}
+	}
+
+	private static class CompletedDocument {
+		private final JCas jCas;
+		private final boolean annotated;
+
+		CompletedDocument(JCas jCas, boolean annotated){
+			this.jCas = jCas;
+			this.annotated = annotated;
+		}
+	}
+}
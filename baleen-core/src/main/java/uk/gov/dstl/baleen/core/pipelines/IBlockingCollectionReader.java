@@ -0,0 +1,30 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.pipelines;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.collection.CollectionException;
+
+/**
+ * A collection reader that can wait for a new document to become available, so that an idle {@link BaleenPipeline}
+ * doesn't have to repeatedly poll the reader's hasNext() method.
+ */
+public interface IBlockingCollectionReader {
+	/**
+	 * Wait until a document is available, or the timeout elapses
+	 *
+	 * @param timeout
+	 *            The longest time to wait for
+	 * @param unit
+	 *            The unit of timeout
+	 * @return true if a document is available, false if the timeout elapsed first
+	 * @throws IOException
+	 *             if there was an error reading from the source
+	 * @throws CollectionException
+	 *             if there was an error reading from the source
+	 * @throws InterruptedException
+	 *             if interrupted whilst waiting
+	 */
+	boolean awaitNext(long timeout, TimeUnit unit) throws IOException, CollectionException, InterruptedException;
+}
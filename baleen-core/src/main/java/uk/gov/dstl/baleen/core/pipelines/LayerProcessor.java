@@ -0,0 +1,208 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.pipelines;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.util.CasCreationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import uk.gov.dstl.baleen.core.utils.ForkedCas;
+
+/**
+ * Runs layers of annotators (as produced by {@link uk.gov.dstl.baleen.core.pipelines.orderers.IPipelineOrderer#orderPipelineLayers(List)})
+ * over a JCas, running the annotators within a layer at the same time and waiting for all of them to finish
+ * before moving on to the next layer.
+ * <p>
+ * As a JCas can't safely be modified by more than one thread, the first annotator in a layer is run against
+ * the JCas itself and every other annotator in the layer is run against its own {@link ForkedCas}. Once all
+ * annotators in the layer have finished, the changes made to each fork are joined back into the JCas in the
+ * order the annotators appear in the layer.
+ * <p>
+ * Only changes to the indexes can be joined, so each fork is first checked for conflicts (see
+ * {@link ForkedCas#findConflicts()}), such as changes to the features of existing annotations or the removal
+ * of an annotation that another annotator in the layer has referenced. If there are any, the fork is
+ * discarded and the annotator is run again against the JCas itself once the rest of the layer has been
+ * joined. That annotator is then always run after the rest of its layer, rather than in parallel.
+ * <p>
+ * The cost of forking is proportional to the number of annotations already in the JCas, so this works best
+ * for wide layers of independent annotators (such as the regular expression annotators) that run early in
+ * a pipeline.
+ */
+class LayerProcessor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LayerProcessor.class);
+
+	private final String pipelineName;
+	private final ExecutorService executor;
+	private final Map<TypeSystem, Queue<JCas>> spareCopies = new ConcurrentHashMap<>();
+	private final Set<AnalysisEngine> sequential = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Constructor
+	 *
+	 * @param pipelineName
+	 * 		The name of the pipeline, used for logging and naming threads
+	 * @param threads
+	 * 		The number of threads to use for running annotators in parallel
+	 */
+	LayerProcessor(String pipelineName, int threads){
+		this.pipelineName = pipelineName;
+		this.executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactoryBuilder().setNameFormat(pipelineName.replace("%", "%%") + "-layer-%d").setDaemon(true).build());
+	}
+
+	/**
+	 * Process a JCas with each layer of annotators in turn
+	 *
+	 * @param jCas
+	 * 		The JCas to process
+	 * @param layers
+	 * 		The layers of annotators
+	 * @param runner
+	 * 		Function that runs a single annotator against a JCas
+	 */
+	void process(JCas jCas, List<List<AnalysisEngine>> layers, BiConsumer<JCas, AnalysisEngine> runner){
+		for(List<AnalysisEngine> layer : layers){
+			List<AnalysisEngine> parallel = new ArrayList<>(layer);
+			parallel.removeAll(sequential);
+
+			if(parallel.size() == 1){
+				runner.accept(jCas, parallel.get(0));
+			}else if(parallel.size() > 1 && !processLayer(jCas, parallel, runner)){
+				return;
+			}
+
+			for(AnalysisEngine ae : layer){
+				if(sequential.contains(ae) && !parallel.contains(ae)){
+					runner.accept(jCas, ae);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop the threads used by this processor, and release any spare JCas objects
+	 */
+	void shutdown(){
+		executor.shutdownNow();
+		spareCopies.clear();
+	}
+
+	private boolean processLayer(JCas jCas, List<AnalysisEngine> layer, BiConsumer<JCas, AnalysisEngine> runner){
+		List<ForkedCas> forks = new ArrayList<>(layer.size() - 1);
+		try{
+			for(int i = 1; i < layer.size(); i++){
+				forks.add(ForkedCas.fork(jCas, acquire(jCas.getTypeSystem())));
+			}
+		}catch(UIMAException e){
+			LOGGER.warn("Unable to create copy of JCas on {} - layer will be processed sequentially", pipelineName, e);
+			forks.forEach(fork -> release(fork.getCopy()));
+			layer.forEach(ae -> runner.accept(jCas, ae));
+			return true;
+		}
+
+		List<Future<?>> futures = new ArrayList<>(forks.size());
+		for(int i = 0; i < forks.size(); i++){
+			JCas copy = forks.get(i).getCopy();
+			AnalysisEngine ae = layer.get(i + 1);
+			futures.add(executor.submit(() -> runner.accept(copy, ae)));
+		}
+
+		//Wait for the rest of the layer, even if the first annotator fails
+		RuntimeException failure = null;
+		try{
+			runner.accept(jCas, layer.get(0));
+		}catch(RuntimeException re){
+			failure = re;
+		}
+
+		boolean completed = awaitAndJoin(jCas, layer, forks, futures, runner);
+		if(failure != null){
+			throw failure;
+		}
+
+		return completed;
+	}
+
+	private boolean awaitAndJoin(JCas jCas, List<AnalysisEngine> layer, List<ForkedCas> forks, List<Future<?>> futures,
+			BiConsumer<JCas, AnalysisEngine> runner){
+		//Wait for every annotator before joining any of them
+		List<Boolean> succeeded = new ArrayList<>(forks.size());
+		for(int i = 0; i < forks.size(); i++){
+			try{
+				futures.get(i).get();
+				succeeded.add(true);
+			}catch(ExecutionException e){
+				LOGGER.error("Unexpected error from annotator {} on {} - its annotations will be discarded",
+						getName(layer.get(i + 1)), pipelineName, e.getCause());
+				succeeded.add(false);
+			}catch(InterruptedException ie){
+				LOGGER.warn("Interrupted whilst waiting for annotators on {}", pipelineName, ie);
+				futures.forEach(f -> f.cancel(true));
+				Thread.currentThread().interrupt();
+
+				//Copies may still be in use, so don't return them to the pool
+				return false;
+			}
+		}
+
+		List<AnalysisEngine> rerun = new ArrayList<>();
+		for(int i = 0; i < forks.size(); i++){
+			if(!succeeded.get(i)){
+				continue;
+			}
+
+			ForkedCas fork = forks.get(i);
+			List<String> conflicts = fork.findConflicts();
+			if(conflicts.isEmpty()){
+				fork.join();
+			}else{
+				AnalysisEngine ae = layer.get(i + 1);
+				LOGGER.warn("Annotator {} on {} made changes that can't be run in parallel with its layer ({}) - it will be re-run, and from now on will run after the rest of its layer",
+						getName(ae), pipelineName, String.join("; ", conflicts));
+				sequential.add(ae);
+				rerun.add(ae);
+			}
+		}
+
+		forks.forEach(fork -> release(fork.getCopy()));
+
+		rerun.forEach(ae -> runner.accept(jCas, ae));
+		return true;
+	}
+
+	private static String getName(AnalysisEngine ae){
+		return ae.getAnalysisEngineMetaData().getName();
+	}
+
+	private JCas acquire(TypeSystem typeSystem) throws UIMAException{
+		JCas copy = spareCopies.computeIfAbsent(typeSystem, ts -> new ConcurrentLinkedQueue<>()).poll();
+		if(copy == null){
+			copy = CasCreationUtils.createCas(typeSystem, null, null, null).getJCas();
+		}
+
+		return copy;
+	}
+
+	private void release(JCas copy){
+		copy.reset();
+		spareCopies.computeIfAbsent(copy.getTypeSystem(), ts -> new ConcurrentLinkedQueue<>()).offer(copy);
+	}
+}
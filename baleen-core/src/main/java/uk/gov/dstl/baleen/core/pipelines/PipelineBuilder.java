@@ -9,6 +9,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.uima.UIMAException;
 import org.apache.uima.UIMAFramework;
@@ -28,8 +33,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
 
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import uk.gov.dstl.baleen.core.history.BaleenHistory;
 import uk.gov.dstl.baleen.core.history.logging.LoggingBaleenHistory;
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
 import uk.gov.dstl.baleen.core.pipelines.orderers.IPipelineOrderer;
 import uk.gov.dstl.baleen.core.pipelines.orderers.NoOpOrderer;
 import uk.gov.dstl.baleen.core.utils.BaleenDefaults;
@@ -100,6 +110,15 @@ import uk.gov.dstl.baleen.exceptions.MissingParameterException;
  * Resources are automatically detected (assuming the analysis engine has used the @ExternalResource
  * annotation) and created. Resources should use global parameters (e.g. shape.color in the above
  * example) to initialise themselves, as these are the only ones that will be passed to them.
+ * If the builder is given a {@link SharedResourceRegistry}, then resources with the same key and
+ * configuration are also shared with other pipelines built against the same registry (the history
+ * is never shared).
+ * <p>
+ * The <em>pipeline</em> object can be used to configure how the pipeline is executed, for example to
+ * run the annotators on multiple threads. See {@link PipelineOptions} for the available options.
+ * In particular, <em>pipeline.initThreads</em> allows the analysis engines to be constructed in parallel,
+ * which can considerably reduce the time taken to create pipelines with several expensive annotators.
+ * The time taken to construct each analysis engine, and the pipeline as a whole, is recorded as a metric.
  * <p>
  * If not otherwise specified, <em>history.class</em> will default to <code>uk.gov.dstl.baleen.core.history.logging.LoggingBaleenHistory</code>,
  * and <em>orderer</em> will default to <code>uk.gov.dstl.baleen.core.pipelines.orderers.DependencyGraphPipelineOrderer</code>.
@@ -124,6 +143,15 @@ public class PipelineBuilder {
 	 */
 	public static final String ORIGINAL_CONFIG = "__originalConfig";
 
+	/**
+	 * Name of the timer (for each analysis engine) recording how long it took to construct and initialize
+	 */
+	public static final String CONSTRUCTION_TIMER = "construction";
+	/**
+	 * Name of the timer (for each pipeline) recording how long it took to create
+	 */
+	public static final String INITIALISATION_TIMER = "initialisation";
+
 	private static final List<String> ignoreParams = new ArrayList<>(Arrays.asList("class"));
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(PipelineBuilder.class);
@@ -137,6 +165,7 @@ public class PipelineBuilder {
 	protected List<Object> consumersConfig;
 	protected String pipelineOrderer;
 	
+	private final SharedResourceRegistry resourceRegistry;
 	private ResourceManager resourceManager;
 	private Map<String, ExternalResourceDescription> resourceDescriptors;
 	
@@ -149,8 +178,24 @@ public class PipelineBuilder {
 	 * 		Pipeline YAML
 	 */
 	public PipelineBuilder(String name, String yaml){
+		this(name, yaml, null);
+	}
+	
+	/**
+	 * Construct a PipelineBuilder from the name and YAML, which will share resources
+	 * with other pipelines through the given registry
+	 * 
+	 * @param name
+	 * 		Pipeline name
+	 * @param yaml
+	 * 		Pipeline YAML
+	 * @param resourceRegistry
+	 * 		Registry of resources shared between pipelines, or null if resources shouldn't be shared
+	 */
+	public PipelineBuilder(String name, String yaml, SharedResourceRegistry resourceRegistry){
 		this.name = name;
 		this.yaml = yaml;
+		this.resourceRegistry = resourceRegistry;
 	}
 	
 	/**
@@ -159,6 +204,7 @@ public class PipelineBuilder {
 	 */
 	public BaleenPipeline createNewPipeline() throws BaleenException{
 		LOGGER.info("Creating pipeline {}", name);
+		long start = System.nanoTime();
 		
 		//Read in configuration from YAML
 		readConfiguration();
@@ -167,39 +213,77 @@ public class PipelineBuilder {
 		resourceDescriptors = new HashMap<>();
 		
 		try{
-			resourceManager = ResourceManagerFactory.newResourceManager();
+			if(resourceRegistry == null){
+				resourceManager = ResourceManagerFactory.newResourceManager();
+			}else{
+				resourceManager = new SharedResourceManager(resourceRegistry, Collections.singleton(BALEEN_HISTORY));
+			}
 		}catch(UIMAException ue){
 			throw new BaleenException("Could not create Resource Manager", ue);
 		}
 		
-		//Create components
-		LOGGER.debug("Configuring pipeline orderer");
-		IPipelineOrderer orderer = createPipelineOrderer();
-		
-		LOGGER.debug("Configuring history");
-		ExternalResourceDescription erdHistory = configureHistory();
-		resourceDescriptors.put(BALEEN_HISTORY, erdHistory);
-		
-		LOGGER.debug("Creating collection reader");
-		CollectionReader collectionReader = createCollectionReader();
-		
-		List<AnalysisEngine> annotators;
-		if(annotatorsConfig != null && !annotatorsConfig.isEmpty()){
-			LOGGER.debug("Creating annotators");
-			annotators = createAnnotators();
-		}else{
-			annotators = Collections.emptyList();
+		BaleenPipeline pipeline;
+		try{
+			//Create components
+			LOGGER.debug("Configuring pipeline orderer");
+			IPipelineOrderer orderer = createPipelineOrderer();
+			
+			LOGGER.debug("Configuring history");
+			ExternalResourceDescription erdHistory = configureHistory();
+			resourceDescriptors.put(BALEEN_HISTORY, erdHistory);
+			
+			LOGGER.debug("Creating collection reader");
+			CollectionReader collectionReader = createCollectionReader();
+			
+			PipelineOptions options = createPipelineOptions();
+			
+			//Work out the descriptions of every analysis engine up front, so that they can then be constructed in parallel
+			List<List<PendingEngine>> pending = new ArrayList<>(options.getThreads() + 1);
+			if(annotatorsConfig != null && !annotatorsConfig.isEmpty()){
+				LOGGER.debug("Creating annotators");
+				pending.add(prepareAnalysisEngines(annotatorsConfig, getDefaultAnnotatorPackage(), "Annotator"));
+			
+				for(int i = 1; i < options.getThreads(); i++){
+					LOGGER.debug("Creating copy {} of annotators for worker thread", i);
+					pending.add(prepareAnalysisEngines(annotatorsConfig, getDefaultAnnotatorPackage(), "Annotator"));
+				}
+			}else{
+				pending.add(Collections.emptyList());
+			}
+			
+			if(consumersConfig != null && !consumersConfig.isEmpty()){
+				LOGGER.debug("Creating consumers");
+				pending.add(prepareAnalysisEngines(consumersConfig, getDefaultConsumerPackage(), "Consumer"));
+			}else{
+				pending.add(Collections.emptyList());
+			}
+			
+			List<List<AnalysisEngine>> engines = constructAnalysisEngines(pending, options.getInitThreads());
+			
+			List<List<AnalysisEngine>> annotatorChains = engines.subList(0, engines.size() - 1);
+			List<AnalysisEngine> consumers = engines.get(engines.size() - 1);
+			
+			pipeline = toPipeline(name, yaml, orderer, collectionReader, new ArrayList<>(annotatorChains), consumers, options);
+		}catch(BaleenException | RuntimeException e){
+			//The pipeline won't be run, so it will never release the shared resources it has acquired
+			if(resourceManager instanceof SharedResourceManager){
+				((SharedResourceManager) resourceManager).release();
+			}
+			throw e;
 		}
 		
-		List<AnalysisEngine> consumers;
-		if(consumersConfig != null && !consumersConfig.isEmpty()){
-			LOGGER.debug("Creating consumers");
-			consumers = createConsumers();
-		}else{
-			consumers = Collections.emptyList();
-		}
+		long elapsed = System.nanoTime() - start;
+		MetricsFactory.getInstance().getTimer(name, INITIALISATION_TIMER).update(elapsed, TimeUnit.NANOSECONDS);
+		LOGGER.info("Created pipeline {} in {} ms", name, TimeUnit.NANOSECONDS.toMillis(elapsed));
 		
-		return toPipeline(name, yaml, orderer, collectionReader, annotators, consumers);
+		return pipeline;
+	}
+	
+	/**
+	 * Create the execution options for the pipeline from the global configuration
+	 */
+	protected PipelineOptions createPipelineOptions(){
+		return new PipelineOptions(globalConfig);
 	}
 	
 	/**
@@ -213,16 +297,18 @@ public class PipelineBuilder {
 	 * 		Pipeline orderer to use
 	 * @param collectionReader
 	 * 		Collection reader to use
-	 * @param annotators
-	 * 		List of annotators (can be empty)
+	 * @param annotatorChains
+	 * 		List of annotators (can be empty), with one copy per worker thread
 	 * @param consumers
 	 * 		List of consumers (can be empty)
+	 * @param options
+	 * 		Execution options for the pipeline
 	 * 
 	 * @return
 	 * 		Configured BaleenPipeline
 	 */
-	protected BaleenPipeline toPipeline(String name, String yaml, IPipelineOrderer orderer, CollectionReader collectionReader, List<AnalysisEngine> annotators, List<AnalysisEngine> consumers){
-		return new BaleenPipeline(name, yaml, orderer, collectionReader, annotators, consumers);
+	protected BaleenPipeline toPipeline(String name, String yaml, IPipelineOrderer orderer, CollectionReader collectionReader, List<List<AnalysisEngine>> annotatorChains, List<AnalysisEngine> consumers, PipelineOptions options){
+		return new BaleenPipeline(name, yaml, orderer, collectionReader, annotatorChains, consumers, options);
 	}
 	
 	/**
@@ -350,68 +436,103 @@ public class PipelineBuilder {
 	}
 	
 	/**
-	 * Create a new analysis engine
+	 * Work out the description of a new analysis engine, ready for it to be constructed
 	 */
-	private AnalysisEngine createAnalysisEngine(String className, String defaultPackage, Map<String, Object> annotatorConfig, Object originalConfig) throws BaleenException{
+	private PendingEngine prepareAnalysisEngine(String className, String defaultPackage, Map<String, Object> annotatorConfig, Object originalConfig) throws BaleenException{
 		if (className == null || className.isEmpty()) {
 			throw new MissingParameterException("No class name provided for annotator, or unable to parse list item - analysis engine will be skipped");
 		}
 
-		try {
-			Class<? extends AnalysisComponent> clazz = BuilderUtils.getClassFromString(className, defaultPackage);
-			Map<String, ExternalResourceDescription> aResources = getOrCreateResources(clazz);
-			
-			annotatorConfig.put(ANNOTATOR_UUID, UUID.randomUUID().toString());
-			
-			Object[] aParams = BuilderUtils.mergeAndExtractParams(globalConfig, annotatorConfig, ignoreParams, aResources);
+		Class<? extends AnalysisComponent> clazz = BuilderUtils.getClassFromString(className, defaultPackage);
+		Map<String, ExternalResourceDescription> aResources = getOrCreateResources(clazz);
+		
+		annotatorConfig.put(ANNOTATOR_UUID, UUID.randomUUID().toString());
+		
+		Object[] aParams = BuilderUtils.mergeAndExtractParams(globalConfig, annotatorConfig, ignoreParams, aResources);
 
-			AnalysisEngine ae = createEngine(clazz, resourceManager, aParams);
-			ae.setConfigParameterValue(ORIGINAL_CONFIG, originalConfig);
-			
-			return ae;
-		} catch (BaleenException | ResourceInitializationException e) {
-			throw new BaleenException("Failed to build annotator description - analysis engine will be skipped", e);
-		}
+		return new PendingEngine(className, clazz, aParams, originalConfig);
 	}
 	
 	/**
-	 * Create new annotators
+	 * Work out the descriptions of new annotators or consumers. Any that can't be described are skipped.
 	 */
-	private List<AnalysisEngine> createAnnotators() throws BaleenException {
-		List<AnalysisEngine> analysisEngines = new ArrayList<>();
+	private List<PendingEngine> prepareAnalysisEngines(List<Object> configs, String defaultPackage, String type) {
+		List<PendingEngine> pending = new ArrayList<>();
 		
-		for (Object objAnnotator : annotatorsConfig) {
-			String className = BuilderUtils.getClassNameFromConfig(objAnnotator);
-			Map<String, Object> params = BuilderUtils.flattenConfig(null, BuilderUtils.getParamsFromConfig(objAnnotator));
+		for (Object config : configs) {
+			String className = BuilderUtils.getClassNameFromConfig(config);
+			Map<String, Object> params = BuilderUtils.flattenConfig(null, BuilderUtils.getParamsFromConfig(config));
 			
 			try{
-				analysisEngines.add(createAnalysisEngine(className, getDefaultAnnotatorPackage(), params, objAnnotator));
+				pending.add(prepareAnalysisEngine(className, defaultPackage, params, config));
 			}catch(BaleenException be){
-				LOGGER.error("Annotator {} could not be created and has been skipped", className, be);
+				LOGGER.error("{} {} could not be created and has been skipped", type, className, be);
 			}
 		}
 
-		return analysisEngines;
+		return pending;
 	}
 	
 	/**
-	 * Create new consumers
+	 * Construct the described analysis engines, using up to the given number of threads,
+	 * and preserving their order. Any that fail to be constructed are skipped.
 	 */
-	private List<AnalysisEngine> createConsumers() throws BaleenException {
-		List<AnalysisEngine> analysisEngines = new ArrayList<>();
+	private List<List<AnalysisEngine>> constructAnalysisEngines(List<List<PendingEngine>> pending, int threads) throws BaleenException{
+		int total = pending.stream().mapToInt(List::size).sum();
 		
-		for (Object objConsumer : consumersConfig) {
-			String className = BuilderUtils.getClassNameFromConfig(objConsumer);
-			Map<String, Object> params = BuilderUtils.flattenConfig(null, BuilderUtils.getParamsFromConfig(objConsumer));
-
-			try{
-				analysisEngines.add(createAnalysisEngine(className, getDefaultConsumerPackage(), params, objConsumer));
-			}catch(BaleenException be){
-				LOGGER.error("Consumer {} could not be created and has been skipped", className, be);
+		List<List<Future<AnalysisEngine>>> futures = new ArrayList<>(pending.size());
+		ExecutorService executor = threads > 1 && total > 1
+				? Executors.newFixedThreadPool(Math.min(threads, total), new ThreadFactoryBuilder().setNameFormat(name.replace("%", "%%") + "-init-%d").build())
+				: MoreExecutors.newDirectExecutorService();
+		try{
+			for(List<PendingEngine> group : pending){
+				List<Future<AnalysisEngine>> groupFutures = new ArrayList<>(group.size());
+				for(PendingEngine pe : group){
+					groupFutures.add(executor.submit(() -> constructAnalysisEngine(pe)));
+				}
+				futures.add(groupFutures);
+			}
+			
+			List<List<AnalysisEngine>> engines = new ArrayList<>(pending.size());
+			for(int i = 0; i < pending.size(); i++){
+				List<AnalysisEngine> group = new ArrayList<>(pending.get(i).size());
+				for(int j = 0; j < pending.get(i).size(); j++){
+					try{
+						group.add(futures.get(i).get(j).get());
+					}catch(ExecutionException e){
+						LOGGER.error("Analysis engine {} could not be created and has been skipped", pending.get(i).get(j).className, e.getCause());
+					}
+				}
+				engines.add(group);
 			}
+			
+			return engines;
+		}catch(InterruptedException ie){
+			Thread.currentThread().interrupt();
+			throw new BaleenException("Interrupted whilst creating analysis engines", ie);
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Construct (and so initialize) a new analysis engine, recording how long it took
+	 */
+	private AnalysisEngine constructAnalysisEngine(PendingEngine pe) throws BaleenException{
+		LOGGER.debug("Constructing analysis engine {}", pe.className);
+		
+		Timer.Context timer = MetricsFactory.getMetrics(name, pe.clazz).getTimer(CONSTRUCTION_TIMER).time();
+		try{
+			AnalysisEngine ae = createEngine(pe.clazz, resourceManager, pe.params);
+			ae.setConfigParameterValue(ORIGINAL_CONFIG, pe.originalConfig);
+			
+			return ae;
+		} catch (ResourceInitializationException e) {
+			throw new BaleenException("Failed to build annotator description - analysis engine will be skipped", e);
+		}finally{
+			long elapsed = timer.stop();
+			LOGGER.debug("Constructed analysis engine {} in {} ms", pe.className, TimeUnit.NANOSECONDS.toMillis(elapsed));
 		}
-
-		return analysisEngines;
 	}
 	
 	/**
@@ -460,6 +581,23 @@ public class PipelineBuilder {
 		return UIMAFramework.produceAnalysisEngine(AnalysisEngineFactory.createEngineDescription(componentClass, configurationData), resourceManager, null);
 	}
 	
+	/**
+	 * An analysis engine that has been described, but not yet constructed
+	 */
+	private static class PendingEngine {
+		private final String className;
+		private final Class<? extends AnalysisComponent> clazz;
+		private final Object[] params;
+		private final Object originalConfig;
+		
+		PendingEngine(String className, Class<? extends AnalysisComponent> clazz, Object[] params, Object originalConfig){
+			this.className = className;
+			this.clazz = clazz;
+			this.params = params;
+			this.originalConfig = originalConfig;
+		}
+	}
+	
 	/**
 	 * Return the package to use as the default location for Orderers.
 	 * 
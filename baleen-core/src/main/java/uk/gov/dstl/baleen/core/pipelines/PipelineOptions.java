@@ -0,0 +1,375 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.pipelines;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.dstl.baleen.core.utils.ConfigUtils;
+
+/**
+ * Execution options for a {@link BaleenPipeline}, read from the <i>pipeline</i> object
+ * of the pipeline YAML. For example:
+ *
+ * <pre>
+ * pipeline:
+ *   threads: 8
+ *   ordered: false
+ *   casPoolSize: 16
+ *   parallelLayers: true
+ *   layerThreads: 4
+ *   consumerQueueSize: 32
+ *   consumerPolicy: dropOldest
+ *   persistent: true
+ *   idleTimeout: 1000
+ *   initThreads: 4
+ *   lazy: true
+ *   trace:
+ *     sampleRate: 0.001
+ *     threshold: 60000
+ *     textBlocks: true
+ *     file: traces/pipeline.json
+ * </pre>
+ *
+ * If no options are provided, the pipeline runs single threaded exactly as it always has.
+ */
+public class PipelineOptions {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PipelineOptions.class);
+
+	/**
+	 * Number of worker threads used to run the annotators. Values greater than 1 will cause
+	 * a copy of the annotators to be created for each thread.
+	 */
+	public static final String THREADS = "pipeline.threads";
+	/**
+	 * When running with multiple threads, whether the consumers should see documents in the order
+	 * they were read by the collection reader (true), or in the order they finish being annotated (false)
+	 */
+	public static final String ORDERED = "pipeline.ordered";
+	/**
+	 * When running with multiple threads, the number of pre-allocated JCas objects that are shared
+	 * between the collection reader and the workers. Defaults to twice the number of threads.
+	 */
+	public static final String CAS_POOL_SIZE = "pipeline.casPoolSize";
+	/**
+	 * Whether independent annotators (those in the same layer of the dependency graph, as determined
+	 * by the pipeline orderer) should be run at the same time on each document
+	 */
+	public static final String PARALLEL_LAYERS = "pipeline.parallelLayers";
+	/**
+	 * The number of threads to use for running annotators within a layer, shared by all worker threads.
+	 * Defaults to the number of available processors.
+	 */
+	public static final String LAYER_THREADS = "pipeline.layerThreads";
+	/**
+	 * The number of annotated documents that can be waiting for the consumers. If greater than 0, then
+	 * the consumers are run on their own thread against a copy of each document, so that annotation of the
+	 * next document can start straight away. Defaults to 0, meaning the consumers are run inline.
+	 */
+	public static final String CONSUMER_QUEUE_SIZE = "pipeline.consumerQueueSize";
+	/**
+	 * What to do when the consumer queue is full; either <i>block</i> (the default) to wait for the consumers
+	 * to catch up, or <i>dropOldest</i> to discard the oldest waiting document without consuming it.
+	 */
+	public static final String CONSUMER_POLICY = "pipeline.consumerPolicy";
+	/**
+	 * Whether the pipeline should keep waiting for new documents once the collection reader has none,
+	 * rather than finishing. Defaults to false.
+	 */
+	public static final String PERSISTENT = "pipeline.persistent";
+	/**
+	 * When persistent, the longest time in milliseconds that the pipeline will wait on the collection reader
+	 * for a new document before checking whether it has been destroyed. Defaults to 1000.
+	 */
+	public static final String IDLE_TIMEOUT = "pipeline.idleTimeout";
+	/**
+	 * The number of threads to use to construct the analysis engines of the pipeline. Defaults to 1,
+	 * meaning they are constructed one after another.
+	 */
+	public static final String INIT_THREADS = "pipeline.initThreads";
+	/**
+	 * Whether annotators should defer loading expensive resources (such as models and gazetteers)
+	 * until the first document is processed, rather than whilst the pipeline is being created.
+	 * Defaults to false.
+	 */
+	public static final String LAZY = "pipeline.lazy";
+	/**
+	 * The probability, between 0 and 1, that a document is traced (see {@link uk.gov.dstl.baleen.core.tracing.Tracer}).
+	 * Defaults to 0.
+	 */
+	public static final String TRACE_SAMPLE_RATE = "pipeline.trace.sampleRate";
+	/**
+	 * Documents that take at least this many milliseconds to process are traced. Defaults to 0, meaning
+	 * that documents are only traced if they are sampled.
+	 */
+	public static final String TRACE_THRESHOLD = "pipeline.trace.threshold";
+	/**
+	 * Whether traces should include a span for each text block processed by an annotator. Defaults to false.
+	 */
+	public static final String TRACE_TEXT_BLOCKS = "pipeline.trace.textBlocks";
+	/**
+	 * The file traces are written to. Defaults to a file named after the pipeline in the working directory.
+	 */
+	public static final String TRACE_FILE = "pipeline.trace.file";
+	/**
+	 * The size in megabytes at which the trace file is rolled. Defaults to 100.
+	 */
+	public static final String TRACE_MAX_FILE_SIZE = "pipeline.trace.maxFileSize";
+	/**
+	 * The number of trace files to keep, including the current file. Defaults to 5.
+	 */
+	public static final String TRACE_MAX_FILES = "pipeline.trace.maxFiles";
+
+	/**
+	 * The behaviour when the consumer queue is full
+	 */
+	public enum ConsumerPolicy {
+		/** Wait until the consumers have space for the document */
+		BLOCK,
+		/** Discard the oldest document waiting for the consumers */
+		DROP_OLDEST
+	}
+
+	private static final int DEFAULT_THREADS = 1;
+	private static final boolean DEFAULT_ORDERED = true;
+	private static final int DEFAULT_IDLE_TIMEOUT = 1000;
+	private static final int DEFAULT_TRACE_MAX_FILE_SIZE = 100;
+	private static final int DEFAULT_TRACE_MAX_FILES = 5;
+
+	private final int threads;
+	private final boolean ordered;
+	private final int casPoolSize;
+	private final boolean parallelLayers;
+	private final int layerThreads;
+	private final int consumerQueueSize;
+	private final ConsumerPolicy consumerPolicy;
+	private final boolean persistent;
+	private final int idleTimeout;
+	private final int initThreads;
+	private final boolean lazy;
+	private final double traceSampleRate;
+	private final int traceThreshold;
+	private final boolean traceTextBlocks;
+	private final String traceFile;
+	private final int traceMaxFileSize;
+	private final int traceMaxFiles;
+
+	/**
+	 * Construct the default (single threaded) options
+	 */
+	public PipelineOptions(){
+		this(Collections.emptyMap());
+	}
+
+	/**
+	 * Construct options from a (flattened) pipeline configuration
+	 *
+	 * @param config
+	 * 		The flattened global configuration of the pipeline
+	 */
+	public PipelineOptions(Map<String, Object> config){
+		threads = Math.max(1, getInteger(config, THREADS, DEFAULT_THREADS));
+		ordered = getBoolean(config, ORDERED, DEFAULT_ORDERED);
+		casPoolSize = Math.max(threads, getInteger(config, CAS_POOL_SIZE, 2 * threads));
+		parallelLayers = getBoolean(config, PARALLEL_LAYERS, false);
+		layerThreads = Math.max(1, getInteger(config, LAYER_THREADS, Runtime.getRuntime().availableProcessors()));
+		consumerQueueSize = Math.max(0, getInteger(config, CONSUMER_QUEUE_SIZE, 0));
+		consumerPolicy = getConsumerPolicy(config);
+		persistent = getBoolean(config, PERSISTENT, false);
+		idleTimeout = Math.max(1, getInteger(config, IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT));
+		initThreads = Math.max(1, getInteger(config, INIT_THREADS, 1));
+		lazy = getBoolean(config, LAZY, false);
+		traceSampleRate = Math.min(1.0, Math.max(0.0, getDouble(config, TRACE_SAMPLE_RATE, 0.0)));
+		traceThreshold = Math.max(0, getInteger(config, TRACE_THRESHOLD, 0));
+		traceTextBlocks = getBoolean(config, TRACE_TEXT_BLOCKS, false);
+		traceFile = config.get(TRACE_FILE) == null ? null : config.get(TRACE_FILE).toString();
+		traceMaxFileSize = Math.max(1, getInteger(config, TRACE_MAX_FILE_SIZE, DEFAULT_TRACE_MAX_FILE_SIZE));
+		traceMaxFiles = Math.max(1, getInteger(config, TRACE_MAX_FILES, DEFAULT_TRACE_MAX_FILES));
+	}
+
+	/**
+	 * The number of threads to run annotators on
+	 */
+	public int getThreads(){
+		return threads;
+	}
+
+	/**
+	 * Whether the pipeline should use more than one thread
+	 */
+	public boolean isMultiThreaded(){
+		return threads > 1;
+	}
+
+	/**
+	 * Whether consumers should receive documents in submission order
+	 */
+	public boolean isOrdered(){
+		return ordered;
+	}
+
+	/**
+	 * The number of JCas objects to pre-allocate when multi-threaded
+	 */
+	public int getCasPoolSize(){
+		return casPoolSize;
+	}
+
+	/**
+	 * Whether independent annotators should be run at the same time
+	 */
+	public boolean isParallelLayers(){
+		return parallelLayers;
+	}
+	
+	/**
+	 * The number of threads to use for running independent annotators
+	 */
+	public int getLayerThreads(){
+		return layerThreads;
+	}
+
+	/**
+	 * Whether the consumers should be run on their own thread, decoupled from the annotators
+	 */
+	public boolean isAsyncConsumers(){
+		return consumerQueueSize > 0;
+	}
+
+	/**
+	 * The number of documents that can be waiting for the consumers
+	 */
+	public int getConsumerQueueSize(){
+		return consumerQueueSize;
+	}
+
+	/**
+	 * The behaviour when the consumer queue is full
+	 */
+	public ConsumerPolicy getConsumerPolicy(){
+		return consumerPolicy;
+	}
+
+	/**
+	 * Whether the pipeline should wait for new documents once the collection reader has none
+	 */
+	public boolean isPersistent(){
+		return persistent;
+	}
+
+	/**
+	 * The longest time, in milliseconds, to wait for a new document before checking whether the pipeline has been destroyed
+	 */
+	public int getIdleTimeout(){
+		return idleTimeout;
+	}
+
+	/**
+	 * The number of threads to construct analysis engines on
+	 */
+	public int getInitThreads(){
+		return initThreads;
+	}
+
+	/**
+	 * Whether annotators should defer loading expensive resources until the first document
+	 */
+	public boolean isLazy(){
+		return lazy;
+	}
+
+	/**
+	 * Whether any documents should be traced
+	 */
+	public boolean isTracing(){
+		return traceSampleRate > 0.0 || traceThreshold > 0;
+	}
+
+	/**
+	 * The probability that a document is traced
+	 */
+	public double getTraceSampleRate(){
+		return traceSampleRate;
+	}
+
+	/**
+	 * The time, in milliseconds, above which documents are traced, or 0 if only sampled documents are traced
+	 */
+	public int getTraceThreshold(){
+		return traceThreshold;
+	}
+
+	/**
+	 * Whether traces should include a span for each text block
+	 */
+	public boolean isTraceTextBlocks(){
+		return traceTextBlocks;
+	}
+
+	/**
+	 * The file to write traces to, or null to use the default
+	 */
+	public String getTraceFile(){
+		return traceFile;
+	}
+
+	/**
+	 * The size, in megabytes, at which the trace file is rolled
+	 */
+	public int getTraceMaxFileSize(){
+		return traceMaxFileSize;
+	}
+
+	/**
+	 * The number of trace files to keep
+	 */
+	public int getTraceMaxFiles(){
+		return traceMaxFiles;
+	}
+
+	private static ConsumerPolicy getConsumerPolicy(Map<String, Object> config){
+		Object o = config.get(CONSUMER_POLICY);
+		if(o == null)
+			return ConsumerPolicy.BLOCK;
+
+		String policy = o.toString().replaceAll("[_\\-\\s]", "");
+		for(ConsumerPolicy p : ConsumerPolicy.values()){
+			if(p.name().replace("_", "").equalsIgnoreCase(policy))
+				return p;
+		}
+
+		LOGGER.warn("Unknown consumer policy {} - consumers will block", o);
+		return ConsumerPolicy.BLOCK;
+	}
+
+	protected static int getInteger(Map<String, Object> config, String key, int defaultValue){
+		Object o = config.get(key);
+		if(o == null)
+			return defaultValue;
+
+		return ConfigUtils.stringToInteger(o.toString(), defaultValue);
+	}
+
+	protected static double getDouble(Map<String, Object> config, String key, double defaultValue){
+		Object o = config.get(key);
+		if(o == null)
+			return defaultValue;
+
+		try{
+			return Double.parseDouble(o.toString());
+		}catch(NumberFormatException nfe){
+			LOGGER.warn("Unable to parse {} value {} as a number - {} will be used", key, o, defaultValue);
+			return defaultValue;
+		}
+	}
+
+	protected static boolean getBoolean(Map<String, Object> config, String key, boolean defaultValue){
+		Object o = config.get(key);
+		if(o == null)
+			return defaultValue;
+
+		return Boolean.parseBoolean(o.toString());
+	}
+}
@@ -0,0 +1,195 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.pipelines;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.uima.resource.ExternalResourceDescription;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.impl.ResourceManager_impl;
+import org.apache.uima.resource.metadata.ExternalResourceBinding;
+import org.apache.uima.resource.metadata.ResourceManagerConfiguration;
+
+/**
+ * A UIMA resource manager for a single pipeline, which takes external resources from (and adds
+ * them to) a {@link SharedResourceRegistry} so that they can be shared with other pipelines.
+ * <p>
+ * Before UIMA creates the external resources for a component, any that are already held by the
+ * registry are registered with this resource manager, so that UIMA binds the component to the
+ * existing instance rather than creating a new one. Any resources UIMA does create are then added
+ * to the registry. Resources with a name in the set of pipeline scoped names (such as the history)
+ * are never shared.
+ * <p>
+ * The resources a component needs are reserved in the registry before UIMA creates them, so that the
+ * registry isn't locked whilst they are initialised. If another pipeline is already creating one of
+ * the resources, then this pipeline waits for it rather than creating its own. Resources are reserved
+ * in a consistent order, so that two pipelines can't each wait for a resource the other is creating.
+ * <p>
+ * The references held by the pipeline are returned to the registry by {@link #release()}, once the
+ * pipeline has finished with them.
+ */
+class SharedResourceManager extends ResourceManager_impl {
+	private final SharedResourceRegistry registry;
+	private final Set<String> pipelineScoped;
+
+	private final List<SharedResourceRegistry.Key> acquired = new ArrayList<>();
+	private boolean released = false;
+
+	/**
+	 * Constructor
+	 *
+	 * @param registry
+	 * 		The registry to share resources through
+	 * @param pipelineScoped
+	 * 		Names of resources which should not be shared
+	 * @throws ResourceInitializationException
+	 * 		If the extension class loader can not be configured
+	 */
+	SharedResourceManager(SharedResourceRegistry registry, Collection<String> pipelineScoped) throws ResourceInitializationException{
+		this.registry = registry;
+		this.pipelineScoped = new HashSet<>(pipelineScoped);
+
+		//As with uimaFIT's default resource manager, load classes through the context class loader
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		if(classLoader == null){
+			classLoader = SharedResourceManager.class.getClassLoader();
+		}
+
+		try{
+			setExtensionClassPath(classLoader, "", true);
+		}catch(MalformedURLException e){
+			throw new ResourceInitializationException(e);
+		}
+	}
+
+	@Override
+	public void initializeExternalResources(ResourceManagerConfiguration configuration, String qualifiedContextName,
+			Map<String, Object> additionalParams) throws ResourceInitializationException{
+		Map<String, SharedResourceRegistry.Key> keys = new LinkedHashMap<>();
+		for(ExternalResourceDescription description : configuration.getExternalResources()){
+			String name = description.getName();
+			if(pipelineScoped.contains(name) || isRegistered(name)){
+				continue;
+			}
+
+			SharedResourceRegistry.Key key = SharedResourceRegistry.Key.of(description, getExtensionClassLoader());
+			if(key != null){
+				keys.put(name, key);
+			}
+		}
+
+		List<ExternalResourceDescription> descriptions = new ArrayList<>(configuration.getExternalResources().length);
+		for(ExternalResourceDescription description : configuration.getExternalResources()){
+			if(keys.containsKey(description.getName())){
+				descriptions.add(description);
+			}
+		}
+		descriptions.sort(Comparator.comparing(d -> keys.get(d.getName()).toString()));
+
+		Map<String, SharedResourceRegistry.Key> reserved = new LinkedHashMap<>();
+		try{
+			for(ExternalResourceDescription description : descriptions){
+				String name = description.getName();
+				SharedResourceRegistry.Key key = keys.get(name);
+
+				Object existing = awaitShared(key);
+				if(existing != null){
+					register(name, key, new ResourceRegistration(existing, description, qualifiedContextName));
+				}else{
+					reserved.put(name, key);
+				}
+			}
+
+			super.initializeExternalResources(configuration, qualifiedContextName, additionalParams);
+
+			for(Map.Entry<String, SharedResourceRegistry.Key> e : reserved.entrySet()){
+				Object resource = getBoundResource(configuration, qualifiedContextName, e.getKey());
+				if(resource != null){
+					registry.register(e.getValue(), resource);
+					addAcquired(e.getValue());
+				}else{
+					registry.cancel(e.getValue());
+				}
+			}
+		}catch(ResourceInitializationException | RuntimeException e){
+			//Let any pipelines waiting on the resources we didn't create try for themselves
+			reserved.values().forEach(registry::cancel);
+			throw e;
+		}
+	}
+
+	/**
+	 * Reserve the resource in the registry, and wait for it if another pipeline is creating it
+	 *
+	 * @return the shared resource, or null if this pipeline should create it
+	 */
+	private Object awaitShared(SharedResourceRegistry.Key key) throws ResourceInitializationException{
+		CompletableFuture<Object> shared;
+		while((shared = registry.reserve(key)) != null){
+			try{
+				return shared.get();
+			}catch(CancellationException e){
+				//The pipeline creating the resource failed, so reserve it again
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				registry.release(key);
+				throw new ResourceInitializationException(e);
+			}catch(ExecutionException e){
+				registry.release(key);
+				throw new ResourceInitializationException(e.getCause());
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the resource UIMA created for the given name, via one of the bindings to it
+	 */
+	private Object getBoundResource(ResourceManagerConfiguration configuration, String qualifiedContextName, String name){
+		for(ExternalResourceBinding binding : configuration.getExternalResourceBindings()){
+			if(name.equals(binding.getResourceName())){
+				return mResourceMap.get(qualifiedContextName + binding.getKey());
+			}
+		}
+
+		return null;
+	}
+
+	private synchronized boolean isRegistered(String name){
+		return mInternalResourceRegistrationMap.containsKey(name);
+	}
+
+	private synchronized void register(String name, SharedResourceRegistry.Key key, ResourceRegistration registration){
+		mInternalResourceRegistrationMap.put(name, registration);
+		acquired.add(key);
+	}
+
+	private synchronized void addAcquired(SharedResourceRegistry.Key key){
+		acquired.add(key);
+	}
+
+	/**
+	 * Release the references this pipeline holds to shared resources. Resources no longer used by
+	 * any pipeline are destroyed.
+	 */
+	synchronized void release(){
+		if(released){
+			return;
+		}
+		released = true;
+
+		acquired.forEach(registry::release);
+		acquired.clear();
+	}
+}
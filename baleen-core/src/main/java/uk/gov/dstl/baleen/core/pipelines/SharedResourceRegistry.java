@@ -0,0 +1,303 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.pipelines;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.uima.fit.factory.ConfigurationParameterFactory;
+import org.apache.uima.fit.internal.ExtendedExternalResourceDescription_impl;
+import org.apache.uima.resource.CustomResourceSpecifier;
+import org.apache.uima.resource.ExternalResourceDescription;
+import org.apache.uima.resource.Parameter;
+import org.apache.uima.resource.Resource;
+import org.apache.uima.resource.ResourceSpecifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A JVM-wide, reference counted registry of external resources that can be shared between pipelines.
+ * <p>
+ * Within a pipeline, resources are shared by key. This registry extends that to all pipelines created by
+ * a {@link BaleenPipelineManager}, so that (for example) five pipelines using the same OpenNLP models,
+ * WordNet dictionary or stopword list load them once rather than five times.
+ * <p>
+ * Resources are identified by their key, their implementation class and the values of the configuration
+ * parameters the implementation class declares. Resources with the same key but different configuration
+ * are not shared. Each pipeline that uses a resource holds a reference to it, and the resource is destroyed
+ * once the last of those pipelines has finished.
+ * <p>
+ * Creating a resource can be slow, so a pipeline first {@link #reserve(Key)}s it and then creates it without
+ * holding a lock on the registry; other pipelines that need the same resource in the meantime wait for it,
+ * whilst pipelines creating other resources are unaffected.
+ * <p>
+ * A shared resource is only initialised once, by the first pipeline to use it, so anything it logs or records as
+ * metrics is reported under the name of that pipeline, even when it is being used by another.
+ */
+public class SharedResourceRegistry {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SharedResourceRegistry.class);
+
+	private static final SharedResourceRegistry INSTANCE = new SharedResourceRegistry();
+
+	private final Map<Key, Entry> resources = new HashMap<>();
+
+	/**
+	 * Get the registry shared by the whole JVM
+	 */
+	public static SharedResourceRegistry getInstance(){
+		return INSTANCE;
+	}
+
+	/**
+	 * Get a shared resource and take a reference to it, if it has already been registered
+	 *
+	 * @param key
+	 * 		The identity of the resource
+	 * @return
+	 * 		The shared resource, or null if there isn't one
+	 */
+	public synchronized Object acquire(Key key){
+		Entry entry = resources.get(key);
+		if(entry == null || !entry.resource.isDone()){
+			return null;
+		}
+
+		entry.references++;
+		LOGGER.debug("Sharing resource {} ({} references)", key.getName(), entry.references);
+		return entry.resource.getNow(null);
+	}
+
+	/**
+	 * Take a reference to a shared resource, which may still be being created by another pipeline. If there
+	 * is no such resource, then it is reserved for the caller, who must then create it and either
+	 * {@link #register(Key, Object)} it or, if it couldn't be created, {@link #cancel(Key)} the reservation.
+	 *
+	 * @param key
+	 * 		The identity of the resource
+	 * @return
+	 * 		A future that completes with the shared resource (or is cancelled if the pipeline creating it
+	 * 		fails, in which case the reference is no longer held), or null if the caller should create the resource
+	 */
+	public synchronized CompletableFuture<Object> reserve(Key key){
+		Entry entry = resources.get(key);
+		if(entry == null){
+			resources.put(key, new Entry(new CompletableFuture<>()));
+			LOGGER.debug("Reserved resource {}", key.getName());
+			return null;
+		}
+
+		entry.references++;
+		LOGGER.debug("Sharing resource {} ({} references)", key.getName(), entry.references);
+		return entry.resource;
+	}
+
+	/**
+	 * Register a newly created resource so that it can be shared, taking the first reference to it.
+	 * If a resource has already been registered with the same identity, then that resource is
+	 * left in place (and a reference to it is taken) instead.
+	 *
+	 * @param key
+	 * 		The identity of the resource
+	 * @param resource
+	 * 		The resource
+	 * @return
+	 * 		The registered resource
+	 */
+	public synchronized Object register(Key key, Object resource){
+		Entry entry = resources.get(key);
+		if(entry != null && !entry.resource.isDone()){
+			//Complete the reservation, whose reference is already held
+			entry.resource.complete(resource);
+			return resource;
+		}
+
+		Object existing = acquire(key);
+		if(existing != null){
+			return existing;
+		}
+
+		resources.put(key, new Entry(CompletableFuture.completedFuture(resource)));
+		return resource;
+	}
+
+	/**
+	 * Cancel the reservation of a resource that couldn't be created. Any other pipelines waiting for the
+	 * resource lose their reference to it, and should reserve it again.
+	 *
+	 * @param key
+	 * 		The identity of the resource
+	 */
+	public synchronized void cancel(Key key){
+		Entry entry = resources.get(key);
+		if(entry != null && !entry.resource.isDone()){
+			resources.remove(key);
+			entry.resource.cancel(false);
+		}
+	}
+
+	/**
+	 * Release a reference to a shared resource, destroying the resource if that was the last reference
+	 *
+	 * @param key
+	 * 		The identity of the resource
+	 */
+	public void release(Key key){
+		Object toDestroy;
+		synchronized(this){
+			Entry entry = resources.get(key);
+			if(entry == null){
+				LOGGER.warn("Attempted to release resource {} which isn't registered", key.getName());
+				return;
+			}
+
+			entry.references--;
+			if(entry.references > 0 || !entry.resource.isDone()){
+				return;
+			}
+
+			resources.remove(key);
+			toDestroy = entry.resource.getNow(null);
+		}
+
+		LOGGER.debug("Destroying shared resource {} as it is no longer in use", key.getName());
+		if(toDestroy instanceof Resource){
+			try{
+				((Resource) toDestroy).destroy();
+			}catch(Exception e){
+				LOGGER.warn("Error destroying shared resource {}", key.getName(), e);
+			}
+		}
+	}
+
+	/**
+	 * Get the number of references held to a shared resource, or 0 if it isn't registered
+	 */
+	public synchronized int getReferenceCount(Key key){
+		Entry entry = resources.get(key);
+		return entry == null ? 0 : entry.references;
+	}
+
+	/**
+	 * Get the number of shared resources currently registered
+	 */
+	public synchronized int size(){
+		return resources.size();
+	}
+
+	/**
+	 * The identity of a shared resource
+	 */
+	public static final class Key {
+		private final String name;
+		private final String className;
+		private final SortedMap<String, String> parameters;
+
+		private Key(String name, String className, SortedMap<String, String> parameters){
+			this.name = name;
+			this.className = className;
+			this.parameters = Collections.unmodifiableSortedMap(parameters);
+		}
+
+		/**
+		 * Create the identity of the resource described by an external resource description.
+		 * Only resources implemented by a class (as created by uimaFIT) without any nested resources
+		 * can be shared.
+		 *
+		 * @param description
+		 * 		The resource description
+		 * @param classLoader
+		 * 		The class loader to load the resource implementation with
+		 * @return
+		 * 		The identity of the resource, or null if the resource can't be shared
+		 */
+		public static Key of(ExternalResourceDescription description, ClassLoader classLoader){
+			if(description instanceof ExtendedExternalResourceDescription_impl
+					&& !((ExtendedExternalResourceDescription_impl) description).getExternalResources().isEmpty()){
+				return null;
+			}
+
+			ResourceSpecifier specifier = description.getResourceSpecifier();
+			if(!(specifier instanceof CustomResourceSpecifier)){
+				return null;
+			}
+
+			CustomResourceSpecifier custom = (CustomResourceSpecifier) specifier;
+			Class<?> clazz;
+			try{
+				clazz = Class.forName(custom.getResourceClassName(), false, classLoader);
+			}catch(ClassNotFoundException | LinkageError e){
+				LOGGER.debug("Unable to load resource class {} - resource won't be shared", custom.getResourceClassName(), e);
+				return null;
+			}
+
+			//Only the parameters the resource declares affect it, so ignore the rest of the global configuration
+			Set<String> declared = new HashSet<>();
+			Class<?> c = clazz;
+			while(c != null && c != Object.class){
+				for(Field f : c.getDeclaredFields()){
+					if(ConfigurationParameterFactory.isConfigurationParameterField(f)){
+						declared.add(ConfigurationParameterFactory.getConfigurationParameterName(f));
+					}
+				}
+				c = c.getSuperclass();
+			}
+
+			SortedMap<String, String> parameters = new TreeMap<>();
+			if(custom.getParameters() != null){
+				for(Parameter p : custom.getParameters()){
+					if(declared.contains(p.getName())){
+						parameters.put(p.getName(), p.getValue());
+					}
+				}
+			}
+
+			return new Key(description.getName(), custom.getResourceClassName(), parameters);
+		}
+
+		/**
+		 * The key the resource is registered under
+		 */
+		public String getName(){
+			return name;
+		}
+
+		@Override
+		public boolean equals(Object o){
+			if(this == o){
+				return true;
+			}
+			if(o == null || getClass() != o.getClass()){
+				return false;
+			}
+
+			Key other = (Key) o;
+			return name.equals(other.name) && className.equals(other.className) && parameters.equals(other.parameters);
+		}
+
+		@Override
+		public int hashCode(){
+			return Objects.hash(name, className, parameters);
+		}
+
+		@Override
+		public String toString(){
+			return name + " (" + className + ") " + parameters;
+		}
+	}
+
+	private static class Entry {
+		private final CompletableFuture<Object> resource;
+		private int references = 1;
+
+		Entry(CompletableFuture<Object> resource){
+			this.resource = resource;
+		}
+	}
+}
@@ -16,7 +16,7 @@ import java.util.Map;
 public class AnalysisEngineActionStore {
 	private static final AnalysisEngineActionStore INSTANCE = new AnalysisEngineActionStore();
 	
-	private Map<String, AnalysisEngineAction> store = new HashMap<>();
+	private Map<String, AnalysisEngineAction> store = Collections.synchronizedMap(new HashMap<>());
 	
 	private AnalysisEngineActionStore(){
 		// Private constructor
@@ -50,8 +50,9 @@ public class AnalysisEngineActionStore {
 	 * empty AnalysisEngineAction is returned.
 	 */
 	public AnalysisEngineAction get(String uuid){
-		if(store.containsKey(uuid))
-			return store.get(uuid);
+		AnalysisEngineAction action = store.get(uuid);
+		if(action != null)
+			return action;
 		
 		return new AnalysisEngineAction(Collections.emptySet(), Collections.emptySet());	
 	}
@@ -1,7 +1,9 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.core.pipelines.orderers;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.apache.uima.analysis_engine.AnalysisEngine;
 
@@ -22,4 +24,24 @@ public interface IPipelineOrderer {
 	 * 		Ordered list of analysis engines
 	 */
 	public List<AnalysisEngine> orderPipeline(List<AnalysisEngine> analysisEngines);
+	
+	/**
+	 * Order a list of analysis engines into layers, where the analysis engines within a
+	 * layer are independent of each other (and so could be run at the same time), but
+	 * depend on analysis engines in the previous layers.
+	 * 
+	 * By default, each analysis engine is placed in its own layer, in the order given
+	 * by {@link #orderPipeline(List)}.
+	 * 
+	 * @param analysisEngines
+	 * 		List of analysis engines to order
+	 * 
+	 * @return
+	 * 		Ordered list of layers, each containing one or more analysis engines
+	 */
+	public default List<List<AnalysisEngine>> orderPipelineLayers(List<AnalysisEngine> analysisEngines){
+		return orderPipeline(analysisEngines).stream()
+				.map(Collections::singletonList)
+				.collect(Collectors.toList());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.tracing;
+
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.jcas.JCas;
+
+/**
+ * The spans recorded whilst a single document was processed by a pipeline. The root span covers
+ * the whole of the processing, from the collection reader through to the last consumer, and has a
+ * child span for the reader and for each annotator and consumer.
+ * <p>
+ * Spans started through this class record the size of their input, and the number of annotations
+ * in the document before and after they ran.
+ */
+public class DocumentTrace {
+	/** Span argument holding the size, in characters, of the input to a span */
+	public static final String INPUT_SIZE = "inputSize";
+	/** Span argument holding the number of annotations before a span started */
+	public static final String ANNOTATIONS_BEFORE = "annotationsBefore";
+	/** Span argument holding the number of annotations after a span ended */
+	public static final String ANNOTATIONS_AFTER = "annotationsAfter";
+	/** Span argument holding the length of the document */
+	public static final String DOCUMENT_LENGTH = "documentLength";
+	/** Span argument holding the source URI of the document */
+	public static final String SOURCE_URI = "sourceUri";
+
+	private final String pipelineName;
+	private final long sequence;
+	private final boolean sampled;
+	private final boolean tracingTextBlocks;
+	private final Span root;
+
+	/**
+	 * Constructor, which starts the root span
+	 *
+	 * @param pipelineName
+	 *            The name of the pipeline processing the document
+	 * @param sequence
+	 *            The number of the document within the pipeline
+	 * @param sampled
+	 *            Whether the trace has been sampled, and so should be kept however quickly the document is
+	 *            processed
+	 * @param tracingTextBlocks
+	 *            Whether annotators should record a span for each text block they process
+	 */
+	public DocumentTrace(String pipelineName, long sequence, boolean sampled, boolean tracingTextBlocks){
+		this.pipelineName = pipelineName;
+		this.sequence = sequence;
+		this.sampled = sampled;
+		this.tracingTextBlocks = tracingTextBlocks;
+		this.root = new Span(this, pipelineName, "document");
+	}
+
+	/**
+	 * Start (and activate) a child span of the root span
+	 *
+	 * @param name
+	 *            The name of the span
+	 * @param category
+	 *            The category of the span
+	 * @param jCas
+	 *            The document being processed, used to count annotations
+	 * @return the new span
+	 */
+	public Span startSpan(String name, String category, JCas jCas){
+		return startSpan(root, name, category, jCas, getDocumentLength(jCas));
+	}
+
+	/**
+	 * Start (and activate) a span
+	 *
+	 * @param parent
+	 *            The parent of the span
+	 * @param name
+	 *            The name of the span
+	 * @param category
+	 *            The category of the span
+	 * @param jCas
+	 *            The document being processed, used to count annotations. May be null.
+	 * @param inputSize
+	 *            The size of the input to the span, in characters
+	 * @return the new span
+	 */
+	public Span startSpan(Span parent, String name, String category, JCas jCas, int inputSize){
+		Span span = parent.startChild(name, category);
+		span.setArg(INPUT_SIZE, inputSize);
+		if(jCas != null){
+			span.setArg(ANNOTATIONS_BEFORE, countAnnotations(jCas));
+		}
+		return span.activate();
+	}
+
+	/**
+	 * End (and deactivate) a span started by this trace
+	 *
+	 * @param span
+	 *            The span to end
+	 * @param jCas
+	 *            The document being processed, used to count annotations. May be null.
+	 */
+	public void endSpan(Span span, JCas jCas){
+		span.end();
+		span.deactivate();
+		if(jCas != null){
+			span.setArg(ANNOTATIONS_AFTER, countAnnotations(jCas));
+		}
+	}
+
+	/**
+	 * Record details of the document, once it has been read, on the root span
+	 */
+	public void describe(JCas jCas){
+		root.setArg(DOCUMENT_LENGTH, getDocumentLength(jCas));
+
+		FeatureStructure documentAnnotation = jCas.getDocumentAnnotationFs();
+		if(documentAnnotation == null){
+			return;
+		}
+
+		Feature sourceUri = documentAnnotation.getType().getFeatureByBaseName(SOURCE_URI);
+		if(sourceUri != null && sourceUri.getRange().isPrimitive()){
+			String uri = documentAnnotation.getFeatureValueAsString(sourceUri);
+			if(uri != null){
+				root.setArg(SOURCE_URI, uri);
+			}
+		}
+	}
+
+	/**
+	 * The name of the pipeline processing the document
+	 */
+	public String getPipelineName(){
+		return pipelineName;
+	}
+
+	/**
+	 * The number of the document within the pipeline
+	 */
+	public long getSequence(){
+		return sequence;
+	}
+
+	/**
+	 * Whether the trace was sampled, rather than recorded in case the document was slow
+	 */
+	public boolean isSampled(){
+		return sampled;
+	}
+
+	/**
+	 * Whether annotators should record a span for each text block they process
+	 */
+	public boolean isTracingTextBlocks(){
+		return tracingTextBlocks;
+	}
+
+	/**
+	 * The span covering the whole of the processing of the document
+	 */
+	public Span getRoot(){
+		return root;
+	}
+
+	private static int getDocumentLength(JCas jCas){
+		String text = jCas.getDocumentText();
+		return text == null ? 0 : text.length();
+	}
+
+	private static int countAnnotations(JCas jCas){
+		return jCas.getAnnotationIndex().size();
+	}
+}
@@ -0,0 +1,200 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.tracing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes document traces to a local file in the Chrome trace event (JSON array) format, which can be
+ * loaded into chrome://tracing or Perfetto. Each document is shown as its own process, named after the
+ * pipeline and the document, with one complete event per span.
+ * <p>
+ * Once the file has grown beyond the maximum size it is closed and moved to <i>name.1.json</i> (moving any
+ * existing rolled files along, and deleting the oldest), and a new file is started. An existing file is rolled
+ * in the same way when the writer is first used. The JSON array is closed when a file is rolled or the writer
+ * is closed; the trace viewers accept the array being left open, so the current file can be loaded at any time.
+ */
+class RollingTraceWriter {
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final File file;
+	private final long maxFileSize;
+	private final int maxFiles;
+	private final long baseMicros;
+	private final long baseNanos;
+
+	private Writer writer;
+	private long written;
+	private boolean empty;
+
+	/**
+	 * Constructor
+	 *
+	 * @param file
+	 *            The file to write to
+	 * @param maxFileSize
+	 *            The size in bytes at which the file is rolled
+	 * @param maxFiles
+	 *            The maximum number of files (including the current file) to keep
+	 */
+	RollingTraceWriter(File file, long maxFileSize, int maxFiles){
+		this.file = file;
+		this.maxFileSize = maxFileSize;
+		this.maxFiles = Math.max(1, maxFiles);
+
+		//Chrome traces use microsecond timestamps, so convert span times relative to the wall clock
+		this.baseMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+		this.baseNanos = System.nanoTime();
+	}
+
+	/**
+	 * Write a trace
+	 */
+	synchronized void write(DocumentTrace trace) throws IOException{
+		if(writer == null){
+			open();
+		}
+
+		for(Map<String, Object> event : toEvents(trace)){
+			String json = MAPPER.writeValueAsString(event);
+			String line = (empty ? "" : ",\n") + json;
+
+			writer.write(line);
+			written += line.length();
+			empty = false;
+		}
+		writer.flush();
+
+		if(written >= maxFileSize){
+			close();
+			roll();
+		}
+	}
+
+	/**
+	 * Close the current file, if one is open
+	 */
+	synchronized void close() throws IOException{
+		if(writer == null){
+			return;
+		}
+
+		try{
+			writer.write("\n]\n");
+		}finally{
+			writer.close();
+			writer = null;
+		}
+	}
+
+	/**
+	 * The file for the given index, where 0 is the current file
+	 */
+	File getFile(int index){
+		if(index == 0){
+			return file;
+		}
+
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		String rolled = dot > 0 ? name.substring(0, dot) + "." + index + name.substring(dot) : name + "." + index;
+
+		return new File(file.getAbsoluteFile().getParentFile(), rolled);
+	}
+
+	private void open() throws IOException{
+		File parent = file.getAbsoluteFile().getParentFile();
+		if(parent != null){
+			Files.createDirectories(parent.toPath());
+		}
+
+		if(file.exists() && file.length() > 0){
+			roll();
+		}
+
+		writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		writer.write("[\n");
+		written = 2;
+		empty = true;
+	}
+
+	private void roll() throws IOException{
+		Files.deleteIfExists(getFile(maxFiles - 1).toPath());
+		for(int i = maxFiles - 2; i >= 0; i--){
+			File f = getFile(i);
+			if(f.exists()){
+				Files.move(f.toPath(), getFile(i + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	private List<Map<String, Object>> toEvents(DocumentTrace trace){
+		List<Map<String, Object>> events = new ArrayList<>();
+		long pid = trace.getSequence();
+
+		String processName = trace.getPipelineName() + " document " + trace.getSequence();
+		Object sourceUri = trace.getRoot().getArgs().get(DocumentTrace.SOURCE_URI);
+		if(sourceUri != null){
+			processName += " (" + sourceUri + ")";
+		}
+		events.add(metadata("process_name", pid, 0, processName));
+
+		Set<Long> threads = new HashSet<>();
+		addEvents(events, threads, pid, trace.getRoot());
+
+		return events;
+	}
+
+	private void addEvents(List<Map<String, Object>> events, Set<Long> threads, long pid, Span span){
+		if(threads.add(span.getThreadId())){
+			events.add(metadata("thread_name", pid, span.getThreadId(), span.getThreadName()));
+		}
+
+		Map<String, Object> event = new LinkedHashMap<>();
+		event.put("name", span.getName());
+		event.put("cat", span.getCategory());
+		event.put("ph", "X");
+		event.put("ts", toMicros(span.getStartNanos() - baseNanos) + baseMicros);
+		event.put("dur", toMicros(span.getDurationNanos()));
+		event.put("pid", pid);
+		event.put("tid", span.getThreadId());
+		event.put("args", span.getArgs());
+		events.add(event);
+
+		for(Span child : span.getChildren()){
+			addEvents(events, threads, pid, child);
+		}
+	}
+
+	private static Map<String, Object> metadata(String name, long pid, long tid, String value){
+		Map<String, Object> args = new LinkedHashMap<>();
+		args.put("name", value);
+
+		Map<String, Object> event = new LinkedHashMap<>();
+		event.put("name", name);
+		event.put("ph", "M");
+		event.put("pid", pid);
+		event.put("tid", tid);
+		event.put("args", args);
+		return event;
+	}
+
+	private static double toMicros(long nanos){
+		return nanos / 1000.0;
+	}
+}
@@ -0,0 +1,184 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A timed section of the processing of a single document, such as an annotator running over it. Spans form a
+ * tree, rooted at the {@link DocumentTrace#getRoot() root span} of the document, and each carries a set of
+ * arguments (such as input sizes and annotation counts) describing what it did.
+ * <p>
+ * Each thread can have one active span, which is used by components that want to add detail (for example,
+ * one span per text block) to the span the pipeline has started for them.
+ */
+public class Span {
+	private static final ThreadLocal<Span> ACTIVE = new ThreadLocal<>();
+
+	private final DocumentTrace trace;
+	private final String name;
+	private final String category;
+	private final long start;
+	private final long threadId;
+	private final String threadName;
+	private final Map<String, Object> args = Collections.synchronizedMap(new LinkedHashMap<>());
+	private final List<Span> children = Collections.synchronizedList(new ArrayList<>());
+
+	private volatile long end = -1;
+	private Span previous;
+
+	Span(DocumentTrace trace, String name, String category){
+		this.trace = trace;
+		this.name = name;
+		this.category = category;
+		this.start = System.nanoTime();
+
+		Thread thread = Thread.currentThread();
+		this.threadId = thread.getId();
+		this.threadName = thread.getName();
+	}
+
+	/**
+	 * Get the span that is active on the current thread
+	 *
+	 * @return the active span, or null if the current thread isn't processing a traced document
+	 */
+	public static Span active(){
+		return ACTIVE.get();
+	}
+
+	/**
+	 * Start a new child of this span, on the current thread
+	 *
+	 * @param name
+	 *            The name of the child, such as the name of the annotator
+	 * @param category
+	 *            The category of the child, such as <i>annotator</i>
+	 * @return the child span
+	 */
+	public Span startChild(String name, String category){
+		Span child = new Span(trace, name, category);
+		children.add(child);
+		return child;
+	}
+
+	/**
+	 * Set an argument describing this span, replacing any existing value
+	 *
+	 * @return this span
+	 */
+	public Span setArg(String key, Object value){
+		args.put(key, value);
+		return this;
+	}
+
+	/**
+	 * Make this the active span of the current thread, until {@link #deactivate()} is called
+	 *
+	 * @return this span
+	 */
+	public Span activate(){
+		previous = ACTIVE.get();
+		ACTIVE.set(this);
+		return this;
+	}
+
+	/**
+	 * Restore the span that was active on the current thread before {@link #activate()} was called
+	 */
+	public void deactivate(){
+		if(previous == null){
+			ACTIVE.remove();
+		}else{
+			ACTIVE.set(previous);
+		}
+		previous = null;
+	}
+
+	/**
+	 * Mark this span as finished. Subsequent calls have no effect.
+	 */
+	public void end(){
+		if(end < 0){
+			end = System.nanoTime();
+		}
+	}
+
+	/**
+	 * The trace this span belongs to
+	 */
+	public DocumentTrace getTrace(){
+		return trace;
+	}
+
+	/**
+	 * The name of the span
+	 */
+	public String getName(){
+		return name;
+	}
+
+	/**
+	 * The category of the span
+	 */
+	public String getCategory(){
+		return category;
+	}
+
+	/**
+	 * The value of {@link System#nanoTime()} when the span started
+	 */
+	public long getStartNanos(){
+		return start;
+	}
+
+	/**
+	 * How long the span took in nanoseconds, or how long it has taken so far if it hasn't ended
+	 */
+	public long getDurationNanos(){
+		long e = end;
+		return (e < 0 ? System.nanoTime() : e) - start;
+	}
+
+	/**
+	 * Whether the span has ended
+	 */
+	public boolean isEnded(){
+		return end >= 0;
+	}
+
+	/**
+	 * The id of the thread the span was started on
+	 */
+	public long getThreadId(){
+		return threadId;
+	}
+
+	/**
+	 * The name of the thread the span was started on
+	 */
+	public String getThreadName(){
+		return threadName;
+	}
+
+	/**
+	 * A copy of the arguments of the span
+	 */
+	public Map<String, Object> getArgs(){
+		synchronized(args){
+			return new LinkedHashMap<>(args);
+		}
+	}
+
+	/**
+	 * A copy of the children of the span, in the order they were started
+	 */
+	public List<Span> getChildren(){
+		synchronized(children){
+			return new ArrayList<>(children);
+		}
+	}
+}
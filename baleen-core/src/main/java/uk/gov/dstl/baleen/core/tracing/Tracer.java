@@ -0,0 +1,200 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.tracing;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.uima.jcas.JCas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
+
+/**
+ * Records a {@link DocumentTrace} for the documents processed by a pipeline, and writes the interesting
+ * ones to a rolling local file in the Chrome trace format (see {@link RollingTraceWriter}).
+ * <p>
+ * Traces are kept either because the document was sampled (each document is sampled with the configured
+ * probability), or because processing the document took at least the configured threshold. If a threshold
+ * is configured then every document has to be traced, in case it turns out to be slow, but the cost of this
+ * is a handful of calls to {@link System#nanoTime()} and annotation counts per annotator. If neither is
+ * configured then tracing is disabled, and no traces are recorded.
+ * <p>
+ * Whilst a document is being processed, its trace is held against the JCas it is in. Pipelines that move
+ * documents between JCas objects should {@link #transfer(JCas, JCas)} the trace.
+ */
+public class Tracer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(Tracer.class);
+
+	private final String pipelineName;
+	private final double sampleRate;
+	private final long thresholdNanos;
+	private final boolean tracingTextBlocks;
+	private final RollingTraceWriter writer;
+
+	private final AtomicLong sequence = new AtomicLong();
+	private final Map<JCas, DocumentTrace> traces = Collections.synchronizedMap(new IdentityHashMap<>());
+	private final Counter written;
+
+	/**
+	 * Constructor
+	 *
+	 * @param pipelineName
+	 *            The name of the pipeline
+	 * @param sampleRate
+	 *            The probability, between 0 and 1, that a document is traced
+	 * @param thresholdMillis
+	 *            Documents that take at least this many milliseconds to process are traced. If 0 or less,
+	 *            documents are only traced if they are sampled.
+	 * @param tracingTextBlocks
+	 *            Whether annotators should record a span for each text block they process
+	 * @param file
+	 *            The file to write traces to
+	 * @param maxFileSize
+	 *            The size in bytes at which the file is rolled
+	 * @param maxFiles
+	 *            The number of trace files to keep
+	 */
+	public Tracer(String pipelineName, double sampleRate, long thresholdMillis, boolean tracingTextBlocks, File file,
+			long maxFileSize, int maxFiles){
+		this.pipelineName = pipelineName;
+		this.sampleRate = Math.min(1.0, Math.max(0.0, sampleRate));
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMillis));
+		this.tracingTextBlocks = tracingTextBlocks;
+
+		if(isEnabled()){
+			this.writer = new RollingTraceWriter(file, maxFileSize, maxFiles);
+			this.written = MetricsFactory.getMetrics(pipelineName, Tracer.class).getCounter("written");
+			LOGGER.info("Tracing documents on {} to {}", pipelineName, file.getAbsolutePath());
+		}else{
+			this.writer = null;
+			this.written = null;
+		}
+	}
+
+	/**
+	 * Create a tracer which doesn't trace any documents
+	 */
+	public static Tracer disabled(String pipelineName){
+		return new Tracer(pipelineName, 0.0, 0, false, null, 0, 0);
+	}
+
+	/**
+	 * Whether any documents will be traced
+	 */
+	public boolean isEnabled(){
+		return sampleRate > 0.0 || thresholdNanos > 0;
+	}
+
+	/**
+	 * Start tracing a new document, which is about to be read into the given JCas. This replaces any
+	 * trace still held against the JCas.
+	 *
+	 * @return the trace, or null if the document isn't being traced
+	 */
+	public DocumentTrace begin(JCas jCas){
+		if(!isEnabled()){
+			return null;
+		}
+
+		long number = sequence.incrementAndGet();
+		boolean sampled = sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+		if(!sampled && thresholdNanos <= 0){
+			traces.remove(jCas);
+			return null;
+		}
+
+		DocumentTrace trace = new DocumentTrace(pipelineName, number, sampled, tracingTextBlocks);
+		traces.put(jCas, trace);
+		return trace;
+	}
+
+	/**
+	 * Get the trace of the document in the given JCas
+	 *
+	 * @return the trace, or null if the document isn't being traced
+	 */
+	public DocumentTrace get(JCas jCas){
+		if(!isEnabled()){
+			return null;
+		}
+
+		return traces.get(jCas);
+	}
+
+	/**
+	 * Move the trace of a document that has been copied into another JCas
+	 */
+	public void transfer(JCas from, JCas to){
+		if(!isEnabled()){
+			return;
+		}
+
+		DocumentTrace trace = traces.remove(from);
+		if(trace != null){
+			traces.put(to, trace);
+		}
+	}
+
+	/**
+	 * Finish tracing the document in the given JCas, writing the trace if it was sampled or was slower than
+	 * the threshold
+	 */
+	public void finish(JCas jCas){
+		if(!isEnabled()){
+			return;
+		}
+
+		DocumentTrace trace = traces.remove(jCas);
+		if(trace == null){
+			return;
+		}
+
+		Span root = trace.getRoot();
+		root.end();
+		if(!trace.isSampled() && (thresholdNanos <= 0 || root.getDurationNanos() < thresholdNanos)){
+			return;
+		}
+
+		try{
+			writer.write(trace);
+			written.inc();
+		}catch(IOException e){
+			LOGGER.warn("Unable to write trace of document {} on {}", trace.getSequence(), pipelineName, e);
+		}
+	}
+
+	/**
+	 * Stop tracing the document in the given JCas, without writing the trace (for instance, because the document
+	 * could not be processed)
+	 */
+	public void discard(JCas jCas){
+		if(isEnabled()){
+			traces.remove(jCas);
+		}
+	}
+
+	/**
+	 * Close the trace file. Further traces will be written to a new file.
+	 */
+	public void close(){
+		if(!isEnabled()){
+			return;
+		}
+
+		traces.clear();
+		try{
+			writer.close();
+		}catch(IOException e){
+			LOGGER.warn("Unable to close trace file for {}", pipelineName, e);
+		}
+	}
+}
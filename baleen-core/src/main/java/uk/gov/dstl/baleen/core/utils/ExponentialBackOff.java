@@ -0,0 +1,76 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An exponential back-off policy, for components that have to repeatedly poll for something (such as new documents)
+ * and want to do so less often the longer they wait.
+ * <p>
+ * The first delay is the initial delay, and each subsequent delay is the previous one multiplied by the multiplier, up
+ * to the maximum delay. Calling {@link #reset()} (for instance, once something has been found) returns the delay to the
+ * initial delay.
+ * <p>
+ * This class is not thread safe.
+ */
+public class ExponentialBackOff {
+	private final long initialDelay;
+	private final long maxDelay;
+	private final double multiplier;
+
+	private long nextDelay;
+
+	/**
+	 * Constructor
+	 *
+	 * @param initialDelay
+	 *            The first delay, in milliseconds
+	 * @param maxDelay
+	 *            The longest delay, in milliseconds
+	 * @param multiplier
+	 *            The amount to multiply the delay by each time; values less than 1 are treated as 1 (i.e. a constant
+	 *            delay)
+	 */
+	public ExponentialBackOff(long initialDelay, long maxDelay, double multiplier) {
+		this.initialDelay = Math.max(1, initialDelay);
+		this.maxDelay = Math.max(this.initialDelay, maxDelay);
+		this.multiplier = Math.max(1.0, multiplier);
+
+		this.nextDelay = this.initialDelay;
+	}
+
+	/**
+	 * Get the next delay, in milliseconds, and increase the delay for the following call
+	 */
+	public long nextDelay() {
+		long delay = nextDelay;
+		nextDelay = Math.min(maxDelay, (long) Math.ceil(nextDelay * multiplier));
+		return delay;
+	}
+
+	/**
+	 * Return the delay to the initial delay
+	 */
+	public void reset() {
+		nextDelay = initialDelay;
+	}
+
+	/**
+	 * Sleep for the next delay, but no longer than the given limit
+	 *
+	 * @param limit
+	 *            The longest time to sleep for
+	 * @param unit
+	 *            The unit of limit
+	 * @return the number of milliseconds slept for
+	 * @throws InterruptedException
+	 *             if interrupted whilst sleeping
+	 */
+	public long sleep(long limit, TimeUnit unit) throws InterruptedException {
+		long delay = Math.min(nextDelay(), unit.toMillis(limit));
+		if (delay > 0) {
+			Thread.sleep(delay);
+		}
+		return Math.max(0, delay);
+	}
+}
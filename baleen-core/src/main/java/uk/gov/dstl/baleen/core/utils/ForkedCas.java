@@ -0,0 +1,504 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.uima.cas.ArrayFS;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CommonArrayFS;
+import org.apache.uima.cas.FSIndexRepository;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.util.CasCopier;
+
+/**
+ * A private copy of a JCas, which an analysis engine can be run against whilst other analysis engines
+ * are working on the original JCas. Once the analysis engine has finished, the changes it made to the
+ * indexes of the copy can be joined back into the original JCas.
+ * <p>
+ * Annotations (and any feature structures they reference) that were added to the indexes of the copy are
+ * added to the original, and annotations that were removed from the indexes of the copy are removed from
+ * the original. Changes to the features of the document annotation are also copied back. Changes to the
+ * features of any other pre-existing feature structures are not. Before joining, {@link #findConflicts()}
+ * can be used to check whether the fork made any changes that can't be joined safely, in which case the
+ * fork should be discarded and the analysis engine run against the original instead.
+ * <p>
+ * A fork can also be made of a range of the document, in which case the copy only contains the text of
+ * the range and the annotations within it, with their offsets shifted to be relative to the start of the
+ * range. The offsets of annotations added to the copy are shifted back when it is joined. Annotations outside
+ * the range which are referenced from within it are copied, but their offsets are not shifted.
+ * <p>
+ * The copy must use the same type system as the original. Only the initial view is copied.
+ */
+public class ForkedCas {
+	private final JCas original;
+	private final JCas copy;
+	private final boolean range;
+	private final int offset;
+
+	private final Map<Integer, FeatureStructure> copyToOriginal = new HashMap<>();
+	private final Set<Integer> indexedCopies = new HashSet<>();
+	private final Map<Integer, Long> signatures = new HashMap<>();
+	private int documentCopy;
+
+	private ForkedCas(JCas original, JCas copy, boolean range, int offset){
+		this.original = original;
+		this.copy = copy;
+		this.range = range;
+		this.offset = offset;
+	}
+
+	/**
+	 * Copy the indexed content of original into copy, which should be empty
+	 *
+	 * @param original
+	 * 		The JCas to fork
+	 * @param copy
+	 * 		An empty JCas, using the same type system as the original
+	 * @return
+	 * 		The fork, which can be joined back into the original once processed
+	 */
+	public static ForkedCas fork(JCas original, JCas copy){
+		ForkedCas fork = new ForkedCas(original, copy, false, 0);
+		fork.copyIndexed(original.getDocumentText(), getAllIndexedFS(original.getCas()));
+		return fork;
+	}
+
+	/**
+	 * Copy the text between begin and end, and the annotations covered by it, into copy, which should be empty
+	 *
+	 * @param original
+	 * 		The JCas to fork
+	 * @param begin
+	 * 		The start of the range to copy
+	 * @param end
+	 * 		The end of the range to copy
+	 * @param copy
+	 * 		An empty JCas, using the same type system as the original
+	 * @return
+	 * 		The fork, which can be joined back into the original once processed
+	 */
+	public static ForkedCas fork(JCas original, int begin, int end, JCas copy){
+		ForkedCas fork = new ForkedCas(original, copy, true, begin);
+
+		List<FeatureStructure> covered = new ArrayList<>(JCasUtil.selectCovered(original, Annotation.class, begin, end));
+		fork.copyIndexed(original.getDocumentText().substring(begin, end), covered);
+		return fork;
+	}
+
+	private void copyIndexed(String text, List<FeatureStructure> indexed){
+		CAS src = original.getCas();
+		CAS dest = copy.getCas();
+
+		dest.setDocumentText(text);
+		dest.setDocumentLanguage(src.getDocumentLanguage());
+
+		CasCopier copier = new CasCopier(src, dest);
+
+		FeatureStructure srcDocument = src.getDocumentAnnotation();
+		FeatureStructure destDocument = dest.getDocumentAnnotation();
+		copyFeatures(srcDocument, destDocument, fs -> copy(copier, fs), range);
+		copyToOriginal.put(address(destDocument), srcDocument);
+		indexedCopies.add(address(destDocument));
+
+		for(FeatureStructure fs : indexed){
+			if(fs.equals(srcDocument)){
+				continue;
+			}
+
+			FeatureStructure fsCopy = copier.copyFs(fs);
+			int address = address(fsCopy);
+			copyToOriginal.put(address, fs);
+			if(indexedCopies.add(address)){
+				//Offsets must be shifted before the copy is indexed
+				shift(fsCopy, -offset);
+				dest.addFsToIndexes(fsCopy);
+			}
+		}
+
+		//Also map feature structures that were copied because they are referenced
+		for(Map.Entry<Integer, FeatureStructure> e : new ArrayList<>(copyToOriginal.entrySet())){
+			registerReferences(dest.getLowLevelCAS().ll_getFSForRef(e.getKey()), e.getValue());
+		}
+
+		documentCopy = address(destDocument);
+		for(Integer address : copyToOriginal.keySet()){
+			if(address != documentCopy){
+				signatures.put(address, signature(dest.getLowLevelCAS().ll_getFSForRef(address)));
+			}
+		}
+	}
+
+	/**
+	 * Map the copies of the feature structures referenced (directly or indirectly) from a copy to their originals
+	 */
+	private void registerReferences(FeatureStructure fsCopy, FeatureStructure fs){
+		Deque<FeatureStructure[]> pending = new ArrayDeque<>();
+		pending.push(new FeatureStructure[]{fsCopy, fs});
+
+		while(!pending.isEmpty()){
+			FeatureStructure[] pair = pending.pop();
+			List<FeatureStructure> copyRefs = getReferences(pair[0]);
+			List<FeatureStructure> refs = getReferences(pair[1]);
+			for(int i = 0; i < copyRefs.size(); i++){
+				FeatureStructure refCopy = copyRefs.get(i);
+				FeatureStructure ref = refs.get(i);
+				if(refCopy != null && ref != null && copyToOriginal.putIfAbsent(address(refCopy), ref) == null){
+					pending.push(new FeatureStructure[]{refCopy, ref});
+				}
+			}
+		}
+	}
+
+	private FeatureStructure copy(CasCopier copier, FeatureStructure fs){
+		if(fs == null){
+			return null;
+		}
+
+		FeatureStructure fsCopy = copier.copyFs(fs);
+		copyToOriginal.put(address(fsCopy), fs);
+		return fsCopy;
+	}
+
+	/**
+	 * Get the copy, which the analysis engine should be run against
+	 */
+	public JCas getCopy(){
+		return copy;
+	}
+
+	/**
+	 * Find any changes made to the copy which would be lost or would leave the original inconsistent if the
+	 * fork was joined, given the current state of the original. These are:
+	 * <ul>
+	 * <li>changes to the features of feature structures that existed when the fork was taken (other than the
+	 * document annotation), which aren't joined;</li>
+	 * <li>additions that reference a feature structure that has since been removed from the original;</li>
+	 * <li>removals of a feature structure that is referenced by something in the original that the fork didn't
+	 * see, such as an annotation added since the fork was taken.</li>
+	 * </ul>
+	 * This must only be called once processing of both the original and the copy has finished, and before
+	 * the fork is joined.
+	 *
+	 * @return
+	 * 		A description of each conflict, which is empty if the fork can be joined safely
+	 */
+	public List<String> findConflicts(){
+		CAS src = copy.getCas();
+		List<String> conflicts = new ArrayList<>();
+
+		for(Map.Entry<Integer, Long> e : signatures.entrySet()){
+			FeatureStructure fs = src.getLowLevelCAS().ll_getFSForRef(e.getKey());
+			if(signature(fs) != e.getValue()){
+				conflicts.add("Modified existing " + describe(copyToOriginal.get(e.getKey())));
+			}
+		}
+
+		Set<Integer> originalIndexed = new HashSet<>();
+		List<FeatureStructure> originals = getAllIndexedFS(original.getCas());
+		originals.forEach(fs -> originalIndexed.add(address(fs)));
+
+		Set<Integer> copyIndexed = new HashSet<>();
+		List<FeatureStructure> added = new ArrayList<>();
+		for(FeatureStructure fs : getAllIndexedFS(src)){
+			int address = address(fs);
+			if(copyIndexed.add(address) && !indexedCopies.contains(address)){
+				added.add(fs);
+			}
+		}
+
+		//Additions referencing something that is no longer in the original
+		Set<Integer> visited = new HashSet<>();
+		for(FeatureStructure fs : added){
+			forEachReference(fs, visited, ref -> {
+				int address = address(ref);
+				if(!copyToOriginal.containsKey(address)){
+					return true;
+				}
+
+				FeatureStructure referenced = copyToOriginal.get(address);
+				if(indexedCopies.contains(address) && !originalIndexed.contains(address(referenced))){
+					conflicts.add("Added " + describe(fs) + " which references removed " + describe(referenced));
+				}
+				return false;
+			});
+		}
+
+		//Removals of something referenced from outside the fork
+		Set<Integer> removed = new HashSet<>();
+		for(Integer address : indexedCopies){
+			if(address != documentCopy && !copyIndexed.contains(address)){
+				removed.add(address(copyToOriginal.get(address)));
+			}
+		}
+
+		if(!removed.isEmpty()){
+			Set<Integer> known = new HashSet<>();
+			copyToOriginal.values().forEach(fs -> known.add(address(fs)));
+
+			Set<Integer> visitedOriginals = new HashSet<>();
+			for(FeatureStructure fs : originals){
+				if(known.contains(address(fs))){
+					continue;
+				}
+
+				forEachReference(fs, visitedOriginals, ref -> {
+					if(removed.contains(address(ref))){
+						conflicts.add("Removed " + describe(ref) + " which is referenced by " + describe(fs));
+					}
+					return !originalIndexed.contains(address(ref));
+				});
+			}
+		}
+
+		return conflicts;
+	}
+
+	/**
+	 * Apply the changes made to the indexes of the copy to the original.
+	 * This must only be called once processing of both the original and the copy has finished.
+	 */
+	public void join(){
+		CAS src = copy.getCas();
+		CAS dest = original.getCas();
+
+		Map<Integer, FeatureStructure> copied = new HashMap<>(copyToOriginal);
+		Function<FeatureStructure, FeatureStructure> mapper = fs -> copyToOriginal(fs, copied);
+
+		copyFeatures(src.getDocumentAnnotation(), dest.getDocumentAnnotation(), mapper, range);
+
+		Set<Integer> indexed = new HashSet<>();
+		for(FeatureStructure fs : getAllIndexedFS(src)){
+			int address = address(fs);
+			if(indexed.add(address) && !indexedCopies.contains(address)){
+				dest.addFsToIndexes(mapper.apply(fs));
+			}
+		}
+
+		for(Integer address : indexedCopies){
+			if(!indexed.contains(address)){
+				dest.removeFsFromIndexes(copyToOriginal.get(address));
+			}
+		}
+	}
+
+	private FeatureStructure copyToOriginal(FeatureStructure fs, Map<Integer, FeatureStructure> copied){
+		if(fs == null){
+			return null;
+		}
+
+		int address = address(fs);
+		FeatureStructure existing = copied.get(address);
+		if(existing != null){
+			return existing;
+		}
+
+		CAS dest = original.getCas();
+		FeatureStructure target = createLike(dest, fs);
+		copied.put(address, target);
+
+		if(fs instanceof ArrayFS){
+			ArrayFS srcArray = (ArrayFS) fs;
+			ArrayFS destArray = (ArrayFS) target;
+			for(int i = 0; i < srcArray.size(); i++){
+				destArray.set(i, copyToOriginal(srcArray.get(i), copied));
+			}
+		}else if(fs instanceof CommonArrayFS){
+			CommonArrayFS srcArray = (CommonArrayFS) fs;
+			((CommonArrayFS) target).copyFromArray(srcArray.toStringArray(), 0, 0, srcArray.size());
+		}else{
+			copyFeatures(fs, target, f -> copyToOriginal(f, copied), false);
+			shift(target, offset);
+		}
+
+		return target;
+	}
+
+	/**
+	 * Shift the offsets of an annotation, which mustn't be indexed, when forking a range
+	 */
+	private void shift(FeatureStructure fs, int amount){
+		if(!range || amount == 0 || !(fs instanceof AnnotationFS)){
+			return;
+		}
+
+		CAS cas = fs.getCAS();
+		AnnotationFS annotation = (AnnotationFS) fs;
+		int begin = annotation.getBegin();
+		int end = annotation.getEnd();
+		fs.setIntValue(cas.getBeginFeature(), begin + amount);
+		fs.setIntValue(cas.getEndFeature(), end + amount);
+	}
+
+	/**
+	 * Get every indexed feature structure in the CAS. Iterating over the top type doesn't
+	 * return indexed arrays, so each array type is also iterated over separately.
+	 */
+	private static List<FeatureStructure> getAllIndexedFS(CAS cas){
+		List<FeatureStructure> all = new ArrayList<>();
+		FSIndexRepository indexes = cas.getIndexRepository();
+		indexes.getAllIndexedFS(cas.getTypeSystem().getTopType()).forEachRemaining(all::add);
+
+		Iterator<Type> types = cas.getTypeSystem().getTypeIterator();
+		while(types.hasNext()){
+			Type type = types.next();
+			if(type.isArray()){
+				indexes.getAllIndexedFS(type).forEachRemaining(all::add);
+			}
+		}
+
+		return all;
+	}
+
+	/**
+	 * Call consumer with each feature structure referenced by fs, directly or through other feature structures.
+	 * The consumer returns whether the references of the referenced feature structure should also be followed.
+	 */
+	private static void forEachReference(FeatureStructure fs, Set<Integer> visited, Predicate<FeatureStructure> consumer){
+		Deque<FeatureStructure> pending = new ArrayDeque<>();
+		pending.push(fs);
+
+		while(!pending.isEmpty()){
+			for(FeatureStructure ref : getReferences(pending.pop())){
+				if(ref != null && visited.add(ref.getCAS().getLowLevelCAS().ll_getFSRef(ref)) && consumer.test(ref)){
+					pending.push(ref);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the feature structures referenced by the features (other than the sofa) or elements of fs
+	 */
+	private static List<FeatureStructure> getReferences(FeatureStructure fs){
+		List<FeatureStructure> references = new ArrayList<>();
+		if(fs instanceof ArrayFS){
+			ArrayFS array = (ArrayFS) fs;
+			for(int i = 0; i < array.size(); i++){
+				references.add(array.get(i));
+			}
+		}else if(!(fs instanceof CommonArrayFS)){
+			for(Feature f : fs.getType().getFeatures()){
+				if(!f.getRange().isPrimitive() && !CAS.FEATURE_FULL_NAME_SOFA.equals(f.getName())){
+					references.add(fs.getFeatureValue(f));
+				}
+			}
+		}
+		return references;
+	}
+
+	/**
+	 * A hash of the feature values of a copied feature structure, with references represented by their
+	 * address in the copy, so that changes made by the analysis engine can be detected
+	 */
+	private long signature(FeatureStructure fs){
+		long hash = 17;
+		if(fs instanceof ArrayFS){
+			ArrayFS array = (ArrayFS) fs;
+			for(int i = 0; i < array.size(); i++){
+				FeatureStructure element = array.get(i);
+				hash = 31 * hash + (element == null ? 0 : address(element));
+			}
+		}else if(fs instanceof CommonArrayFS){
+			for(String value : ((CommonArrayFS) fs).toStringArray()){
+				hash = 31 * hash + Objects.hashCode(value);
+			}
+		}else{
+			for(Feature f : fs.getType().getFeatures()){
+				if(f.getRange().isPrimitive()){
+					hash = 31 * hash + Objects.hashCode(fs.getFeatureValueAsString(f));
+				}else{
+					FeatureStructure value = fs.getFeatureValue(f);
+					hash = 31 * hash + (value == null ? 0 : address(value));
+				}
+			}
+		}
+		return hash;
+	}
+
+	private static String describe(FeatureStructure fs){
+		if(fs instanceof AnnotationFS){
+			AnnotationFS annotation = (AnnotationFS) fs;
+			return fs.getType().getShortName() + "[" + annotation.getBegin() + "," + annotation.getEnd() + "]";
+		}
+		return fs.getType().getShortName();
+	}
+
+	private int address(FeatureStructure fs){
+		return fs.getCAS().getLowLevelCAS().ll_getFSRef(fs);
+	}
+
+	private static FeatureStructure createLike(CAS cas, FeatureStructure fs){
+		Type type = fs.getType();
+		if(!type.isArray()){
+			return cas.createFS(type);
+		}
+
+		int size = ((CommonArrayFS) fs).size();
+		switch(type.getName()){
+		case CAS.TYPE_NAME_FS_ARRAY:
+			return cas.createArrayFS(size);
+		case CAS.TYPE_NAME_STRING_ARRAY:
+			return cas.createStringArrayFS(size);
+		case CAS.TYPE_NAME_INTEGER_ARRAY:
+			return cas.createIntArrayFS(size);
+		case CAS.TYPE_NAME_FLOAT_ARRAY:
+			return cas.createFloatArrayFS(size);
+		case CAS.TYPE_NAME_DOUBLE_ARRAY:
+			return cas.createDoubleArrayFS(size);
+		case CAS.TYPE_NAME_LONG_ARRAY:
+			return cas.createLongArrayFS(size);
+		case CAS.TYPE_NAME_SHORT_ARRAY:
+			return cas.createShortArrayFS(size);
+		case CAS.TYPE_NAME_BYTE_ARRAY:
+			return cas.createByteArrayFS(size);
+		case CAS.TYPE_NAME_BOOLEAN_ARRAY:
+			return cas.createBooleanArrayFS(size);
+		default:
+			throw new IllegalArgumentException("Unsupported array type " + type.getName());
+		}
+	}
+
+	/**
+	 * Copy the features of one feature structure onto another of the same type, using mapper to
+	 * translate any referenced feature structures. The sofa feature is not copied, and primitive
+	 * values are only set if they differ (so that the offsets of indexed annotations aren't touched).
+	 * If skipOffsets is true, then the begin and end features aren't copied either.
+	 */
+	private static void copyFeatures(FeatureStructure from, FeatureStructure to, Function<FeatureStructure, FeatureStructure> mapper, boolean skipOffsets){
+		for(Feature f : from.getType().getFeatures()){
+			if(CAS.FEATURE_FULL_NAME_SOFA.equals(f.getName())){
+				continue;
+			}
+
+			if(skipOffsets && (CAS.FEATURE_FULL_NAME_BEGIN.equals(f.getName()) || CAS.FEATURE_FULL_NAME_END.equals(f.getName()))){
+				continue;
+			}
+
+			if(f.getRange().isPrimitive()){
+				String value = from.getFeatureValueAsString(f);
+				if(!Objects.equals(value, to.getFeatureValueAsString(f))){
+					to.setFeatureValueFromString(f, value);
+				}
+			}else{
+				to.setFeatureValue(f, mapper.apply(from.getFeatureValue(f)));
+			}
+		}
+	}
+}
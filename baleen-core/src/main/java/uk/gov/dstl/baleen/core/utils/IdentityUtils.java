@@ -1,11 +1,18 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.core.utils;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.LoggerFactory;
+
 import uk.gov.dstl.baleen.exceptions.BaleenException;
 
 /**
@@ -16,6 +23,16 @@ import uk.gov.dstl.baleen.exceptions.BaleenException;
  */
 public class IdentityUtils {
 	private static final IdentityUtils INSTANCE = new IdentityUtils();
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+	private static final ThreadLocal<Digester> DIGESTER = ThreadLocal.withInitial(() -> {
+		try{
+			return new Digester(MessageDigest.getInstance("SHA-256"));
+		}catch(NoSuchAlgorithmException e){
+			LoggerFactory.getLogger(IdentityUtils.class).error("Can't get MessageDigest instance for constructing hashes", e);
+			return null;
+		}
+	});
+	
 	private AtomicLong id = new AtomicLong(1L);
 	
 	private IdentityUtils(){
@@ -45,32 +62,82 @@ public class IdentityUtils {
 	 * @throws BaleenException If a MessageDigest instance cannot be retrieved for the SHA-256 algorithm
 	 */
 	public static String hashStrings (String... strings) throws BaleenException{
+		CharSequence text;
+		if(strings.length == 1){
+			text = strings[0] == null ? "" : strings[0];
+		}else{
+			StringBuilder concat = new StringBuilder();
+			for(String s : strings){
+				if(s != null)
+					concat.append(s);
+			}
+			text = concat;
+		}
+		
+		Digester digester = DIGESTER.get();
+		if(digester == null)
+			throw new BaleenException("Can't get MessageDigest instance for constructing hashes");
+		
+		return toHex(digester.digest(text));
+	}
+	
+	/**
+	 * Convert bytes to a lower case hexadecimal string
+	 * 
+	 * @param bytes The bytes to convert
+	 * @return The hexadecimal string, two characters per byte
+	 */
+	public static String toHex(byte[] bytes){
+		char[] hex = new char[bytes.length * 2];
+		for(int i = 0; i < bytes.length; i++){
+			int b = bytes[i] & 0xff;
+			hex[2 * i] = HEX_DIGITS[b >>> 4];
+			hex[2 * i + 1] = HEX_DIGITS[b & 0x0f];
+		}
 		
-		StringBuilder hash = new StringBuilder();
+		return new String(hex);
+	}
+	
+	/**
+	 * A SHA-256 digest, and the buffers needed to feed text into it, for use by a single thread.
+	 * Text is encoded as UTF-8 in fixed size chunks rather than all at once, so hashing a large
+	 * document doesn't need a copy of the whole document as bytes.
+	 */
+	private static class Digester {
+		private final MessageDigest md;
+		private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		private final ByteBuffer buffer = ByteBuffer.allocate(8192);
 		
-		StringBuilder concat = new StringBuilder();
-		for(String s : strings){
-			if(s != null)
-				concat.append(s);
-		} 
+		Digester(MessageDigest md){
+			this.md = md;
+		}
 		
-		try {
-			MessageDigest md = MessageDigest.getInstance("SHA-256");
+		byte[] digest(CharSequence text){
 			md.reset();
+			encoder.reset();
 			
-			byte[] buffer = concat.toString().getBytes(StandardCharsets.UTF_8);
-			md.update(buffer);
-				
-			byte[] digest = md.digest();
-			for(int i = 0; i < digest.length; i++){
-				hash.append(Integer.toString((digest[i] & 0xff) + 0x100, 16).substring(1));
+			CharBuffer in = CharBuffer.wrap(text);
+			CoderResult result;
+			do{
+				result = encoder.encode(in, buffer, true);
+				update();
+			}while(result.isOverflow());
+			
+			while(encoder.flush(buffer).isOverflow()){
+				update();
 			}
+			update();
+			
+			return md.digest();
 		}
-		catch (NoSuchAlgorithmException e) {
-			throw new BaleenException("Can't get MessageDigest instance for constructing hashes", e);
+		
+		private void update(){
+			buffer.flip();
+			md.update(buffer);
+			buffer.clear();
 		}
-
-		return hash.toString();
 	}
 
 }
@@ -17,7 +17,7 @@ public class ReflectionUtils {
 	/**
 	 * Return the singleton instance of the Reflections object
 	 */
-	public static Reflections getInstance(){
+	public static synchronized Reflections getInstance(){
 		if(reflections == null)
 			reflections = new Reflections();
 
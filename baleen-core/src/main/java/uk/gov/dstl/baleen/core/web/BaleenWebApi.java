@@ -62,6 +62,7 @@ import uk.gov.dstl.baleen.core.web.servlets.MetricsServlet;
 import uk.gov.dstl.baleen.core.web.servlets.OrderersServlet;
 import uk.gov.dstl.baleen.core.web.servlets.PipelineConfigServlet;
 import uk.gov.dstl.baleen.core.web.servlets.PipelineManagerServlet;
+import uk.gov.dstl.baleen.core.web.servlets.PrometheusMetricsServlet;
 import uk.gov.dstl.baleen.core.web.servlets.SchedulesServlet;
 import uk.gov.dstl.baleen.core.web.servlets.StatusServlet;
 import uk.gov.dstl.baleen.core.web.servlets.TasksServlet;
@@ -240,6 +241,8 @@ public class BaleenWebApi extends AbstractBaleenComponent {
 		LOGGER.debug("Adding servlets");
 		addServlet(new MetricsServlet(MetricsFactory.getInstance()
 				.getRegistry()), "/metrics");
+		addServlet(new PrometheusMetricsServlet(MetricsFactory.getInstance()),
+				"/metrics/prometheus");
 		addServlet(new StatusServlet(), "/status");
 		addServlet(
 				new PipelineManagerServlet(baleenManager.getPipelineManager()),
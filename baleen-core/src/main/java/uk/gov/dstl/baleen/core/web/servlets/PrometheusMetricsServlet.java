@@ -0,0 +1,249 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.web.servlets;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.gov.dstl.baleen.core.metrics.Metrics;
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
+import uk.gov.dstl.baleen.core.metrics.ProcessingMetrics;
+import uk.gov.dstl.baleen.core.web.security.WebPermission;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.google.common.net.MediaType;
+
+/**
+ * Outputs metrics in the Prometheus text exposition format, so that Baleen can be scraped by Prometheus
+ * (or any compatible monitoring system).
+ *
+ * The {@link ProcessingMetrics} of each component are output as summaries, labelled by pipeline and component:
+ * <ul>
+ * <li><b>baleen_processing_seconds</b> - the time taken to process each document</li>
+ * <li><b>baleen_processing_normalised_seconds</b> - the time taken to process each 1000 characters of a document</li>
+ * <li><b>baleen_processing_allocated_bytes</b> - the bytes allocated whilst processing each document</li>
+ * <li><b>baleen_processing_cas_heap_cells</b> - the growth of the CAS heap whilst processing each document</li>
+ * </ul>
+ * along with a <b>baleen_processing_characters_total</b> counter. Every other metric in the registry is output
+ * with its name converted to a valid Prometheus name; counters and meters as counters, numeric gauges as gauges,
+ * and histograms and timers (in seconds) as summaries.
+ *
+ * Accepts an optional parameter <i>filter</i>, which filters the output based on the metric name in the same way
+ * as {@link MetricsServlet}. Processing metrics are filtered on <i>pipeline:component</i>.
+ *
+ * If using authentication, the user will need the "metrics" role to access this
+ * resource.
+ */
+public class PrometheusMetricsServlet extends AbstractApiServlet {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PrometheusMetricsServlet.class);
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String ROLES = "metrics";
+
+	/** The Prometheus text format */
+	public static final MediaType PROMETHEUS_TEXT = MediaType.create("text", "plain")
+			.withParameter("version", "0.0.4").withCharset(StandardCharsets.UTF_8);
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999, 1.0 };
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private final transient MetricsFactory factory;
+
+	/**
+	 * New instance, which will report on the supplied metrics.
+	 *
+	 * @param factory
+	 *            the metrics factory to provide metrics from
+	 */
+	public PrometheusMetricsServlet(MetricsFactory factory) {
+		super(LOGGER, PrometheusMetricsServlet.class);
+		this.factory = factory;
+	}
+
+	@Override
+	public WebPermission[] getPermissions() {
+		return new WebPermission[] { new WebPermission("Access Metrics", ROLES) };
+	}
+
+	@Override
+	protected void get(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		String[] filters = req.getParameterValues(MetricsServlet.PARAM_FILTER);
+
+		StringBuilder sb = new StringBuilder();
+		writeProcessingMetrics(sb, factory.getAllProcessingMetrics().stream()
+				.filter(m -> matches(factory.makeName(m.getPipelineName(), m.getComponentName()), filters))
+				.collect(Collectors.toList()));
+
+		for (Map.Entry<String, Metric> e : factory.getRegistry().getMetrics().entrySet()) {
+			if (matches(e.getKey(), filters)) {
+				writeMetric(sb, toPrometheusName(e.getKey()), e.getValue());
+			}
+		}
+
+		respond(resp, PROMETHEUS_TEXT, sb.toString());
+	}
+
+	private static boolean matches(String name, String[] filters) {
+		if (filters == null || filters.length == 0) {
+			return true;
+		}
+
+		for (String filter : filters) {
+			if (MetricsServlet.filterMetric(name, filter)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void writeProcessingMetrics(StringBuilder sb, List<ProcessingMetrics> all) {
+		if (all.isEmpty()) {
+			return;
+		}
+
+		writeSummaries(sb, "baleen_processing_seconds", "Time taken to process each document", all,
+				ProcessingMetrics::getLatency, NANOS_PER_SECOND);
+		writeSummaries(sb, "baleen_processing_normalised_seconds",
+				"Time taken to process each " + ProcessingMetrics.NORMALISED_LENGTH + " characters of a document", all,
+				ProcessingMetrics::getNormalisedLatency, NANOS_PER_SECOND);
+		writeSummaries(sb, "baleen_processing_allocated_bytes", "Bytes allocated whilst processing each document",
+				all, ProcessingMetrics::getAllocatedBytes, 1.0);
+		writeSummaries(sb, "baleen_processing_cas_heap_cells", "Growth of the CAS heap whilst processing each document",
+				all, ProcessingMetrics::getCasHeapGrowth, 1.0);
+
+		writeHeader(sb, "baleen_processing_characters_total", "Number of characters processed", "counter");
+		for (ProcessingMetrics m : all) {
+			writeSample(sb, "baleen_processing_characters_total", labels(m, null), m.getCharacters());
+		}
+	}
+
+	private static void writeSummaries(StringBuilder sb, String name, String help, Collection<ProcessingMetrics> all,
+			Function<ProcessingMetrics, ProcessingMetrics.Measure> measure, double divisor) {
+		writeHeader(sb, name, help, "summary");
+		for (ProcessingMetrics m : all) {
+			ProcessingMetrics.Measure values = measure.apply(m);
+			if (values.getCount() == 0) {
+				continue;
+			}
+
+			org.HdrHistogram.Histogram histogram = values.getHistogram();
+			for (double q : QUANTILES) {
+				writeSample(sb, name, labels(m, q), histogram.getValueAtPercentile(q * 100) / divisor);
+			}
+			writeSample(sb, name + "_sum", labels(m, null), values.getSum() / divisor);
+			writeSample(sb, name + "_count", labels(m, null), values.getCount());
+		}
+	}
+
+	private static void writeMetric(StringBuilder sb, String name, Metric metric) {
+		if (metric instanceof Counter) {
+			writeHeader(sb, name, null, "counter");
+			writeSample(sb, name, "", ((Counter) metric).getCount());
+		} else if (metric instanceof Meter) {
+			writeHeader(sb, name + "_total", null, "counter");
+			writeSample(sb, name + "_total", "", ((Meter) metric).getCount());
+		} else if (metric instanceof Timer) {
+			writeSnapshot(sb, name + "_seconds", ((Timer) metric).getSnapshot(), ((Timer) metric).getCount(),
+					NANOS_PER_SECOND);
+		} else if (metric instanceof Histogram) {
+			writeSnapshot(sb, name, ((Histogram) metric).getSnapshot(), ((Histogram) metric).getCount(), 1.0);
+		} else if (metric instanceof Gauge) {
+			Object value = getGaugeValue((Gauge<?>) metric);
+			if (value instanceof Number) {
+				writeHeader(sb, name, null, "gauge");
+				writeSample(sb, name, "", ((Number) value).doubleValue());
+			} else if (value instanceof Boolean) {
+				writeHeader(sb, name, null, "gauge");
+				writeSample(sb, name, "", (Boolean) value ? 1 : 0);
+			}
+		}
+	}
+
+	private static Object getGaugeValue(Gauge<?> gauge) {
+		try {
+			return gauge.getValue();
+		} catch (RuntimeException e) {
+			LOGGER.debug("Unable to get value of gauge", e);
+			return null;
+		}
+	}
+
+	private static void writeSnapshot(StringBuilder sb, String name, Snapshot snapshot, long count, double divisor) {
+		writeHeader(sb, name, null, "summary");
+		if (count > 0) {
+			for (double q : QUANTILES) {
+				writeSample(sb, name, "{quantile=\"" + q + "\"}", snapshot.getValue(q) / divisor);
+			}
+		}
+		writeSample(sb, name + "_count", "", count);
+	}
+
+	private static void writeHeader(StringBuilder sb, String name, String help, String type) {
+		if (help != null) {
+			sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		}
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void writeSample(StringBuilder sb, String name, String labels, double value) {
+		sb.append(name).append(labels).append(' ');
+		if (Double.isNaN(value)) {
+			sb.append("NaN");
+		} else if (Double.isInfinite(value)) {
+			sb.append(value > 0 ? "+Inf" : "-Inf");
+		} else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			sb.append((long) value);
+		} else {
+			sb.append(value);
+		}
+		sb.append('\n');
+	}
+
+	private static String labels(ProcessingMetrics m, Double quantile) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{pipeline=\"").append(escape(m.getPipelineName()))
+			.append("\",component=\"").append(escape(m.getComponentName())).append('"');
+		if (quantile != null) {
+			sb.append(",quantile=\"").append(quantile).append('"');
+		}
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * Convert a metric name into a valid Prometheus metric name, by replacing
+	 * any invalid characters with underscores and prefixing with baleen_
+	 *
+	 * @param name
+	 *            The metric name
+	 * @return the Prometheus metric name
+	 */
+	public static String toPrometheusName(String name) {
+		return "baleen_" + name.replace(Metrics.SEP, "_").replaceAll("[^a-zA-Z0-9_]", "_");
+	}
+
+	private static String escape(String value) {
+		if (value == null) {
+			return "";
+		}
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
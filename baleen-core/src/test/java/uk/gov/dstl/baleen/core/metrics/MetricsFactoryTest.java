@@ -15,6 +15,7 @@ import uk.gov.dstl.baleen.exceptions.BaleenException;
 import uk.gov.dstl.baleen.testing.TestingUtils;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
@@ -125,6 +126,17 @@ public class MetricsFactoryTest {
 		assertNotEquals(b, metrics.getHistogram(MetricsFactoryTest.class.getCanonicalName(), "c"));
 	}
 
+	@Test
+	public void testRegisterGauge() {
+		Gauge<Integer> a = () -> 1;
+		assertSame(a, metrics.registerGauge(MetricsFactoryTest.class.getCanonicalName(), "a", a));
+		assertSame(a, metrics.getRegistry().getGauges().get(metrics.makeName(MetricsFactoryTest.class, "a")));
+
+		Gauge<Integer> b = () -> 2;
+		assertSame(b, metrics.registerGauge(MetricsFactoryTest.class.getCanonicalName(), "a", b));
+		assertSame(b, metrics.getRegistry().getGauges().get(metrics.makeName(MetricsFactoryTest.class, "a")));
+	}
+
 	@Test
 	public void testMakeNameClass() {
 		String a = metrics.makeName(MetricsFactoryTest.class, "a");
@@ -12,6 +12,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import com.codahale.metrics.Gauge;
+
 /**
  * Tests for {@link Metrics}.
  * 
@@ -68,4 +70,11 @@ public class MetricsTest {
 		verify(factory).getMeter(anyString(), eq("meter"));
 	}
 
+	@Test
+	public void testRegisterGauge() {
+		Gauge<Integer> gauge = () -> 1;
+		metrics.registerGauge("gauge", gauge);
+		verify(factory).registerGauge(anyString(), eq("gauge"), eq(gauge));
+	}
+
 }
@@ -0,0 +1,114 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ProcessingMetricsTest {
+	@Test
+	public void testRecord() {
+		ProcessingMetrics metrics = new ProcessingMetrics("pipeline", "component");
+		assertEquals("pipeline", metrics.getPipelineName());
+		assertEquals("component", metrics.getComponentName());
+
+		metrics.record(1000, 100, 500, 10);
+		metrics.record(3000, 1000, 1500, 30);
+
+		assertEquals(2, metrics.getLatency().getCount());
+		assertEquals(4000, metrics.getLatency().getSum());
+		assertEquals(1100, metrics.getCharacters());
+
+		// 1000ns for 100 chars, and 3000ns for 1000 chars
+		assertEquals(2, metrics.getNormalisedLatency().getCount());
+		assertEquals(13000, metrics.getNormalisedLatency().getSum());
+
+		assertEquals(2000, metrics.getAllocatedBytes().getSum());
+		assertEquals(40, metrics.getCasHeapGrowth().getSum());
+	}
+
+	@Test
+	public void testUnknownValues() {
+		ProcessingMetrics metrics = new ProcessingMetrics("pipeline", "component");
+		metrics.record(1000, 0, -1, -1);
+
+		assertEquals(1, metrics.getLatency().getCount());
+		assertEquals(1, metrics.getNormalisedLatency().getCount());
+		assertEquals(0, metrics.getAllocatedBytes().getCount());
+		assertEquals(0, metrics.getCasHeapGrowth().getCount());
+	}
+
+	@Test
+	public void testPercentiles() {
+		ProcessingMetrics metrics = new ProcessingMetrics("pipeline", "component");
+		for (int i = 1; i <= 1000; i++) {
+			metrics.record(i == 1000 ? 1_000_000 : 1000, 1000, -1, -1);
+		}
+
+		ProcessingMetrics.Measure latency = metrics.getLatency();
+		assertEquals(1000, latency.getValueAtPercentile(50), 10);
+		assertEquals(1000, latency.getValueAtPercentile(99.9), 10);
+		assertEquals(1_000_000, latency.getMax(), 10_000);
+		assertEquals(1_000_000, latency.getValueAtPercentile(100), 10_000);
+		assertEquals(1000, latency.getHistogram().getTotalCount());
+	}
+
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+		ProcessingMetrics metrics = new ProcessingMetrics("pipeline", "component");
+
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Thread t = new Thread(() -> {
+				for (int j = 0; j < 10000; j++) {
+					metrics.record(j, 100, j, j);
+				}
+			});
+			threads.add(t);
+			t.start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		assertEquals(40000, metrics.getLatency().getCount());
+		assertEquals(40000, metrics.getAllocatedBytes().getCount());
+	}
+
+	@Test
+	public void testAllocatedBytes() {
+		long before = ProcessingMetrics.currentThreadAllocatedBytes();
+		if (before < 0) {
+			// Not supported by this JVM
+			return;
+		}
+
+		byte[][] arrays = new byte[100][];
+		for (int i = 0; i < arrays.length; i++) {
+			arrays[i] = new byte[1024];
+		}
+
+		assertTrue(ProcessingMetrics.currentThreadAllocatedBytes() - before >= 100 * 1024);
+	}
+
+	@Test
+	public void testFactory() {
+		MetricsFactory factory = new MetricsFactory();
+
+		ProcessingMetrics a = factory.getProcessingMetrics("pipeline", ProcessingMetricsTest.class);
+		assertSame(a, factory.getProcessingMetrics("pipeline", ProcessingMetricsTest.class));
+		assertEquals(ProcessingMetricsTest.class.getCanonicalName(), a.getComponentName());
+
+		ProcessingMetrics b = factory.getProcessingMetrics("another", ProcessingMetricsTest.class);
+		assertEquals(2, factory.getAllProcessingMetrics().size());
+		assertSame(b, factory.getAllProcessingMetrics().iterator().next());
+
+		factory.removeAll();
+		assertTrue(factory.getAllProcessingMetrics().isEmpty());
+	}
+}
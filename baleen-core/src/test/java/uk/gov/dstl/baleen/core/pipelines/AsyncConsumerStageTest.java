@@ -0,0 +1,95 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.pipelines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
+
+public class AsyncConsumerStageTest {
+	@Test
+	public void testDropOldest() throws Exception{
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.CONSUMER_QUEUE_SIZE, 2);
+		config.put(PipelineOptions.CONSUMER_POLICY, "dropOldest");
+		
+		List<String> consumed = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		
+		AsyncConsumerStage stage = new AsyncConsumerStage("dropOldest", new PipelineOptions(config), jCas -> {
+			started.countDown();
+			try{
+				release.await();
+			}catch(InterruptedException ie){
+				Thread.currentThread().interrupt();
+			}
+			consumed.add(jCas.getDocumentText());
+		});
+		
+		JCas jCas = JCasFactory.createJCas();
+		submit(stage, jCas, "Document 0");
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		
+		//Document 1 should be dropped once the queue is full
+		for(int i = 1; i <= 3; i++){
+			submit(stage, jCas, "Document " + i);
+		}
+		
+		assertEquals(1L, MetricsFactory.getMetrics("dropOldest", AsyncConsumerStage.class).getCounter("dropped").getCount());
+		
+		release.countDown();
+		stage.shutdown();
+		
+		assertEquals(3, consumed.size());
+		assertEquals("Document 0", consumed.get(0));
+		assertEquals("Document 2", consumed.get(1));
+		assertEquals("Document 3", consumed.get(2));
+	}
+	
+	@Test
+	public void testBlock() throws Exception{
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.CONSUMER_QUEUE_SIZE, 1);
+		
+		List<String> consumed = Collections.synchronizedList(new ArrayList<>());
+		AsyncConsumerStage stage = new AsyncConsumerStage("block", new PipelineOptions(config), jCas -> {
+			try{
+				Thread.sleep(5);
+			}catch(InterruptedException ie){
+				Thread.currentThread().interrupt();
+			}
+			consumed.add(jCas.getDocumentText());
+		});
+		
+		JCas jCas = JCasFactory.createJCas();
+		for(int i = 0; i < 10; i++){
+			submit(stage, jCas, "Document " + i);
+		}
+		stage.shutdown();
+		
+		assertEquals(10, consumed.size());
+		for(int i = 0; i < 10; i++){
+			assertEquals("Document " + i, consumed.get(i));
+		}
+		assertEquals(0L, MetricsFactory.getMetrics("block", AsyncConsumerStage.class).getCounter("dropped").getCount());
+	}
+	
+	private static void submit(AsyncConsumerStage stage, JCas jCas, String text) throws InterruptedException{
+		jCas.setDocumentText(text);
+		stage.submit(jCas);
+		jCas.reset();
+	}
+}
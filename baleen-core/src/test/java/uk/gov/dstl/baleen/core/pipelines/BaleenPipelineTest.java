@@ -5,13 +5,39 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
+import org.apache.uima.fit.factory.CollectionReaderFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.jcas.tcas.DocumentAnnotation;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uk.gov.dstl.baleen.core.pipelines.PipelineOptions.ConsumerPolicy;
+import uk.gov.dstl.baleen.core.pipelines.orderers.IPipelineOrderer;
 import uk.gov.dstl.baleen.core.pipelines.orderers.NoOpOrderer;
+import uk.gov.dstl.baleen.testing.DummyCollectionReader;
 
 public class BaleenPipelineTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
 	@Test
 	public void testNameAndYaml(){
 		BaleenPipeline bop = new BaleenPipeline("Test Name", "Test YAML", new NoOpOrderer(), null, Collections.emptyList(), Collections.emptyList());
@@ -31,4 +57,353 @@ public class BaleenPipelineTest {
 		bop.unpause();
 		assertFalse(bop.isPaused());
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void testParallelLayersConflict() throws Exception{
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.PARALLEL_LAYERS, "true");
+		config.put(PipelineOptions.LAYER_THREADS, 2);
+		PipelineOptions options = new PipelineOptions(config);
+		
+		AnalysisEngine annotating = AnalysisEngineFactory.createEngine(AnnotatingAnnotator.class);
+		AnalysisEngine noOp = AnalysisEngineFactory.createEngine(NoOpAnnotator.class);
+		AnalysisEngine extending = AnalysisEngineFactory.createEngine(ExtendingAnnotator.class);
+		
+		//The extending annotator modifies an existing annotation, so can't be joined from a fork
+		IPipelineOrderer orderer = new IPipelineOrderer() {
+			@Override
+			public List<AnalysisEngine> orderPipeline(List<AnalysisEngine> analysisEngines) {
+				return analysisEngines;
+			}
+			
+			@Override
+			public List<List<AnalysisEngine>> orderPipelineLayers(List<AnalysisEngine> analysisEngines) {
+				return Arrays.asList(Collections.singletonList(annotating), Arrays.asList(noOp, extending));
+			}
+		};
+		
+		EndsConsumer.ENDS.clear();
+		BaleenPipeline bop = new BaleenPipeline("Test Name", "Test YAML", orderer,
+				CollectionReaderFactory.createReader(DummyCollectionReader.class), Collections.singletonList(Arrays.asList(annotating, noOp, extending)),
+				Collections.singletonList(AnalysisEngineFactory.createEngine(EndsConsumer.class)), options);
+		
+		bop.run();
+		
+		assertEquals(DummyCollectionReader.DOCUMENT_COUNT.intValue(), EndsConsumer.ENDS.size());
+		for(List<Integer> ends : EndsConsumer.ENDS){
+			assertEquals(Collections.singletonList(7), ends);
+		}
+	}
+	
+	@Test
+	public void testMultiThreaded() throws Exception{
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.THREADS, 3);
+		config.put(PipelineOptions.ORDERED, true);
+		PipelineOptions options = new PipelineOptions(config);
+		
+		assertTrue(options.isMultiThreaded());
+		assertEquals(6, options.getCasPoolSize());
+		
+		List<List<AnalysisEngine>> annotatorChains = new ArrayList<>();
+		for(int i = 0; i < options.getThreads(); i++){
+			annotatorChains.add(Collections.singletonList(AnalysisEngineFactory.createEngine(SlowAnnotator.class)));
+		}
+		
+		RecordingConsumer.DOCUMENTS.clear();
+		BaleenPipeline bop = new BaleenPipeline("Test Name", "Test YAML", new NoOpOrderer(),
+				CollectionReaderFactory.createReader(DummyCollectionReader.class), annotatorChains,
+				Collections.singletonList(AnalysisEngineFactory.createEngine(RecordingConsumer.class)), options);
+		
+		assertEquals(3, bop.annotatorChains().size());
+		assertEquals(annotatorChains.get(0), bop.annotators());
+		
+		bop.run();
+		
+		assertEquals(DummyCollectionReader.DOCUMENT_COUNT.intValue(), RecordingConsumer.DOCUMENTS.size());
+		for(int i = 0; i < DummyCollectionReader.DOCUMENT_COUNT; i++){
+			assertEquals("This is document number "+(i+1), RecordingConsumer.DOCUMENTS.get(i));
+		}
+	}
+	
+	@Test
+	public void testParallelLayers() throws Exception{
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.PARALLEL_LAYERS, "true");
+		config.put(PipelineOptions.LAYER_THREADS, 2);
+		PipelineOptions options = new PipelineOptions(config);
+		
+		List<AnalysisEngine> annotators = new ArrayList<>();
+		for(int i = 0; i < 3; i++){
+			annotators.add(AnalysisEngineFactory.createEngine(AnnotatingAnnotator.class));
+		}
+		
+		//Put all annotators in a single layer
+		IPipelineOrderer orderer = new IPipelineOrderer() {
+			@Override
+			public List<AnalysisEngine> orderPipeline(List<AnalysisEngine> analysisEngines) {
+				return analysisEngines;
+			}
+			
+			@Override
+			public List<List<AnalysisEngine>> orderPipelineLayers(List<AnalysisEngine> analysisEngines) {
+				return Collections.singletonList(analysisEngines);
+			}
+		};
+		
+		CountingConsumer.COUNTS.clear();
+		BaleenPipeline bop = new BaleenPipeline("Test Name", "Test YAML", orderer,
+				CollectionReaderFactory.createReader(DummyCollectionReader.class), Collections.singletonList(annotators),
+				Collections.singletonList(AnalysisEngineFactory.createEngine(CountingConsumer.class)), options);
+		
+		assertEquals(annotators, bop.annotators());
+		
+		bop.run();
+		
+		assertEquals(DummyCollectionReader.DOCUMENT_COUNT.intValue(), CountingConsumer.COUNTS.size());
+		for(Integer count : CountingConsumer.COUNTS){
+			assertEquals(3, count.intValue());
+		}
+	}
+	
+	@Test
+	public void testDefaultOptions(){
+		PipelineOptions options = new PipelineOptions();
+		
+		assertFalse(options.isMultiThreaded());
+		assertEquals(1, options.getThreads());
+		assertTrue(options.isOrdered());
+		assertFalse(options.isAsyncConsumers());
+		assertEquals(ConsumerPolicy.BLOCK, options.getConsumerPolicy());
+	}
+	
+	@Test
+	public void testAsyncConsumers() throws Exception{
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.CONSUMER_QUEUE_SIZE, 2);
+		config.put(PipelineOptions.CONSUMER_POLICY, "block");
+		PipelineOptions options = new PipelineOptions(config);
+		
+		assertTrue(options.isAsyncConsumers());
+		assertEquals(ConsumerPolicy.BLOCK, options.getConsumerPolicy());
+		
+		RecordingConsumer.DOCUMENTS.clear();
+		BaleenPipeline bop = new BaleenPipeline("Test Name", "Test YAML", new NoOpOrderer(),
+				CollectionReaderFactory.createReader(DummyCollectionReader.class),
+				Collections.singletonList(Collections.singletonList(AnalysisEngineFactory.createEngine(SlowAnnotator.class))),
+				Collections.singletonList(AnalysisEngineFactory.createEngine(RecordingConsumer.class)), options);
+		
+		bop.run();
+		
+		assertEquals(DummyCollectionReader.DOCUMENT_COUNT.intValue(), RecordingConsumer.DOCUMENTS.size());
+		for(int i = 0; i < DummyCollectionReader.DOCUMENT_COUNT; i++){
+			assertEquals("This is document number "+(i+1), RecordingConsumer.DOCUMENTS.get(i));
+		}
+	}
+	
+	@Test
+	public void testConsumerPolicy(){
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.CONSUMER_POLICY, "dropOldest");
+		assertEquals(ConsumerPolicy.DROP_OLDEST, new PipelineOptions(config).getConsumerPolicy());
+		
+		config.put(PipelineOptions.CONSUMER_POLICY, "drop_oldest");
+		assertEquals(ConsumerPolicy.DROP_OLDEST, new PipelineOptions(config).getConsumerPolicy());
+		
+		config.put(PipelineOptions.CONSUMER_POLICY, "unknown");
+		assertEquals(ConsumerPolicy.BLOCK, new PipelineOptions(config).getConsumerPolicy());
+	}
+	
+	@Test
+	public void testPersistentOptions(){
+		assertFalse(new PipelineOptions().isPersistent());
+		assertEquals(1000, new PipelineOptions().getIdleTimeout());
+		
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.PERSISTENT, "true");
+		config.put(PipelineOptions.IDLE_TIMEOUT, 0);
+		PipelineOptions options = new PipelineOptions(config);
+		
+		assertTrue(options.isPersistent());
+		assertEquals(1, options.getIdleTimeout());
+	}
+	
+	@Test
+	public void testInitialisationOptions(){
+		assertEquals(1, new PipelineOptions().getInitThreads());
+		assertFalse(new PipelineOptions().isLazy());
+		
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.INIT_THREADS, 4);
+		config.put(PipelineOptions.LAZY, "true");
+		PipelineOptions options = new PipelineOptions(config);
+		
+		assertEquals(4, options.getInitThreads());
+		assertTrue(options.isLazy());
+		
+		config.put(PipelineOptions.INIT_THREADS, 0);
+		assertEquals(1, new PipelineOptions(config).getInitThreads());
+	}
+	
+	@Test
+	public void testPersistent() throws Exception{
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.PERSISTENT, true);
+		config.put(PipelineOptions.IDLE_TIMEOUT, 50);
+		PipelineOptions options = new PipelineOptions(config);
+		
+		RecordingConsumer.DOCUMENTS.clear();
+		BaleenPipeline bop = new BaleenPipeline("Test Name", "Test YAML", new NoOpOrderer(),
+				CollectionReaderFactory.createReader(DummyCollectionReader.class), Collections.singletonList(Collections.emptyList()),
+				Collections.singletonList(AnalysisEngineFactory.createEngine(RecordingConsumer.class)), options);
+		
+		Thread t = new Thread(bop);
+		t.start();
+		
+		//Pipeline should still be waiting for documents once the reader is empty
+		Thread.sleep(200);
+		assertTrue(t.isAlive());
+		assertEquals(DummyCollectionReader.DOCUMENT_COUNT.intValue(), RecordingConsumer.DOCUMENTS.size());
+		
+		bop.destroy();
+		t.join(5000);
+		assertFalse(t.isAlive());
+	}
+	
+	@Test
+	public void testPausedPipelineBlocks() throws Exception{
+		RecordingConsumer.DOCUMENTS.clear();
+		BaleenPipeline bop = new BaleenPipeline("Test Name", "Test YAML", new NoOpOrderer(),
+				CollectionReaderFactory.createReader(DummyCollectionReader.class), Collections.singletonList(Collections.emptyList()),
+				Collections.singletonList(AnalysisEngineFactory.createEngine(RecordingConsumer.class)), new PipelineOptions());
+		
+		bop.pause();
+		Thread t = new Thread(bop);
+		t.start();
+		
+		Thread.sleep(500);
+		assertTrue(t.isAlive());
+		assertTrue(RecordingConsumer.DOCUMENTS.isEmpty());
+		
+		bop.unpause();
+		t.join(5000);
+		assertFalse(t.isAlive());
+		assertEquals(DummyCollectionReader.DOCUMENT_COUNT.intValue(), RecordingConsumer.DOCUMENTS.size());
+	}
+	
+	@Test
+	public void testTracing() throws Exception{
+		File file = new File(folder.getRoot(), "trace.json");
+		
+		Map<String, Object> config = new HashMap<>();
+		config.put(PipelineOptions.TRACE_SAMPLE_RATE, 1.0);
+		config.put(PipelineOptions.TRACE_FILE, file.getAbsolutePath());
+		PipelineOptions options = new PipelineOptions(config);
+		assertTrue(options.isTracing());
+		
+		RecordingConsumer.DOCUMENTS.clear();
+		BaleenPipeline bop = new BaleenPipeline("Test Name", "Test YAML", new NoOpOrderer(),
+				CollectionReaderFactory.createReader(DummyCollectionReader.class),
+				Collections.singletonList(Collections.singletonList(AnalysisEngineFactory.createEngine(SlowAnnotator.class))),
+				Collections.singletonList(AnalysisEngineFactory.createEngine(RecordingConsumer.class)), options);
+		bop.run();
+		
+		List<Map<String, Object>> events = new ObjectMapper().readValue(file, new TypeReference<List<Map<String, Object>>>(){});
+		assertEquals(DummyCollectionReader.DOCUMENT_COUNT.longValue(), events.stream().filter(e -> "process_name".equals(e.get("name"))).count());
+		for(String category : new String[]{"document", "reader", "annotator", "consumer"}){
+			assertEquals(DummyCollectionReader.DOCUMENT_COUNT.longValue(), events.stream().filter(e -> category.equals(e.get("cat"))).count());
+		}
+	}
+	
+	/**
+	 * Annotator that takes longer to process earlier documents, so that they finish out of order
+	 */
+	public static class SlowAnnotator extends JCasAnnotator_ImplBase {
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			String text = jCas.getDocumentText();
+			int number = Integer.parseInt(text.substring(text.lastIndexOf(' ') + 1));
+			try{
+				Thread.sleep(10L * (DummyCollectionReader.DOCUMENT_COUNT - number));
+			}catch(InterruptedException ie){
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Annotator that adds a single annotation covering the first word
+	 */
+	public static class AnnotatingAnnotator extends JCasAnnotator_ImplBase {
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			new Annotation(jCas, 0, 4).addToIndexes();
+		}
+	}
+	
+	/**
+	 * Annotator that does nothing
+	 */
+	public static class NoOpAnnotator extends JCasAnnotator_ImplBase {
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			// Do nothing
+		}
+	}
+	
+	/**
+	 * Annotator that extends existing annotations covering the first word to cover the second word too
+	 */
+	public static class ExtendingAnnotator extends JCasAnnotator_ImplBase {
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			for(Annotation a : new ArrayList<>(JCasUtil.selectAt(jCas, Annotation.class, 0, 4))){
+				a.removeFromIndexes();
+				a.setEnd(7);
+				a.addToIndexes();
+			}
+		}
+	}
+	
+	/**
+	 * Consumer that records the ends of the annotations (excluding the document annotation) in each document
+	 */
+	public static class EndsConsumer extends JCasAnnotator_ImplBase {
+		public static final List<List<Integer>> ENDS = Collections.synchronizedList(new ArrayList<>());
+		
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			List<Integer> ends = new ArrayList<>();
+			for(Annotation a : JCasUtil.select(jCas, Annotation.class)){
+				if(!(a instanceof DocumentAnnotation)){
+					ends.add(a.getEnd());
+				}
+			}
+			ENDS.add(ends);
+		}
+	}
+	
+	/**
+	 * Consumer that records the number of annotations (excluding the document annotation) in each document
+	 */
+	public static class CountingConsumer extends JCasAnnotator_ImplBase {
+		public static final List<Integer> COUNTS = Collections.synchronizedList(new ArrayList<>());
+		
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			COUNTS.add(JCasUtil.select(jCas, Annotation.class).size() - 1);
+		}
+	}
+	
+	/**
+	 * Consumer that records the text of each document it sees
+	 */
+	public static class RecordingConsumer extends JCasAnnotator_ImplBase {
+		public static final List<String> DOCUMENTS = Collections.synchronizedList(new ArrayList<>());
+		
+		@Override
+		public void process(JCas jCas) throws AnalysisEngineProcessException {
+			DOCUMENTS.add(jCas.getDocumentText());
+		}
+	}
+}
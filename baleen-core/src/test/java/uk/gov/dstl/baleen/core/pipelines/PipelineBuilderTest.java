@@ -2,6 +2,9 @@
 package uk.gov.dstl.baleen.core.pipelines;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
@@ -12,9 +15,14 @@ import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.collection.CollectionReader;
 import org.junit.Test;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.io.Files;
 
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
+import uk.gov.dstl.baleen.core.pipelines.orderers.IPipelineOrderer;
 import uk.gov.dstl.baleen.exceptions.BaleenException;
+import uk.gov.dstl.baleen.testing.DummyAnnotator1;
+import uk.gov.dstl.baleen.testing.DummyResource;
 
 public class PipelineBuilderTest {
 
@@ -89,6 +97,86 @@ public class PipelineBuilderTest {
 		//Will throw an exception if the resource wasn't initialized
 	}
 	
+	@Test
+	public void testParallelInitialisation() throws Exception{
+		String yaml = Files.toString(getFile("pipelineConfig.yaml"), StandardCharsets.UTF_8);
+		String parallelYaml = yaml + "\npipeline:\n  threads: 2\n  initThreads: 4\n";
+		
+		BaleenPipeline serial = new PipelineBuilder("Serial Pipeline", yaml).createNewPipeline();
+		BaleenPipeline parallel = new PipelineBuilder("Parallel Pipeline", parallelYaml).createNewPipeline();
+		
+		assertEquals(2, parallel.annotatorChains().size());
+		for(List<AnalysisEngine> chain : parallel.annotatorChains()){
+			assertEngines(serial.annotators(), chain);
+		}
+		assertEngines(serial.consumers(), parallel.consumers());
+		
+		MetricRegistry registry = MetricsFactory.getInstance().getRegistry();
+		assertEquals(1, registry.timer(MetricsFactory.getInstance().makeName("Parallel Pipeline", PipelineBuilder.INITIALISATION_TIMER)).getCount());
+		assertEquals(6, registry.timer(MetricsFactory.getInstance().makeName("Parallel Pipeline:" + DummyAnnotator1.class.getName(), PipelineBuilder.CONSTRUCTION_TIMER)).getCount());
+	}
+	
+	private void assertEngines(List<AnalysisEngine> expected, List<AnalysisEngine> actual){
+		assertEquals(expected.size(), actual.size());
+		for(int i = 0; i < expected.size(); i++){
+			assertEquals(expected.get(i).getMetaData().getName(), actual.get(i).getMetaData().getName());
+			assertEquals(expected.get(i).getConfigParameterValue("example.color"), actual.get(i).getConfigParameterValue("example.color"));
+		}
+	}
+	
+	@Test
+	public void testSharedResources() throws Exception{
+		String yaml = "collectionreader:\n  class: uk.gov.dstl.baleen.testing.DummyCollectionReader\n"
+				+ "annotators:\n  - class: uk.gov.dstl.baleen.testing.DummyResourceAnnotator\n";
+		SharedResourceRegistry registry = new SharedResourceRegistry();
+		
+		BaleenPipeline pipeline1 = new PipelineBuilder("Test Pipeline 1", yaml, registry).createNewPipeline();
+		BaleenPipeline pipeline2 = new PipelineBuilder("Test Pipeline 2", yaml, registry).createNewPipeline();
+		BaleenPipeline unshared = new PipelineBuilder("Test Pipeline 3", yaml).createNewPipeline();
+		
+		Object resource1 = pipeline1.annotators().get(0).getUimaContext().getResourceObject("Test");
+		Object resource2 = pipeline2.annotators().get(0).getUimaContext().getResourceObject("Test");
+		Object resource3 = unshared.annotators().get(0).getUimaContext().getResourceObject("Test");
+		
+		assertTrue(resource1 instanceof DummyResource);
+		assertSame(resource1, resource2);
+		assertNotSame(resource1, resource3);
+		
+		//History is specific to each pipeline, so only the dummy resource is shared
+		assertEquals(1, registry.size());
+		
+		//Resource should be released once the last pipeline using it has finished
+		pipeline1.run();
+		assertEquals(1, registry.size());
+		pipeline2.run();
+		assertEquals(0, registry.size());
+	}
+	
+	@Test
+	public void testSharedResourcesReleasedOnError() throws Exception{
+		String yaml = "collectionreader:\n  class: uk.gov.dstl.baleen.testing.DummyCollectionReader\n"
+				+ "annotators:\n  - class: uk.gov.dstl.baleen.testing.DummyResourceAnnotator\n";
+		SharedResourceRegistry registry = new SharedResourceRegistry();
+		
+		PipelineBuilder pb = new PipelineBuilder("Test Pipeline", yaml, registry){
+			@Override
+			protected BaleenPipeline toPipeline(String name, String yaml, IPipelineOrderer orderer, CollectionReader collectionReader, List<List<AnalysisEngine>> annotatorChains, List<AnalysisEngine> consumers, PipelineOptions options){
+				assertEquals(1, registry.size());
+				throw new IllegalStateException("Pipeline can't be created");
+			}
+		};
+		
+		try{
+			pb.createNewPipeline();
+			
+			fail("Expected exception not thrown");
+		}catch(IllegalStateException ise){
+			//Expected exception, do nothing
+		}
+		
+		assertEquals(0, registry.size());
+	}
+	
 	@Test
 	public void testErrorNotFound() throws Exception{
 		String yaml = Files.toString(getFile("errorNotFoundConfig.yaml"), StandardCharsets.UTF_8);
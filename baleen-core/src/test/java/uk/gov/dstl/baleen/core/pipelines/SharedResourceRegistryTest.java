@@ -0,0 +1,129 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.pipelines;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.uima.fit.component.Resource_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.core.pipelines.SharedResourceRegistry.Key;
+
+public class SharedResourceRegistryTest {
+	private static final ClassLoader CLASS_LOADER = SharedResourceRegistryTest.class.getClassLoader();
+
+	@Test
+	public void testKey(){
+		Key key = Key.of(ExternalResourceFactory.createExternalResourceDescription("test", ConfiguredResource.class, "value", "a", "other", "x"), CLASS_LOADER);
+		Key same = Key.of(ExternalResourceFactory.createExternalResourceDescription("test", ConfiguredResource.class, "value", "a", "other", "y"), CLASS_LOADER);
+		Key differentValue = Key.of(ExternalResourceFactory.createExternalResourceDescription("test", ConfiguredResource.class, "value", "b"), CLASS_LOADER);
+		Key differentName = Key.of(ExternalResourceFactory.createExternalResourceDescription("test2", ConfiguredResource.class, "value", "a"), CLASS_LOADER);
+
+		assertEquals("test", key.getName());
+
+		//Parameters the resource doesn't declare are ignored
+		assertEquals(key, same);
+		assertEquals(key.hashCode(), same.hashCode());
+
+		assertFalse(key.equals(differentValue));
+		assertFalse(key.equals(differentName));
+	}
+
+	@Test
+	public void testReferenceCounting(){
+		SharedResourceRegistry registry = new SharedResourceRegistry();
+		Key key = Key.of(ExternalResourceFactory.createExternalResourceDescription("test", ConfiguredResource.class), CLASS_LOADER);
+		ConfiguredResource resource = new ConfiguredResource();
+
+		assertNull(registry.acquire(key));
+		assertSame(resource, registry.register(key, resource));
+		assertSame(resource, registry.register(key, new ConfiguredResource()));
+		assertSame(resource, registry.acquire(key));
+		assertEquals(3, registry.getReferenceCount(key));
+		assertEquals(1, registry.size());
+
+		registry.release(key);
+		registry.release(key);
+		assertFalse(resource.destroyed);
+		assertEquals(1, registry.getReferenceCount(key));
+
+		registry.release(key);
+		assertTrue(resource.destroyed);
+		assertEquals(0, registry.getReferenceCount(key));
+		assertEquals(0, registry.size());
+
+		//Releasing an unregistered resource should be ignored
+		registry.release(key);
+	}
+
+	@Test
+	public void testReserve() throws Exception{
+		SharedResourceRegistry registry = new SharedResourceRegistry();
+		Key key = Key.of(ExternalResourceFactory.createExternalResourceDescription("test", ConfiguredResource.class), CLASS_LOADER);
+		ConfiguredResource resource = new ConfiguredResource();
+
+		//The first pipeline reserves the resource, and others wait for it to be created
+		assertNull(registry.reserve(key));
+		CompletableFuture<Object> shared = registry.reserve(key);
+		assertFalse(shared.isDone());
+		assertNull(registry.acquire(key));
+		assertEquals(2, registry.getReferenceCount(key));
+
+		//Releasing a reference to a resource that is still being created doesn't destroy it
+		assertFalse(registry.reserve(key).isDone());
+		registry.release(key);
+		assertEquals(2, registry.getReferenceCount(key));
+
+		assertSame(resource, registry.register(key, resource));
+		assertSame(resource, shared.get());
+		assertEquals(2, registry.getReferenceCount(key));
+
+		registry.release(key);
+		registry.release(key);
+		assertTrue(resource.destroyed);
+		assertEquals(0, registry.size());
+	}
+
+	@Test
+	public void testCancel(){
+		SharedResourceRegistry registry = new SharedResourceRegistry();
+		Key key = Key.of(ExternalResourceFactory.createExternalResourceDescription("test", ConfiguredResource.class), CLASS_LOADER);
+
+		assertNull(registry.reserve(key));
+		CompletableFuture<Object> shared = registry.reserve(key);
+
+		//Waiting pipelines are told, and can then reserve the resource themselves
+		registry.cancel(key);
+		assertTrue(shared.isCancelled());
+		assertEquals(0, registry.size());
+		assertNull(registry.reserve(key));
+		assertEquals(1, registry.getReferenceCount(key));
+
+		//Cancelling a resource that has been created has no effect
+		ConfiguredResource resource = new ConfiguredResource();
+		registry.register(key, resource);
+		registry.cancel(key);
+		assertSame(resource, registry.acquire(key));
+		assertFalse(resource.destroyed);
+	}
+
+	public static class ConfiguredResource extends Resource_ImplBase {
+		@ConfigurationParameter(name = "value", defaultValue = "")
+		private String value;
+
+		private boolean destroyed = false;
+
+		@Override
+		public void destroy(){
+			destroyed = true;
+			super.destroy();
+		}
+	}
+}
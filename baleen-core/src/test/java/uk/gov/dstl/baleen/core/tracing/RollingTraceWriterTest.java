@@ -0,0 +1,81 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RollingTraceWriterTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testGetFile(){
+		File file = new File(folder.getRoot(), "trace.json");
+		RollingTraceWriter writer = new RollingTraceWriter(file, 1024, 3);
+
+		assertEquals(file, writer.getFile(0));
+		assertEquals(new File(folder.getRoot(), "trace.2.json"), writer.getFile(2));
+		assertEquals(new File(folder.getRoot(), "trace.1"), new RollingTraceWriter(new File(folder.getRoot(), "trace"), 1024, 3).getFile(1));
+	}
+
+	@Test
+	public void testWrite() throws Exception{
+		File file = new File(folder.getRoot(), "trace.json");
+		RollingTraceWriter writer = new RollingTraceWriter(file, 1024 * 1024, 3);
+
+		DocumentTrace trace = new DocumentTrace("test", 7, true, false);
+		Span span = trace.startSpan(trace.getRoot(), "Annotator", "annotator", null, 0);
+		trace.endSpan(span, null);
+		trace.getRoot().end();
+
+		writer.write(trace);
+		writer.write(trace);
+		writer.close();
+
+		List<Map<String, Object>> events = TracerTest.readEvents(file);
+		assertEquals(8, events.size());
+
+		Map<String, Object> process = events.get(0);
+		assertEquals("M", process.get("ph"));
+		assertEquals(7, process.get("pid"));
+
+		Map<String, Object> root = events.get(2);
+		assertEquals("X", root.get("ph"));
+		assertEquals("test", root.get("name"));
+		assertEquals("document", root.get("cat"));
+	}
+
+	@Test
+	public void testRoll() throws Exception{
+		File file = new File(folder.getRoot(), "trace.json");
+		Files.write(file.toPath(), "[]".getBytes(StandardCharsets.UTF_8));
+
+		RollingTraceWriter writer = new RollingTraceWriter(file, 1, 2);
+		DocumentTrace trace = new DocumentTrace("test", 1, true, false);
+		trace.getRoot().end();
+
+		//Existing file is rolled when the writer is first used, and then each trace is large enough to roll the file
+		writer.write(trace);
+		assertFalse(file.exists());
+		assertTrue(writer.getFile(1).exists());
+		assertFalse(writer.getFile(2).exists());
+		assertEquals(3, TracerTest.readEvents(writer.getFile(1)).size());
+
+		writer.write(trace);
+		writer.close();
+		assertFalse(file.exists());
+		assertTrue(writer.getFile(1).exists());
+		assertFalse(writer.getFile(2).exists());
+	}
+}
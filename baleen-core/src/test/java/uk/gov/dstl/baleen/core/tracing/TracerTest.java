@@ -0,0 +1,127 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class TracerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private JCas jCas;
+	private File file;
+
+	@Before
+	public void before() throws Exception{
+		jCas = JCasFactory.createJCas();
+		jCas.setDocumentText("Hello world");
+		file = new File(folder.getRoot(), "trace.json");
+	}
+
+	@Test
+	public void testDisabled(){
+		Tracer tracer = Tracer.disabled("test");
+
+		assertFalse(tracer.isEnabled());
+		assertNull(tracer.begin(jCas));
+		assertNull(tracer.get(jCas));
+
+		tracer.finish(jCas);
+		tracer.close();
+	}
+
+	@Test
+	public void testSampled() throws Exception{
+		Tracer tracer = new Tracer("test", 1.0, 0, false, file, 1024 * 1024, 2);
+		assertTrue(tracer.isEnabled());
+
+		DocumentTrace trace = tracer.begin(jCas);
+		assertNotNull(trace);
+		assertTrue(trace.isSampled());
+		assertSame(trace, tracer.get(jCas));
+
+		int annotations = jCas.getAnnotationIndex().size();
+		Span span = trace.startSpan("Annotator", "annotator", jCas);
+		assertSame(span, Span.active());
+		new Annotation(jCas, 0, 5).addToIndexes();
+		trace.endSpan(span, jCas);
+		assertNull(Span.active());
+
+		assertEquals(11, span.getArgs().get(DocumentTrace.INPUT_SIZE));
+		assertEquals(annotations, span.getArgs().get(DocumentTrace.ANNOTATIONS_BEFORE));
+		assertEquals(annotations + 1, span.getArgs().get(DocumentTrace.ANNOTATIONS_AFTER));
+
+		tracer.finish(jCas);
+		assertNull(tracer.get(jCas));
+		tracer.close();
+
+		List<Map<String, Object>> events = readEvents(file);
+		List<Object> names = events.stream().filter(e -> "X".equals(e.get("ph"))).map(e -> e.get("name")).collect(Collectors.toList());
+		assertEquals(2, names.size());
+		assertEquals("test", names.get(0));
+		assertEquals("Annotator", names.get(1));
+	}
+
+	@Test
+	public void testThreshold() throws Exception{
+		Tracer tracer = new Tracer("test", 0.0, 50, false, file, 1024 * 1024, 2);
+		assertTrue(tracer.isEnabled());
+
+		//Quick documents are traced, but not written
+		DocumentTrace trace = tracer.begin(jCas);
+		assertNotNull(trace);
+		assertFalse(trace.isSampled());
+		tracer.finish(jCas);
+		assertFalse(file.exists());
+
+		//Slow documents are written
+		tracer.begin(jCas);
+		Thread.sleep(60);
+		tracer.finish(jCas);
+		tracer.close();
+
+		assertEquals(1, readEvents(file).stream().filter(e -> "process_name".equals(e.get("name"))).count());
+	}
+
+	@Test
+	public void testTransferAndDiscard() throws Exception{
+		Tracer tracer = new Tracer("test", 1.0, 0, false, file, 1024 * 1024, 2);
+		JCas copy = JCasFactory.createJCas();
+
+		DocumentTrace trace = tracer.begin(jCas);
+		tracer.transfer(jCas, copy);
+		assertNull(tracer.get(jCas));
+		assertSame(trace, tracer.get(copy));
+
+		tracer.discard(copy);
+		assertNull(tracer.get(copy));
+
+		tracer.finish(copy);
+		tracer.close();
+		assertFalse(file.exists());
+	}
+
+	static List<Map<String, Object>> readEvents(File file) throws Exception{
+		return new ObjectMapper().readValue(file, new TypeReference<List<Map<String, Object>>>(){});
+	}
+}
@@ -0,0 +1,53 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ExponentialBackOffTest {
+	@Test
+	public void testNextDelay(){
+		ExponentialBackOff backOff = new ExponentialBackOff(10, 100, 2.0);
+		
+		assertEquals(10, backOff.nextDelay());
+		assertEquals(20, backOff.nextDelay());
+		assertEquals(40, backOff.nextDelay());
+		assertEquals(80, backOff.nextDelay());
+		assertEquals(100, backOff.nextDelay());
+		assertEquals(100, backOff.nextDelay());
+	}
+	
+	@Test
+	public void testReset(){
+		ExponentialBackOff backOff = new ExponentialBackOff(10, 100, 2.0);
+		
+		backOff.nextDelay();
+		backOff.nextDelay();
+		backOff.reset();
+		assertEquals(10, backOff.nextDelay());
+	}
+	
+	@Test
+	public void testInvalidValues(){
+		ExponentialBackOff backOff = new ExponentialBackOff(0, -1, 0.5);
+		
+		assertEquals(1, backOff.nextDelay());
+		assertEquals(1, backOff.nextDelay());
+	}
+	
+	@Test
+	public void testSleep() throws InterruptedException{
+		ExponentialBackOff backOff = new ExponentialBackOff(20, 1000, 2.0);
+		
+		long start = System.nanoTime();
+		assertEquals(20, backOff.sleep(1, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+		
+		assertEquals(5, backOff.sleep(5, TimeUnit.MILLISECONDS));
+		assertEquals(0, backOff.sleep(0, TimeUnit.MILLISECONDS));
+	}
+}
@@ -0,0 +1,229 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.factory.TypeSystemDescriptionFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.junit.Test;
+
+public class ForkedCasTest {
+	@Test
+	public void testForkAndJoin() throws Exception{
+		JCas jCas = JCasFactory.createJCas();
+		jCas.setDocumentText("This is a test document");
+		jCas.setDocumentLanguage("en");
+		
+		Annotation a1 = new Annotation(jCas, 0, 4);
+		a1.addToIndexes();
+		Annotation a2 = new Annotation(jCas, 5, 7);
+		a2.addToIndexes();
+		
+		JCas copy = CasCreationUtils.createCas(jCas.getTypeSystem(), null, null, null).getJCas();
+		ForkedCas fork = ForkedCas.fork(jCas, copy);
+		
+		assertEquals(jCas.getDocumentText(), copy.getDocumentText());
+		assertEquals(3, JCasUtil.select(copy, Annotation.class).size());
+		
+		//Remove the first annotation, and add a new annotation and an array referencing an existing annotation
+		List<Annotation> copied = new ArrayList<>(JCasUtil.select(copy, Annotation.class));
+		Annotation copyA1 = JCasUtil.selectSingleAt(copy, Annotation.class, 0, 4);
+		Annotation copyA2 = JCasUtil.selectSingleAt(copy, Annotation.class, 5, 7);
+		assertEquals(3, copied.size());
+		copyA1.removeFromIndexes();
+		
+		Annotation a3 = new Annotation(copy, 10, 14);
+		a3.addToIndexes();
+		
+		FSArray array = new FSArray(copy, 2);
+		array.set(0, copyA2);
+		array.set(1, a3);
+		array.addToIndexes();
+		
+		copy.setDocumentLanguage("fr");
+		
+		assertTrue(fork.findConflicts().isEmpty());
+		fork.join();
+		
+		assertEquals("fr", jCas.getDocumentLanguage());
+		
+		Collection<Annotation> annotations = JCasUtil.select(jCas, Annotation.class);
+		assertEquals(3, annotations.size());
+		assertEquals(0, JCasUtil.selectAt(jCas, Annotation.class, 0, 4).size());
+		assertSame(a2, JCasUtil.selectSingleAt(jCas, Annotation.class, 5, 7));
+		Annotation joinedA3 = JCasUtil.selectSingleAt(jCas, Annotation.class, 10, 14);
+		
+		FSIterator<FeatureStructure> arrays = jCas.getIndexRepository().getAllIndexedFS(jCas.getCasType(FSArray.type));
+		assertTrue(arrays.hasNext());
+		FSArray joinedArray = (FSArray) arrays.next();
+		assertFalse(arrays.hasNext());
+		assertSame(a2, joinedArray.get(0));
+		assertSame(joinedA3, joinedArray.get(1));
+	}
+	
+	@Test
+	public void testForkRange() throws Exception{
+		JCas jCas = JCasFactory.createJCas();
+		jCas.setDocumentText("This is a test document");
+		jCas.setDocumentLanguage("en");
+		
+		Annotation a1 = new Annotation(jCas, 0, 4);
+		a1.addToIndexes();
+		Annotation a2 = new Annotation(jCas, 5, 7);
+		a2.addToIndexes();
+		Annotation a3 = new Annotation(jCas, 10, 14);
+		a3.addToIndexes();
+		Annotation a4 = new Annotation(jCas, 15, 23);
+		a4.addToIndexes();
+		
+		JCas copy = CasCreationUtils.createCas(jCas.getTypeSystem(), null, null, null).getJCas();
+		ForkedCas fork = ForkedCas.fork(jCas, 5, 14, copy);
+		
+		//Only the range and the annotations within it are copied, relative to the start of the range
+		assertEquals("is a test", copy.getDocumentText());
+		assertEquals("en", copy.getDocumentLanguage());
+		assertEquals(3, JCasUtil.select(copy, Annotation.class).size());
+		assertEquals("is", JCasUtil.selectSingleAt(copy, Annotation.class, 0, 2).getCoveredText());
+		assertEquals("test", JCasUtil.selectSingleAt(copy, Annotation.class, 5, 9).getCoveredText());
+		
+		JCasUtil.selectSingleAt(copy, Annotation.class, 0, 2).removeFromIndexes();
+		new Annotation(copy, 3, 4).addToIndexes();
+		
+		fork.join();
+		
+		assertEquals(23, ((Annotation) jCas.getDocumentAnnotationFs()).getEnd());
+		
+		Collection<Annotation> annotations = JCasUtil.select(jCas, Annotation.class);
+		assertEquals(5, annotations.size());
+		assertEquals(0, JCasUtil.selectAt(jCas, Annotation.class, 5, 7).size());
+		assertSame(a1, JCasUtil.selectSingleAt(jCas, Annotation.class, 0, 4));
+		assertSame(a3, JCasUtil.selectSingleAt(jCas, Annotation.class, 10, 14));
+		assertSame(a4, JCasUtil.selectSingleAt(jCas, Annotation.class, 15, 23));
+		assertEquals("a", JCasUtil.selectSingleAt(jCas, Annotation.class, 8, 9).getCoveredText());
+	}
+	
+	@Test
+	public void testConflictModifiedFeature() throws Exception{
+		JCas jCas = JCasFactory.createJCas();
+		jCas.setDocumentText("This is a test document");
+		new Annotation(jCas, 0, 4).addToIndexes();
+		
+		JCas copy = CasCreationUtils.createCas(jCas.getTypeSystem(), null, null, null).getJCas();
+		ForkedCas fork = ForkedCas.fork(jCas, copy);
+		
+		Annotation copyA1 = JCasUtil.selectSingleAt(copy, Annotation.class, 0, 4);
+		copyA1.removeFromIndexes();
+		copyA1.setEnd(7);
+		copyA1.addToIndexes();
+		
+		List<String> conflicts = fork.findConflicts();
+		assertEquals(1, conflicts.size());
+		assertTrue(conflicts.get(0).contains("Modified"));
+	}
+	
+	@Test
+	public void testConflictReferencesRemoved() throws Exception{
+		JCas jCas = JCasFactory.createJCas();
+		jCas.setDocumentText("This is a test document");
+		Annotation a1 = new Annotation(jCas, 0, 4);
+		a1.addToIndexes();
+		
+		JCas copy = CasCreationUtils.createCas(jCas.getTypeSystem(), null, null, null).getJCas();
+		ForkedCas fork = ForkedCas.fork(jCas, copy);
+		
+		//The fork adds an array referencing an annotation that is removed from the original in the meantime
+		FSArray array = new FSArray(copy, 1);
+		array.set(0, JCasUtil.selectSingleAt(copy, Annotation.class, 0, 4));
+		array.addToIndexes();
+		
+		a1.removeFromIndexes();
+		
+		List<String> conflicts = fork.findConflicts();
+		assertEquals(1, conflicts.size());
+		assertTrue(conflicts.get(0).contains("references removed"));
+	}
+	
+	@Test
+	public void testConflictRemovedReferenced() throws Exception{
+		JCas jCas = JCasFactory.createJCas();
+		jCas.setDocumentText("This is a test document");
+		Annotation a1 = new Annotation(jCas, 0, 4);
+		a1.addToIndexes();
+		
+		JCas copy = CasCreationUtils.createCas(jCas.getTypeSystem(), null, null, null).getJCas();
+		ForkedCas fork = ForkedCas.fork(jCas, copy);
+		
+		//The fork removes an annotation that is referenced from the original in the meantime
+		JCasUtil.selectSingleAt(copy, Annotation.class, 0, 4).removeFromIndexes();
+		
+		FSArray array = new FSArray(jCas, 1);
+		array.set(0, a1);
+		array.addToIndexes();
+		
+		List<String> conflicts = fork.findConflicts();
+		assertEquals(1, conflicts.size());
+		assertTrue(conflicts.get(0).contains("referenced by"));
+	}
+	
+	@Test
+	public void testForkRangeReferencedOutside() throws Exception{
+		TypeSystemDescription tsd = TypeSystemDescriptionFactory.createTypeSystemDescription();
+		tsd.addType("test.Reference", "", CAS.TYPE_NAME_ANNOTATION).addFeature("target", "", CAS.TYPE_NAME_ANNOTATION);
+		JCas jCas = JCasFactory.createJCas(tsd);
+		jCas.setDocumentText("This is a test document");
+		
+		CAS cas = jCas.getCas();
+		Type type = cas.getTypeSystem().getType("test.Reference");
+		Feature target = type.getFeatureByBaseName("target");
+		
+		//An annotation within the range which references one outside it
+		Annotation a1 = new Annotation(jCas, 0, 4);
+		a1.addToIndexes();
+		AnnotationFS reference = cas.createAnnotation(type, 5, 7);
+		reference.setFeatureValue(target, a1);
+		cas.addFsToIndexes(reference);
+		
+		JCas copy = CasCreationUtils.createCas(jCas.getTypeSystem(), null, null, null).getJCas();
+		ForkedCas fork = ForkedCas.fork(jCas, 5, 14, copy);
+		
+		//Add a new annotation referencing the same annotation
+		FeatureStructure copyA1 = JCasUtil.selectSingleAt(copy, Annotation.class, 0, 2).getFeatureValue(target);
+		AnnotationFS added = copy.getCas().createAnnotation(type, 3, 4);
+		added.setFeatureValue(target, copyA1);
+		copy.getCas().addFsToIndexes(added);
+		
+		assertTrue(fork.findConflicts().isEmpty());
+		fork.join();
+		
+		//The referenced annotation is mapped back to the original, rather than duplicated
+		assertEquals(1, JCasUtil.selectAt(jCas, Annotation.class, 0, 4).size());
+		AnnotationFS joined = (AnnotationFS) JCasUtil.selectAt(jCas, Annotation.class, 8, 9).get(0);
+		assertSame(a1, joined.getFeatureValue(target));
+		
+		//Modifying the referenced annotation is a conflict
+		JCas copy2 = CasCreationUtils.createCas(jCas.getTypeSystem(), null, null, null).getJCas();
+		ForkedCas fork2 = ForkedCas.fork(jCas, 5, 14, copy2);
+		Annotation copy2A1 = (Annotation) JCasUtil.selectSingleAt(copy2, Annotation.class, 0, 2).getFeatureValue(target);
+		copy2A1.setBegin(1);
+		assertEquals(1, fork2.findConflicts().size());
+	}
+}
@@ -3,6 +3,10 @@ package uk.gov.dstl.baleen.core.utils;
 
 import static org.junit.Assert.assertEquals;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
 import org.junit.Test;
 
 import uk.gov.dstl.baleen.exceptions.BaleenException;
@@ -13,5 +17,31 @@ public class IdentityUtilsTest {
 		assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824", IdentityUtils.hashStrings("hello"));
 		assertEquals("185f8db32271fe25f561a6fc938b2e264306ec304eda518007d1764826381969", IdentityUtils.hashStrings("Hello"));
 		assertEquals("872e4e50ce9990d8b041330c47c9ddd11bec6b503ae9386a99da8584e9bb12c4", IdentityUtils.hashStrings("Hello", "World"));
+		assertEquals("872e4e50ce9990d8b041330c47c9ddd11bec6b503ae9386a99da8584e9bb12c4", IdentityUtils.hashStrings("Hello", null, "World"));
+	}
+	
+	@Test
+	public void testLargeText() throws BaleenException{
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < 10000; i++){
+			sb.append("Caf\u00e9 \ud83d\ude00 ");
+		}
+		String text = sb.toString();
+		
+		assertEquals(IdentityUtils.toHex(sha256(text.getBytes(StandardCharsets.UTF_8))), IdentityUtils.hashStrings(text));
+	}
+	
+	@Test
+	public void testToHex(){
+		assertEquals("", IdentityUtils.toHex(new byte[0]));
+		assertEquals("00017f80ff", IdentityUtils.toHex(new byte[]{0x00, 0x01, 0x7f, (byte) 0x80, (byte) 0xff}));
+	}
+	
+	private static byte[] sha256(byte[] bytes){
+		try{
+			return MessageDigest.getInstance("SHA-256").digest(bytes);
+		}catch(NoSuchAlgorithmException e){
+			throw new AssertionError(e);
+		}
 	}
 }
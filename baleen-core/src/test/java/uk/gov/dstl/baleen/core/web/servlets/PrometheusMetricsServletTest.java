@@ -0,0 +1,72 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.core.web.servlets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
+import uk.gov.dstl.baleen.testing.servlets.ServletCaller;
+
+/**
+ * Test {@link PrometheusMetricsServlet}.
+ */
+public class PrometheusMetricsServletTest {
+	private MetricsFactory factory;
+
+	@Before
+	public void before() {
+		factory = MetricsFactory.getInstance();
+		factory.removeAll();
+
+		factory.getCounter("one", "count").inc(3);
+		factory.getTimer("two", "time");
+		factory.getProcessingMetrics("pipe", PrometheusMetricsServletTest.class).record(2_000_000, 1000, 4096, 100);
+	}
+
+	@After
+	public void after() {
+		factory.removeAll();
+	}
+
+	@Test
+	public void testGet() throws Exception {
+		ServletCaller caller = new ServletCaller();
+		caller.doGet(new PrometheusMetricsServlet(factory));
+
+		assertEquals(PrometheusMetricsServlet.PROMETHEUS_TEXT.toString(), caller.getResponseType());
+
+		String body = caller.getResponseBody();
+		String labels = "pipeline=\"pipe\",component=\"" + PrometheusMetricsServletTest.class.getCanonicalName() + "\"";
+		assertTrue(body.contains("# TYPE baleen_processing_seconds summary"));
+		assertTrue(body.contains("baleen_processing_seconds_count{" + labels + "} 1"));
+		assertTrue(body.contains("baleen_processing_allocated_bytes_sum{" + labels + "} 4096"));
+		assertTrue(body.contains("baleen_processing_characters_total{" + labels + "} 1000"));
+		assertTrue(body.contains("baleen_processing_seconds{" + labels + ",quantile=\"0.999\"} 0.002"));
+
+		assertTrue(body.contains("# TYPE baleen_one_count counter"));
+		assertTrue(body.contains("baleen_one_count 3"));
+		assertTrue(body.contains("baleen_two_time_seconds_count 0"));
+	}
+
+	@Test
+	public void testFiltering() throws Exception {
+		ServletCaller caller = new ServletCaller();
+		caller.addParameter(MetricsServlet.PARAM_FILTER, "one:*");
+		caller.doGet(new PrometheusMetricsServlet(factory));
+
+		String body = caller.getResponseBody();
+		assertTrue(body.contains("baleen_one_count"));
+		assertFalse(body.contains("baleen_two_time"));
+		assertFalse(body.contains("baleen_processing_seconds"));
+	}
+
+	@Test
+	public void testName() {
+		assertEquals("baleen_pipe_uk_gov_dstl_Class_process", PrometheusMetricsServlet.toPrometheusName("pipe:uk.gov.dstl.Class:process"));
+	}
+}
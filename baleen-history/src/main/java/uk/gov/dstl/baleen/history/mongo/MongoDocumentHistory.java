@@ -1,8 +1,10 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.history.mongo;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -15,7 +17,9 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.Lists;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 
 import uk.gov.dstl.baleen.core.history.HistoryEvent;
 import uk.gov.dstl.baleen.core.history.Recordable;
@@ -26,11 +30,16 @@ import uk.gov.dstl.baleen.history.helpers.AbstractDocumentHistory;
 /**
  * Stores history in a Mongo collection.
  *
- * Note that this implementation is 'live', when you add an event it is pushed to
+ * By default this implementation is 'live', when you add an event it is pushed to
  * the database. When you get events it performs a query. Thus no data is
  * retained in memory. This is particularly important for getHistory since you
  * will not want to repeatedly call get() in a loop.
  *
+ * If the owning {@link MongoHistory} is configured to be write-behind, then events
+ * are instead held in memory until the history is flushed, at which point all the
+ * held events are pushed to the database in a single update. Any held events are
+ * flushed before the database is queried.
+ *
  * Each document through Baleen is stored as its own Mongo document, in a
  * structure of
  *
@@ -73,6 +82,9 @@ public class MongoDocumentHistory extends AbstractDocumentHistory<MongoHistory>
 
 	private final MongoCollection<Document> collection;
 
+	private final List<HistoryEvent> buffer = new ArrayList<>();
+	private long bufferedSince;
+
 	/**
 	 * New instance, should only be called via MongoHistory.
 	 *
@@ -88,20 +100,86 @@ public class MongoDocumentHistory extends AbstractDocumentHistory<MongoHistory>
 
 	@Override
 	public void add(HistoryEvent event) {
-		Document insert = new Document("$push",
-				new Document("entities."+event.getRecordable().getInternalId(), convert(event))
-		);
-		
-		collection.updateOne(new Document(DOC_ID, getDocumentId()), insert, new UpdateOptions().upsert(true));
+		MongoHistory history = getHistory();
+		if (!history.isWriteBehind()) {
+			Document insert = new Document("$push",
+					new Document(ENTITIES + "." + event.getRecordable().getInternalId(), convert(event))
+			);
+
+			collection.updateOne(new Document(DOC_ID, getDocumentId()), insert, new UpdateOptions().upsert(true));
+			return;
+		}
+
+		int buffered;
+		synchronized (buffer) {
+			if (buffer.isEmpty()) {
+				bufferedSince = System.currentTimeMillis();
+			}
+			buffer.add(event);
+			buffered = buffer.size();
+		}
+
+		if (buffered >= history.getBatchSize() || !history.isCurrent(getDocumentId(), this)) {
+			history.flush(Collections.singletonList(this));
+		}
+	}
+
+	/**
+	 * Whether any events held in memory have been held for at least the given time
+	 *
+	 * @param now the current time, in milliseconds
+	 * @param interval the time, in milliseconds
+	 * @return true if the events should be flushed
+	 */
+	boolean isFlushDue(long now, long interval) {
+		synchronized (buffer) {
+			return !buffer.isEmpty() && now - bufferedSince >= interval;
+		}
+	}
+
+	/**
+	 * Remove all events held in memory, adding an update that will push them to the database
+	 * to the list of writes
+	 *
+	 * @param writes the writes to add to
+	 * @return the number of events removed
+	 */
+	int drain(List<WriteModel<Document>> writes) {
+		List<HistoryEvent> events;
+		synchronized (buffer) {
+			if (buffer.isEmpty()) {
+				return 0;
+			}
+			events = new ArrayList<>(buffer);
+			buffer.clear();
+		}
+
+		// Group by entity, so that events are pushed in the order they were added
+		Map<String, List<Document>> entities = new LinkedHashMap<>();
+		for (HistoryEvent event : events) {
+			entities.computeIfAbsent(ENTITIES + "." + event.getRecordable().getInternalId(), k -> new ArrayList<>())
+				.add(convert(event));
+		}
+
+		Document push = new Document();
+		entities.forEach((key, list) -> push.append(key, new Document("$each", list)));
+
+		writes.add(new UpdateOneModel<>(new Document(DOC_ID, getDocumentId()), new Document("$push", push),
+				new UpdateOptions().upsert(true)));
+
+		return events.size();
 	}
 
 	@Override
 	public Collection<HistoryEvent> getAllHistory() {
+		getHistory().flush(Collections.singletonList(this));
 		return convert(collection.find(new Document(DOC_ID, getDocumentId())).first());
 	}
 
 	@Override
 	public Collection<HistoryEvent> getHistory(long recordableId) {
+		getHistory().flush(Collections.singletonList(this));
+
 		// Get the document, but only for specific entity
 		return convert(collection.find(new Document(DOC_ID,
 				getDocumentId())).projection(new Document(ENTITIES + "."
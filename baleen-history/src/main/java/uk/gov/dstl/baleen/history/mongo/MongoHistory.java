@@ -1,15 +1,37 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.history.mongo;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
 
 import uk.gov.dstl.baleen.core.history.AbstractBaleenHistory;
 import uk.gov.dstl.baleen.core.history.DocumentHistory;
+import uk.gov.dstl.baleen.core.metrics.Metrics;
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
 import uk.gov.dstl.baleen.resources.SharedMongoResource;
 
 /** A history implementation which is backed by Mongo.
@@ -19,6 +41,13 @@ import uk.gov.dstl.baleen.resources.SharedMongoResource;
  *  
  * The specifics of implementation are discussed in @link MongoDocumentHistory.
  * 
+ * Set history.mongoWriteBehind to true to hold events in memory rather than writing
+ * each one to Mongo as it happens. Held events are written in bulk when the document's
+ * history is closed, when history.mongoBatchSize events are being held for a document,
+ * or when events have been held for longer than history.mongoFlushInterval milliseconds.
+ * The time taken by each bulk write, and the number of events it contained, are recorded
+ * as metrics.
+ * 
  * For implementors wishing for a different db structure they should override
  * MongoDocumentHistory, and then add configuration options here. (Example
  * would be to store an entity per Mongo document, rather than a document
@@ -28,6 +57,7 @@ import uk.gov.dstl.baleen.resources.SharedMongoResource;
  * @baleen.javadoc
  */
 public class MongoHistory extends AbstractBaleenHistory {
+	private static final Logger LOGGER = LoggerFactory.getLogger(MongoHistory.class);
 	
 	/**
 	 * Optional connection to Mongo
@@ -46,8 +76,60 @@ public class MongoHistory extends AbstractBaleenHistory {
 	public static final String PARAM_COLLECTION = "history.mongoCollection";
 	@ConfigurationParameter(name = PARAM_COLLECTION, defaultValue="history")
 	private String collectionName;
+	
+	/**
+	 * Should events be held in memory and written to Mongo in bulk, rather than written as they happen
+	 * 
+	 * @baleen.config false
+	 */
+	public static final String PARAM_WRITE_BEHIND = "history.mongoWriteBehind";
+	@ConfigurationParameter(name = PARAM_WRITE_BEHIND, defaultValue="false")
+	private Boolean writeBehind;
+	
+	/**
+	 * When writing behind, the number of events to hold in memory for a document before writing them to Mongo
+	 * 
+	 * @baleen.config 1000
+	 */
+	public static final String PARAM_BATCH_SIZE = "history.mongoBatchSize";
+	@ConfigurationParameter(name = PARAM_BATCH_SIZE, defaultValue="1000")
+	private Integer batchSize;
+	
+	/**
+	 * When writing behind, the maximum time in milliseconds to hold events in memory before writing them to Mongo
+	 * 
+	 * @baleen.config 5000
+	 */
+	public static final String PARAM_FLUSH_INTERVAL = "history.mongoFlushInterval";
+	@ConfigurationParameter(name = PARAM_FLUSH_INTERVAL, defaultValue="5000")
+	private Integer flushInterval;
+	
+	/**
+	 * When writing behind, should bulk writes be ordered (stopping at the first error),
+	 * or unordered (allowing Mongo to continue with the remaining writes)
+	 * 
+	 * @baleen.config true
+	 */
+	public static final String PARAM_ORDERED = "history.mongoOrdered";
+	@ConfigurationParameter(name = PARAM_ORDERED, defaultValue="true")
+	private Boolean ordered;
+	
+	/**
+	 * The number of document histories to keep in memory for reuse. When writing behind,
+	 * any events held for a document are written to Mongo when its history is removed from memory.
+	 * 
+	 * @baleen.config 16
+	 */
+	public static final String PARAM_SIZE = "history.size";
+	@ConfigurationParameter(name = PARAM_SIZE, defaultValue="16")
+	private Integer cacheSize;
 
 	private MongoCollection<Document> collection;
+	private Cache<String, MongoDocumentHistory> histories;
+	private ScheduledExecutorService flusher;
+	
+	private Timer flushLatency;
+	private Histogram flushBatchSize;
 	
 	/** New instance, used for UIMA fit dependency injection.
 	 * 
@@ -70,17 +152,107 @@ public class MongoHistory extends AbstractBaleenHistory {
 		
 		collection = mongo.getDB().getCollection(collectionName);
 		collection.createIndex(new Document("docId", 1));
+		
+		histories = CacheBuilder.newBuilder()
+				.maximumSize(Math.max(1, cacheSize))
+				.removalListener((RemovalNotification<String, MongoDocumentHistory> n) -> flush(Collections.singletonList(n.getValue())))
+				.build();
+		
+		Metrics metrics = MetricsFactory.getMetrics(MongoHistory.class);
+		flushLatency = metrics.getTimer("flushLatency");
+		flushBatchSize = metrics.getHistogram("flushBatchSize");
+		
+		if (writeBehind && flushInterval > 0) {
+			flusher = Executors.newSingleThreadScheduledExecutor(
+					new ThreadFactoryBuilder().setNameFormat("mongo-history-flusher-%d").setDaemon(true).build());
+			flusher.scheduleWithFixedDelay(this::flushDue, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+		}
 	}
-	
 
 	@Override
 	public DocumentHistory getHistory(String documentId) {
-		return new MongoDocumentHistory(this, collection, documentId);
+		return histories.asMap().computeIfAbsent(documentId, id -> new MongoDocumentHistory(this, collection, id));
 	}
 
 	@Override
 	public void closeHistory(String documentId) {
-		// Do nothing
+		// Any events held in memory will be written by the removal listener
+		histories.invalidate(documentId);
+	}
+	
+	@Override
+	public void destroy() {
+		if (flusher != null) {
+			flusher.shutdownNow();
+			flusher = null;
+		}
+		
+		if (histories != null) {
+			flush(new ArrayList<>(histories.asMap().values()));
+			histories.invalidateAll();
+		}
+		
+		super.destroy();
+	}
+	
+	/**
+	 * Whether events should be held in memory rather than written as they happen
+	 */
+	boolean isWriteBehind() {
+		return writeBehind;
+	}
+	
+	/**
+	 * The number of events to hold in memory for a document before they are written
+	 */
+	int getBatchSize() {
+		return batchSize;
+	}
+	
+	/**
+	 * Whether the document history is the one currently held for its document. If not,
+	 * then it won't be flushed by this class and so events must be written straight away.
+	 */
+	boolean isCurrent(String documentId, MongoDocumentHistory history) {
+		return histories.getIfPresent(documentId) == history;
+	}
+	
+	/**
+	 * Write any events held in memory by the given document histories to Mongo, as a single bulk write
+	 * 
+	 * @param documentHistories the histories to write
+	 */
+	void flush(Collection<MongoDocumentHistory> documentHistories) {
+		List<WriteModel<Document>> writes = new ArrayList<>(documentHistories.size());
+		int events = 0;
+		for (MongoDocumentHistory history : documentHistories) {
+			events += history.drain(writes);
+		}
+		
+		if (writes.isEmpty()) {
+			return;
+		}
+		
+		Timer.Context context = flushLatency.time();
+		try {
+			collection.bulkWrite(writes, new BulkWriteOptions().ordered(ordered));
+			flushBatchSize.update(events);
+		} catch (MongoException e) {
+			LOGGER.error("Unable to write {} history events to Mongo", events, e);
+		} finally {
+			context.stop();
+		}
+	}
+	
+	private void flushDue() {
+		long now = System.currentTimeMillis();
+		try {
+			flush(histories.asMap().values().stream()
+					.filter(h -> h.isFlushDue(now, flushInterval))
+					.collect(Collectors.toList()));
+		} catch (RuntimeException e) {
+			LOGGER.error("Unable to flush history to Mongo", e);
+		}
 	}
 	
 }
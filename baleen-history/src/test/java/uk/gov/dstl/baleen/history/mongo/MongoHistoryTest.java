@@ -2,12 +2,16 @@
 package uk.gov.dstl.baleen.history.mongo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.List;
 
+import org.apache.uima.resource.Parameter;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.impl.CustomResourceSpecifier_impl;
+import org.apache.uima.resource.impl.Parameter_impl;
 import org.bson.Document;
 import org.junit.After;
 import org.junit.Before;
@@ -16,6 +20,10 @@ import org.junit.Test;
 import com.google.common.collect.Maps;
 import com.mongodb.client.MongoCollection;
 
+import uk.gov.dstl.baleen.core.history.DocumentHistory;
+import uk.gov.dstl.baleen.core.history.HistoryEvents;
+import uk.gov.dstl.baleen.core.history.Recordable;
+import uk.gov.dstl.baleen.core.history.impl.RecordableImpl;
 import uk.gov.dstl.baleen.history.helpers.AbstractHistoryTest;
 import uk.gov.dstl.baleen.resources.SharedFongoResource;
 
@@ -50,6 +58,51 @@ public class MongoHistoryTest extends AbstractHistoryTest {
 		testGenericHistory(history);
 	}
 
+	@Test
+	public void testGetHistoryReused() {
+		assertSame(history.getHistory(DOC_3), history.getHistory(DOC_3));
+	}
+
+	@Test
+	public void testWriteBehind() throws ResourceInitializationException {
+		CustomResourceSpecifier_impl specifier = new CustomResourceSpecifier_impl();
+		specifier.setParameters(new Parameter[] {
+				new Parameter_impl(MongoHistory.PARAM_WRITE_BEHIND, "true"),
+				new Parameter_impl(MongoHistory.PARAM_BATCH_SIZE, "3"),
+				new Parameter_impl(MongoHistory.PARAM_FLUSH_INTERVAL, "0")
+		});
+
+		MongoHistory writeBehind = new MongoHistory(fongo);
+		writeBehind.initialize(specifier, Maps.newHashMap());
+		writeBehind.afterResourcesInitialized();
+
+		try {
+			MongoCollection<Document> collection = fongo.getDB().getCollection(HISTORY2);
+			Recordable r = new RecordableImpl(1, "a", 0, 1, "test");
+
+			DocumentHistory dh = writeBehind.getHistory(DOC_4);
+			dh.add(HistoryEvents.createAdded(r, "ref"));
+			dh.add(HistoryEvents.createMerged(r, "ref", 2));
+			assertEquals(0, collection.count(new Document(DOC_ID, DOC_4)));
+
+			// Reaching the batch size causes the events to be written
+			dh.add(HistoryEvents.createMerged(r, "ref", 3));
+			assertEquals(1, collection.count(new Document(DOC_ID, DOC_4)));
+
+			// Closing the history causes the remaining events to be written
+			dh.add(HistoryEvents.createRemoved(r, "ref"));
+			writeBehind.closeHistory(DOC_4);
+
+			Document stored = collection.find(new Document(DOC_ID, DOC_4)).first();
+			assertEquals(4, ((List<?>) ((Document) stored.get(ENTITIES)).get("1")).size());
+			assertEquals(4, writeBehind.getHistory(DOC_4).getHistory(1).size());
+
+			testGenericHistory(writeBehind);
+		} finally {
+			writeBehind.destroy();
+		}
+	}
+
 	@Test
 	public void testMalformedDocuments() {
 		MongoCollection<Document> collection = fongo.getDB().getCollection(HISTORY2);
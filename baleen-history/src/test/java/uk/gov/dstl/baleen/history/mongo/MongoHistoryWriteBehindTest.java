@@ -0,0 +1,218 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.history.mongo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.uima.resource.Parameter;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.impl.CustomResourceSpecifier_impl;
+import org.apache.uima.resource.impl.Parameter_impl;
+import org.bson.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+
+import uk.gov.dstl.baleen.core.history.DocumentHistory;
+import uk.gov.dstl.baleen.core.history.HistoryEvents;
+import uk.gov.dstl.baleen.core.history.Recordable;
+import uk.gov.dstl.baleen.core.history.impl.RecordableImpl;
+import uk.gov.dstl.baleen.resources.SharedMongoResource;
+
+/**
+ * Tests the write-behind behaviour of {@link MongoHistory} against a fake collection, which records the
+ * writes made to it, so that the tests do not need a Mongo server.
+ */
+public class MongoHistoryWriteBehindTest {
+	private static final String DOC_1 = "1";
+	private static final String DOC_2 = "2";
+	private static final String REFERRER = "ref";
+
+	private final List<String> calls = new ArrayList<>();
+	private final List<List<? extends WriteModel<? extends Document>>> bulkWrites = new ArrayList<>();
+	private final List<BulkWriteOptions> bulkWriteOptions = new ArrayList<>();
+
+	private MongoHistory history;
+	private Recordable r1;
+	private Recordable r2;
+
+	@Before
+	public void setUp() throws ResourceInitializationException {
+		history = createHistory("10", "true");
+		r1 = new RecordableImpl(1, "a", 0, 1, "test");
+		r2 = new RecordableImpl(2, "b", 2, 3, "test");
+	}
+
+	@After
+	public void tearDown() {
+		history.destroy();
+	}
+
+	@Test
+	public void testEventsHeldUntilClose() {
+		DocumentHistory dh = history.getHistory(DOC_1);
+		dh.add(HistoryEvents.createAdded(r1, REFERRER));
+		dh.add(HistoryEvents.createAdded(r2, REFERRER));
+		dh.add(HistoryEvents.createMerged(r1, REFERRER, 3));
+		dh.add(HistoryEvents.createRemoved(r2, REFERRER));
+		dh.add(HistoryEvents.createRemoved(r1, REFERRER));
+
+		assertTrue(bulkWrites.isEmpty());
+		assertFalse(calls.contains("updateOne"));
+
+		history.closeHistory(DOC_1);
+
+		assertEquals(1, bulkWrites.size());
+		assertTrue(bulkWriteOptions.get(0).isOrdered());
+		assertEquals(1, bulkWrites.get(0).size());
+
+		Document update = getUpdate(bulkWrites.get(0).get(0), DOC_1);
+		assertEquals(2, update.size());
+		assertEquals(Arrays.asList("added", "merged", "removed"), getActions(update, r1));
+		assertEquals(Arrays.asList("added", "removed"), getActions(update, r2));
+
+		// Nothing further to write
+		history.closeHistory(DOC_1);
+		assertEquals(1, bulkWrites.size());
+	}
+
+	@Test
+	public void testBatchesWrittenInOrder() {
+		DocumentHistory dh = history.getHistory(DOC_1);
+		for (int i = 0; i < 25; i++) {
+			dh.add(HistoryEvents.createMerged(r1, REFERRER, i));
+		}
+
+		// Two full batches have been written, in the order the events were added
+		assertEquals(2, bulkWrites.size());
+		assertEquals(merged(0, 10), getMergedIds(getUpdate(bulkWrites.get(0).get(0), DOC_1), r1));
+		assertEquals(merged(10, 20), getMergedIds(getUpdate(bulkWrites.get(1).get(0), DOC_1), r1));
+
+		history.closeHistory(DOC_1);
+
+		assertEquals(3, bulkWrites.size());
+		assertEquals(merged(20, 25), getMergedIds(getUpdate(bulkWrites.get(2).get(0), DOC_1), r1));
+	}
+
+	@Test
+	public void testDestroyFlushesOpenHistories() {
+		history.getHistory(DOC_1).add(HistoryEvents.createAdded(r1, REFERRER));
+		history.getHistory(DOC_2).add(HistoryEvents.createAdded(r2, REFERRER));
+		assertTrue(bulkWrites.isEmpty());
+
+		history.destroy();
+
+		// Both documents are written in a single bulk write, in no particular order
+		assertEquals(1, bulkWrites.size());
+		assertEquals(2, bulkWrites.get(0).size());
+
+		int doc1 = DOC_1.equals(getDocumentId(bulkWrites.get(0).get(0))) ? 0 : 1;
+		assertEquals(Arrays.asList("added"), getActions(getUpdate(bulkWrites.get(0).get(doc1), DOC_1), r1));
+		assertEquals(Arrays.asList("added"), getActions(getUpdate(bulkWrites.get(0).get(1 - doc1), DOC_2), r2));
+	}
+
+	@Test
+	public void testNotWriteBehind() throws ResourceInitializationException {
+		history.destroy();
+		history = createHistory("10", "false");
+
+		history.getHistory(DOC_1).add(HistoryEvents.createAdded(r1, REFERRER));
+		history.getHistory(DOC_1).add(HistoryEvents.createRemoved(r1, REFERRER));
+
+		assertEquals(2, calls.stream().filter("updateOne"::equals).count());
+		history.closeHistory(DOC_1);
+		assertTrue(bulkWrites.isEmpty());
+	}
+
+	private MongoHistory createHistory(String batchSize, String writeBehind) throws ResourceInitializationException {
+		CustomResourceSpecifier_impl specifier = new CustomResourceSpecifier_impl();
+		specifier.setParameters(new Parameter[] {
+				new Parameter_impl(MongoHistory.PARAM_WRITE_BEHIND, writeBehind),
+				new Parameter_impl(MongoHistory.PARAM_BATCH_SIZE, batchSize),
+				new Parameter_impl(MongoHistory.PARAM_FLUSH_INTERVAL, "0")
+		});
+
+		MongoHistory h = new MongoHistory(new FakeMongoResource(createCollection()));
+		h.initialize(specifier, Maps.newHashMap());
+		h.afterResourcesInitialized();
+		return h;
+	}
+
+	/**
+	 * A collection which records the bulk writes made to it, and the names of the other methods called
+	 */
+	@SuppressWarnings("unchecked")
+	private MongoCollection<Document> createCollection() {
+		return (MongoCollection<Document>) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { MongoCollection.class }, (proxy, method, args) -> {
+					calls.add(method.getName());
+					if ("bulkWrite".equals(method.getName())) {
+						bulkWrites.add(new ArrayList<>((List<? extends WriteModel<? extends Document>>) args[0]));
+						bulkWriteOptions.add(args.length > 1 ? (BulkWriteOptions) args[1] : new BulkWriteOptions());
+					}
+					return method.getReturnType().equals(String.class) ? method.getName() : null;
+				});
+	}
+
+	private static Object getDocumentId(WriteModel<? extends Document> write) {
+		return ((Document) ((UpdateOneModel<? extends Document>) write).getFilter()).get("docId");
+	}
+
+	private static Document getUpdate(WriteModel<? extends Document> write, String documentId) {
+		UpdateOneModel<? extends Document> update = (UpdateOneModel<? extends Document>) write;
+		assertEquals(new Document("docId", documentId), update.getFilter());
+		return (Document) ((Document) update.getUpdate()).get("$push");
+	}
+
+	private static List<Document> getEvents(Document push, Recordable recordable) {
+		Document each = (Document) push.get("entities." + recordable.getInternalId());
+		return ((List<?>) each.get("$each")).stream().map(Document.class::cast).collect(Collectors.toList());
+	}
+
+	private static List<String> getActions(Document push, Recordable recordable) {
+		return getEvents(push, recordable).stream().map(d -> d.getString("type")).collect(Collectors.toList());
+	}
+
+	private static List<Object> getMergedIds(Document push, Recordable recordable) {
+		return getEvents(push, recordable).stream().map(d -> ((Map<?, ?>) d.get("params")).get(HistoryEvents.PARAM_MERGED_ID))
+				.collect(Collectors.toList());
+	}
+
+	private static List<Object> merged(int from, int to) {
+		List<Object> ids = new ArrayList<>();
+		for (int i = from; i < to; i++) {
+			ids.add(Integer.toString(i));
+		}
+		return ids;
+	}
+
+	private static class FakeMongoResource extends SharedMongoResource {
+		private final MongoDatabase db;
+
+		FakeMongoResource(MongoCollection<Document> collection) {
+			db = (MongoDatabase) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { MongoDatabase.class },
+					(proxy, method, args) -> "getCollection".equals(method.getName()) ? collection : null);
+		}
+
+		@Override
+		public MongoDatabase getDB() {
+			return db;
+		}
+	}
+}
@@ -6,9 +6,11 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.jcas.tcas.Annotation;
@@ -35,14 +37,31 @@ public class DependencyGraph implements IPipelineOrderer {
 	
 	@Override
 	public List<AnalysisEngine> orderPipeline(List<AnalysisEngine> analysisEngines) {
+		List<AnalysisEngine> ordered = new ArrayList<>(analysisEngines.size());
+		for(List<AnalysisEngine> layer : orderPipelineLayers(analysisEngines)){
+			ordered.addAll(layer);
+		}
+		
+		return ordered;
+	}
+	
+	/**
+	 * Order the analysis engines into the layers of the dependency graph. Within each layer,
+	 * analysis engines are kept in the order in which they were originally provided.
+	 * 
+	 * If the graph can't be solved, then each analysis engine will be placed in its own layer
+	 * in the original order.
+	 */
+	@Override
+	public List<List<AnalysisEngine>> orderPipelineLayers(List<AnalysisEngine> analysisEngines) {
 		Graph<AnalysisEngine, Integer> graph = createDependencyGraph(analysisEngines);
 		removeLoops(graph);
 		
+		List<List<AnalysisEngine>> layers = new ArrayList<>();
 		List<AnalysisEngine> ordered = new ArrayList<>(analysisEngines.size());
 		
 		while(true){
 			Set<AnalysisEngine> toRemove = removeLayer(graph);
-			ordered.addAll(toRemove);
 			
 			if(toRemove.isEmpty() && graph.getVertexCount() == 0){
 				break;
@@ -50,11 +69,15 @@ public class DependencyGraph implements IPipelineOrderer {
 				LOGGER.error("Unsolvable dependency graph. Original order will be used.");
 				debugUnresolvedGraph(analysisEngines.get(0).getConfigParameterValue(PipelineBuilder.PIPELINE_NAME).toString(), graph, ordered);
 
-				return analysisEngines;
+				return analysisEngines.stream().map(Collections::singletonList).collect(Collectors.toList());
 			}
+			
+			List<AnalysisEngine> layer = analysisEngines.stream().filter(toRemove::contains).collect(Collectors.toList());
+			layers.add(layer);
+			ordered.addAll(layer);
 		}
 		
-		return ordered;
+		return layers;
 	}
 	
 	private Graph<AnalysisEngine, Integer> createDependencyGraph(List<AnalysisEngine> analysisEngines){
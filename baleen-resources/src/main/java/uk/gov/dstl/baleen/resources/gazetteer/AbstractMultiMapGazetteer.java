@@ -1,65 +1,98 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.resources.gazetteer;
 
+import java.io.UncheckedIOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.uima.resource.Resource;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
-
 import uk.gov.dstl.baleen.exceptions.BaleenException;
+import uk.gov.dstl.baleen.exceptions.InvalidParameterException;
 
 /**
  * An abstract class to implement a gazetteer using a MultiMap as the backend.
  * 
- * Developers should provide a reloadValues() method, and override any existing methods they wish to extend.
+ * Developers should provide a reloadValues() method, which calls reset() and then adds each term with
+ * addTerm(), and override any existing methods they wish to extend.
+ * 
+ * The terms are held in a {@link GazetteerStore}. By default this is a {@link MultiMapGazetteerStore}, but
+ * large gazetteers can use a {@link CompactGazetteerStore} instead, which is built once all the terms
+ * have been added.
  * 
  * The following configuration parameters are expected/allowed:
  * <ul>
  * <li><b>caseSensitive</b> - If false, then all values are lower cased; otherwise the original casing is kept and comparisons are done case sensitively. Defaults to false</li>
+ * <li><b>store</b> - How terms are stored: MULTIMAP, or COMPACT, COMPACT_DIRECT or COMPACT_MAPPED to use a {@link CompactGazetteerStore} held on the heap, off the heap or in a memory mapped file. Defaults to MULTIMAP</li>
  * </ul>
  * 
  * 
  * @param <T> The type used for the ID of terms
  */
 public abstract class AbstractMultiMapGazetteer<T> implements IGazetteer {
-	private Multimap<T, String> idToValues = ArrayListMultimap.create();
-	private Map<String, T> valueToId = new HashMap<>();
-	
 	public static final String CONFIG_CASE_SENSITIVE = "caseSensitive";
 	public static final Boolean DEFAULT_CASE_SENSITIVE = false;
+	public static final String CONFIG_STORE = "store";
+	public static final Store DEFAULT_STORE = Store.MULTIMAP;
+	
+	/**
+	 * How the terms of the gazetteer are stored
+	 */
+	public enum Store {
+		/** In a {@link MultiMapGazetteerStore} */
+		MULTIMAP,
+		/** In a {@link CompactGazetteerStore} on the heap */
+		COMPACT,
+		/** In a {@link CompactGazetteerStore} with the terms held off the heap */
+		COMPACT_DIRECT,
+		/** In a {@link CompactGazetteerStore} with the terms held in a memory mapped file */
+		COMPACT_MAPPED
+	}
 
 	protected boolean caseSensitive = DEFAULT_CASE_SENSITIVE;
 	
+	private Store storeType = DEFAULT_STORE;
+	private GazetteerStore.Builder<T> builder = newBuilder();
+	private volatile GazetteerStore<T> store;
+	
 	@Override
 	public void init(Resource connection, Map<String, Object> config) throws BaleenException {
 		caseSensitive = false;
 		if (config.containsKey(CONFIG_CASE_SENSITIVE) && "true".equalsIgnoreCase(config.get(CONFIG_CASE_SENSITIVE).toString())) {
 			caseSensitive = true;
 		}
+		
+		storeType = DEFAULT_STORE;
+		if (config.containsKey(CONFIG_STORE)) {
+			try {
+				storeType = Store.valueOf(config.get(CONFIG_STORE).toString().toUpperCase());
+			} catch (IllegalArgumentException iae) {
+				throw new InvalidParameterException("Unknown gazetteer store " + config.get(CONFIG_STORE), iae);
+			}
+		}
 
 		reloadValues();
+		
+		try {
+			getStore();
+		} catch (UncheckedIOException | IllegalStateException e) {
+			throw new BaleenException("Unable to build gazetteer store", e);
+		}
 	}
 
 	@Override
 	public String[] getValues() {
-		return valueToId.keySet().toArray(new String[0]);
+		return getStore().getValues();
 	}
 
 	@Override
 	public boolean hasValue(String key) {
-		return valueToId.containsKey(caseSensitive ? key : key.toLowerCase());
+		return getStore().hasValue(caseSensitive ? key : key.toLowerCase());
 	}
 
 	@Override
 	public String[] getAliases(String key) {
-		String val = caseSensitive ? key : key.toLowerCase();
-		T id = valueToId.get(val);
-		
-		return idToValues.get(id).stream().filter(s -> !s.equals(val)).toArray(size -> new String[size]);
+		return getStore().getAliases(caseSensitive ? key : key.toLowerCase());
 	}
 
 	@Override
@@ -69,26 +102,72 @@ public abstract class AbstractMultiMapGazetteer<T> implements IGazetteer {
 
 	@Override
 	public void destroy() {
-		idToValues = null;
-		valueToId = null;
+		synchronized (this) {
+			builder = null;
+			store = null;
+		}
 	}
 	
+	/**
+	 * Remove all terms, ready for them to be added again
+	 */
 	protected void reset(){
-		valueToId.clear();
-		idToValues.clear();
+		synchronized (this) {
+			builder = newBuilder();
+			store = null;
+		}
 	}
 	
+	/**
+	 * Add a term to the gazetteer. Terms should only be added after a call to reset().
+	 */
 	protected void addTerm(T id, String value){
 		String val = value;
 		if(!caseSensitive){
 			val = value.toLowerCase();
 		}
 
-		valueToId.put(val, id);
-		idToValues.put(id, val);
+		synchronized (this) {
+			if (builder == null) {
+				throw new IllegalStateException("Gazetteer has been built; call reset() before adding terms");
+			}
+			builder.add(id, val);
+		}
 	}
 	
 	protected T getId(String value){
-		return valueToId.get(caseSensitive ? value : value.toLowerCase());
+		return getStore().getId(caseSensitive ? value : value.toLowerCase());
+	}
+	
+	/**
+	 * Get the store of terms, building it from the terms added since the last reset() if necessary
+	 */
+	protected GazetteerStore<T> getStore(){
+		GazetteerStore<T> s = store;
+		if (s != null) {
+			return s;
+		}
+		
+		synchronized (this) {
+			if (store == null) {
+				store = builder.build();
+				// The multimap store can still be added to, so keep it as the builder
+				builder = store instanceof GazetteerStore.Builder ? builder : null;
+			}
+			return store;
+		}
+	}
+	
+	private GazetteerStore.Builder<T> newBuilder(){
+		switch (storeType) {
+		case COMPACT:
+			return CompactGazetteerStore.builder(CompactGazetteerStore.Memory.HEAP);
+		case COMPACT_DIRECT:
+			return CompactGazetteerStore.builder(CompactGazetteerStore.Memory.DIRECT);
+		case COMPACT_MAPPED:
+			return CompactGazetteerStore.builder(CompactGazetteerStore.Memory.MAPPED);
+		default:
+			return new MultiMapGazetteerStore<>();
+		}
 	}
 }
\ No newline at end of file
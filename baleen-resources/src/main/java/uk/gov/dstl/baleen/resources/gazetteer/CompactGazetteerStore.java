@@ -0,0 +1,327 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.resources.gazetteer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compact, immutable {@link GazetteerStore} for large gazetteers.
+ *
+ * The distinct terms are sorted and stored as UTF-8 bytes in a single buffer, and are identified by
+ * their position in the sorted order. Entries are identified by integers too, and the terms of each
+ * entry are held as an array of term positions, so apart from the entry IDs themselves there is no
+ * per-term object overhead. Terms are looked up through an open addressing hash table of term positions,
+ * so {@link #hasValue(String)}, {@link #getId(String)} and {@link #getAliases(String)} take constant time
+ * regardless of the size of the gazetteer.
+ *
+ * The term buffer can be held on the heap, off the heap in a direct buffer, or in a memory mapped
+ * temporary file (see {@link Memory}), so that the bulk of the gazetteer needn't count against the heap.
+ *
+ * @param <T> The type used for the ID of entries
+ */
+public class CompactGazetteerStore<T> implements GazetteerStore<T> {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CompactGazetteerStore.class);
+
+	private static final String[] EMPTY = new String[0];
+
+	/**
+	 * Where the terms are held
+	 */
+	public enum Memory {
+		/** In a byte array on the heap */
+		HEAP,
+		/** In a direct buffer, outside the heap */
+		DIRECT,
+		/** In a memory mapped temporary file, which is deleted once mapped (or on exit) */
+		MAPPED
+	}
+
+	private final ByteBuffer data;
+	private final int[] offsets;
+	private final int[] hashes;
+	private final int[] valueEntry;
+	private final int[] entryStart;
+	private final int[] entryValues;
+	private final Object[] ids;
+	private final int[] table;
+	private final int mask;
+
+	private CompactGazetteerStore(ByteBuffer data, int[] offsets, int[] hashes, int[] valueEntry, int[] entryStart,
+			int[] entryValues, Object[] ids) {
+		this.data = data;
+		this.offsets = offsets;
+		this.hashes = hashes;
+		this.valueEntry = valueEntry;
+		this.entryStart = entryStart;
+		this.entryValues = entryValues;
+		this.ids = ids;
+
+		int capacity = Integer.highestOneBit(Math.max(2, hashes.length * 2 - 1)) << 1;
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+
+		for (int i = 0; i < hashes.length; i++) {
+			int slot = mix(hashes[i]) & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = i + 1;
+		}
+	}
+
+	/**
+	 * Create a builder for a new store
+	 *
+	 * @param memory
+	 *            Where the terms should be held
+	 */
+	public static <T> GazetteerStore.Builder<T> builder(Memory memory) {
+		return new CompactBuilder<>(memory);
+	}
+
+	/**
+	 * The number of distinct terms in the store
+	 */
+	public int size() {
+		return hashes.length;
+	}
+
+	@Override
+	public String[] getValues() {
+		String[] values = new String[hashes.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = decode(i);
+		}
+		return values;
+	}
+
+	@Override
+	public boolean hasValue(String value) {
+		return indexOf(value) >= 0;
+	}
+
+	@Override
+	public String[] getAliases(String value) {
+		int index = indexOf(value);
+		if (index < 0) {
+			return EMPTY;
+		}
+
+		int entry = valueEntry[index];
+		int start = entryStart[entry];
+		int end = entryStart[entry + 1];
+
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			if (entryValues[i] != index) {
+				count++;
+			}
+		}
+
+		String[] aliases = new String[count];
+		int n = 0;
+		for (int i = start; i < end; i++) {
+			if (entryValues[i] != index) {
+				aliases[n++] = decode(entryValues[i]);
+			}
+		}
+		return aliases;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T getId(String value) {
+		int index = indexOf(value);
+		return index < 0 ? null : (T) ids[valueEntry[index]];
+	}
+
+	private int indexOf(String value) {
+		int hash = value.hashCode();
+		byte[] bytes = null;
+
+		int slot = mix(hash) & mask;
+		while (table[slot] != 0) {
+			int index = table[slot] - 1;
+			if (hashes[index] == hash) {
+				if (bytes == null) {
+					bytes = value.getBytes(StandardCharsets.UTF_8);
+				}
+				if (bytesEqual(index, bytes)) {
+					return index;
+				}
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	private boolean bytesEqual(int index, byte[] bytes) {
+		int start = offsets[index];
+		if (offsets[index + 1] - start != bytes.length) {
+			return false;
+		}
+
+		for (int i = 0; i < bytes.length; i++) {
+			if (data.get(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String decode(int index) {
+		int start = offsets[index];
+		byte[] bytes = new byte[offsets[index + 1] - start];
+
+		ByteBuffer buffer = data.duplicate();
+		buffer.position(start);
+		buffer.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static int mix(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static final class CompactBuilder<T> implements GazetteerStore.Builder<T> {
+		private final Memory memory;
+		private final Map<T, Integer> entries = new HashMap<>();
+		private final List<T> ids = new ArrayList<>();
+		private final List<String> values = new ArrayList<>();
+		private int[] valueEntries = new int[1024];
+
+		CompactBuilder(Memory memory) {
+			this.memory = memory;
+		}
+
+		@Override
+		public void add(T id, String value) {
+			Integer entry = entries.get(id);
+			if (entry == null) {
+				entry = ids.size();
+				entries.put(id, entry);
+				ids.add(id);
+			}
+
+			if (values.size() == valueEntries.length) {
+				valueEntries = Arrays.copyOf(valueEntries, valueEntries.length * 2);
+			}
+			valueEntries[values.size()] = entry;
+			values.add(value);
+		}
+
+		@Override
+		public GazetteerStore<T> build() {
+			String[] sorted = values.toArray(new String[values.size()]);
+			Arrays.sort(sorted);
+			int size = dedupe(sorted);
+
+			byte[][] encoded = new byte[size][];
+			int[] offsets = new int[size + 1];
+			int[] hashes = new int[size];
+			long length = 0;
+			for (int i = 0; i < size; i++) {
+				encoded[i] = sorted[i].getBytes(StandardCharsets.UTF_8);
+				hashes[i] = sorted[i].hashCode();
+				offsets[i] = (int) length;
+				length += encoded[i].length;
+				if (length > Integer.MAX_VALUE) {
+					throw new IllegalStateException("Gazetteer is too large for a compact store");
+				}
+			}
+			offsets[size] = (int) length;
+
+			// Later additions of a term take precedence, as with a map
+			int[] valueEntry = new int[size];
+			int[] entryStart = new int[ids.size() + 1];
+			int[] positions = new int[values.size()];
+			for (int i = 0; i < values.size(); i++) {
+				positions[i] = Arrays.binarySearch(sorted, 0, size, values.get(i));
+				valueEntry[positions[i]] = valueEntries[i];
+				entryStart[valueEntries[i] + 1]++;
+			}
+
+			for (int i = 0; i < ids.size(); i++) {
+				entryStart[i + 1] += entryStart[i];
+			}
+
+			int[] entryValues = new int[values.size()];
+			int[] next = Arrays.copyOf(entryStart, ids.size());
+			for (int i = 0; i < values.size(); i++) {
+				entryValues[next[valueEntries[i]]++] = positions[i];
+			}
+
+			return new CompactGazetteerStore<>(store(encoded, (int) length), offsets, hashes, valueEntry, entryStart,
+					entryValues, ids.toArray());
+		}
+
+		private static int dedupe(String[] sorted) {
+			int size = 0;
+			for (int i = 0; i < sorted.length; i++) {
+				if (size == 0 || !sorted[i].equals(sorted[size - 1])) {
+					sorted[size++] = sorted[i];
+				}
+			}
+			return size;
+		}
+
+		private ByteBuffer store(byte[][] encoded, int length) {
+			if (memory == Memory.MAPPED && length > 0) {
+				try {
+					return map(encoded, length);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Unable to create memory mapped gazetteer", e);
+				}
+			}
+
+			ByteBuffer buffer = memory == Memory.DIRECT ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+			for (byte[] b : encoded) {
+				buffer.put(b);
+			}
+			buffer.flip();
+
+			return buffer.asReadOnlyBuffer();
+		}
+
+		private static ByteBuffer map(byte[][] encoded, int length) throws IOException {
+			Path file = Files.createTempFile("baleen-gazetteer", ".dat");
+			try {
+				try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(file))) {
+					for (byte[] b : encoded) {
+						os.write(b);
+					}
+				}
+
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+				}
+			} finally {
+				try {
+					Files.delete(file);
+				} catch (IOException e) {
+					LOGGER.debug("Unable to delete {} whilst mapped, it will be deleted on exit", file, e);
+					file.toFile().deleteOnExit();
+				}
+			}
+		}
+	}
+}
@@ -3,7 +3,9 @@ package uk.gov.dstl.baleen.resources.gazetteer;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Map;
+import java.util.zip.CRC32;
 
 import org.apache.uima.resource.Resource;
 
@@ -22,6 +24,10 @@ public class FileGazetteer extends AbstractMultiMapGazetteer<Integer> {
 
 	private File file;
 	private String termSeparator = ",";
+	
+	private volatile long loadedModified;
+	private volatile long loadedLength;
+	private volatile long loadedChecksum;
 
 
 	/**
@@ -63,6 +69,10 @@ public class FileGazetteer extends AbstractMultiMapGazetteer<Integer> {
 
 		String[] content;
 		try {
+			loadedModified = file.lastModified();
+			loadedLength = file.length();
+			loadedChecksum = checksum(file);
+
 			content = SharedFileResource.readFileLines(file);
 		} catch (IOException e) {
 			throw new BaleenException(e);
@@ -89,4 +99,34 @@ public class FileGazetteer extends AbstractMultiMapGazetteer<Integer> {
 		}
 	}
 
+	/**
+	 * Detect changes by the modification time and length of the file, confirming with a checksum of its
+	 * content that it has actually changed if they differ
+	 */
+	@Override
+	public boolean hasChanged() throws BaleenException {
+		long modified = file.lastModified();
+		long length = file.length();
+		if (modified == loadedModified && length == loadedLength) {
+			return false;
+		}
+
+		try {
+			if (checksum(file) == loadedChecksum) {
+				loadedModified = modified;
+				loadedLength = length;
+				return false;
+			}
+		} catch (IOException e) {
+			throw new BaleenException(e);
+		}
+
+		return true;
+	}
+
+	private static long checksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(Files.readAllBytes(file.toPath()));
+		return crc.getValue();
+	}
 }
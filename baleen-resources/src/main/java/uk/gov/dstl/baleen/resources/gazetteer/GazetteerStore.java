@@ -0,0 +1,52 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.resources.gazetteer;
+
+/**
+ * The store of terms behind an {@link AbstractMultiMapGazetteer}, which maps each term to the ID
+ * of the entry it belongs to, and each entry to its terms.
+ *
+ * Terms are passed to the store as they are to be matched (i.e. already lower cased if the
+ * gazetteer isn't case sensitive).
+ *
+ * @param <T> The type used for the ID of entries
+ */
+public interface GazetteerStore<T> {
+	/**
+	 * Get all the distinct terms in the store
+	 */
+	String[] getValues();
+
+	/**
+	 * Check whether the store contains a term
+	 */
+	boolean hasValue(String value);
+
+	/**
+	 * Get the other terms of the entry the given term belongs to, or an empty array if the store
+	 * doesn't contain the term
+	 */
+	String[] getAliases(String value);
+
+	/**
+	 * Get the ID of the entry the given term belongs to, or null if the store doesn't contain the
+	 * term. If the term was added to more than one entry, the last is returned.
+	 */
+	T getId(String value);
+
+	/**
+	 * Builds a store from the terms of a gazetteer
+	 *
+	 * @param <T> The type used for the ID of entries
+	 */
+	interface Builder<T> {
+		/**
+		 * Add a term to an entry
+		 */
+		void add(T id, String value);
+
+		/**
+		 * Build the store. The builder shouldn't be used afterwards.
+		 */
+		GazetteerStore<T> build();
+	}
+}
@@ -1,6 +1,7 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.resources.gazetteer;
 
+import java.util.Collection;
 import java.util.Map;
 
 import org.apache.uima.resource.Resource;
@@ -52,6 +53,16 @@ public interface IGazetteer {
 	 */
 	public Map<String, Object> getAdditionalData(String key);
 	
+	/**
+	 * Indicate that the additional data for the provided values is about to be requested, so that
+	 * gazetteers that retrieve it from elsewhere can do so in bulk. By default, this does nothing.
+	 * 
+	 * @param keys The values that additional data will be retrieved for
+	 */
+	public default void prefetchAdditionalData(Collection<String> keys) {
+		// Do nothing
+	}
+	
 	/**
 	 * Destroy the gazetteer and free resources
 	 */
@@ -61,4 +72,15 @@ public interface IGazetteer {
 	 * Reload values (i.e. pick up changes in database)
 	 */
 	public void reloadValues() throws BaleenException;
+	
+	/**
+	 * Check, as cheaply as possible, whether the source of the gazetteer has changed since the values
+	 * were last loaded. This may be called from a different thread to the other methods. By default,
+	 * changes are not detected.
+	 * 
+	 * @return True if the gazetteer should be reloaded, false otherwise
+	 */
+	public default boolean hasChanged() throws BaleenException {
+		return false;
+	}
 }
@@ -1,17 +1,26 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.resources.gazetteer;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.uima.resource.Resource;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.mongodb.client.MongoCollection;
 
+import uk.gov.dstl.baleen.core.metrics.Metrics;
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
 import uk.gov.dstl.baleen.exceptions.BaleenException;
 import uk.gov.dstl.baleen.exceptions.InvalidParameterException;
 import uk.gov.dstl.baleen.resources.SharedMongoResource;
@@ -19,24 +28,64 @@ import uk.gov.dstl.baleen.resources.SharedMongoResource;
 /**
  * Connect to MongoDB and use as the backend for a Gazetteer
  * 
+ * Any fields of a gazetteer entry other than the value field are returned as additional data. How
+ * this data is retrieved is configurable (see {@link AdditionalData}); by default it is read from
+ * Mongo when first needed, and held in a size bounded cache. The number of lookups served from
+ * memory and the number of entries read from Mongo are recorded in the <i>additionalDataHits</i>
+ * and <i>additionalDataMisses</i> counters.
  * 
  */
 public class MongoGazetteer extends AbstractMultiMapGazetteer<ObjectId> {
 	public static final String CONFIG_COLLECTION = "collection";
 	public static final String CONFIG_VALUE_FIELD = "valueField";
+	public static final String CONFIG_ADDITIONAL_DATA = "additionalData";
+	public static final String CONFIG_ADDITIONAL_DATA_CACHE_SIZE = "additionalDataCacheSize";
 	
 	public static final String DEFAULT_COLLECTION = "gazetteer";
 	public static final String DEFAULT_VALUE_FIELD = "value";
+	public static final AdditionalData DEFAULT_ADDITIONAL_DATA = AdditionalData.CACHE;
+	public static final Integer DEFAULT_ADDITIONAL_DATA_CACHE_SIZE = 10000000;
+	
+	private static final String ID_FIELD = "_id";
+	
+	/**
+	 * How the additional data of gazetteer entries is retrieved
+	 */
+	public enum AdditionalData {
+		/** Read all the additional data into memory when the gazetteer values are (re)loaded */
+		PRELOAD,
+		/**
+		 * Read additional data from Mongo when it is first needed, and keep it in a least recently
+		 * used cache. Entries requested through {@link MongoGazetteer#prefetchAdditionalData(Collection)}
+		 * are read with a single query.
+		 */
+		CACHE,
+		/** Query Mongo every time additional data is requested */
+		QUERY
+	}
 	
 	private MongoCollection<Document> coll;
 	
 	private String valueField;
+	private AdditionalData additionalData;
+	private long cacheSize;
+	
+	private volatile Map<ObjectId, Map<String, Object>> preloaded = Collections.emptyMap();
+	private Cache<ObjectId, Map<String, Object>> cache;
+	
+	private Counter hits;
+	private Counter misses;
+	
+	private volatile long loadedCount;
+	private volatile ObjectId loadedMaxId;
 	
 	/** 
 	 * Configure a new instance of MongoGazetteer. The following config parameters are expected/allowed:
 	 * <ul>
 	 * <li><b>collection</b> - The collection containing the gazetteer; defaults to gazetteer</li>
 	 * <li><b>valueField</b> - The field containing the gazetteer values; defaults to value</li>
+	 * <li><b>additionalData</b> - How additional data is retrieved, one of PRELOAD, CACHE or QUERY; defaults to CACHE</li>
+	 * <li><b>additionalDataCacheSize</b> - The approximate number of characters of additional data to cache; defaults to 10000000</li>
 	 * </ul>
 	 * 
 	 * @param connection A SharedMongoResource object to use to connect to Mongo
@@ -63,11 +112,43 @@ public class MongoGazetteer extends AbstractMultiMapGazetteer<ObjectId> {
 			collection = config.get(CONFIG_COLLECTION).toString();
 		}
 		
+		additionalData = DEFAULT_ADDITIONAL_DATA;
+		if(config.containsKey(CONFIG_ADDITIONAL_DATA)){
+			try{
+				additionalData = AdditionalData.valueOf(config.get(CONFIG_ADDITIONAL_DATA).toString().toUpperCase());
+			}catch(IllegalArgumentException iae){
+				throw new InvalidParameterException("Unknown additional data strategy " + config.get(CONFIG_ADDITIONAL_DATA), iae);
+			}
+		}
+		
+		cacheSize = DEFAULT_ADDITIONAL_DATA_CACHE_SIZE;
+		if(config.containsKey(CONFIG_ADDITIONAL_DATA_CACHE_SIZE)){
+			try{
+				cacheSize = Long.parseLong(config.get(CONFIG_ADDITIONAL_DATA_CACHE_SIZE).toString());
+			}catch(NumberFormatException nfe){
+				throw new InvalidParameterException("Unable to parse additional data cache size", nfe);
+			}
+		}
+		
 		coll = mongo.getDB().getCollection(collection);
+		
+		if(additionalData == AdditionalData.CACHE){
+			cache = CacheBuilder.newBuilder()
+					.maximumWeight(Math.max(1, cacheSize))
+					.weigher((ObjectId id, Map<String, Object> data) -> estimateSize(data))
+					.build();
+		}
+		
+		Metrics metrics = MetricsFactory.getMetrics(MongoGazetteer.class);
+		hits = metrics.getCounter("additionalDataHits");
+		misses = metrics.getCounter("additionalDataMisses");
 
 		super.init(connection, config);
 	}
 	
+	/**
+	 * Get the additional data of an entry. The returned map must not be modified.
+	 */
 	@Override
 	public Map<String, Object> getAdditionalData(String key) {
 		ObjectId id = getId(key);
@@ -75,24 +156,113 @@ public class MongoGazetteer extends AbstractMultiMapGazetteer<ObjectId> {
 			return Collections.emptyMap();
 		}
 		
-		Document doc = coll.find(new Document("_id", id)).projection(new Document(valueField, 0).append("_id", 0)).first();
-		if(doc == null){
-			return Collections.emptyMap();
+		Map<String, Object> data;
+		switch(additionalData){
+		case PRELOAD:
+			data = preloaded.get(id);
+			hits.inc();
+			return data == null ? Collections.emptyMap() : data;
+		case CACHE:
+			data = cache.getIfPresent(id);
+			if(data != null){
+				hits.inc();
+				return data;
+			}
+			
+			data = query(id);
+			cache.put(id, data);
+			return data;
+		default:
+			return query(id);
+		}
+	}
+	
+	/**
+	 * If additional data is being cached, read any entries for the given keys that aren't already in
+	 * the cache with a single query
+	 */
+	@Override
+	public void prefetchAdditionalData(Collection<String> keys) {
+		if(additionalData != AdditionalData.CACHE){
+			return;
+		}
+		
+		Set<ObjectId> ids = new LinkedHashSet<>();
+		for(String key : keys){
+			ObjectId id = getId(key);
+			if(id != null && cache.getIfPresent(id) == null){
+				ids.add(id);
+			}
+		}
+		
+		if(ids.isEmpty()){
+			return;
 		}
 		
-		Map<String, Object> ret = new HashMap<>();
+		misses.inc(ids.size());
+		for(Document doc : coll.find(new Document(ID_FIELD, new Document("$in", new ArrayList<>(ids)))).projection(new Document(valueField, 0))){
+			ObjectId id = doc.getObjectId(ID_FIELD);
+			cache.put(id, toAdditionalData(doc));
+			ids.remove(id);
+		}
 		
-		for(String mongoKey : doc.keySet()){
-			Object val = doc.get(mongoKey);
-			ret.put(mongoKey, val);
+		// Entries that have been removed from the collection since the values were loaded
+		for(ObjectId id : ids){
+			cache.put(id, Collections.emptyMap());
 		}
+	}
+	
+	private Map<String, Object> query(ObjectId id){
+		misses.inc();
+		
+		Document doc = coll.find(new Document(ID_FIELD, id)).projection(new Document(valueField, 0)).first();
+		return doc == null ? Collections.emptyMap() : toAdditionalData(doc);
+	}
+	
+	private Map<String, Object> toAdditionalData(Document doc){
+		Map<String, Object> ret = new HashMap<>(doc.size() * 4 / 3 + 1);
 		
-		return ret;
+		for(Map.Entry<String, Object> e : doc.entrySet()){
+			if(!ID_FIELD.equals(e.getKey()) && !valueField.equals(e.getKey())){
+				ret.put(e.getKey(), e.getValue());
+			}
+		}
+		
+		return ret.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(ret);
+	}
+	
+	/**
+	 * Estimate the size of some additional data, as the number of characters in its keys and string
+	 * values, counting other values as a single character
+	 */
+	private static int estimateSize(Object o){
+		if(o instanceof String){
+			return ((String) o).length();
+		}else if(o instanceof Map){
+			int size = 1;
+			for(Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()){
+				size += estimateSize(e.getKey()) + estimateSize(e.getValue());
+			}
+			return size;
+		}else if(o instanceof Collection){
+			int size = 1;
+			for(Object v : (Collection<?>) o){
+				size += estimateSize(v);
+			}
+			return size;
+		}else{
+			return 1;
+		}
 	}
 
 	@Override
 	public void destroy() {
 		coll = null;
+		preloaded = Collections.emptyMap();
+		if(cache != null){
+			cache.invalidateAll();
+			cache = null;
+		}
 		super.destroy();
 	}
 	
@@ -101,8 +271,22 @@ public class MongoGazetteer extends AbstractMultiMapGazetteer<ObjectId> {
 	public void reloadValues(){
 		reset();
 		
+		Map<ObjectId, Map<String, Object>> data = new HashMap<>();
+		long count = 0;
+		ObjectId maxId = null;
 		for(Document doc : coll.find()){
-			ObjectId id = (ObjectId) doc.get("_id");
+			ObjectId id = (ObjectId) doc.get(ID_FIELD);
+			count++;
+			if(maxId == null || id.compareTo(maxId) > 0){
+				maxId = id;
+			}
+			
+			if(additionalData == AdditionalData.PRELOAD){
+				Map<String, Object> docData = toAdditionalData(doc);
+				if(!docData.isEmpty()){
+					data.put(id, docData);
+				}
+			}
 
 			Object val = doc.get(valueField);
 			if(val instanceof String){
@@ -115,5 +299,30 @@ public class MongoGazetteer extends AbstractMultiMapGazetteer<ObjectId> {
 				}
 			}
 		}
+		
+		preloaded = data;
+		if(cache != null){
+			cache.invalidateAll();
+		}
+		
+		loadedCount = count;
+		loadedMaxId = maxId;
+	}
+	
+	/**
+	 * Detect changes by comparing the number of entries in the collection, and the greatest ID, with
+	 * those when the values were loaded. This detects entries being added or removed, but not entries
+	 * being modified in place.
+	 */
+	@Override
+	public boolean hasChanged() {
+		if(coll.count() != loadedCount){
+			return true;
+		}
+		
+		Document last = coll.find().projection(new Document(ID_FIELD, 1)).sort(new Document(ID_FIELD, -1)).limit(1).first();
+		ObjectId maxId = last == null ? null : last.getObjectId(ID_FIELD);
+		
+		return maxId == null ? loadedMaxId != null : !maxId.equals(loadedMaxId);
 	}
 }
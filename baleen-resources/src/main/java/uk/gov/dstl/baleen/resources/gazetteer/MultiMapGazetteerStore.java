@@ -0,0 +1,55 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.resources.gazetteer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * A {@link GazetteerStore} backed by a Multimap of IDs to terms and a HashMap of terms to IDs.
+ *
+ * This is quick to build and is the default, but has a large overhead per term; for large
+ * gazetteers consider {@link CompactGazetteerStore}. The store is also its own builder, and terms can
+ * continue to be added after it has been built.
+ *
+ * @param <T> The type used for the ID of entries
+ */
+public class MultiMapGazetteerStore<T> implements GazetteerStore<T>, GazetteerStore.Builder<T> {
+	private final Multimap<T, String> idToValues = ArrayListMultimap.create();
+	private final Map<String, T> valueToId = new HashMap<>();
+
+	@Override
+	public void add(T id, String value) {
+		valueToId.put(value, id);
+		idToValues.put(id, value);
+	}
+
+	@Override
+	public GazetteerStore<T> build() {
+		return this;
+	}
+
+	@Override
+	public String[] getValues() {
+		return valueToId.keySet().toArray(new String[0]);
+	}
+
+	@Override
+	public boolean hasValue(String value) {
+		return valueToId.containsKey(value);
+	}
+
+	@Override
+	public String[] getAliases(String value) {
+		T id = valueToId.get(value);
+
+		return idToValues.get(id).stream().filter(s -> !s.equals(value)).toArray(size -> new String[size]);
+	}
+
+	@Override
+	public T getId(String value) {
+		return valueToId.get(value);
+	}
+}
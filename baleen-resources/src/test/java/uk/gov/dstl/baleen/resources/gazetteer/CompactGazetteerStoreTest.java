@@ -0,0 +1,89 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.resources.gazetteer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.resources.gazetteer.CompactGazetteerStore.Memory;
+
+public class CompactGazetteerStoreTest {
+	@Test
+	public void testStore() {
+		for (Memory memory : Memory.values()) {
+			GazetteerStore.Builder<String> builder = CompactGazetteerStore.builder(memory);
+			builder.add("uk", "london");
+			builder.add("uk", "londres");
+			builder.add("uk", "londra");
+			builder.add("fr", "paris");
+			builder.add("jp", "東京");
+			builder.add("jp", "tokyo");
+
+			GazetteerStore<String> store = builder.build();
+
+			String[] values = store.getValues();
+			Arrays.sort(values);
+			assertArrayEquals(new String[] { "london", "londra", "londres", "paris", "tokyo", "東京" }, values);
+
+			assertTrue(store.hasValue("東京"));
+			assertFalse(store.hasValue("lond"));
+			assertFalse(store.hasValue("London"));
+
+			assertEquals("uk", store.getId("londra"));
+			assertEquals("jp", store.getId("東京"));
+			assertNull(store.getId("berlin"));
+
+			assertArrayEquals(new String[] { "london", "londra" }, store.getAliases("londres"));
+			assertArrayEquals(new String[] { "東京" }, store.getAliases("tokyo"));
+			assertArrayEquals(new String[0], store.getAliases("paris"));
+			assertArrayEquals(new String[0], store.getAliases("berlin"));
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		GazetteerStore<Integer> store = CompactGazetteerStore.<Integer>builder(Memory.MAPPED).build();
+
+		assertEquals(0, store.getValues().length);
+		assertFalse(store.hasValue(""));
+		assertNull(store.getId("hello"));
+	}
+
+	@Test
+	public void testMatchesMultiMap() {
+		Random random = new Random(0);
+		MultiMapGazetteerStore<Integer> multimap = new MultiMapGazetteerStore<>();
+		GazetteerStore.Builder<Integer> builder = CompactGazetteerStore.builder(Memory.HEAP);
+
+		// Includes terms that appear in more than one entry, and more than once in the same entry
+		for (int i = 0; i < 5000; i++) {
+			Integer id = random.nextInt(1000);
+			String value = "term" + random.nextInt(3000);
+
+			multimap.add(id, value);
+			builder.add(id, value);
+		}
+
+		CompactGazetteerStore<Integer> compact = (CompactGazetteerStore<Integer>) builder.build();
+
+		String[] values = multimap.getValues();
+		assertEquals(values.length, compact.size());
+
+		for (String value : values) {
+			assertTrue(compact.hasValue(value));
+			assertEquals(multimap.getId(value), compact.getId(value));
+			assertArrayEquals(multimap.getAliases(value), compact.getAliases(value));
+		}
+
+		for (int i = 3000; i < 3100; i++) {
+			assertFalse(compact.hasValue("term" + i));
+		}
+	}
+}
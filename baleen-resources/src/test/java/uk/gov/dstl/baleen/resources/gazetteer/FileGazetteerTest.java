@@ -6,6 +6,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -13,7 +14,9 @@ import java.util.List;
 import java.util.Map;
 
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import uk.gov.dstl.baleen.exceptions.BaleenException;
 import uk.gov.dstl.baleen.resources.SharedFileResource;
@@ -23,6 +26,9 @@ public class FileGazetteerTest {
 	private static SharedFileResource sfr = new SharedFileResource();
 	private static Map<String, Object> config;
 	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
 	@BeforeClass
 	public static void beforeClass(){
 		File gazetteerFile = new File(FileGazetteerTest.class.getResource("gazetteer.txt").getPath());
@@ -100,4 +106,61 @@ public class FileGazetteerTest {
 		
 		gaz.destroy();
 	}
+	
+	@Test
+	public void testCompactStores() throws BaleenException{
+		for(AbstractMultiMapGazetteer.Store store : AbstractMultiMapGazetteer.Store.values()){
+			Map<String, Object> storeConfig = new HashMap<>();
+			storeConfig.putAll(config);
+			storeConfig.put(AbstractMultiMapGazetteer.CONFIG_STORE, store.name());
+			
+			FileGazetteer gaz = new FileGazetteer();
+			gaz.init(sfr, storeConfig);
+			
+			assertEquals(8, gaz.getValues().length);
+			assertTrue(gaz.hasValue("HEJ"));
+			assertFalse(gaz.hasValue("good morning"));
+			assertEquals(0, gaz.getAliases(HELLO).length);
+			assertEquals(0, gaz.getAliases("good morning").length);
+			
+			List<String> hiAliasesList = Arrays.asList(gaz.getAliases("hi"));
+			assertEquals(2, hiAliasesList.size());
+			assertTrue(hiAliasesList.contains("heya"));
+			assertTrue(hiAliasesList.contains("howdy"));
+			
+			gaz.destroy();
+		}
+	}
+	
+	@Test(expected = BaleenException.class)
+	public void testUnknownStore() throws BaleenException{
+		Map<String, Object> storeConfig = new HashMap<>();
+		storeConfig.putAll(config);
+		storeConfig.put(AbstractMultiMapGazetteer.CONFIG_STORE, "database");
+		
+		new FileGazetteer().init(sfr, storeConfig);
+	}
+	
+	@Test
+	public void testHasChanged() throws Exception{
+		File file = folder.newFile("changing.txt");
+		Files.write(file.toPath(), Arrays.asList(HELLO));
+		
+		FileGazetteer gaz = new FileGazetteer();
+		gaz.init(sfr, Collections.singletonMap(FileGazetteer.CONFIG_FILE, file.getPath()));
+		assertFalse(gaz.hasChanged());
+		
+		// Touching the file without changing its content isn't a change
+		assertTrue(file.setLastModified(file.lastModified() - 10000));
+		assertFalse(gaz.hasChanged());
+		
+		Files.write(file.toPath(), Arrays.asList(HELLO, "hi,howdy"));
+		assertTrue(gaz.hasChanged());
+		
+		gaz.reloadValues();
+		assertFalse(gaz.hasChanged());
+		assertTrue(gaz.hasValue("howdy"));
+		
+		gaz.destroy();
+	}
 }
@@ -16,9 +16,11 @@ import org.bson.Document;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.codahale.metrics.Counter;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 
+import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
 import uk.gov.dstl.baleen.exceptions.BaleenException;
 import uk.gov.dstl.baleen.resources.SharedFongoResource;
 
@@ -129,4 +131,91 @@ public class MongoGazetteerTest {
 		
 		gaz.destroy();
 	}
+	
+	@Test
+	public void testGetAdditionalDataPreload() throws BaleenException{
+		MongoGazetteer gaz = new MongoGazetteer();
+		gaz.init(sfr, Collections.singletonMap(MongoGazetteer.CONFIG_ADDITIONAL_DATA, "preload"));
+		
+		Counter misses = MetricsFactory.getMetrics(MongoGazetteer.class).getCounter("additionalDataMisses");
+		long before = misses.getCount();
+		
+		assertEquals(0, gaz.getAdditionalData(EN_HELLO2).size());
+		assertEquals(0, gaz.getAdditionalData("good morning").size());
+		
+		Map<String, Object> gutentagData = gaz.getAdditionalData(DE_HELLO);
+		assertEquals(2, gutentagData.size());
+		assertEquals("de", gutentagData.get(LANGUAGE));
+		assertEquals("good day", gutentagData.get(TRANSLATION));
+		
+		assertEquals("jp", gaz.getAdditionalData(JP_HELLO).get(LANGUAGE));
+		assertEquals(before, misses.getCount());
+		
+		gaz.destroy();
+	}
+	
+	@Test
+	public void testGetAdditionalDataCache() throws BaleenException{
+		MongoGazetteer gaz = new MongoGazetteer();
+		gaz.init(sfr, Collections.emptyMap());
+		
+		Counter hits = MetricsFactory.getMetrics(MongoGazetteer.class).getCounter("additionalDataHits");
+		Counter misses = MetricsFactory.getMetrics(MongoGazetteer.class).getCounter("additionalDataMisses");
+		long hitsBefore = hits.getCount();
+		long missesBefore = misses.getCount();
+		
+		gaz.prefetchAdditionalData(Arrays.asList(DE_HELLO, JP_HELLO, "konnichiwa", "good morning"));
+		assertEquals(missesBefore + 2, misses.getCount());
+		
+		assertEquals("good day", gaz.getAdditionalData(DE_HELLO).get(TRANSLATION));
+		assertEquals("jp", gaz.getAdditionalData(JP_HELLO).get(LANGUAGE));
+		assertEquals(hitsBefore + 2, hits.getCount());
+		assertEquals(missesBefore + 2, misses.getCount());
+		
+		assertEquals("se", gaz.getAdditionalData("hej").get(LANGUAGE));
+		assertEquals(missesBefore + 3, misses.getCount());
+		
+		gaz.destroy();
+	}
+	
+	@Test
+	public void testGetAdditionalDataQuery() throws BaleenException{
+		MongoGazetteer gaz = new MongoGazetteer();
+		gaz.init(sfr, Collections.singletonMap(MongoGazetteer.CONFIG_ADDITIONAL_DATA, MongoGazetteer.AdditionalData.QUERY));
+		
+		assertEquals(2, gaz.getAdditionalData(DE_HELLO).size());
+		assertEquals(0, gaz.getAdditionalData(EN_HELLO).size());
+		
+		gaz.destroy();
+	}
+	
+	@Test(expected = BaleenException.class)
+	public void testInvalidAdditionalData() throws BaleenException{
+		MongoGazetteer gaz = new MongoGazetteer();
+		gaz.init(sfr, Collections.singletonMap(MongoGazetteer.CONFIG_ADDITIONAL_DATA, "sometimes"));
+	}
+	
+	@Test
+	public void testHasChanged() throws BaleenException{
+		MongoCollection<Document> coll = sfr.getDB().getCollection("changing");
+		coll.insertOne(new Document(VALUE, EN_HELLO2));
+		
+		MongoGazetteer gaz = new MongoGazetteer();
+		gaz.init(sfr, Collections.singletonMap(MongoGazetteer.CONFIG_COLLECTION, "changing"));
+		assertFalse(gaz.hasChanged());
+		
+		coll.insertOne(new Document(VALUE, DE_HELLO));
+		assertTrue(gaz.hasChanged());
+		
+		gaz.reloadValues();
+		assertFalse(gaz.hasChanged());
+		assertTrue(gaz.hasValue(DE_HELLO));
+		
+		// Replacing an entry leaves the count the same, but changes the greatest ID
+		coll.deleteOne(new Document(VALUE, DE_HELLO));
+		coll.insertOne(new Document(VALUE, JP_HELLO));
+		assertTrue(gaz.hasChanged());
+		
+		gaz.destroy();
+	}
 }
@@ -278,15 +278,30 @@ public class DocumentAnnotation extends Annotation {
       jcasType.jcas.throwFeatMissing("documentReleasability", "uima.tcas.DocumentAnnotation");
     jcasType.jcas.checkArrayBounds(jcasType.ll_cas.ll_getRefValue(addr, ((DocumentAnnotation_Type)jcasType).casFeatCode_documentReleasability), i);
     jcasType.ll_cas.ll_setStringArrayValue(jcasType.ll_cas.ll_getRefValue(addr, ((DocumentAnnotation_Type)jcasType).casFeatCode_documentReleasability), i, v);}
-                            /**
-	 * Get hash of current document text
+
+	private String hashedText;
+	private String hash;
+
+	/**
+	 * Get hash of current document text.
+	 * 
+	 * The hash is only calculated the first time it is requested, and then reused until
+	 * the document text is changed.
 	 */
 	public String getHash() {
+		String text = getCAS().getDocumentText();
+		if (hash != null && text == hashedText) {
+			return hash;
+		}
+
 		try {
-			return IdentityUtils.hashStrings(getCAS().getDocumentText());
+			hash = IdentityUtils.hashStrings(text);
+			hashedText = text;
 		} catch (BaleenException e) {
 			return "";
 		}
+
+		return hash;
 	}
   }
  
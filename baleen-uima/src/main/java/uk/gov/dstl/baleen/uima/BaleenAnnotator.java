@@ -17,6 +17,8 @@ import uk.gov.dstl.baleen.core.pipelines.PipelineBuilder;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineActionStore;
 import uk.gov.dstl.baleen.core.pipelines.orderers.IPipelineOrderer;
+import uk.gov.dstl.baleen.core.tracing.Span;
+import uk.gov.dstl.baleen.uima.utils.RelationIndex;
 import uk.gov.dstl.baleen.uima.utils.UimaUtils;
 
 /**
@@ -26,6 +28,12 @@ import uk.gov.dstl.baleen.uima.utils.UimaUtils;
  * methods it provides as required to ensure we standardise logging and metrics
  * as much as possible.
  *
+ * Annotators that load expensive resources (such as models or gazetteers) should do so
+ * in {@link #doDeferredInitialize()} rather than {@link #doInitialize(UimaContext)}. This
+ * is called straight after doInitialize, unless <em>pipeline.lazy</em> is set, in which
+ * case it is called just before the first document is processed. Anything needed to describe
+ * the annotator, such as the types returned by {@link #getAction()}, must still be set up in
+ * doInitialize.
  * 
  */
 public abstract class BaleenAnnotator extends JCasAnnotator_ImplBase {
@@ -41,6 +49,8 @@ public abstract class BaleenAnnotator extends JCasAnnotator_ImplBase {
 	@ExternalResource(key = KEY_HISTORY, mandatory = false)
 	private BaleenHistory history;
 
+	private volatile boolean deferredInitialized = false;
+
 	@Override
 	public void initialize(UimaContext context) throws ResourceInitializationException {
 		// This will do initialization of resources,
@@ -57,6 +67,10 @@ public abstract class BaleenAnnotator extends JCasAnnotator_ImplBase {
 
 		monitor.finishFunction("initialize");
 
+		if (!UimaUtils.isLazy(context)) {
+			deferredInitialize();
+		}
+
 		String uuid = (String) getContext().getConfigParameterValue(PipelineBuilder.ANNOTATOR_UUID);
 		AnalysisEngineActionStore.getInstance().add(uuid, getAction());
 	}
@@ -80,12 +94,53 @@ public abstract class BaleenAnnotator extends JCasAnnotator_ImplBase {
 		// Do nothing - this should be overridden in most cases
 	}
 
+	/**
+	 * Called to load expensive resources, either straight after {@link #doInitialize(UimaContext)}
+	 * or, if the pipeline is lazy, before the first document is processed. The configuration
+	 * parameters and external resources of the annotator will be available.
+	 */
+	protected void doDeferredInitialize() throws ResourceInitializationException{
+		// Do nothing - override if there are expensive resources to load
+	}
+
+	private synchronized void deferredInitialize() throws ResourceInitializationException {
+		if (deferredInitialized) {
+			return;
+		}
+
+		monitor.startFunction("deferredInitialize");
+		doDeferredInitialize();
+		monitor.finishFunction("deferredInitialize");
+
+		deferredInitialized = true;
+	}
+
 	@Override
 	public void process(JCas aJCas) throws AnalysisEngineProcessException {
+		if (!deferredInitialized) {
+			// If the document is being traced, show the deferred initialisation separately to the processing
+			Span active = Span.active();
+			Span span = active == null ? null : active.getTrace().startSpan(active, "deferredInitialize", "initialize", null, 0);
+			try {
+				deferredInitialize();
+			} catch (ResourceInitializationException e) {
+				throw new AnalysisEngineProcessException(e);
+			} finally {
+				if (span != null) {
+					span.getTrace().endSpan(span, null);
+				}
+			}
+		}
+
 		monitor.startFunction("process");
+		monitor.startProcessing(aJCas);
+
+		// Pick up any changes made to relations by annotators that didn't go through UimaSupport
+		RelationIndex.validate(aJCas);
 
 		doProcess(aJCas);
 
+		monitor.finishProcessing(aJCas);
 		monitor.finishFunction("process");
 		monitor.persistCounts();
 	}
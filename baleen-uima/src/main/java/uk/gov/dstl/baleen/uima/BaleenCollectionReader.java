@@ -4,10 +4,12 @@ package uk.gov.dstl.baleen.uima;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.uima.UimaContext;
 import org.apache.uima.collection.CollectionException;
 import org.apache.uima.fit.component.JCasCollectionReader_ImplBase;
+import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.descriptor.ExternalResource;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -15,8 +17,10 @@ import org.apache.uima.util.Progress;
 
 import uk.gov.dstl.baleen.core.history.BaleenHistory;
 import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
+import uk.gov.dstl.baleen.core.pipelines.IBlockingCollectionReader;
 import uk.gov.dstl.baleen.core.pipelines.PipelineBuilder;
 import uk.gov.dstl.baleen.core.utils.BuilderUtils;
+import uk.gov.dstl.baleen.core.utils.ExponentialBackOff;
 import uk.gov.dstl.baleen.exceptions.InvalidParameterException;
 import uk.gov.dstl.baleen.uima.utils.UimaUtils;
 
@@ -27,9 +31,14 @@ import uk.gov.dstl.baleen.uima.utils.UimaUtils;
  * use any utility methods it provides as required to ensure we standardise
  * logging and metrics as much as possible.
  * 
+ * When a persistent pipeline is waiting for new documents, it calls
+ * {@link #awaitNext(long, TimeUnit)}. By default this polls {@link #doHasNext()} with an
+ * exponential back-off, but readers that are able to block until a document arrives (for
+ * instance on a WatchService or a JMS consumer) should override {@link #doAwaitNext(long)}.
+ * 
  * @baleen.javadoc
  */
-public abstract class BaleenCollectionReader extends JCasCollectionReader_ImplBase {
+public abstract class BaleenCollectionReader extends JCasCollectionReader_ImplBase implements IBlockingCollectionReader {
 	private UimaMonitor monitor;
 	private UimaSupport support;
 
@@ -42,6 +51,35 @@ public abstract class BaleenCollectionReader extends JCasCollectionReader_ImplBa
 	@ExternalResource(key = KEY_HISTORY, mandatory = false)
 	BaleenHistory history;
 
+	/**
+	 * When waiting for new documents, the initial time in milliseconds between checks
+	 * 
+	 * @baleen.config 10
+	 */
+	public static final String PARAM_IDLE_BACK_OFF_INITIAL = "idleBackOffInitial";
+	@ConfigurationParameter(name = PARAM_IDLE_BACK_OFF_INITIAL, defaultValue = "10")
+	private int idleBackOffInitial;
+
+	/**
+	 * When waiting for new documents, the longest time in milliseconds between checks
+	 * 
+	 * @baleen.config 1000
+	 */
+	public static final String PARAM_IDLE_BACK_OFF_MAX = "idleBackOffMax";
+	@ConfigurationParameter(name = PARAM_IDLE_BACK_OFF_MAX, defaultValue = "1000")
+	private int idleBackOffMax;
+
+	/**
+	 * When waiting for new documents, the amount the time between checks is multiplied by after each check
+	 * 
+	 * @baleen.config 2.0
+	 */
+	public static final String PARAM_IDLE_BACK_OFF_MULTIPLIER = "idleBackOffMultiplier";
+	@ConfigurationParameter(name = PARAM_IDLE_BACK_OFF_MULTIPLIER, defaultValue = "2.0")
+	private float idleBackOffMultiplier;
+
+	private ExponentialBackOff idleBackOff;
+
 	@Override
 	public final void initialize(UimaContext context) throws ResourceInitializationException {
 		super.initialize(context); // This will do initialization of resources,
@@ -50,6 +88,7 @@ public abstract class BaleenCollectionReader extends JCasCollectionReader_ImplBa
 		String pipelineName = UimaUtils.getPipelineName(context);
 		monitor = new UimaMonitor(pipelineName, this.getClass());
 		support = new UimaSupport(pipelineName, this.getClass(), history, monitor, UimaUtils.isMergeDistinctEntities(context));
+		idleBackOff = new ExponentialBackOff(idleBackOffInitial, idleBackOffMax, idleBackOffMultiplier);
 
 		monitor.startFunction("initialize");
 
@@ -147,11 +186,57 @@ public abstract class BaleenCollectionReader extends JCasCollectionReader_ImplBa
 		monitor.startFunctionTrace("hasNext");
 		
 		boolean next = doHasNext();
+		if (next) {
+			idleBackOff.reset();
+		}
 		
 		monitor.finishFunctionTrace("hasNext");
 		return next;
 	}
 
+	/**
+	 * Wait until there is a document to process, or the timeout elapses.
+	 */
+	@Override
+	public final boolean awaitNext(long timeout, TimeUnit unit) throws IOException, CollectionException, InterruptedException {
+		monitor.startFunctionTrace("awaitNext");
+
+		boolean next = doAwaitNext(unit.toMillis(timeout));
+		if (next) {
+			idleBackOff.reset();
+		}
+
+		monitor.finishFunctionTrace("awaitNext");
+		return next;
+	}
+
+	/**
+	 * Called when a persistent pipeline is waiting for a new document. Implementations
+	 * should return as soon as a document is available, and should not wait for longer
+	 * than the timeout (so that the pipeline can check whether it has been destroyed).
+	 * 
+	 * The default implementation repeatedly calls {@link #doHasNext()}, waiting for an
+	 * exponentially increasing time between calls. Readers that can block until a document
+	 * is available should override this.
+	 *
+	 * @param timeout
+	 *            The longest time to wait, in milliseconds
+	 * @return True if there is a document available, false otherwise
+	 */
+	protected boolean doAwaitNext(long timeout) throws IOException, CollectionException, InterruptedException {
+		long deadline = System.currentTimeMillis() + timeout;
+		while (!doHasNext()) {
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return false;
+			}
+
+			idleBackOff.sleep(remaining, TimeUnit.MILLISECONDS);
+		}
+
+		return true;
+	}
+
 	/**
 	 * Called when UIMA is asking whether there is another document to process.
 	 * Implementations should return whether there is currently a document
@@ -1,18 +1,37 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.uima;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import org.apache.uima.UIMAException;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.util.CasCreationUtils;
 
 import com.google.common.base.Joiner;
 
+import uk.gov.dstl.baleen.core.history.DocumentHistory;
+import uk.gov.dstl.baleen.core.history.HistoryEvent;
+import uk.gov.dstl.baleen.core.history.Recordable;
+import uk.gov.dstl.baleen.core.history.RecordableHistoryEvent;
+import uk.gov.dstl.baleen.core.history.impl.RecordableImpl;
+import uk.gov.dstl.baleen.core.tracing.DocumentTrace;
+import uk.gov.dstl.baleen.core.tracing.Span;
+import uk.gov.dstl.baleen.core.utils.ForkedCas;
+import uk.gov.dstl.baleen.types.language.Sentence;
 import uk.gov.dstl.baleen.types.language.Text;
 import uk.gov.dstl.baleen.uima.data.TextBlock;
 
@@ -41,6 +60,19 @@ import uk.gov.dstl.baleen.uima.data.TextBlock;
  * entire document. Thus you need to convert any offsets within the subset of text to document text
  * offset before creating annotations. TextBlock helps with this.
  * 
+ * When the document is being traced with text blocks enabled (see <em>pipeline.trace.textBlocks</em>),
+ * a span is recorded for each call to doProcessTextBlock.
+ * 
+ * Annotators which only use doProcessTextBlock, and which can safely process more than one block at a
+ * time, can support sharding by overriding {@link #isShardable()}. Documents longer than the shardThreshold
+ * are then split into shards of up to shardSize characters, which are processed in parallel. Small text blocks
+ * are grouped together into a shard, and text blocks larger than a shard are split at sentence boundaries (or
+ * failing that, line breaks or whitespace). Each shard is processed against its own copy of its text and the
+ * annotations within it, and the results are merged back into the document in the order of the shards, with
+ * their offsets translated back to the document. As a block split across shards is seen as separate blocks,
+ * anything spanning a split will not be found. History events are held until the shards are joined, and are
+ * then recorded against the original document.
+ * 
  * @baleen.javadoc
  *
  */
@@ -59,13 +91,345 @@ public abstract class BaleenTextAwareAnnotator extends BaleenAnnotator {
 	@ConfigurationParameter(name = PARAM_WHOLE_DOCUMENT, defaultValue = "false")
 	private boolean wholeDocumentAsText;
 
+	/**
+	 * Documents longer than this number of characters are processed in shards, in parallel, if the
+	 * annotator supports it. If 0 or less, documents are never sharded.
+	 * 
+	 * @baleen.config 0
+	 */
+	public static final String PARAM_SHARD_THRESHOLD = "shardThreshold";
+	@ConfigurationParameter(name = PARAM_SHARD_THRESHOLD, defaultValue = "0")
+	private int shardThreshold;
+
+	/**
+	 * The maximum size, in characters, of a shard (unless a single sentence is longer)
+	 * 
+	 * @baleen.config 1000000
+	 */
+	public static final String PARAM_SHARD_SIZE = "shardSize";
+	@ConfigurationParameter(name = PARAM_SHARD_SIZE, defaultValue = "1000000")
+	private int shardSize;
+
+	/**
+	 * The number of threads to process shards on. If 0 or less, the number of available processors is used.
+	 * Annotators configured with the same number of threads share a single pool of threads, which is shut
+	 * down once all of them have been destroyed.
+	 * 
+	 * @baleen.config 0
+	 */
+	public static final String PARAM_SHARD_THREADS = "shardThreads";
+	@ConfigurationParameter(name = PARAM_SHARD_THREADS, defaultValue = "0")
+	private int shardThreads;
+
+	private static final Map<Integer, SharedPool> SHARD_POOLS = new HashMap<>();
+
+	private ForkJoinPool shardPool;
+	private int shardPoolThreads;
+	private final Queue<JCas> spareShards = new ConcurrentLinkedQueue<>();
+
 	@Override
 	protected void doProcess(final JCas jCas) throws AnalysisEngineProcessException {
 		final List<TextBlock> blocks = getTextBlocks(jCas);
 
+		if (isSharded(jCas)) {
+			final List<ShardRange> shards = createShards(jCas, blocks);
+			if (shards.size() > 1 && processShards(jCas, shards)) {
+				return;
+			}
+		}
+
 		for (final TextBlock b : blocks) {
-			doProcessTextBlock(b);
+			processTextBlock(b);
+		}
+	}
+
+	/**
+	 * Whether the annotator can process shards of a document in parallel. This requires that the
+	 * annotator does all of its processing in {@link #doProcessTextBlock(TextBlock)}, and that
+	 * doProcessTextBlock is safe to call from more than one thread at once.
+	 * 
+	 * The default implementation returns false.
+	 *
+	 * @return true if the annotator supports sharding
+	 */
+	protected boolean isShardable() {
+		return false;
+	}
+
+	private boolean isSharded(final JCas jCas) {
+		final String text = jCas.getDocumentText();
+		return shardThreshold > 0 && isShardable() && text != null && text.length() > shardThreshold;
+	}
+
+	private void processTextBlock(final TextBlock block) throws AnalysisEngineProcessException {
+		final Span active = Span.active();
+		if (active == null || !active.getTrace().isTracingTextBlocks()) {
+			doProcessTextBlock(block);
+			return;
+		}
+
+		final DocumentTrace trace = active.getTrace();
+		final Span span = trace.startSpan(active, "TextBlock", "textBlock", block.getJCas(), block.getEnd() - block.getBegin());
+		span.setArg("begin", block.getBegin());
+		span.setArg("end", block.getEnd());
+		try {
+			doProcessTextBlock(block);
+		} finally {
+			trace.endSpan(span, block.getJCas());
+		}
+	}
+
+	/**
+	 * Process each shard in parallel, and join them back into the document
+	 *
+	 * @return false if the shards couldn't be created or joined, and the document should be processed sequentially instead
+	 */
+	private boolean processShards(final JCas jCas, final List<ShardRange> shards) throws AnalysisEngineProcessException {
+		final List<JCas> copies = new ArrayList<>(shards.size());
+		try {
+			for (int i = 0; i < shards.size(); i++) {
+				copies.add(acquireShard(jCas));
+			}
+		} catch (final UIMAException e) {
+			getMonitor().warn("Unable to create shards of document - it will be processed sequentially", e);
+			copies.forEach(this::releaseShard);
+			return false;
+		}
+
+		final Span active = Span.active();
+		if (active != null) {
+			active.setArg("shards", shards.size());
+		}
+
+		final ForkJoinPool pool = getShardPool();
+		final List<ForkedCas> forks = new ArrayList<>(shards.size());
+		final List<ShardHistory> histories = new ArrayList<>(shards.size());
+		final List<Future<?>> futures = new ArrayList<>(shards.size());
+
+		try {
+			// Forks are taken on this thread, as the document mustn't be read by more than one thread
+			for (int i = 0; i < shards.size(); i++) {
+				final ShardRange shard = shards.get(i);
+				final ForkedCas fork = ForkedCas.fork(jCas, shard.begin, shard.end, copies.get(i));
+				forks.add(fork);
+
+				final ShardHistory history = new ShardHistory(shard.begin);
+				histories.add(history);
+				getSupport().setDocumentHistory(fork.getCopy(), history);
+
+				futures.add(pool.submit(() -> {
+					for (final TextBlock b : getTextBlocks(fork.getCopy())) {
+						doProcessTextBlock(b);
+					}
+					return null;
+				}));
+			}
+
+			if (!joinShards(forks, futures)) {
+				return false;
+			}
+
+			final DocumentHistory documentHistory = getSupport().getDocumentHistory(jCas);
+			histories.forEach(h -> h.replay(documentHistory));
+			return true;
+		} finally {
+			copies.forEach(c -> getSupport().setDocumentHistory(c, null));
+			forks.forEach(f -> releaseShard(f.getCopy()));
+		}
+	}
+
+	/**
+	 * Wait for every shard to finish, and then join them all back into the document. If any shard fails, or
+	 * made changes that can't be joined, then none of the shards are joined, so that the document is never
+	 * left partly annotated.
+	 *
+	 * @return false if the shards can't be joined, and the document should be processed sequentially instead
+	 */
+	private boolean joinShards(final List<ForkedCas> forks, final List<Future<?>> futures) throws AnalysisEngineProcessException {
+		AnalysisEngineProcessException failure = null;
+		for (final Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (final ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof AnalysisEngineProcessException
+							? (AnalysisEngineProcessException) e.getCause() : new AnalysisEngineProcessException(e.getCause());
+				}
+			} catch (final InterruptedException e) {
+				futures.forEach(f -> f.cancel(true));
+				Thread.currentThread().interrupt();
+
+				// Shards may still be in use, so don't return them to the pool
+				forks.clear();
+				throw new AnalysisEngineProcessException(e);
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+
+		for (final ForkedCas fork : forks) {
+			final List<String> conflicts = fork.findConflicts();
+			if (!conflicts.isEmpty()) {
+				getMonitor().warn("Unable to join shards of document ({}) - it will be processed sequentially",
+						String.join(", ", conflicts));
+				return false;
+			}
+		}
+
+		forks.forEach(ForkedCas::join);
+		return true;
+	}
+
+	/**
+	 * Split the text blocks of a document into shards of no more than shardSize characters (unless a single
+	 * sentence is longer). Consecutive small blocks are grouped into a single shard.
+	 */
+	private List<ShardRange> createShards(final JCas jCas, final List<TextBlock> blocks) {
+		final List<ShardRange> shards = new ArrayList<>();
+		final int size = Math.max(1, shardSize);
+
+		int groupBegin = -1;
+		int groupEnd = -1;
+		for (final TextBlock block : blocks) {
+			if (groupBegin >= 0 && block.getEnd() - groupBegin > size) {
+				shards.add(new ShardRange(groupBegin, groupEnd));
+				groupBegin = -1;
+			}
+
+			if (block.getEnd() - block.getBegin() > size) {
+				shards.addAll(splitBlock(jCas, block, size));
+			} else if (groupBegin < 0) {
+				groupBegin = block.getBegin();
+				groupEnd = block.getEnd();
+			} else {
+				groupEnd = block.getEnd();
+			}
+		}
+
+		if (groupBegin >= 0) {
+			shards.add(new ShardRange(groupBegin, groupEnd));
+		}
+
+		return shards;
+	}
+
+	/**
+	 * Split a single block which is larger than a shard, at sentence boundaries if there are sentences, and
+	 * otherwise at line breaks or whitespace
+	 */
+	private List<ShardRange> splitBlock(final JCas jCas, final TextBlock block, final int size) {
+		final List<ShardRange> shards = new ArrayList<>();
+
+		int begin = block.getBegin();
+		int boundary = begin;
+		for (final Sentence sentence : JCasUtil.selectCovered(jCas, Sentence.class, block.getBegin(), block.getEnd())) {
+			if (sentence.getEnd() - begin > size && boundary > begin) {
+				shards.add(new ShardRange(begin, boundary));
+				begin = boundary;
+			}
+			boundary = sentence.getEnd();
+		}
+
+		final String text = jCas.getDocumentText();
+		while (block.getEnd() - begin > size) {
+			final int end = findBreak(text, begin, begin + size);
+			shards.add(new ShardRange(begin, end));
+			begin = end;
+		}
+
+		if (block.getEnd() > begin) {
+			shards.add(new ShardRange(begin, block.getEnd()));
+		}
+
+		return shards;
+	}
+
+	/**
+	 * Find the last line break (or failing that, whitespace) in the second half of the text between begin and end
+	 *
+	 * @return the position after the break, or end if there isn't one
+	 */
+	private static int findBreak(final String text, final int begin, final int end) {
+		final int earliest = begin + (end - begin) / 2;
+
+		for (int i = end - 1; i > earliest; i--) {
+			if (text.charAt(i) == '\n') {
+				return i + 1;
+			}
+		}
+
+		for (int i = end - 1; i > earliest; i--) {
+			if (Character.isWhitespace(text.charAt(i))) {
+				return i + 1;
+			}
+		}
+
+		// Don't split a surrogate pair
+		return Character.isLowSurrogate(text.charAt(end)) ? end - 1 : end;
+	}
+
+	private synchronized ForkJoinPool getShardPool() {
+		if (shardPool == null) {
+			shardPoolThreads = shardThreads > 0 ? shardThreads : Runtime.getRuntime().availableProcessors();
+			shardPool = acquireShardPool(shardPoolThreads);
+		}
+		return shardPool;
+	}
+
+	/**
+	 * Get the pool shared by all annotators using the given number of threads, creating it if necessary
+	 */
+	private static ForkJoinPool acquireShardPool(final int threads) {
+		synchronized (SHARD_POOLS) {
+			final SharedPool shared = SHARD_POOLS.computeIfAbsent(threads, t -> new SharedPool(new ForkJoinPool(t)));
+			shared.references++;
+			return shared.pool;
+		}
+	}
+
+	/**
+	 * Release a reference to a shared pool, shutting it down if no other annotators are using it
+	 */
+	private static void releaseShardPool(final int threads) {
+		synchronized (SHARD_POOLS) {
+			final SharedPool shared = SHARD_POOLS.get(threads);
+			if (shared != null && --shared.references <= 0) {
+				SHARD_POOLS.remove(threads);
+				shared.pool.shutdownNow();
+			}
+		}
+	}
+
+	private JCas acquireShard(final JCas jCas) throws UIMAException {
+		JCas shard = spareShards.poll();
+		while (shard != null && shard.getTypeSystem() != jCas.getTypeSystem()) {
+			shard = spareShards.poll();
 		}
+
+		if (shard == null) {
+			shard = CasCreationUtils.createCas(jCas.getTypeSystem(), null, null, null).getJCas();
+		}
+		return shard;
+	}
+
+	private void releaseShard(final JCas shard) {
+		shard.reset();
+		spareShards.offer(shard);
+	}
+
+	@Override
+	public void destroy() {
+		super.destroy();
+
+		synchronized (this) {
+			if (shardPool != null) {
+				releaseShardPool(shardPoolThreads);
+				shardPool = null;
+			}
+		}
+		spareShards.clear();
 	}
 
 	/**
@@ -163,4 +527,82 @@ public abstract class BaleenTextAwareAnnotator extends BaleenAnnotator {
 	protected boolean isWholeDocumentAsText() {
 		return wholeDocumentAsText;
 	}
+
+	/**
+	 * Holds the history events of a shard until it has been joined, so that they can then be recorded against
+	 * the original document with their offsets translated back to the document
+	 */
+	private static final class ShardHistory implements DocumentHistory {
+		private final int offset;
+		private final List<HistoryEvent> events = new ArrayList<>();
+
+		private ShardHistory(final int offset) {
+			this.offset = offset;
+		}
+
+		@Override
+		public synchronized void add(final HistoryEvent event) {
+			events.add(event);
+		}
+
+		@Override
+		public synchronized Collection<HistoryEvent> getAllHistory() {
+			return new ArrayList<>(events);
+		}
+
+		@Override
+		public synchronized Collection<HistoryEvent> getHistory(final long recordableId) {
+			return events.stream()
+					.filter(e -> e.getRecordable() != null && e.getRecordable().getInternalId() == recordableId)
+					.collect(Collectors.toList());
+		}
+
+		@Override
+		public void close() {
+			// Do nothing - the events are replayed once the shard is joined
+		}
+
+		/**
+		 * Record the events against the original document. This must be done before the shard is released,
+		 * as the recordables are annotations in the shard.
+		 */
+		private synchronized void replay(final DocumentHistory documentHistory) {
+			for (final HistoryEvent e : events) {
+				final Recordable r = e.getRecordable();
+				if (r == null) {
+					documentHistory.add(e);
+				} else {
+					final Recordable recordable = new RecordableImpl(r.getInternalId(), r.getCoveredText(),
+							r.getBegin() + offset, r.getEnd() + offset, r.getTypeName());
+					documentHistory.add(new RecordableHistoryEvent(e.getEventType(), e.getTimestamp(), recordable,
+							e.getReferrer(), e.getAction(), e.getParameters()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * A pool of threads for processing shards, and the number of annotators using it
+	 */
+	private static final class SharedPool {
+		private final ForkJoinPool pool;
+		private int references = 0;
+
+		private SharedPool(final ForkJoinPool pool) {
+			this.pool = pool;
+		}
+	}
+
+	/**
+	 * A range of the document to be processed as a shard
+	 */
+	private static final class ShardRange {
+		private final int begin;
+		private final int end;
+
+		private ShardRange(final int begin, final int end) {
+			this.begin = begin;
+			this.end = end;
+		}
+	}
 }
\ No newline at end of file
@@ -4,11 +4,13 @@ package uk.gov.dstl.baleen.uima;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.uima.jcas.JCas;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.gov.dstl.baleen.core.metrics.Metrics;
 import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
+import uk.gov.dstl.baleen.core.metrics.ProcessingMetrics;
 import uk.gov.dstl.baleen.uima.utils.UimaUtils;
 
 import com.codahale.metrics.Counter;
@@ -24,12 +26,18 @@ import com.codahale.metrics.Timer;
 public class UimaMonitor {
 	private final Logger logger;
 	private final Metrics metrics;
+	private final Class<?> clazz;
+	private ProcessingMetrics processingMetrics;
 
 	private final Map<String, Timer.Context> timers = new HashMap<>();
 	private final Map<String, Long> entityAddedCounts = new HashMap<>();
 	private final Map<String, Long> entityRemovedCounts = new HashMap<>();
 	private final String pipelineName;
 
+	private long processingStart;
+	private long processingStartAllocated;
+	private int processingStartHeap;
+
 	/**
 	 * Constructor to create a UimaMonitor. The class and pipeline name should
 	 * be specified so that we can differentiate between them in the logging and
@@ -44,6 +52,7 @@ public class UimaMonitor {
 		this.pipelineName = pipelineName;
 		logger = LoggerFactory.getLogger(UimaUtils.makePipelineSpecificName(pipelineName, clazz));
 		metrics = MetricsFactory.getMetrics(pipelineName, clazz);
+		this.clazz = clazz;
 	}
 
 	/**
@@ -105,13 +114,56 @@ public class UimaMonitor {
 		logger.trace("Finishing function {}", functionName);
 	}
 
+	/**
+	 * Start measuring the processing of a document, for the latency, allocation
+	 * and CAS heap growth recorded in {@link ProcessingMetrics}
+	 *
+	 * @param jCas
+	 *            The document about to be processed
+	 */
+	public void startProcessing(JCas jCas) {
+		processingStartHeap = getHeapSize(jCas);
+		processingStartAllocated = ProcessingMetrics.currentThreadAllocatedBytes();
+		processingStart = System.nanoTime();
+	}
+
+	/**
+	 * Finish measuring the processing of a document, and record the results
+	 *
+	 * @param jCas
+	 *            The document that has been processed
+	 */
+	public void finishProcessing(JCas jCas) {
+		long duration = System.nanoTime() - processingStart;
+		long allocated = ProcessingMetrics.currentThreadAllocatedBytes();
+		int heap = getHeapSize(jCas);
+
+		String text = jCas.getDocumentText();
+		getProcessingMetrics().record(duration, text == null ? 0 : text.length(),
+				allocated < 0 || processingStartAllocated < 0 ? -1 : allocated - processingStartAllocated,
+				heap < 0 || processingStartHeap < 0 ? -1 : heap - processingStartHeap);
+	}
+
+	/**
+	 * Get the processing metrics shared by every instance of this component within the pipeline
+	 *
+	 * @return the processing metrics
+	 */
+	public ProcessingMetrics getProcessingMetrics() {
+		// Created on first use, so that components which don't process documents aren't reported
+		if (processingMetrics == null) {
+			processingMetrics = MetricsFactory.getInstance().getProcessingMetrics(pipelineName, clazz);
+		}
+		return processingMetrics;
+	}
+
 	/**
 	 * Register that an entity of a specific type has been added
 	 *
 	 * @param type
 	 *            The type of entity that has been added
 	 */
-	public void entityAdded(String type) {
+	public synchronized void entityAdded(String type) {
 		Long count = entityAddedCounts.get(type);
 		if (count == null) {
 			count = 0L;
@@ -129,7 +181,7 @@ public class UimaMonitor {
 	 * @param type
 	 *            The type of entity that has been removed
 	 */
-	public void entityRemoved(String type) {
+	public synchronized void entityRemoved(String type) {
 		Long count = entityRemovedCounts.get(type);
 		if (count == null) {
 			count = 0L;
@@ -145,7 +197,7 @@ public class UimaMonitor {
 	 * Persist entity counts into the Metrics object, as we only want to do this
 	 * once per process() function and not every time we add an entity.
 	 */
-	public void persistCounts() {
+	public synchronized void persistCounts() {
 		for (String type : entityAddedCounts.keySet()) {
 			metrics.getCounter(type + "-added").inc(entityAddedCounts.get(type));
 		}
@@ -289,6 +341,14 @@ public class UimaMonitor {
 		return metrics.getMeter(name);
 	}
 
+	private static int getHeapSize(JCas jCas) {
+		try {
+			return jCas.getCasImpl().getHeap().getNextId();
+		} catch (RuntimeException e) {
+			return -1;
+		}
+	}
+
 	private void stopTimer(String name) {
 		if (timers.containsKey(name)) {
 			timers.remove(name).stop();
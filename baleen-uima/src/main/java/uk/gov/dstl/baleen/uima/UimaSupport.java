@@ -4,12 +4,11 @@ package uk.gov.dstl.baleen.uima;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.uima.UIMAException;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
-import org.apache.uima.fit.util.JCasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.jcas.tcas.DocumentAnnotation;
@@ -24,6 +23,8 @@ import uk.gov.dstl.baleen.types.Base;
 import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.types.semantic.ReferenceTarget;
 import uk.gov.dstl.baleen.types.semantic.Relation;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
+import uk.gov.dstl.baleen.uima.utils.RelationIndex;
 import uk.gov.dstl.baleen.uima.utils.UimaUtils;
 
 import com.google.common.base.Strings;
@@ -44,6 +45,7 @@ public class UimaSupport {
 	private final boolean mergeDistinctEntities;
 	private final BaleenHistory history;
 	private final String pipelineName;
+	private final Map<JCas, DocumentHistory> documentHistories = new ConcurrentHashMap<>();
 
 	/** New instance.
 	 * @param pipelineName the name of the pipeline
@@ -90,6 +92,7 @@ public class UimaSupport {
 		for(Annotation annot : annotations) {
 			annot.addToIndexes();
 			monitor.entityAdded(annot.getType().getName());
+			DerivedIndexCache.invalidate(annot);
 
 			if(annot instanceof Entity) {
 				Entity entity = (Entity)annot;
@@ -100,6 +103,11 @@ public class UimaSupport {
 				}
 
 				addToHistory(annot.getCAS(), HistoryEvents.createAdded((Recordable)annot, referrer));
+			}else if(annot instanceof Relation) {
+				RelationIndex index = getRelationIndex(annot, false);
+				if(index != null) {
+					index.add((Relation)annot);
+				}
 			}
 		}
 	}
@@ -114,6 +122,10 @@ public class UimaSupport {
 	 *            Annotation(s) to remove
 	 */
 	public void remove(Collection<? extends Annotation> annotations) {
+		//The index is kept up to date as the annotations are removed, so only look it up once
+		RelationIndex checked = null;
+		CAS checkedCas = null;
+
 		for(Annotation annot : annotations) {
 
 			if(annot instanceof Recordable) {
@@ -125,15 +137,33 @@ public class UimaSupport {
 			}
 
 			if(annot instanceof Entity){
-				for(Relation r : getRelations((Entity)annot)){
-					monitor.entityRemoved(r.getType().getName());
-					r.removeFromIndexes();
+				if(checked == null || checkedCas != annot.getCAS()) {
+					checked = getRelationIndex(annot, true);
+					checkedCas = annot.getCAS();
+				}
+
+				RelationIndex index = checked;
+				if(index != null) {
+					for(Relation r : index.getRelations((Entity)annot)){
+						monitor.entityRemoved(r.getType().getName());
+						r.removeFromIndexes();
+						DerivedIndexCache.invalidate(r);
+						index.remove(r);
+					}
 				}
 			}
 			
 			monitor.entityRemoved(annot.getType().getName());
 
 			annot.removeFromIndexes();
+			DerivedIndexCache.invalidate(annot);
+			
+			if(annot instanceof Relation){
+				RelationIndex index = getRelationIndex(annot, false);
+				if(index != null) {
+					index.remove((Relation)annot);
+				}
+			}
 		}
 
 	}
@@ -238,12 +268,16 @@ public class UimaSupport {
 			addMergeToHistory(targetEntity, entity);
 			
 			//Update relationship pointers
-			for(Relation r : getRelations(entity)){
-				if(r.getSource() == entity){
-					r.setSource(targetEntity);
-				}
-				if(r.getTarget() == entity){
-					r.setTarget(targetEntity);
+			RelationIndex index = getRelationIndex(entity, true);
+			if(index != null) {
+				for(Relation r : index.getRelations(entity)){
+					if(r.getSource() == entity){
+						r.setSource(targetEntity);
+					}
+					if(r.getTarget() == entity){
+						r.setTarget(targetEntity);
+					}
+					index.update(r);
 				}
 			}
 			
@@ -314,10 +348,29 @@ public class UimaSupport {
 	 * @return the history associated with the document
 	 */
 	public DocumentHistory getDocumentHistory(JCas jCas) {
+		DocumentHistory documentHistory = documentHistories.get(jCas);
+		if(documentHistory != null) {
+			return documentHistory;
+		}
+
 		String documentId = pipelineName + ":" + getDocumentAnnotation(jCas).getHash();
 		return history.getHistory(documentId);
 	}
 
+	/** Record the history of a document in the given history, rather than the history of the document's own ID.
+	 * This is used when a jCas holds part of another document, such as a shard, whose events need to be recorded
+	 * against the original document.
+	 * @param jCas the target document
+	 * @param documentHistory the history to record events in, or null to use the document's own history again
+	 */
+	public void setDocumentHistory(JCas jCas, DocumentHistory documentHistory) {
+		if(documentHistory == null) {
+			documentHistories.remove(jCas);
+		} else {
+			documentHistories.put(jCas, documentHistory);
+		}
+	}
+
 	/**
 	 * Return the document annotation.
 	 *
@@ -335,14 +388,28 @@ public class UimaSupport {
 	 * @return Collection of relations that refer to the given Entity
 	 */
 	public Collection<Relation> getRelations(Entity e){
-		try{
-			JCas jCas = e.getCAS().getJCas();
-			Collection<Relation> relations = JCasUtil.select(jCas, Relation.class);
-			
-			return relations.stream().filter(r -> r.getSource() == e || r.getTarget() == e).collect(Collectors.toList());
-		}catch(UIMAException ue){
-			monitor.warn("Unable to get relations from entity", ue);
+		RelationIndex index = getRelationIndex(e, true);
+		if(index == null){
 			return Collections.emptyList();
 		}
+		
+		return index.getRelations(e);
+	}
+	
+	/**
+	 * Get the relation index for the document containing the annotation
+	 * 
+	 * @param annot An annotation in the document
+	 * @param build If true, the index will be built if necessary; otherwise null is returned if there is no existing index
+	 * @return The relation index, or null
+	 */
+	private RelationIndex getRelationIndex(Annotation annot, boolean build){
+		try{
+			JCas jCas = annot.getCAS().getJCas();
+			return build ? RelationIndex.getInstance(jCas) : RelationIndex.getExistingInstance(jCas);
+		}catch(CASException ce){
+			monitor.warn("Unable to get relations from entity", ce);
+			return null;
+		}
 	}
 }
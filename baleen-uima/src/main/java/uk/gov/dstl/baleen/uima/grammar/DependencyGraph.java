@@ -23,6 +23,7 @@ import com.google.common.collect.SetMultimap;
 
 import uk.gov.dstl.baleen.types.language.Dependency;
 import uk.gov.dstl.baleen.types.language.WordToken;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * A graph of grammar dependencies within an annotated jCas.
@@ -443,6 +444,21 @@ public class DependencyGraph {
 		return graph;
 	}
 
+	/**
+	 * Get the dependency graph of the whole of a JCAS, building it if it hasn't already been built for the current
+	 * document (or the dependencies have changed since).
+	 *
+	 * The graph is shared with other users of the JCAS, see {@link DerivedIndexCache}.
+	 *
+	 * @param jCas
+	 *            the jCAS to process.
+	 * @return the dependency graph (non-null)
+	 */
+	public static DependencyGraph getInstance(final JCas jCas) {
+		return DerivedIndexCache.get(jCas, DependencyGraph.class, DependencyGraph::build, Dependency.class,
+				WordToken.class);
+	}
+
 	/**
 	 * Build a dependency graph from a JCAS which has already been processed through a dependency
 	 * grammar, but limit to a subset of the jcas (covered by annotation).
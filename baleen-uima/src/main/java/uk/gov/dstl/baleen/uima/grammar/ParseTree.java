@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 
 import uk.gov.dstl.baleen.types.language.PhraseChunk;
 import uk.gov.dstl.baleen.types.language.WordToken;
+import uk.gov.dstl.baleen.uima.utils.DerivedIndexCache;
 
 /**
  * A tree formed of a hierarchy of ParseChunks.
@@ -170,6 +171,20 @@ public class ParseTree {
 		return new ParseTree(roots, chunkToNode, wordToNode);
 	}
 
+	/**
+	 * Gets the tree, building it if it hasn't already been built for the current document (or the phrase chunks or
+	 * words have changed since).
+	 *
+	 * The tree is shared with other users of the jCas, see {@link DerivedIndexCache}.
+	 *
+	 * @param jCas
+	 *            the j cas
+	 * @return the parse tree
+	 */
+	public static ParseTree getInstance(JCas jCas) {
+		return DerivedIndexCache.get(jCas, ParseTree.class, ParseTree::build, PhraseChunk.class, WordToken.class);
+	}
+
 	/**
 	 * Find smallest (covered text length) covering chunk
 	 *
@@ -0,0 +1,110 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * A registry of the property setters of JCas classes and the features of UIMA types, so that code that
+ * populates or converts many annotations of the same type only has to reflect over the type once.
+ * <p>
+ * Setters are resolved into {@link java.lang.invoke.MethodHandle}s, and features are resolved along with their camel
+ * cased names and the kind of their range. Classes and types are weakly referenced, so that they can
+ * still be unloaded (for instance, when a type system is replaced).
+ */
+public class AccessorRegistry {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AccessorRegistry.class);
+
+	private static final LoadingCache<Class<?>, Map<String, PropertySetter>> SETTERS = CacheBuilder.newBuilder()
+			.weakKeys().build(CacheLoader.from(AccessorRegistry::resolveSetters));
+
+	private static final LoadingCache<Type, List<FeatureAccessor>> FEATURES = CacheBuilder.newBuilder()
+			.weakKeys().build(CacheLoader.from(AccessorRegistry::resolveFeatures));
+
+	private AccessorRegistry() {
+		// Utility class
+	}
+
+	/**
+	 * Get the setters of a class, which are the public methods with a name of the form <i>setX</i> that
+	 * take one parameter, keyed by property name (see {@link PropertySetter#getProperty()})
+	 *
+	 * @param clazz
+	 *            The class
+	 * @return an unmodifiable map of property name to setter
+	 */
+	public static Map<String, PropertySetter> getSetters(Class<?> clazz) {
+		return SETTERS.getUnchecked(clazz);
+	}
+
+	/**
+	 * Get the features of a type
+	 *
+	 * @param type
+	 *            The type
+	 * @return an unmodifiable list of the type's features, in the order returned by {@link Type#getFeatures()}
+	 */
+	public static List<FeatureAccessor> getFeatures(Type type) {
+		return FEATURES.getUnchecked(type);
+	}
+
+	/**
+	 * Lower-case the first letter of a string, leaving the rest in its original case
+	 *
+	 * @param s
+	 *            String to convert to camel-case
+	 * @return Camel-cased string
+	 */
+	public static String toCamelCase(String s) {
+		return s.substring(0, 1).toLowerCase() + s.substring(1);
+	}
+
+	private static Map<String, PropertySetter> resolveSetters(Class<?> clazz) {
+		Map<String, PropertySetter> setters = new HashMap<>();
+
+		for (Method m : clazz.getMethods()) {
+			String name = m.getName();
+			if (!name.startsWith("set") || name.length() <= 3 || !isUpperCase(name.charAt(3))
+					|| m.getParameterCount() != 1 || Modifier.isStatic(m.getModifiers())) {
+				continue;
+			}
+
+			String property = toCamelCase(name.substring(3));
+			try {
+				setters.putIfAbsent(property, new PropertySetter(property, m));
+			} catch (IllegalAccessException e) {
+				LOGGER.debug("Unable to access setter {} of {}", name, clazz.getName(), e);
+			}
+		}
+
+		return Collections.unmodifiableMap(setters);
+	}
+
+	private static boolean isUpperCase(char c) {
+		return c >= 'A' && c <= 'Z';
+	}
+
+	private static List<FeatureAccessor> resolveFeatures(Type type) {
+		List<FeatureAccessor> features = new ArrayList<>();
+
+		for (Feature f : type.getFeatures()) {
+			features.add(new FeatureAccessor(f));
+		}
+
+		return Collections.unmodifiableList(features);
+	}
+}
@@ -3,8 +3,10 @@ package uk.gov.dstl.baleen.uima.utils;
 
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -47,6 +49,25 @@ public class AnnotationHierarchyBuilder {
     return new ItemHierarchy<>(buildRoot(jCas, annotationClasses));
   }
 
+  /**
+   * Get the hierarchy for the given jCas, using the types provided, building it if it hasn't
+   * already been built for the current document (or the annotations of those types have changed
+   * since).
+   * <p>
+   * The hierarchy is shared with other users of the jCas, see {@link DerivedIndexCache}.
+   *
+   * @param jCas the jCas
+   * @param annotationClasses the annotations classes to use
+   * @return the Structure base AnnotationHierachy
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends Annotation> ItemHierarchy<T> getInstance(JCas jCas,
+      Set<Class<? extends T>> annotationClasses) {
+    Set<Class<? extends T>> key = new HashSet<>(annotationClasses);
+    return DerivedIndexCache.get(jCas, Arrays.asList(AnnotationHierarchyBuilder.class, key),
+        j -> build(j, key), key.toArray(new Class[key.size()]));
+  }
+
   /**
    * Build the structure hierarchy, by first collecting all the annotations.
    *
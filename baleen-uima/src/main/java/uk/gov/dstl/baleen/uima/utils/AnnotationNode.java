@@ -35,6 +35,9 @@ public class AnnotationNode<T extends Annotation> extends AbstractNode<T> {
   /** lazily created attribute map */
   private Map<String, String> attributes;
 
+  /** lazily created list of classes */
+  private List<String> classes;
+
   /**
    * Constructor for the Structure Node.
    *
@@ -131,12 +134,24 @@ public class AnnotationNode<T extends Annotation> extends AbstractNode<T> {
 
   @Override
   public List<String> getClasses() {
+    if (classes == null) {
+      classes = createClasses();
+    }
+    return classes;
+  }
+
+  /**
+   * Create the (lower case) list of classes of the contained structure
+   *
+   * @return the classes
+   */
+  private List<String> createClasses() {
     T annotation = getItem();
     if (annotation instanceof Structure) {
-      String classes = ((Structure) annotation).getElementClass();
-      if (StringUtils.isNotBlank(classes)) {
-        return Arrays.asList(classes.split("\\s")).stream().map(String::toLowerCase)
-            .collect(Collectors.toList());
+      String elementClass = ((Structure) annotation).getElementClass();
+      if (StringUtils.isNotBlank(elementClass)) {
+        return ImmutableList.copyOf(Arrays.asList(elementClass.split("\\s")).stream()
+            .map(String::toLowerCase).collect(Collectors.toList()));
       }
     }
     return ImmutableList.of();
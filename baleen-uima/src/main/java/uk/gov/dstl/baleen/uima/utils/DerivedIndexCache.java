@@ -0,0 +1,214 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+/**
+ * A cache of structures derived from the annotations in a CAS, such as covered/covering indexes and
+ * grammar structures, so that each is built at most once per document however many annotators and
+ * consumers use it.
+ * <p>
+ * Each structure is recorded against the annotation types it was built from. It is discarded when an
+ * annotation of one of those types is added or removed through {@link uk.gov.dstl.baleen.uima.UimaSupport},
+ * or when the number of annotations of one of those types has changed (for instance, because annotations
+ * were added directly to the CAS indexes), and is rebuilt the next time it is requested. As with
+ * {@link RelationIndex}, the cache is also discarded when the CAS is reset. Changes to the offsets or features
+ * of existing annotations are not detected, so code that makes such changes (such as the cleaners which extend an
+ * entity to include its title) should call {@link #invalidate(Annotation)} for each annotation it changes, or
+ * {@link #invalidate(JCas)}.
+ * <p>
+ * The cached structures are shared, and must not be modified. Like the CAS itself, the cache should only be
+ * used by one thread at a time.
+ * <p>
+ * The structures hold references to the CAS, so the cache of each CAS is softly referenced; CAS objects that
+ * are no longer used can still be garbage collected, and their cache is then rebuilt if necessary.
+ */
+public class DerivedIndexCache {
+	private static final Map<CAS, SoftReference<DerivedIndexCache>> CACHES = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	private final DocumentIdentity document;
+	private final Map<Object, Entry> entries = new HashMap<>();
+
+	private DerivedIndexCache(JCas jCas) {
+		this.document = new DocumentIdentity(jCas);
+	}
+
+	/**
+	 * Get a cached index of the annotations of the given type to the annotations they cover, as
+	 * {@link JCasUtil#indexCovered(JCas, Class, Class)}
+	 *
+	 * @param jCas
+	 *            The JCas
+	 * @param type
+	 *            The covering type
+	 * @param coveredType
+	 *            The covered type
+	 * @return an unmodifiable index
+	 */
+	public static <T extends Annotation, S extends Annotation> Map<T, Collection<S>> indexCovered(JCas jCas,
+			Class<T> type, Class<S> coveredType) {
+		return get(jCas, Arrays.asList("covered", type, coveredType),
+				j -> Collections.unmodifiableMap(JCasUtil.indexCovered(j, type, coveredType)), type, coveredType);
+	}
+
+	/**
+	 * Get a cached index of the annotations of the given type to the annotations covering them, as
+	 * {@link JCasUtil#indexCovering(JCas, Class, Class)}
+	 *
+	 * @param jCas
+	 *            The JCas
+	 * @param type
+	 *            The covered type
+	 * @param coveringType
+	 *            The covering type
+	 * @return an unmodifiable index
+	 */
+	public static <T extends Annotation, S extends Annotation> Map<T, Collection<S>> indexCovering(JCas jCas,
+			Class<T> type, Class<S> coveringType) {
+		return get(jCas, Arrays.asList("covering", type, coveringType),
+				j -> Collections.unmodifiableMap(JCasUtil.indexCovering(j, type, coveringType)), type, coveringType);
+	}
+
+	/**
+	 * Get a cached structure, building it if it hasn't been built for the current document or is out of date
+	 *
+	 * @param jCas
+	 *            The JCas
+	 * @param key
+	 *            The key of the structure, which must be unique to the kind of structure and the parameters used to
+	 *            build it
+	 * @param builder
+	 *            Builds the structure from the JCas
+	 * @param dependsOn
+	 *            The annotation types the structure is built from
+	 * @return the structure
+	 */
+	@SafeVarargs
+	@SuppressWarnings("unchecked")
+	public static <T> T get(JCas jCas, Object key, Function<JCas, T> builder,
+			Class<? extends Annotation>... dependsOn) {
+		DerivedIndexCache cache = getCache(jCas, true);
+
+		Entry entry = cache.entries.get(key);
+		if (entry == null || !entry.isCurrent(jCas)) {
+			Type[] types = new Type[dependsOn.length];
+			for (int i = 0; i < dependsOn.length; i++) {
+				types[i] = JCasUtil.getType(jCas, dependsOn[i]);
+			}
+
+			entry = new Entry(builder.apply(jCas), types, jCas);
+			cache.entries.put(key, entry);
+		}
+
+		return (T) entry.value;
+	}
+
+	/**
+	 * Discard any cached structures that depend on the type of the given annotation, which has been added to or
+	 * removed from the CAS, or has had its offsets changed
+	 *
+	 * @param annotation
+	 *            The annotation
+	 */
+	public static void invalidate(Annotation annotation) {
+		JCas jCas;
+		try {
+			jCas = annotation.getCAS().getJCas();
+		} catch (CASException e) {
+			return;
+		}
+
+		DerivedIndexCache cache = getCache(jCas, false);
+		if (cache == null || cache.entries.isEmpty()) {
+			return;
+		}
+
+		Type type = annotation.getType();
+		TypeSystem typeSystem = jCas.getTypeSystem();
+
+		Iterator<Entry> it = cache.entries.values().iterator();
+		while (it.hasNext()) {
+			if (it.next().dependsOn(typeSystem, type)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Discard all cached structures for the given JCas
+	 *
+	 * @param jCas
+	 *            The JCas
+	 */
+	public static void invalidate(JCas jCas) {
+		CACHES.remove(jCas.getCas());
+	}
+
+	private static DerivedIndexCache getCache(JCas jCas, boolean create) {
+		CAS cas = jCas.getCas();
+
+		SoftReference<DerivedIndexCache> ref = CACHES.get(cas);
+		DerivedIndexCache cache = ref == null ? null : ref.get();
+		if (cache != null && cache.document.isSame(jCas)) {
+			return cache;
+		}
+
+		if (!create) {
+			return null;
+		}
+
+		cache = new DerivedIndexCache(jCas);
+		CACHES.put(cas, new SoftReference<>(cache));
+		return cache;
+	}
+
+	private static final class Entry {
+		private final Object value;
+		private final Type[] types;
+		private final int[] sizes;
+
+		Entry(Object value, Type[] types, JCas jCas) {
+			this.value = value;
+			this.types = types;
+			this.sizes = sizes(jCas, types);
+		}
+
+		boolean isCurrent(JCas jCas) {
+			return Arrays.equals(sizes, sizes(jCas, types));
+		}
+
+		boolean dependsOn(TypeSystem typeSystem, Type type) {
+			for (Type t : types) {
+				if (typeSystem.subsumes(t, type)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static int[] sizes(JCas jCas, Type[] types) {
+			int[] sizes = new int[types.length];
+			for (int i = 0; i < types.length; i++) {
+				sizes[i] = jCas.getAnnotationIndex(types[i]).size();
+			}
+			return sizes;
+		}
+	}
+}
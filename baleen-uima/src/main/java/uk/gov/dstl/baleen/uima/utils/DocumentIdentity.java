@@ -0,0 +1,58 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.jcas.JCas;
+
+/**
+ * Identifies the document held by a CAS, so that structures derived from its annotations can tell when the CAS
+ * has been reset and reused for another document.
+ * <p>
+ * The JCas creates a new document annotation object when it is reset, so comparing against the one previously
+ * seen tells us whether the CAS now holds a different document. However, the JCas keeps separate objects for each
+ * class loader it is used with, and annotators run with a different one to the code that created the CAS. The
+ * object seen under each class loader is therefore recorded. The first time the CAS is seen under a new class
+ * loader, the address of the document annotation and the document text (by reference, as a new document sets new
+ * text even if it has the same content) are compared instead.
+ * <p>
+ * Like the CAS itself, this should only be used by one thread at a time.
+ */
+final class DocumentIdentity {
+	private final int annotation;
+	private final WeakReference<String> text;
+	private final Map<ClassLoader, WeakReference<FeatureStructure>> documents = new WeakHashMap<>();
+
+	DocumentIdentity(JCas jCas) {
+		FeatureStructure document = jCas.getDocumentAnnotationFs();
+		this.annotation = jCas.getLowLevelCas().ll_getFSRef(document);
+		this.text = new WeakReference<>(jCas.getDocumentText());
+		documents.put(jCas.getCasImpl().getJCasClassLoader(), new WeakReference<>(document));
+	}
+
+	/**
+	 * Does the CAS still hold the same document
+	 *
+	 * @param jCas
+	 *            The JCas
+	 * @return true if the document is the one this was created from
+	 */
+	boolean isSame(JCas jCas) {
+		ClassLoader classLoader = jCas.getCasImpl().getJCasClassLoader();
+		FeatureStructure document = jCas.getDocumentAnnotationFs();
+
+		WeakReference<FeatureStructure> seen = documents.get(classLoader);
+		if (seen != null) {
+			return seen.get() == document;
+		}
+
+		if (text.get() != jCas.getDocumentText() || annotation != jCas.getLowLevelCas().ll_getFSRef(document)) {
+			return false;
+		}
+		documents.put(classLoader, new WeakReference<>(document));
+		return true;
+	}
+}
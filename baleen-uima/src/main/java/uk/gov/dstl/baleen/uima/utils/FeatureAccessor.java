@@ -0,0 +1,76 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+
+/**
+ * A feature of a UIMA type, along with the properties of it that are needed to convert it, resolved
+ * once by the {@link AccessorRegistry}.
+ */
+public final class FeatureAccessor {
+	private final Feature feature;
+	private final String camelCaseName;
+	private final boolean primitive;
+	private final boolean array;
+	private final boolean primitiveArray;
+
+	FeatureAccessor(Feature feature) {
+		this.feature = feature;
+		this.camelCaseName = AccessorRegistry.toCamelCase(feature.getShortName());
+
+		Type range = feature.getRange();
+		this.primitive = range.isPrimitive();
+		this.array = range.isArray();
+		this.primitiveArray = array && range.getComponentType() != null && range.getComponentType().isPrimitive();
+	}
+
+	/**
+	 * The feature
+	 */
+	public Feature getFeature() {
+		return feature;
+	}
+
+	/**
+	 * The fully qualified name of the feature
+	 */
+	public String getName() {
+		return feature.getName();
+	}
+
+	/**
+	 * The short name of the feature
+	 */
+	public String getShortName() {
+		return feature.getShortName();
+	}
+
+	/**
+	 * The short name of the feature, with the first letter lower cased
+	 */
+	public String getCamelCaseName() {
+		return camelCaseName;
+	}
+
+	/**
+	 * Whether the range of the feature is a primitive type
+	 */
+	public boolean isPrimitive() {
+		return primitive;
+	}
+
+	/**
+	 * Whether the range of the feature is an array
+	 */
+	public boolean isArray() {
+		return array;
+	}
+
+	/**
+	 * Whether the range of the feature is an array of a primitive type
+	 */
+	public boolean isPrimitiveArray() {
+		return primitiveArray;
+	}
+}
@@ -0,0 +1,90 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A thread safe registry of compiled regular expressions, keyed by the expression and its flags, so
+ * that annotators using the same expressions (including multiple instances of the same annotator)
+ * share a single compiled {@link Pattern}.
+ * <p>
+ * Patterns are immutable and can be used by many threads at once, but compiling them is expensive. They
+ * should be obtained from the registry when an annotator is initialised, rather than compiled whilst
+ * processing each document.
+ * <p>
+ * Patterns are held for the life of the JVM, so the registry is intended for expressions defined in code
+ * or configuration, rather than expressions built from document content.
+ */
+public class PatternRegistry {
+	private static final Map<Key, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+	private PatternRegistry() {
+		// Utility class
+	}
+
+	/**
+	 * Get the compiled pattern for a regular expression
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @return the compiled pattern
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if the expression is invalid
+	 */
+	public static Pattern compile(String regex) {
+		return compile(regex, 0);
+	}
+
+	/**
+	 * Get the compiled pattern for a regular expression with the given flags
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @param flags
+	 *            The match flags, as for {@link Pattern#compile(String, int)}
+	 * @return the compiled pattern
+	 * @throws java.util.regex.PatternSyntaxException
+	 *             if the expression is invalid
+	 */
+	public static Pattern compile(String regex, int flags) {
+		return PATTERNS.computeIfAbsent(new Key(regex, flags), k -> Pattern.compile(k.regex, k.flags));
+	}
+
+	/**
+	 * The number of patterns in the registry
+	 */
+	public static int size() {
+		return PATTERNS.size();
+	}
+
+	private static final class Key {
+		private final String regex;
+		private final int flags;
+
+		Key(String regex, int flags) {
+			this.regex = Objects.requireNonNull(regex);
+			this.flags = flags;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key) obj;
+			return flags == other.flags && regex.equals(other.regex);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * regex.hashCode() + flags;
+		}
+	}
+}
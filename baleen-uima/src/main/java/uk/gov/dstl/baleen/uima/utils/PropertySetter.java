@@ -0,0 +1,63 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A setter of a property on a JCas class, resolved once into a {@link MethodHandle} by the
+ * {@link AccessorRegistry}.
+ */
+public final class PropertySetter {
+	private static final MethodType GENERIC_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private final String property;
+	private final Class<?> parameterType;
+	private final MethodHandle handle;
+
+	PropertySetter(String property, Method method) throws IllegalAccessException {
+		this.property = property;
+		this.parameterType = method.getParameterTypes()[0];
+		this.handle = MethodHandles.publicLookup().unreflect(method).asType(GENERIC_SETTER);
+	}
+
+	/**
+	 * The name of the property, which is the name of the setter without the <i>set</i> prefix and
+	 * with the first letter lower cased
+	 */
+	public String getProperty() {
+		return property;
+	}
+
+	/**
+	 * The type of the setter's parameter
+	 */
+	public Class<?> getParameterType() {
+		return parameterType;
+	}
+
+	/**
+	 * Set the property
+	 *
+	 * @param target
+	 *            The object to set the property on, which must be an instance of the class the setter
+	 *            was resolved for
+	 * @param value
+	 *            The value, which must be assignable to the parameter type
+	 * @throws InvocationTargetException
+	 *             If the setter, or the conversion of the target or value to the setter's types, throws
+	 *             an exception
+	 */
+	public void set(Object target, Object value) throws InvocationTargetException {
+		try {
+			handle.invokeExact(target, value);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+}
@@ -0,0 +1,239 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.LowLevelCAS;
+import org.apache.uima.cas.impl.LowLevelIterator;
+import org.apache.uima.cas.impl.LowLevelTypeSystem;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+
+import uk.gov.dstl.baleen.types.semantic.Entity;
+import uk.gov.dstl.baleen.types.semantic.Relation;
+
+/**
+ * A reverse index from entities to the relations that have them as a source or target, so that the
+ * relations for an entity can be found without scanning every relation in the document.
+ * <p>
+ * There is one index per CAS, which is built the first time it is requested and then kept up to date
+ * by {@link uk.gov.dstl.baleen.uima.UimaSupport} as relations are added, removed and merged. Each time
+ * the index is requested, it is rebuilt if the CAS has been reset or the number of relations in the CAS
+ * no longer matches the index, both of which are constant time checks.
+ * <p>
+ * Relations may also be swapped directly in the CAS indexes, or have their source or target changed in
+ * place, without the number of relations changing. To catch these, the index keeps a checksum of the
+ * address, source and target of every relation it holds, which {@link #validate(JCas)} compares against
+ * the CAS. This is a single pass over the relations in the CAS, so rather than being done on every
+ * request, it is done once by {@link uk.gov.dstl.baleen.uima.BaleenAnnotator} before each annotator
+ * processes the document.
+ * <p>
+ * Like the CAS itself, an index should only be used by one thread at a time.
+ */
+public class RelationIndex {
+	private static final Map<CAS, RelationIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+	//Indexed by address rather than feature structure, so that the index doesn't hold a reference to the CAS
+	private final DocumentIdentity document;
+	private final Map<Integer, Set<Integer>> relations = new HashMap<>();
+	//The source and target each relation was indexed under, which may since have been changed in place
+	private final Map<Integer, int[]> links = new HashMap<>();
+	private long checksum = 0;
+
+	private RelationIndex(JCas jCas){
+		this.document = new DocumentIdentity(jCas);
+
+		for(Relation r : JCasUtil.select(jCas, Relation.class)){
+			add(r);
+		}
+	}
+
+	/**
+	 * Get the index for a JCas, building it if it doesn't exist or is out of date
+	 *
+	 * @param jCas
+	 * 		The JCas
+	 * @return
+	 * 		The relation index for the JCas
+	 */
+	public static RelationIndex getInstance(JCas jCas){
+		RelationIndex index = INDEXES.get(jCas.getCas());
+		if(index == null || !index.isCurrent(jCas)){
+			index = new RelationIndex(jCas);
+			INDEXES.put(jCas.getCas(), index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Get the index for a JCas if it has already been built since the CAS was last reset, or null otherwise.
+	 * Use this when making changes to relations, so that an index isn't built unnecessarily.
+	 *
+	 * @param jCas
+	 * 		The JCas
+	 * @return
+	 * 		The relation index for the JCas, or null
+	 */
+	public static RelationIndex getExistingInstance(JCas jCas){
+		RelationIndex index = INDEXES.get(jCas.getCas());
+		if(index == null || !index.isSameDocument(jCas)){
+			return null;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Check that the index for a JCas, if there is one, still matches the relations in the CAS, and discard
+	 * it if not so that it is rebuilt when next requested. This is proportional to the number of relations
+	 * in the CAS.
+	 *
+	 * @param jCas
+	 * 		The JCas
+	 */
+	public static void validate(JCas jCas){
+		RelationIndex index = INDEXES.get(jCas.getCas());
+		if(index != null && !(index.isCurrent(jCas) && index.isChecksumCurrent(jCas))){
+			INDEXES.remove(jCas.getCas());
+		}
+	}
+
+	private boolean isCurrent(JCas jCas){
+		return isSameDocument(jCas) && links.size() == jCas.getAnnotationIndex(Relation.type).size();
+	}
+
+	private boolean isChecksumCurrent(JCas jCas){
+		LowLevelCAS cas = jCas.getLowLevelCas();
+		LowLevelTypeSystem ts = cas.ll_getTypeSystem();
+		Type type = jCas.getCasType(Relation.type);
+		int source = ts.ll_getCodeForFeature(type.getFeatureByBaseName("source"));
+		int target = ts.ll_getCodeForFeature(type.getFeatureByBaseName("target"));
+
+		long current = 0;
+		LowLevelIterator it = cas.ll_getIndexRepository().ll_getIndex(CAS.STD_ANNOTATION_INDEX, ts.ll_getCodeForType(type)).ll_iterator();
+		for(it.moveToFirst(); it.isValid(); it.moveToNext()){
+			int address = it.ll_get();
+			current += hash(address, cas.ll_getRefValue(address, source), cas.ll_getRefValue(address, target));
+		}
+
+		return current == checksum;
+	}
+
+	private boolean isSameDocument(JCas jCas){
+		return document.isSame(jCas);
+	}
+
+	/**
+	 * Get the relations that have the given entity as either the source or the target, in the
+	 * order they were added to the index
+	 *
+	 * @param entity
+	 * 		The entity
+	 * @return
+	 * 		The relations referring to the entity
+	 */
+	public List<Relation> getRelations(Entity entity){
+		Set<Integer> addresses = relations.get(entity.getAddress());
+		if(addresses == null){
+			return Collections.emptyList();
+		}
+
+		LowLevelCAS cas = entity.getCAS().getLowLevelCAS();
+		List<Relation> ret = new ArrayList<>(addresses.size());
+		for(Integer address : addresses){
+			Relation r = cas.ll_getFSForRef(address);
+			if(r.getSource() == entity || r.getTarget() == entity){
+				ret.add(r);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Add a relation, which has been added to the CAS indexes, to the index
+	 */
+	public void add(Relation relation){
+		if(links.containsKey(relation.getAddress())){
+			remove(relation);
+		}
+
+		Entity source = relation.getSource();
+		Entity target = relation.getTarget();
+		int[] link = new int[]{address(source), address(target)};
+
+		links.put(relation.getAddress(), link);
+		checksum += hash(relation.getAddress(), link[0], link[1]);
+		put(source, relation);
+		put(target, relation);
+	}
+
+	/**
+	 * Remove a relation, which has been removed from the CAS indexes, from the index
+	 */
+	public void remove(Relation relation){
+		int[] link = links.remove(relation.getAddress());
+		if(link == null){
+			return;
+		}
+
+		checksum -= hash(relation.getAddress(), link[0], link[1]);
+		delete(link[0], relation);
+		delete(link[1], relation);
+	}
+
+	/**
+	 * Update the index to reflect a relation's source and/or target having been changed
+	 *
+	 * @param relation
+	 * 		The relation that has been updated
+	 */
+	public void update(Relation relation){
+		remove(relation);
+		add(relation);
+	}
+
+	private void put(Entity entity, Relation relation){
+		if(entity != null){
+			relations.computeIfAbsent(entity.getAddress(), e -> new LinkedHashSet<>()).add(relation.getAddress());
+		}
+	}
+
+	private void delete(int entity, Relation relation){
+		Set<Integer> addresses = relations.get(entity);
+		if(addresses != null){
+			addresses.remove(relation.getAddress());
+			if(addresses.isEmpty()){
+				relations.remove(entity);
+			}
+		}
+	}
+
+	private static int address(Entity entity){
+		return entity == null ? 0 : entity.getAddress();
+	}
+
+	/**
+	 * Spread the address, source and target of a relation across the checksum, so that the sum over
+	 * all relations is unlikely to be unchanged when one relation is swapped for another
+	 */
+	private static long hash(int address, int source, int target){
+		long h = ((long) address * 31 + source) * 31 + target;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
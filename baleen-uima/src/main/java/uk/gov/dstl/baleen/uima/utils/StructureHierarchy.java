@@ -3,6 +3,8 @@ package uk.gov.dstl.baleen.uima.utils;
 
 import static uk.gov.dstl.baleen.uima.utils.StructureUtil.filterAnnotations;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -40,4 +42,21 @@ public class StructureHierarchy extends ItemHierarchy<Structure> {
     return new StructureHierarchy(AnnotationHierarchyBuilder.build(structures));
   }
 
+  /**
+   * Get the structure hierarchy for the given jCas, using only the structural classes provided,
+   * building it if it hasn't already been built for the current document (or the structure has
+   * changed since).
+   * <p>
+   * The hierarchy is shared with other users of the jCas, see {@link DerivedIndexCache}.
+   *
+   * @param jCas the jCas
+   * @param types the structural classes
+   * @return the Structure base AnnotationHierachy
+   */
+  public static StructureHierarchy getInstance(JCas jCas, Set<Class<? extends Structure>> types) {
+    Set<Class<? extends Structure>> key = new HashSet<>(types);
+    return DerivedIndexCache.get(jCas, Arrays.asList(StructureHierarchy.class, key),
+        j -> build(j, key), Structure.class);
+  }
+
 }
@@ -20,7 +20,7 @@ public class TypeSystemSingleton {
 	/**
 	 * Return the singleton TypeSystemDescription instance
 	 */
-	public static TypeSystemDescription getTypeSystemDescriptionInstance() throws ResourceInitializationException{
+	public static synchronized TypeSystemDescription getTypeSystemDescriptionInstance() throws ResourceInitializationException{
 		if(tsd == null){
 			tsd = TypeSystemDescriptionFactory.createTypeSystemDescription();
 		}
@@ -5,6 +5,7 @@ import org.apache.uima.UimaContext;
 
 import uk.gov.dstl.baleen.core.history.BaleenHistory;
 import uk.gov.dstl.baleen.core.pipelines.PipelineBuilder;
+import uk.gov.dstl.baleen.core.pipelines.PipelineOptions;
 
 /**
  * Helper functions for UIMA.
@@ -50,6 +51,23 @@ public class UimaUtils {
 		}
 	}
 
+	/**
+	 * Should annotators defer loading expensive resources until the first document,
+	 * based on the global configuration parameter <em>pipeline.lazy</em>
+	 * (unless overridden locally)
+	 *
+	 * @param context the UIMA context
+	 * @return true if initialisation should be deferred
+	 */
+	public static boolean isLazy(UimaContext context) {
+		Object value = context.getConfigParameterValue(PipelineOptions.LAZY);
+		if (value instanceof Boolean) {
+			return (boolean) value;
+		} else {
+			return value != null && Boolean.parseBoolean(value.toString());
+		}
+	}
+
 	/** Derive a standardised name for an instance based on it's pipeline and class type.
 	 * @param pipelineName the name of the pipeline the class is running in
 	 * @param clazz the class
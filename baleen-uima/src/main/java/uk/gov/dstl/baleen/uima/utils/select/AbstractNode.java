@@ -4,10 +4,11 @@ package uk.gov.dstl.baleen.uima.utils.select;
 import static java.util.stream.Collectors.toList;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-
-import org.apache.commons.lang.Validate;
+import java.util.Map;
 
 import uk.gov.dstl.baleen.uima.utils.SelectorPart;
 
@@ -26,6 +27,15 @@ public abstract class AbstractNode<T> implements Node<T> {
   /** the children of this node */
   private final List<AbstractNode<T>> children = new ArrayList<>();
 
+  /** the index of this node in its parent's children */
+  private int siblingIndex;
+
+  /** the index of this node in its parent's children of the same type, calculated lazily */
+  private int typeIndex = -1;
+
+  /** lazily created index of this node and its descendants by lower case type name */
+  private Map<String, List<Node<T>>> nodesByType;
+
   /**
    * Constructor for the Structure Node.
    *
@@ -43,6 +53,7 @@ public abstract class AbstractNode<T> implements Node<T> {
    * @param node the child node
    */
   protected void addChild(AbstractNode<T> node) {
+    node.siblingIndex = children.size();
     children.add(node);
   }
 
@@ -51,6 +62,11 @@ public abstract class AbstractNode<T> implements Node<T> {
     return new Nodes<>(children);
   }
 
+  @Override
+  public int getChildCount() {
+    return children.size();
+  }
+
   @Override
   public Nodes<T> getChildren(Class<?> type) {
     return new Nodes<>(children.stream().filter(c -> type.equals(c.getType())).collect(toList()));
@@ -126,8 +142,20 @@ public abstract class AbstractNode<T> implements Node<T> {
     if (!hasParent()) {
       return 0;
     }
-    Nodes<T> siblings = parent.getChildren(getType());
-    return siblings.indexOf(this);
+    if (typeIndex < 0) {
+      parent.indexChildTypes();
+    }
+    return typeIndex;
+  }
+
+  /**
+   * Calculate the type index of all the children of this node in one pass
+   */
+  private void indexChildTypes() {
+    Map<Class<?>, Integer> counts = new HashMap<>();
+    for (AbstractNode<T> child : children) {
+      child.typeIndex = counts.merge(child.getType(), 1, Integer::sum) - 1;
+    }
   }
 
   @Override
@@ -135,8 +163,7 @@ public abstract class AbstractNode<T> implements Node<T> {
     if (!hasParent()) {
       return 0;
     }
-    Nodes<T> siblings = parent.getChildren();
-    return siblings.indexOf(this);
+    return siblingIndex;
   }
 
   @Override
@@ -191,11 +218,8 @@ public abstract class AbstractNode<T> implements Node<T> {
     if (parent == null) {
       return null;
     }
-    Nodes<T> siblings = parent.getChildren();
-    Integer index = indexInList(this, siblings);
-    Validate.notNull(index);
-    if (siblings.size() > index + 1) {
-      return (AbstractNode<T>) siblings.get(index + 1);
+    if (parent.children.size() > siblingIndex + 1) {
+      return parent.children.get(siblingIndex + 1);
     } else {
       return null;
     }
@@ -206,11 +230,8 @@ public abstract class AbstractNode<T> implements Node<T> {
     if (parent == null) {
       return null;
     }
-    Nodes<T> siblings = parent.getChildren();
-    Integer index = indexInList(this, siblings);
-    Validate.notNull(index);
-    if (index > 0) {
-      return (AbstractNode<T>) siblings.get(index - 1);
+    if (siblingIndex > 0) {
+      return parent.children.get(siblingIndex - 1);
     } else {
       return null;
     }
@@ -252,31 +273,28 @@ public abstract class AbstractNode<T> implements Node<T> {
   }
 
 
+  @Override
+  public Nodes<T> getAllNodes() {
+    return Collector.collect(new Evaluator.AllNodes<>(), this);
+  }
+
   /**
-   * Get the index of the search node in the given list.
-   * <p>
-   * Search by identity
+   * Get this node and its descendants with the given type name, in the order they would be
+   * visited by {@link Collector}. The index is built on first use, so that repeated selections
+   * from this node only evaluate nodes of the required type.
    *
-   * @param search the node to search for
-   * @param nodes the node to search in
-   * @return the index
+   * @param typeName the lower case type name
+   * @return the nodes of the type (empty if none)
    */
-  private Integer indexInList(Node<T> search, List<? extends Node<T>> nodes) {
-    Validate.notNull(search);
-    Validate.notNull(nodes);
-
-    for (int i = 0; i < nodes.size(); i++) {
-      Node<T> node = nodes.get(i);
-      if (node == search) {
-        return i;
+  List<Node<T>> getNodesOfType(String typeName) {
+    if (nodesByType == null) {
+      Map<String, List<Node<T>>> index = new HashMap<>();
+      for (Node<T> node : getAllNodes()) {
+        index.computeIfAbsent(node.getTypeName().toLowerCase(), k -> new ArrayList<>()).add(node);
       }
+      nodesByType = index;
     }
-    return null;
-  }
-
-  @Override
-  public Nodes<T> getAllNodes() {
-    return Collector.collect(new Evaluator.AllNodes<>(), this);
+    return nodesByType.getOrDefault(typeName, Collections.emptyList());
   }
 
   @Override
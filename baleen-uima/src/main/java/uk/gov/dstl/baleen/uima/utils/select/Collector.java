@@ -1,6 +1,8 @@
 //Dstl (c) Crown Copyright 2017
 package uk.gov.dstl.baleen.uima.utils.select;
 
+import java.util.Collection;
+
 /**
  * Collects a list of elements that match the supplied criteria.
  */
@@ -22,6 +24,26 @@ public class Collector {
     return elements;
   }
 
+  /**
+   * Build a list of nodes, by evaluating only the given candidate nodes (in order) rather than
+   * visiting every node under the root.
+   *
+   * @param eval Evaluator to test nodes against
+   * @param root root of tree to descend
+   * @param candidates the nodes under the root (including the root) that may match
+   * @return list of matches; empty if none
+   */
+  public static <T> Nodes<T> collect(Evaluator<T> eval, Node<T> root,
+      Collection<Node<T>> candidates) {
+    Nodes<T> elements = new Nodes<>();
+    for (Node<T> node : candidates) {
+      if (eval.matches(root, node)) {
+        elements.add(node);
+      }
+    }
+    return elements;
+  }
+
   /**
    * An internal accumulator, implements Node visitor to evaluate the nodes
    *
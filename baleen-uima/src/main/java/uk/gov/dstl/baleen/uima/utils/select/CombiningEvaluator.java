@@ -70,6 +70,17 @@ abstract class CombiningEvaluator<T> extends Evaluator<T> {
       return true;
     }
 
+    @Override
+    String getRequiredTypeName() {
+      for (int i = 0; i < num; i++) {
+        String typeName = evaluators.get(i).getRequiredTypeName();
+        if (typeName != null) {
+          return typeName;
+        }
+      }
+      return null;
+    }
+
     @Override
     public String toString() {
       return StringUtils.join(evaluators, " ");
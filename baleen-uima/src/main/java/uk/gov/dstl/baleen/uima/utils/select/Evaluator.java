@@ -23,6 +23,16 @@ public abstract class Evaluator<T> {
    */
   public abstract boolean matches(Node<T> root, Node<T> node);
 
+  /**
+   * The (lower case) type name that all matching nodes must have, if any. This allows matching
+   * nodes to be found from an index, rather than evaluating every node.
+   *
+   * @return the type name, or null if nodes of any type may match
+   */
+  String getRequiredTypeName() {
+    return null;
+  }
+
   /**
    * Evaluator for type name
    */
@@ -38,6 +48,11 @@ public abstract class Evaluator<T> {
       return node.getTypeName().equalsIgnoreCase(typeName);
     }
 
+    @Override
+    String getRequiredTypeName() {
+      return typeName.toLowerCase();
+    }
+
     @Override
     public String toString() {
       return String.format("%s", typeName);
@@ -370,7 +385,7 @@ public abstract class Evaluator<T> {
     @Override
     public boolean matches(Node<T> root, Node<T> node) {
       final Node<T> p = node.getParent();
-      return p != null && node.getSiblingIndex() == p.getChildren().size() - 1;
+      return p != null && node.getSiblingIndex() == p.getChildCount() - 1;
     }
 
     @Override
@@ -490,7 +505,7 @@ public abstract class Evaluator<T> {
 
     @Override
     protected int calculatePosition(Node<T> root, Node<T> node) {
-      return node.getParent().getChildren().size() - node.getSiblingIndex();
+      return node.getParent().getChildCount() - node.getSiblingIndex();
     }
 
     @Override
@@ -510,18 +525,7 @@ public abstract class Evaluator<T> {
 
     @Override
     protected int calculatePosition(Node<T> root, Node<T> node) {
-      int pos = 0;
-
-      Nodes<T> family = new Nodes<>(node.getParent().getChildren());
-      for (Node<T> el : family) {
-        if (el.getTypeName().equals(node.getTypeName())) {
-          pos++;
-        }
-        if (el == node) {
-          break;
-        }
-      }
-      return pos;
+      return node.getTypeIndex() + 1;
     }
 
     @Override
@@ -593,7 +597,7 @@ public abstract class Evaluator<T> {
     @Override
     public boolean matches(Node<T> root, Node<T> node) {
       final Node<T> p = node.getParent();
-      return p != null && p.getChildren().size() == 1;
+      return p != null && p.getChildCount() == 1;
     }
 
     @Override
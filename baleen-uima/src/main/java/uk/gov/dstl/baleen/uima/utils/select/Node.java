@@ -18,6 +18,15 @@ public interface Node<T> {
    */
   Nodes<T> getChildren();
 
+  /**
+   * Get the number of children of the node, without copying them
+   *
+   * @return the number of child nodes
+   */
+  default int getChildCount() {
+    return getChildren().size();
+  }
+
   /**
    * Get the children of this node with the given type
    *
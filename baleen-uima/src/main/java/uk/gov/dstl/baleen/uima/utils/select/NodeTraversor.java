@@ -34,8 +34,9 @@ public class NodeTraversor<T> {
 
     while (node != null) {
       visitor.head(node, depth);
-      if (!node.getChildren().isEmpty()) {
-        node = node.getChildren().get(0);
+      Nodes<T> children = node.getChildren();
+      if (!children.isEmpty()) {
+        node = children.get(0);
         depth++;
       } else {
         while (node.nextSibling() == null && depth > 0) {
@@ -9,6 +9,9 @@ import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * Parses a CSS selector into an Evaluator tree.
  */
@@ -27,6 +30,16 @@ public class QueryParser<T> {
   /** pattern for matching one arg pseudo selectors :first-child, :last-child, :nth-child, ... */
   private static final Pattern NTH_B = Pattern.compile("(\\+|-)?(\\d+)");
 
+  /** the maximum number of parsed queries to keep */
+  private static final int MAX_CACHED_QUERIES = 1000;
+
+  /**
+   * Parsed queries, which are reused as evaluators hold no state once parsed and can be shared
+   * between threads and node types
+   */
+  private static final Cache<String, Evaluator<?>> CACHE =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_QUERIES).build();
+
   /** the token queue */
   private TokenQueue tq;
 
@@ -48,11 +61,29 @@ public class QueryParser<T> {
 
   /**
    * Parse a CSS query into an Evaluator.
+   * <p>
+   * Recently used queries are cached, so the returned Evaluator may be shared.
    *
    * @param query CSS query
    * @return Evaluator
    */
+  @SuppressWarnings("unchecked")
   public static <T> Evaluator<T> parse(String query) {
+    Evaluator<T> evaluator = (Evaluator<T>) CACHE.getIfPresent(query);
+    if (evaluator == null) {
+      evaluator = compile(query);
+      CACHE.put(query, evaluator);
+    }
+    return evaluator;
+  }
+
+  /**
+   * Parse a CSS query into a new Evaluator.
+   *
+   * @param query CSS query
+   * @return Evaluator
+   */
+  private static <T> Evaluator<T> compile(String query) {
     try {
       QueryParser<T> p = new QueryParser<>(query);
       return p.parse();
@@ -304,6 +304,10 @@ public class Selector<T> {
   }
 
   private Nodes<T> select() {
+    String typeName = evaluator.getRequiredTypeName();
+    if (typeName != null && root instanceof AbstractNode) {
+      return Collector.collect(evaluator, root, ((AbstractNode<T>) root).getNodesOfType(typeName));
+    }
     return Collector.collect(evaluator, root);
   }
 
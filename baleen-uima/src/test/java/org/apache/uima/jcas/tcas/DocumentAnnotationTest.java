@@ -2,6 +2,7 @@
 package org.apache.uima.jcas.tcas;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import org.apache.uima.fit.factory.JCasFactory;
 import org.apache.uima.jcas.JCas;
@@ -18,4 +19,20 @@ public class DocumentAnnotationTest {
 		DocumentAnnotation doc = (DocumentAnnotation) jcas.getDocumentAnnotationFs();
 		assertEquals("87cebccde680225b7640878d334b4cbb1c048ba1c8e66763f72cca5396a37807", doc.getHash());
 	}
+	
+	@Test
+	public void docHashChanged() throws Exception{
+		JCas jcas = JCasFactory.createJCas(TypeSystemSingleton.getTypeSystemDescriptionInstance());		
+		jcas.setDocumentText("There is the mention of some entity in this sentence.");
+		
+		DocumentAnnotation doc = (DocumentAnnotation) jcas.getDocumentAnnotationFs();
+		String hash = doc.getHash();
+		assertSame(hash, doc.getHash());
+		
+		jcas.reset();
+		jcas.setDocumentText("Hello");
+		
+		doc = (DocumentAnnotation) jcas.getDocumentAnnotationFs();
+		assertEquals("185f8db32271fe25f561a6fc938b2e264306ec304eda518007d1764826381969", doc.getHash());
+	}
 }
@@ -2,6 +2,7 @@
 package uk.gov.dstl.baleen.uima;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.only;
@@ -25,6 +26,7 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import uk.gov.dstl.baleen.core.pipelines.PipelineBuilder;
+import uk.gov.dstl.baleen.core.pipelines.PipelineOptions;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
 import uk.gov.dstl.baleen.uima.testing.JCasSingleton;
 
@@ -76,6 +78,27 @@ public class BaleenAnnotatorTest {
 		assertTrue(annotator.processed);
 	}
 
+	@Test
+	public void testDeferredInitialize() throws Exception {
+		FakeBaleenAnnotator annotator = new FakeBaleenAnnotator();
+		annotator.initialize(context);
+		assertTrue(annotator.deferredInitialised);
+	}
+
+	@Test
+	public void testLazyInitialize() throws Exception {
+		UimaContext lazyContext = UimaContextFactory.createUimaContext(PipelineBuilder.PIPELINE_NAME, PIPELINE_NAME, PipelineOptions.LAZY, "true");
+
+		FakeBaleenAnnotator annotator = new FakeBaleenAnnotator();
+		annotator.initialize(lazyContext);
+		assertTrue(annotator.initialised);
+		assertFalse(annotator.deferredInitialised);
+
+		annotator.process(jCas);
+		assertTrue(annotator.deferredInitialised);
+		assertTrue(annotator.processed);
+	}
+
 	@Test
 	public void testGetMonitor() throws ResourceInitializationException {
 		FakeBaleenAnnotator annotator = new FakeBaleenAnnotator();
@@ -150,6 +173,7 @@ public class BaleenAnnotatorTest {
 		private boolean processed;
 		private boolean initialised;
 		private boolean destroyed;
+		private boolean deferredInitialised;
 
 		@Override
 		protected void doProcess(JCas jCas) throws AnalysisEngineProcessException {
@@ -162,6 +186,12 @@ public class BaleenAnnotatorTest {
 			initialised = true;
 		}
 
+		@Override
+		protected void doDeferredInitialize() throws ResourceInitializationException {
+			super.doDeferredInitialize();
+			deferredInitialised = true;
+		}
+
 		@Override
 		protected void doDestroy() {
 			super.doDestroy();
@@ -8,6 +8,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.uima.UimaContext;
 import org.apache.uima.fit.factory.CollectionReaderFactory;
@@ -75,6 +76,19 @@ public class BaleenCollectionReaderTest {
 	}
 
 
+	@Test
+	public void testAwaitNext() throws Exception {
+		FakeCollectionReader cr = new FakeCollectionReader();
+		cr.initialize(UimaContextFactory.createUimaContext());
+
+		long start = System.currentTimeMillis();
+		assertFalse(cr.awaitNext(100, TimeUnit.MILLISECONDS));
+		assertTrue(System.currentTimeMillis() - start >= 100);
+		assertTrue(cr.hasNext);
+
+		cr.destroy();
+	}
+
 	@Test
 	public void testStatic() throws Exception {
 		IContentExtractor extractor = BaleenCollectionReader.getContentExtractor(FakeContentExtractor.class.getCanonicalName());
@@ -2,21 +2,47 @@
 package uk.gov.dstl.baleen.uima;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.uima.UIMAException;
+import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.fit.factory.AnalysisEngineFactory;
 import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.fit.factory.ExternalResourceFactory;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.DocumentAnnotation;
+import org.apache.uima.resource.ExternalResourceDescription;
 import org.junit.Before;
 import org.junit.Test;
 
+import uk.gov.dstl.baleen.core.history.DocumentHistory;
+import uk.gov.dstl.baleen.core.history.HistoryEvent;
+import uk.gov.dstl.baleen.core.history.HistoryEvents;
+import uk.gov.dstl.baleen.core.history.memory.InMemoryBaleenHistory;
 import uk.gov.dstl.baleen.core.pipelines.orderers.AnalysisEngineAction;
+import uk.gov.dstl.baleen.core.tracing.DocumentTrace;
+import uk.gov.dstl.baleen.core.tracing.Span;
+import uk.gov.dstl.baleen.types.language.Sentence;
 import uk.gov.dstl.baleen.types.language.Text;
+import uk.gov.dstl.baleen.types.language.WordToken;
+import uk.gov.dstl.baleen.types.semantic.Entity;
 import uk.gov.dstl.baleen.uima.data.TextBlock;
 
 public class BaleenTextAwareAnnotatorTest {
@@ -51,6 +77,35 @@ public class BaleenTextAwareAnnotatorTest {
 	}
 
 
+	@Test
+	public void testProcessTextBlockIsTraced() throws AnalysisEngineProcessException {
+		final FakeTextAwareAnnotator annotator = createAnnotator(false);
+
+		final DocumentTrace trace = new DocumentTrace("test", 1, true, true);
+		final Span span = trace.startSpan("annotator", "annotator", textJCas);
+		annotator.doProcess(textJCas);
+		trace.endSpan(span, textJCas);
+
+		final List<Span> blocks = span.getChildren();
+		assertEquals(2, blocks.size());
+		assertEquals("textBlock", blocks.get(0).getCategory());
+		assertEquals(8, blocks.get(0).getArgs().get("begin"));
+		assertEquals(9, blocks.get(1).getArgs().get(DocumentTrace.INPUT_SIZE));
+	}
+
+	@Test
+	public void testProcessTextBlockIsNotTraced() throws AnalysisEngineProcessException {
+		final FakeTextAwareAnnotator annotator = createAnnotator(false);
+
+		final DocumentTrace trace = new DocumentTrace("test", 1, true, false);
+		final Span span = trace.startSpan("annotator", "annotator", textJCas);
+		annotator.doProcess(textJCas);
+		trace.endSpan(span, textJCas);
+
+		assertEquals(0, span.getChildren().size());
+		assertEquals(2, annotator.getCount());
+	}
+
 	@Test
 	public void testGetTextInBlocksForTextBlocks() {
 		final FakeTextAwareAnnotator annotator = createAnnotator(false);
@@ -98,10 +153,236 @@ public class BaleenTextAwareAnnotatorTest {
 		assertEquals("This is text and more text", list.get(0).getCoveredText());
 	}
 
+	@Test
+	public void testShardedSentences() throws Exception {
+		final JCas jCas = createLargeJCas(true);
+		assertSharded(jCas);
+		assertEquals(100, JCasUtil.select(jCas, Sentence.class).size());
+	}
+
+	@Test
+	public void testShardedWithoutSentences() throws Exception {
+		assertSharded(createLargeJCas(false));
+	}
+
+	@Test
+	public void testShardedTextBlocks() throws Exception {
+		final JCas jCas = createLargeJCas(false);
+		new Text(jCas, 0, 500).addToIndexes();
+		new Text(jCas, 600, 2000).addToIndexes();
+		assertSharded(jCas);
+		assertEquals(0, JCasUtil.selectCovered(jCas, WordToken.class, 500, 600).size());
+	}
+
+	@Test
+	public void testShardPoolShared() throws Exception {
+		PoolAnnotator.POOLS.clear();
+		final AnalysisEngine ae1 = AnalysisEngineFactory.createEngine(PoolAnnotator.class,
+				BaleenTextAwareAnnotator.PARAM_SHARD_THRESHOLD, 1000, BaleenTextAwareAnnotator.PARAM_SHARD_SIZE, 250,
+				BaleenTextAwareAnnotator.PARAM_SHARD_THREADS, 3);
+		final AnalysisEngine ae2 = AnalysisEngineFactory.createEngine(PoolAnnotator.class,
+				BaleenTextAwareAnnotator.PARAM_SHARD_THRESHOLD, 1000, BaleenTextAwareAnnotator.PARAM_SHARD_SIZE, 250,
+				BaleenTextAwareAnnotator.PARAM_SHARD_THREADS, 3);
+
+		ae1.process(createLargeJCas(true));
+		ae2.process(createLargeJCas(true));
+		assertEquals(1, PoolAnnotator.POOLS.size());
+
+		final ForkJoinPool pool = PoolAnnotator.POOLS.iterator().next();
+		assertEquals(3, pool.getParallelism());
+
+		// The pool is shut down once the last annotator using it is destroyed
+		ae1.destroy();
+		assertFalse(pool.isShutdown());
+		ae2.destroy();
+		assertTrue(pool.isShutdown());
+	}
+
+	@Test
+	public void testShardFailureJoinsNothing() throws Exception {
+		final JCas jCas = createLargeJCas(true);
+		final AnalysisEngine ae = createShardingEngine(FailingAnnotator.class);
+		try {
+			ae.process(jCas);
+			fail("Expected exception not thrown");
+		} catch (final AnalysisEngineProcessException e) {
+			// Expected exception
+		} finally {
+			ae.destroy();
+		}
+
+		assertEquals(0, JCasUtil.select(jCas, WordToken.class).size());
+	}
+
+	@Test
+	public void testShardConflictProcessedSequentially() throws Exception {
+		final JCas jCas = createLargeJCas(true);
+		AnalysisEngineFactory.createEngine(WordAnnotator.class).process(jCas);
+
+		// Changes to existing annotations can't be joined, so the document is processed without sharding
+		final AnalysisEngine ae = createShardingEngine(TaggingAnnotator.class);
+		ae.process(jCas);
+		ae.destroy();
+
+		final Collection<WordToken> words = JCasUtil.select(jCas, WordToken.class);
+		assertEquals(500, words.size());
+		assertTrue(words.stream().allMatch(w -> "NN".equals(w.getPartOfSpeech())));
+	}
+
+	@Test
+	public void testShardHistoryRecordedAgainstDocument() throws Exception {
+		RecordingHistory.DOCUMENT_IDS.clear();
+		final JCas jCas = createLargeJCas(true);
+		final String documentId = "unknown:" + ((DocumentAnnotation) jCas.getDocumentAnnotationFs()).getHash();
+
+		final ExternalResourceDescription erd = ExternalResourceFactory.createExternalResourceDescription(
+				BaleenAnnotator.KEY_HISTORY, RecordingHistory.class);
+		final AnalysisEngine ae = AnalysisEngineFactory.createEngine(EntityAnnotator.class, BaleenAnnotator.KEY_HISTORY, erd,
+				BaleenTextAwareAnnotator.PARAM_SHARD_THRESHOLD, 1000, BaleenTextAwareAnnotator.PARAM_SHARD_SIZE, 250,
+				BaleenTextAwareAnnotator.PARAM_SHARD_THREADS, 4);
+		ae.process(jCas);
+
+		final RecordingHistory history = (RecordingHistory) ae.getUimaContext().getResourceObject(BaleenAnnotator.KEY_HISTORY);
+		assertEquals(Collections.singleton(documentId), RecordingHistory.DOCUMENT_IDS);
+
+		final DocumentHistory documentHistory = history.getHistory(documentId);
+		final Map<Long, Entity> entities = JCasUtil.select(jCas, Entity.class).stream()
+				.collect(Collectors.toMap(Entity::getInternalId, e -> e));
+		assertEquals(500, entities.size());
+		assertEquals(500, documentHistory.getAllHistory().size());
+
+		// Each event refers to the joined entity, at its position in the original document
+		for (final HistoryEvent event : documentHistory.getAllHistory()) {
+			assertEquals(HistoryEvents.ADDED_TYPE, event.getEventType());
+			final Entity entity = entities.get(event.getRecordable().getInternalId());
+			assertEquals(entity.getBegin(), event.getRecordable().getBegin());
+			assertEquals(entity.getEnd(), event.getRecordable().getEnd());
+			assertEquals(entity.getCoveredText(), event.getRecordable().getCoveredText());
+		}
+
+		ae.destroy();
+	}
+
+	private static AnalysisEngine createShardingEngine(final Class<? extends BaleenTextAwareAnnotator> clazz) throws UIMAException {
+		return AnalysisEngineFactory.createEngine(clazz, BaleenTextAwareAnnotator.PARAM_SHARD_THRESHOLD, 1000,
+				BaleenTextAwareAnnotator.PARAM_SHARD_SIZE, 250, BaleenTextAwareAnnotator.PARAM_SHARD_THREADS, 4);
+	}
+
+	private JCas createLargeJCas(final boolean sentences) throws UIMAException {
+		final JCas jCas = JCasFactory.createJCas();
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			final int begin = sb.length();
+			sb.append("This is sentence number ").append(i).append('.');
+			if (sentences) {
+				new Sentence(jCas, begin, sb.length()).addToIndexes();
+			}
+			sb.append(i % 10 == 9 ? '\n' : ' ');
+		}
+		jCas.setDocumentText(sb.toString());
+		return jCas;
+	}
+
+	private void assertSharded(final JCas jCas) throws UIMAException {
+		final JCas expected = JCasFactory.createJCas();
+		expected.setDocumentText(jCas.getDocumentText());
+		for (final Text t : JCasUtil.select(jCas, Text.class)) {
+			new Text(expected, t.getBegin(), t.getEnd()).addToIndexes();
+		}
+		AnalysisEngineFactory.createEngine(WordAnnotator.class).process(expected);
+
+		final AnalysisEngine ae = AnalysisEngineFactory.createEngine(WordAnnotator.class,
+				BaleenTextAwareAnnotator.PARAM_SHARD_THRESHOLD, 1000, BaleenTextAwareAnnotator.PARAM_SHARD_SIZE, 250,
+				BaleenTextAwareAnnotator.PARAM_SHARD_THREADS, 4);
+		ae.process(jCas);
+		ae.destroy();
+
+		assertEquals(toStrings(expected), toStrings(jCas));
+	}
+
+	private static List<String> toStrings(final JCas jCas) {
+		return JCasUtil.select(jCas, WordToken.class).stream()
+				.map(w -> w.getBegin() + "-" + w.getEnd() + ":" + w.getCoveredText())
+				.collect(Collectors.toList());
+	}
+
 	public FakeTextAwareAnnotator createAnnotator(final boolean wholeDoc) {
 		return new FakeTextAwareAnnotator(wholeDoc);
 	}
 
+	public static class WordAnnotator extends BaleenTextAwareAnnotator {
+		private static final Pattern WORD = Pattern.compile("\\w+");
+
+		@Override
+		protected boolean isShardable() {
+			return true;
+		}
+
+		@Override
+		protected void doProcessTextBlock(final TextBlock block) throws AnalysisEngineProcessException {
+			final Matcher m = WORD.matcher(block.getCoveredText());
+			while (m.find()) {
+				addToJCasIndex(block.newAnnotation(WordToken.class, m.start(), m.end()));
+			}
+		}
+
+		@Override
+		public AnalysisEngineAction getAction() {
+			return new AnalysisEngineAction(Collections.emptySet(), Collections.emptySet());
+		}
+	}
+
+	public static class FailingAnnotator extends WordAnnotator {
+		@Override
+		protected void doProcessTextBlock(final TextBlock block) throws AnalysisEngineProcessException {
+			super.doProcessTextBlock(block);
+			if (block.getCoveredText().contains("number 99.")) {
+				throw new AnalysisEngineProcessException();
+			}
+		}
+	}
+
+	public static class TaggingAnnotator extends WordAnnotator {
+		@Override
+		protected void doProcessTextBlock(final TextBlock block) throws AnalysisEngineProcessException {
+			for (final WordToken w : JCasUtil.selectCovered(block.getJCas(), WordToken.class, block.getBegin(), block.getEnd())) {
+				w.setPartOfSpeech("NN");
+			}
+		}
+	}
+
+	public static class EntityAnnotator extends WordAnnotator {
+		private static final Pattern WORD = Pattern.compile("\\w+");
+
+		@Override
+		protected void doProcessTextBlock(final TextBlock block) throws AnalysisEngineProcessException {
+			final Matcher m = WORD.matcher(block.getCoveredText());
+			while (m.find()) {
+				addToJCasIndex(block.newAnnotation(Entity.class, m.start(), m.end()));
+			}
+		}
+	}
+
+	public static class RecordingHistory extends InMemoryBaleenHistory {
+		private static final Set<String> DOCUMENT_IDS = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public synchronized DocumentHistory getHistory(final String documentId) {
+			DOCUMENT_IDS.add(documentId);
+			return super.getHistory(documentId);
+		}
+	}
+
+	public static class PoolAnnotator extends WordAnnotator {
+		private static final Set<ForkJoinPool> POOLS = ConcurrentHashMap.newKeySet();
+
+		@Override
+		protected void doProcessTextBlock(final TextBlock block) throws AnalysisEngineProcessException {
+			POOLS.add(ForkJoinTask.getPool());
+			super.doProcessTextBlock(block);
+		}
+	}
+
 	public static class FakeTextAwareAnnotator extends BaleenTextAwareAnnotator {
 		private final Set<TextBlock> blocksSeen = new HashSet<>();
 
@@ -3,10 +3,14 @@ package uk.gov.dstl.baleen.uima;
 
 import static org.junit.Assert.*;
 
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
 import org.junit.Test;
 
 import uk.gov.dstl.baleen.core.metrics.Metrics;
 import uk.gov.dstl.baleen.core.metrics.MetricsFactory;
+import uk.gov.dstl.baleen.core.metrics.ProcessingMetrics;
 
 public class UimaMonitorTest {
 	private static final String ENTITY_TYPE_1 = "type_1";
@@ -68,6 +72,26 @@ public class UimaMonitorTest {
 		assertTrue(m.getTimer(FUNCTION).getSnapshot().getValues()[0] > 0);
 	}
 
+	@Test
+	public void testProcessing() throws Exception {
+		UimaMonitor monitor = new UimaMonitor(PIPELINE, this.getClass());
+		JCas jCas = JCasFactory.createJCas();
+		jCas.setDocumentText("Hello world");
+
+		monitor.startProcessing(jCas);
+		for (int i = 0; i < 100; i++) {
+			new Annotation(jCas, 0, 5).addToIndexes();
+		}
+		monitor.finishProcessing(jCas);
+
+		ProcessingMetrics pm = MetricsFactory.getInstance().getProcessingMetrics(PIPELINE, this.getClass());
+		assertSame(pm, monitor.getProcessingMetrics());
+		assertEquals(1, pm.getLatency().getCount());
+		assertEquals(11, pm.getCharacters());
+		assertEquals(1, pm.getCasHeapGrowth().getCount());
+		assertTrue(pm.getCasHeapGrowth().getSum() > 0);
+	}
+
 	@Test
 	public void testMetrics() {
 		UimaMonitor monitor = new UimaMonitor(PIPELINE,this.getClass());
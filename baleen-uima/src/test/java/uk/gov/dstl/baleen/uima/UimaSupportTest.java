@@ -31,6 +31,7 @@ import uk.gov.dstl.baleen.types.semantic.Location;
 import uk.gov.dstl.baleen.types.semantic.ReferenceTarget;
 import uk.gov.dstl.baleen.types.semantic.Relation;
 import uk.gov.dstl.baleen.uima.testing.JCasSingleton;
+import uk.gov.dstl.baleen.uima.utils.RelationIndex;
 
 @RunWith(MockitoJUnitRunner.Silent.class)
 public class UimaSupportTest {
@@ -317,6 +318,84 @@ public class UimaSupportTest {
 		assertEquals(p3, relations.get(0).getTarget());
 	}
 
+	
+	@Test
+	public void testRemoveWithRelation() {
+		UimaSupport support = new UimaSupport(PIPELINE, UimaSupportTest.class, history, monitor, false);
+
+		Person p1 = new Person(jCas);
+		p1.setBegin(0);
+		p1.setEnd(4);
+		support.add(p1);
+
+		Person p2 = new Person(jCas);
+		p2.setBegin(5);
+		p2.setEnd(8);
+		support.add(p2);
+		
+		Relation r = new Relation(jCas);
+		r.setBegin(0);
+		r.setEnd(8);
+		r.setSource(p1);
+		r.setTarget(p2);
+		support.add(r);
+		
+		assertEquals(1, support.getRelations(p2).size());
+		
+		Relation r2 = new Relation(jCas);
+		r2.setBegin(0);
+		r2.setEnd(8);
+		r2.setSource(p2);
+		r2.setTarget(p1);
+		support.add(r2);
+		
+		assertEquals(2, support.getRelations(p2).size());
+
+		support.remove(p1);
+
+		assertEquals(0, JCasUtil.select(jCas, Relation.class).size());
+		assertEquals(0, support.getRelations(p2).size());
+	}
+
+	@Test
+	public void testRemoveWithRelationEditedInPlace() {
+		UimaSupport support = new UimaSupport(PIPELINE, UimaSupportTest.class, history, monitor, false);
+
+		Person p1 = new Person(jCas);
+		p1.setBegin(0);
+		p1.setEnd(4);
+		support.add(p1);
+
+		Person p2 = new Person(jCas);
+		p2.setBegin(5);
+		p2.setEnd(8);
+		support.add(p2);
+
+		Person p3 = new Person(jCas);
+		p3.setBegin(9);
+		p3.setEnd(12);
+		support.add(p3);
+		
+		Relation r = new Relation(jCas);
+		r.setBegin(0);
+		r.setEnd(8);
+		r.setSource(p1);
+		r.setTarget(p2);
+		support.add(r);
+		
+		assertEquals(1, support.getRelations(p1).size());
+		
+		//Retarget the relation directly, after the index has been built, and then validate the index as is
+		//done before each annotator runs
+		r.setSource(p3);
+		RelationIndex.validate(jCas);
+
+		support.remove(p3);
+
+		assertEquals(0, JCasUtil.select(jCas, Relation.class).size());
+		assertEquals(0, support.getRelations(p1).size());
+		assertEquals(0, support.getRelations(p2).size());
+	}
 
 	@Test
 	public void testGetDocumentAnnotation() {
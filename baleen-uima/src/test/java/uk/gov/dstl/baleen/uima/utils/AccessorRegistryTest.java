@@ -0,0 +1,80 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.types.semantic.Location;
+import uk.gov.dstl.baleen.uima.testing.JCasSingleton;
+
+public class AccessorRegistryTest {
+	@Test
+	public void testSetters() throws UIMAException, InvocationTargetException {
+		JCas jCas = JCasSingleton.getJCasInstance();
+		Location location = new Location(jCas, 0, 6);
+
+		Map<String, PropertySetter> setters = AccessorRegistry.getSetters(Location.class);
+		assertSame(setters, AccessorRegistry.getSetters(Location.class));
+
+		PropertySetter geoJson = setters.get("geoJson");
+		assertNotNull(geoJson);
+		assertEquals(String.class, geoJson.getParameterType());
+		geoJson.set(location, "{}");
+		assertEquals("{}", location.getGeoJson());
+
+		PropertySetter confidence = setters.get("confidence");
+		assertEquals(double.class, confidence.getParameterType());
+		confidence.set(location, 0.5);
+		assertEquals(0.5, location.getConfidence(), 0.0);
+
+		assertNull(setters.get("GeoJson"));
+		assertNull(setters.get("coveredText"));
+	}
+
+	@Test(expected = InvocationTargetException.class)
+	public void testSetWrongType() throws UIMAException, InvocationTargetException {
+		JCas jCas = JCasSingleton.getJCasInstance();
+		Location location = new Location(jCas, 0, 6);
+
+		AccessorRegistry.getSetters(Location.class).get("geoJson").set(location, 1);
+	}
+
+	@Test
+	public void testFeatures() throws UIMAException {
+		JCas jCas = JCasSingleton.getJCasInstance();
+		Location location = new Location(jCas, 0, 6);
+
+		List<FeatureAccessor> features = AccessorRegistry.getFeatures(location.getType());
+		assertSame(features, AccessorRegistry.getFeatures(location.getType()));
+		assertEquals(location.getType().getFeatures().size(), features.size());
+
+		Optional<FeatureAccessor> geoJson = features.stream().filter(f -> "geoJson".equals(f.getShortName())).findFirst();
+		assertTrue(geoJson.isPresent());
+		assertEquals("geoJson", geoJson.get().getCamelCaseName());
+		assertTrue(geoJson.get().isPrimitive());
+		assertFalse(geoJson.get().isArray());
+
+		FeatureAccessor referent = features.stream().filter(f -> "referent".equals(f.getShortName())).findFirst().get();
+		assertFalse(referent.isPrimitive());
+		assertFalse(referent.isPrimitiveArray());
+	}
+
+	@Test
+	public void testToCamelCase() {
+		assertEquals("geoJson", AccessorRegistry.toCamelCase("GeoJson"));
+		assertEquals("value", AccessorRegistry.toCamelCase("value"));
+	}
+}
@@ -0,0 +1,179 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.types.common.Person;
+import uk.gov.dstl.baleen.types.language.Dependency;
+import uk.gov.dstl.baleen.types.language.Sentence;
+import uk.gov.dstl.baleen.types.language.WordToken;
+import uk.gov.dstl.baleen.types.semantic.Entity;
+import uk.gov.dstl.baleen.types.semantic.Location;
+import uk.gov.dstl.baleen.uima.UimaMonitor;
+import uk.gov.dstl.baleen.uima.UimaSupport;
+import uk.gov.dstl.baleen.uima.grammar.DependencyGraph;
+import uk.gov.dstl.baleen.uima.testing.JCasSingleton;
+
+public class DerivedIndexCacheTest {
+	private static final String PIPELINE = "pipeline";
+
+	private JCas jCas;
+	private UimaSupport support;
+
+	@Before
+	public void setUp() throws UIMAException {
+		jCas = JCasSingleton.getJCasInstance();
+		jCas.setDocumentText("Dave met Bob. Jim went to London.");
+
+		new Sentence(jCas, 0, 13).addToIndexes();
+		new Sentence(jCas, 14, 33).addToIndexes();
+		new WordToken(jCas, 0, 4).addToIndexes();
+		new WordToken(jCas, 5, 8).addToIndexes();
+		new WordToken(jCas, 9, 12).addToIndexes();
+
+		support = new UimaSupport(PIPELINE, DerivedIndexCacheTest.class, null,
+				new UimaMonitor(PIPELINE, DerivedIndexCacheTest.class), false);
+	}
+
+	@Test
+	public void testIndexCovered() {
+		Map<Sentence, Collection<WordToken>> index = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+
+		assertEquals(1, index.size());
+		assertSame(index, DerivedIndexCache.indexCovered(jCas, Sentence.class, WordToken.class));
+
+		Sentence first = index.keySet().iterator().next();
+		assertEquals(3, index.get(first).size());
+
+		Map<WordToken, Collection<Sentence>> covering = DerivedIndexCache.indexCovering(jCas, WordToken.class,
+				Sentence.class);
+		assertEquals(3, covering.size());
+		assertNotSame(index, covering);
+	}
+
+	@Test
+	public void testInvalidatedBySupport() {
+		Map<Sentence, Collection<WordToken>> index = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+
+		// Unrelated types leave the index in place
+		support.add(new Location(jCas, 26, 32));
+		assertSame(index, DerivedIndexCache.indexCovered(jCas, Sentence.class, WordToken.class));
+
+		WordToken word = new WordToken(jCas, 14, 17);
+		support.add(word);
+		Map<Sentence, Collection<WordToken>> added = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+		assertNotSame(index, added);
+		assertEquals(4, added.values().stream().mapToInt(Collection::size).sum());
+
+		support.remove(word);
+		Map<Sentence, Collection<WordToken>> removed = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+		assertNotSame(added, removed);
+		assertEquals(3, removed.values().stream().mapToInt(Collection::size).sum());
+	}
+
+	@Test
+	public void testInvalidatedBySubtype() {
+		Map<Sentence, Collection<Location>> locations = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				Location.class);
+		Map<Sentence, Collection<Entity>> entities = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				Entity.class);
+
+		support.add(new Person(jCas, 0, 4));
+
+		assertSame(locations, DerivedIndexCache.indexCovered(jCas, Sentence.class, Location.class));
+		assertNotSame(entities, DerivedIndexCache.indexCovered(jCas, Sentence.class, Entity.class));
+	}
+
+	@Test
+	public void testDirectChangesDetected() {
+		Map<Sentence, Collection<WordToken>> index = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+
+		new WordToken(jCas, 14, 17).addToIndexes();
+
+		assertNotSame(index, DerivedIndexCache.indexCovered(jCas, Sentence.class, WordToken.class));
+	}
+
+	@Test
+	public void testOffsetsChanged() {
+		Map<Sentence, Collection<WordToken>> index = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+		Map<Sentence, Collection<Location>> locations = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				Location.class);
+
+		WordToken moved = JCasUtil.selectByIndex(jCas, WordToken.class, 0);
+		moved.setBegin(14);
+		moved.setEnd(17);
+		DerivedIndexCache.invalidate(moved);
+
+		Map<Sentence, Collection<WordToken>> updated = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+		assertNotSame(index, updated);
+		assertEquals(2, updated.get(JCasUtil.selectByIndex(jCas, Sentence.class, 0)).size());
+		assertEquals(1, updated.get(JCasUtil.selectByIndex(jCas, Sentence.class, 1)).size());
+		assertSame(locations, DerivedIndexCache.indexCovered(jCas, Sentence.class, Location.class));
+	}
+
+	@Test
+	public void testInvalidate() {
+		Map<Sentence, Collection<WordToken>> index = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+
+		DerivedIndexCache.invalidate(jCas);
+
+		assertNotSame(index, DerivedIndexCache.indexCovered(jCas, Sentence.class, WordToken.class));
+	}
+
+	@Test
+	public void testReset() {
+		Map<Sentence, Collection<WordToken>> index = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+
+		jCas.reset();
+		jCas.setDocumentText("Dave met Bob. Jim went to London.");
+
+		Map<Sentence, Collection<WordToken>> reset = DerivedIndexCache.indexCovered(jCas, Sentence.class,
+				WordToken.class);
+		assertNotSame(index, reset);
+		assertEquals(0, reset.size());
+	}
+
+	@Test
+	public void testDependencyGraph() {
+		WordToken[] words = JCasUtil.select(jCas, WordToken.class).toArray(new WordToken[0]);
+		Dependency dependency = new Dependency(jCas, 0, 4);
+		dependency.setGovernor(words[1]);
+		dependency.setDependent(words[0]);
+		dependency.setDependencyType("nsubj");
+		dependency.addToIndexes();
+
+		DependencyGraph graph = DependencyGraph.getInstance(jCas);
+		assertEquals(2, graph.getWords().size());
+		assertSame(graph, DependencyGraph.getInstance(jCas));
+
+		Dependency object = new Dependency(jCas, 9, 12);
+		object.setGovernor(words[1]);
+		object.setDependent(words[2]);
+		object.setDependencyType("dobj");
+		support.add(object);
+
+		DependencyGraph updated = DependencyGraph.getInstance(jCas);
+		assertNotSame(graph, updated);
+		assertEquals(3, updated.getWords().size());
+	}
+}
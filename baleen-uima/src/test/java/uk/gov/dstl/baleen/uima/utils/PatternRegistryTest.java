@@ -0,0 +1,41 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+
+public class PatternRegistryTest {
+
+	@Test
+	public void testCompile() {
+		Pattern p = PatternRegistry.compile("\\bregistry test\\b");
+
+		assertEquals("\\bregistry test\\b", p.pattern());
+		assertEquals(0, p.flags());
+		assertSame(p, PatternRegistry.compile("\\bregistry test\\b"));
+		assertSame(p, PatternRegistry.compile("\\bregistry test\\b", 0));
+	}
+
+	@Test
+	public void testFlags() {
+		Pattern p = PatternRegistry.compile("registry flags");
+		Pattern ci = PatternRegistry.compile("registry flags", Pattern.CASE_INSENSITIVE);
+
+		assertNotSame(p, ci);
+		assertEquals(Pattern.CASE_INSENSITIVE, ci.flags());
+		assertSame(ci, PatternRegistry.compile("registry flags", Pattern.CASE_INSENSITIVE));
+		assertTrue(ci.matcher("Registry FLAGS").matches());
+	}
+
+	@Test(expected = PatternSyntaxException.class)
+	public void testInvalid() {
+		PatternRegistry.compile("registry (invalid");
+	}
+}
@@ -0,0 +1,166 @@
+//Dstl (c) Crown Copyright 2017
+package uk.gov.dstl.baleen.uima.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.jcas.JCas;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.dstl.baleen.types.common.Person;
+import uk.gov.dstl.baleen.types.semantic.Entity;
+import uk.gov.dstl.baleen.types.semantic.Relation;
+import uk.gov.dstl.baleen.uima.testing.JCasSingleton;
+
+public class RelationIndexTest {
+	private JCas jCas;
+	private Person p1;
+	private Person p2;
+	private Person p3;
+	private Relation r1;
+	private Relation r2;
+	
+	@Before
+	public void setUp() throws UIMAException{
+		jCas = JCasSingleton.getJCasInstance();
+		jCas.setDocumentText("Dave met Bob and Jim");
+		
+		p1 = createPerson(0, 4);
+		p2 = createPerson(9, 12);
+		p3 = createPerson(17, 20);
+		
+		r1 = createRelation(p1, p2);
+		r2 = createRelation(p2, p3);
+	}
+	
+	@Test
+	public void testGetRelations(){
+		RelationIndex index = RelationIndex.getInstance(jCas);
+		
+		assertEquals(1, index.getRelations(p1).size());
+		assertEquals(r1, index.getRelations(p1).get(0));
+		
+		List<Relation> relations = index.getRelations(p2);
+		assertEquals(2, relations.size());
+		assertTrue(relations.contains(r1));
+		assertTrue(relations.contains(r2));
+		
+		assertEquals(1, index.getRelations(p3).size());
+		assertEquals(r2, index.getRelations(p3).get(0));
+		
+		assertTrue(index.getRelations(createPerson(5, 8)).isEmpty());
+	}
+	
+	@Test
+	public void testInstance() throws UIMAException{
+		RelationIndex index = RelationIndex.getInstance(jCas);
+		assertSame(index, RelationIndex.getInstance(jCas));
+		assertSame(index, RelationIndex.getExistingInstance(jCas));
+		
+		//Adding a relation directly to the CAS causes the index to be rebuilt
+		Relation r3 = createRelation(p1, p3);
+		RelationIndex rebuilt = RelationIndex.getInstance(jCas);
+		assertNotSame(index, rebuilt);
+		assertEquals(2, rebuilt.getRelations(p3).size());
+		assertTrue(rebuilt.getRelations(p3).contains(r3));
+		
+		//Resetting the CAS causes the index to be rebuilt
+		jCas.reset();
+		jCas.setDocumentText("Dave met Bob and Jim");
+		assertNull(RelationIndex.getExistingInstance(jCas));
+		assertNotSame(rebuilt, RelationIndex.getInstance(jCas));
+	}
+	
+	@Test
+	public void testAddAndRemove(){
+		RelationIndex index = RelationIndex.getInstance(jCas);
+		
+		Relation r3 = createRelation(p1, p3);
+		index.add(r3);
+		assertSame(index, RelationIndex.getInstance(jCas));
+		assertEquals(2, index.getRelations(p1).size());
+		
+		r1.removeFromIndexes();
+		index.remove(r1);
+		assertSame(index, RelationIndex.getInstance(jCas));
+		assertEquals(1, index.getRelations(p1).size());
+		assertEquals(r3, index.getRelations(p1).get(0));
+		assertEquals(1, index.getRelations(p2).size());
+		assertEquals(r2, index.getRelations(p2).get(0));
+	}
+	
+	@Test
+	public void testUpdate(){
+		RelationIndex index = RelationIndex.getInstance(jCas);
+		
+		r2.setSource(p1);
+		index.update(r2);
+		
+		assertEquals(1, index.getRelations(p2).size());
+		assertEquals(r1, index.getRelations(p2).get(0));
+		assertEquals(2, index.getRelations(p1).size());
+		assertTrue(index.getRelations(p1).contains(r2));
+	}
+	
+	@Test
+	public void testSwapRebuilds(){
+		RelationIndex index = RelationIndex.getInstance(jCas);
+		
+		//Swap one relation for another directly in the CAS, so the number of relations is unchanged
+		r1.removeFromIndexes();
+		Relation r3 = createRelation(p3, p1);
+		
+		//The swap isn't seen until the index is validated, as is done before each annotator runs
+		assertSame(index, RelationIndex.getInstance(jCas));
+		RelationIndex.validate(jCas);
+		assertNull(RelationIndex.getExistingInstance(jCas));
+		
+		RelationIndex rebuilt = RelationIndex.getInstance(jCas);
+		assertNotSame(index, rebuilt);
+		assertEquals(1, rebuilt.getRelations(p1).size());
+		assertEquals(r3, rebuilt.getRelations(p1).get(0));
+		assertEquals(1, rebuilt.getRelations(p2).size());
+		assertEquals(r2, rebuilt.getRelations(p2).get(0));
+		assertEquals(2, rebuilt.getRelations(p3).size());
+	}
+	
+	@Test
+	public void testSourceEditedInPlaceRebuilds(){
+		RelationIndex index = RelationIndex.getInstance(jCas);
+		
+		//Change the source of a relation directly, without telling the index
+		r1.setSource(p3);
+		assertSame(index, RelationIndex.getInstance(jCas));
+		RelationIndex.validate(jCas);
+		
+		RelationIndex rebuilt = RelationIndex.getInstance(jCas);
+		assertNotSame(index, rebuilt);
+		assertTrue(rebuilt.getRelations(p1).isEmpty());
+		assertEquals(2, rebuilt.getRelations(p3).size());
+		assertTrue(rebuilt.getRelations(p3).contains(r1));
+		
+		RelationIndex.validate(jCas);
+		assertSame(rebuilt, RelationIndex.getInstance(jCas));
+	}
+	
+	private Person createPerson(int begin, int end){
+		Person p = new Person(jCas, begin, end);
+		p.addToIndexes();
+		return p;
+	}
+	
+	private Relation createRelation(Entity source, Entity target){
+		Relation r = new Relation(jCas, source.getBegin(), target.getEnd());
+		r.setSource(source);
+		r.setTarget(target);
+		r.addToIndexes();
+		return r;
+	}
+}
@@ -2,6 +2,8 @@
 package uk.gov.dstl.baleen.uima.utils.select;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -69,6 +71,20 @@ public class QueryParserTest {
         QueryParser.parse("S1:eq(1) S2:lt(3) > S3[s$=t]").toString());
   }
 
+  @Test
+  public void testParsedQueriesAreCached() {
+    Evaluator<Object> eval = QueryParser.parse("Table > TableRow:nth-child(2)");
+    assertSame(eval, QueryParser.parse("Table > TableRow:nth-child(2)"));
+  }
+
+  @Test
+  public void testRequiredTypeName() {
+    assertEquals("tablerow", QueryParser.parse("Table > TableRow:nth-child(2)").getRequiredTypeName());
+    assertEquals("paragraph", QueryParser.parse("Paragraph.left").getRequiredTypeName());
+    assertNull(QueryParser.parse(".left").getRequiredTypeName());
+    assertNull(QueryParser.parse("Paragraph, Section").getRequiredTypeName());
+  }
+
   @Test(expected = Selector.SelectorParseException.class)
   public void exceptionOnUncloseAttribute() {
     QueryParser.parse("section > a[href=\"]");
@@ -4,6 +4,8 @@ package uk.gov.dstl.baleen.uima.utils.select;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import org.apache.uima.UIMAException;
 import org.apache.uima.jcas.JCas;
@@ -348,6 +350,39 @@ public class SelectTest {
   }
 
 
+  @Test
+  public void indexedSelectMatchesTraversal() {
+    String[] queries = {"Paragraph", "section paragraph", "Section:nth-of-type(1) :nth-child(3)",
+        "Section > Paragraph:last-child", "Section:has(Style)", "Break + Paragraph", "STYLE"};
+    for (String query : queries) {
+      Evaluator<Structure> evaluator = QueryParser.parse(query);
+      Nodes<Structure> expected = Collector.collect(evaluator, root);
+      assertEquals(query, expected, root.select(query));
+      assertEquals(query, expected, root.select(query));
+    }
+  }
+
+  @Test
+  public void siblings() {
+    Node<Structure> first = root.select("Section:nth-of-type(1) :first-child").get(0);
+    assertNull(first.previousSibling());
+
+    Node<Structure> second = first.nextSibling();
+    assertEquals("2", second.getItem().getCoveredText());
+    assertEquals(1, second.getSiblingIndex());
+    assertEquals(1, second.getTypeIndex());
+    assertSame(first, second.previousSibling());
+    assertEquals(10, first.getParent().getChildCount());
+  }
+
+  @Test
+  public void hierarchyIsCached() throws UIMAException {
+    StructureHierarchy hierarchy =
+        StructureHierarchy.getInstance(jCas, StructureUtil.getStructureClasses());
+    assertSame(hierarchy,
+        StructureHierarchy.getInstance(jCas, StructureUtil.getStructureClasses()));
+  }
+
   @Test
   public void root() {
     Nodes<Structure> sel = root.select(":root");